@@ -45,6 +45,13 @@ tasks.register("testClasses") {
 }
 
 
+tasks.register("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks of hivemq-edge-benchmarks"
+
+    dependsOn(gradle.includedBuild("hivemq-edge-benchmarks").task(":jmh"))
+}
+
 gradle.startParameter.taskNames.forEach { task ->
     if (tasks.findByName(task) == null) {
         tasks.register(task) {
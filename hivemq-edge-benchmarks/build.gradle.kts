@@ -0,0 +1,81 @@
+plugins {
+    id("java")
+    id("com.github.sgtsilvio.gradle.utf8")
+    id("com.github.hierynomus.license")
+    id("me.champeau.jmh")
+}
+
+group = "com.hivemq"
+description = "JMH benchmarks for the hot paths of HiveMQ Edge and its protocol adapters"
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(11))
+    }
+}
+
+repositories {
+    mavenCentral()
+    exclusiveContent {
+        forRepository {
+            maven {
+                url = uri("https://jitpack.io")
+            }
+        }
+        filter {
+            includeGroup("com.github.simon622.mqtt-sn")
+            includeGroup("com.github.simon622")
+        }
+    }
+}
+
+dependencies {
+    jmh("com.hivemq:hivemq-edge")
+    jmh("com.hivemq:hivemq-edge-module-opcua")
+
+    jmh("io.netty:netty-buffer:${property("netty.version")}")
+    jmh("io.netty:netty-transport:${property("netty.version")}")
+    jmh("io.netty:netty-handler:${property("netty.version")}")
+    jmh("com.google.guava:guava:${property("guava.version")}")
+    jmh("io.dropwizard.metrics:metrics-core:${property("metrics.version")}")
+    jmh("com.google.dagger:dagger:${property("dagger.version")}")
+    jmh("com.fasterxml.jackson.core:jackson-databind:${property("jackson.version")}")
+    jmh("org.eclipse.milo:sdk-client:${property("milo.version")}")
+    jmh("com.hivemq:hivemq-mqtt-client:${property("hivemq-mqtt-client.version")}")
+}
+
+/* ******************** jmh ******************** */
+
+/*
+ * All settings are pinned here instead of relying on JMH defaults so that results of different commits are
+ * comparable. Select a subset with -PjmhIncludes=<regex>, e.g. ./gradlew jmh -PjmhIncludes=LocalTopicTree
+ * and attach profilers with -PjmhProfilers=<comma separated list>, e.g. -PjmhProfilers=gc for the allocation rates.
+ */
+jmh {
+    jmhVersion.set("${property("jmh.version")}")
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf("${property("jmhIncludes")}"))
+    }
+    if (project.hasProperty("jmhProfilers")) {
+        profilers.set("${property("jmhProfilers")}".split(","))
+    }
+    fork.set(2)
+    warmupIterations.set(5)
+    warmup.set("1s")
+    iterations.set(10)
+    timeOnIteration.set("1s")
+    timeUnit.set("us")
+    benchmarkMode.set(listOf("avgt", "thrpt"))
+    failOnError.set(true)
+    jvmArgs.set(listOf("-Xms2g", "-Xmx2g", "-XX:+UseG1GC"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    humanOutputFile.set(layout.buildDirectory.file("results/jmh/human.txt"))
+}
+
+/* ******************** compliance ******************** */
+
+license {
+    header = file("HEADER")
+    mapping("java", "SLASHSTAR_STYLE")
+}
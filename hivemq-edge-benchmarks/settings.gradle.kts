@@ -0,0 +1,32 @@
+rootProject.name = "hivemq-edge-benchmarks"
+
+pluginManagement {
+    /*
+     * The benchmarks use the same dependency and plugin versions as the code under benchmark, so they are read from
+     * the builds of hivemq-edge and the modules instead of being repeated here. Versions of hivemq-edge take
+     * precedence over the ones of the modules.
+     */
+    listOf("../hivemq-edge/gradle.properties", "../modules/hivemq-edge-module-opcua/gradle.properties").forEach {
+        val properties = java.util.Properties()
+        file(it).reader().use { reader -> properties.load(reader) }
+        properties.forEach { (name, value) ->
+            if (!extra.has(name as String)) {
+                extra[name] = value
+            }
+        }
+    }
+
+    plugins {
+        id("com.github.sgtsilvio.gradle.utf8") version "${extra["plugin.utf8.version"]}"
+        id("com.github.hierynomus.license") version "${extra["plugin.license.version"]}"
+        id("me.champeau.jmh") version "${extra["plugin.jmh.version"]}"
+    }
+}
+
+val versions = extra.properties.filterKeys { it.endsWith(".version") }
+gradle.beforeProject {
+    versions.forEach { (name, version) -> extra[name] = version }
+}
+
+includeBuild("../hivemq-edge")
+includeBuild("../modules/hivemq-edge-module-opcua")
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.benchmark;
+
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.impl.ApiConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.BridgeConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.ConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.GatewayConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.MqttConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.MqttsnConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.PersistenceConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.ProtocolAdapterConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.RestrictionsConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.SecurityConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.UnsConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.UsageTrackingConfigurationServiceImpl;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationServiceImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+
+import java.util.Random;
+
+/**
+ * Deterministic fixtures shared by the benchmarks. Every data set is derived from {@link #SEED}, so two runs of the
+ * same benchmark always work on identical topics and payloads and their results can be compared across commits.
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 0x48495645L;
+    public static final @NotNull String HIVEMQ_ID = "benchmark";
+
+    private static final @NotNull String[] MEASUREMENTS =
+            {"temperature", "pressure", "humidity", "vibration", "status", "counter"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return a topic in the <code>site/line/device/measurement</code> hierarchy that is typical for edge gateways
+     */
+    public static @NotNull String deviceTopic(final int site, final int line, final int device, final int measurement) {
+        return "site" + site + "/line" + line + "/device" + device + "/" + MEASUREMENTS[measurement % MEASUREMENTS.length];
+    }
+
+    public static int measurementCount() {
+        return MEASUREMENTS.length;
+    }
+
+    public static @NotNull String measurement(final int index) {
+        return MEASUREMENTS[index % MEASUREMENTS.length];
+    }
+
+    public static @NotNull byte[] payload(final @NotNull Random random, final int size) {
+        final byte[] payload = new byte[size];
+        random.nextBytes(payload);
+        return payload;
+    }
+
+    public static @NotNull PUBLISH publish(
+            final @NotNull String topic, final @NotNull QoS qos, final @NotNull byte[] payload) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId(HIVEMQ_ID)
+                .withTopic(topic)
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withPayload(payload)
+                .withPacketIdentifier(qos == QoS.AT_MOST_ONCE ? 0 : 1)
+                .withMessageExpiryInterval(PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET)
+                .build();
+    }
+
+    /**
+     * @return a PUBLISH that carries all optional MQTT 5 properties, the worst case for the codec
+     */
+    public static @NotNull PUBLISH fullPublish(
+            final @NotNull String topic, final @NotNull QoS qos, final @NotNull byte[] payload) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId(HIVEMQ_ID)
+                .withTopic(topic)
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withPayload(payload)
+                .withPacketIdentifier(qos == QoS.AT_MOST_ONCE ? 0 : 1)
+                .withMessageExpiryInterval(3600)
+                .withContentType("application/json")
+                .withResponseTopic(topic + "/response")
+                .withCorrelationData(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})
+                .withUserProperties(Mqtt5UserProperties.of(MqttUserProperty.of("source", "benchmark"),
+                        MqttUserProperty.of("unit", "celsius")))
+                .build();
+    }
+
+    public static @NotNull ConfigurationService configurationService() {
+        return new ConfigurationServiceImpl(new ListenerConfigurationServiceImpl(),
+                new MqttConfigurationServiceImpl(),
+                new RestrictionsConfigurationServiceImpl(),
+                new SecurityConfigurationServiceImpl(),
+                new PersistenceConfigurationServiceImpl(),
+                new MqttsnConfigurationServiceImpl(),
+                new BridgeConfigurationServiceImpl(),
+                new ApiConfigurationServiceImpl(),
+                new UnsConfigurationServiceImpl(),
+                new GatewayConfigurationServiceImpl(),
+                new UsageTrackingConfigurationServiceImpl(),
+                new ProtocolAdapterConfigurationServiceImpl());
+    }
+}
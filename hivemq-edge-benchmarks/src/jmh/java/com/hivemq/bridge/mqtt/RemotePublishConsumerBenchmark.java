@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.bridge.config.MqttBridge;
+import com.hivemq.bridge.config.RemoteSubscription;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.util.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures the conversion of a message that a bridge received from the remote broker into a local PUBLISH with
+ * {@link RemotePublishConsumer#accept(Mqtt5Publish)}. The interceptors are left out, the converted PUBLISH is only
+ * consumed.
+ * <p>
+ * The interesting number is the allocation per message, run with
+ * <code>./gradlew jmh -PjmhIncludes=RemotePublishConsumer -PjmhProfilers=gc</code> and compare
+ * <code>gc.alloc.rate.norm</code> of {@link #accept()} with {@link #copyPayload()}, which allocates what converting
+ * the payload and the correlation data cost before the received arrays were taken over.
+ */
+@State(Scope.Thread)
+public class RemotePublishConsumerBenchmark {
+
+    @Param({"64", "1024", "4096", "65536"})
+    public int payloadSize;
+
+    private @NotNull RemotePublishConsumer consumer;
+    private @NotNull ExecutorService executorService;
+    private @NotNull Mqtt5Publish received;
+    private @NotNull ConsumingInterceptorHandler interceptorHandler;
+
+    @Setup
+    public void setUp() {
+        final RemoteSubscription remoteSubscription =
+                new RemoteSubscription(List.of("site0/#"), "{#}", List.of(), false, 1);
+        final MqttBridge bridge = new MqttBridge.Builder().withId("benchmark")
+                .withHost("localhost")
+                .withClientId("benchmark")
+                .withRemoteSubscriptions(List.of(remoteSubscription))
+                .build();
+        executorService = MoreExecutors.newDirectExecutorService();
+        interceptorHandler = new ConsumingInterceptorHandler();
+        consumer = new RemotePublishConsumer(remoteSubscription,
+                interceptorHandler,
+                bridge,
+                executorService,
+                new HivemqId(),
+                new PerBridgeMetrics("benchmark", new MetricRegistry()));
+
+        //-- the client decodes payload and correlation data into heap buffers that wrap a whole array, like these
+        received = Mqtt5Publish.builder()
+                .topic(BenchmarkData.deviceTopic(0, 1, 2, 0))
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .correlationData(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})
+                .payload(BenchmarkData.payload(new Random(BenchmarkData.SEED), payloadSize))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public @NotNull PUBLISH accept() {
+        consumer.accept(received);
+        return interceptorHandler.last;
+    }
+
+    /**
+     * The copies of payload and correlation data through the public API of the client, the baseline of
+     * {@link #accept()}.
+     */
+    @Benchmark
+    public void copyPayload(final @NotNull Blackhole blackhole) {
+        blackhole.consume(received.getPayloadAsBytes());
+        blackhole.consume(Bytes.getBytesFromReadOnlyBuffer(received.getCorrelationData()));
+    }
+
+    private static class ConsumingInterceptorHandler implements BridgeInterceptorHandler {
+
+        private static final @NotNull ListenableFuture<PublishReturnCode> DELIVERED =
+                Futures.immediateFuture(PublishReturnCode.DELIVERED);
+
+        private @NotNull PUBLISH last;
+
+        @Override
+        public @NotNull ListenableFuture<PublishReturnCode> interceptOrDelegateInbound(
+                final @NotNull PUBLISH publish,
+                final @NotNull ExecutorService executorService,
+                final @NotNull MqttBridge bridge) {
+            last = publish;
+            return DELIVERED;
+        }
+
+        @Override
+        public @NotNull ListenableFuture<InterceptorResult> interceptOrDelegateOutbound(
+                final @NotNull PUBLISH publish,
+                final @NotNull ExecutorService executorService,
+                final @NotNull MqttBridge bridge) {
+            throw new UnsupportedOperationException("outbound messages are not part of this benchmark");
+        }
+    }
+}
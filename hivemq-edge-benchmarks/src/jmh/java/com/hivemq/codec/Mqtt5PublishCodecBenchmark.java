@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.codec.decoder.mqtt.mqtt5.Mqtt5PublishDecoder;
+import com.hivemq.codec.encoder.PublishEncodingCache;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PublishEncoder;
+import com.hivemq.codec.encoder.mqtt5.MqttVariableByteInteger;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.limitation.TopicAliasLimiterImpl;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnectorImpl;
+import com.hivemq.mqtt.handler.publish.PublishFlushHandler;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.Mqtt5PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures the MQTT 5 PUBLISH codec with {@link Mqtt5PublishEncoder} and {@link Mqtt5PublishDecoder} in isolation
+ * from the Netty pipeline. The fixed header is consumed the same way as the MQTTMessageDecoder does it before the
+ * PUBLISH specific decoder is invoked.
+ * <p>
+ * Every PUBLISH is encoded with the default configuration, which has the {@link PublishEncodingCache} disabled, see
+ * {@link PublishEncodingCacheBenchmark} for the encoding of messages with many subscribers.
+ */
+@State(Scope.Thread)
+public class Mqtt5PublishCodecBenchmark {
+
+    @Param({"64", "4096"})
+    public int payloadSize;
+
+    /**
+     * If all optional MQTT 5 properties are set on the PUBLISH.
+     */
+    @Param({"false", "true"})
+    public boolean allProperties;
+
+    private @NotNull Mqtt5PublishEncoder encoder;
+    private @NotNull Mqtt5PublishDecoder decoder;
+    private @NotNull ClientConnection clientConnection;
+    private @NotNull EmbeddedChannel channel;
+    private @NotNull PUBLISH publish;
+    private @NotNull ByteBuf encodeBuffer;
+    private @NotNull ByteBuf encoded;
+    private byte encodedHeader;
+    private int encodedBodyIndex;
+
+    @Setup
+    public void setUp() {
+        final ConfigurationService configurationService = BenchmarkData.configurationService();
+        final EventLog eventLog = new EventLog();
+        final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+
+        encoder = new Mqtt5PublishEncoder(new MessageDroppedServiceImpl(metricsHolder, eventLog),
+                configurationService.securityConfiguration(),
+                new PublishEncodingCache(new MetricRegistry()));
+        decoder = new Mqtt5PublishDecoder(new MqttServerDisconnectorImpl(eventLog),
+                new HivemqId(),
+                configurationService,
+                new TopicAliasLimiterImpl());
+
+        channel = new EmbeddedChannel();
+        clientConnection = new ClientConnection(channel, new PublishFlushHandler(metricsHolder));
+        clientConnection.setProtocolVersion(ProtocolVersion.MQTTv5);
+        clientConnection.setClientId("client");
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(clientConnection);
+
+        final byte[] payload = BenchmarkData.payload(new Random(BenchmarkData.SEED), payloadSize);
+        final String topic = BenchmarkData.deviceTopic(1, 2, 3, 0);
+        publish = allProperties ?
+                BenchmarkData.fullPublish(topic, QoS.AT_LEAST_ONCE, payload) :
+                BenchmarkData.publish(topic, QoS.AT_LEAST_ONCE, payload);
+
+        encodeBuffer = Unpooled.directBuffer(encoder.bufferSize(clientConnection, publish));
+        encoded = Unpooled.directBuffer(encodeBuffer.capacity());
+        encoder.encode(clientConnection, publish, encoded);
+        encodedHeader = encoded.readByte();
+        MqttVariableByteInteger.decode(encoded);
+        encodedBodyIndex = encoded.readerIndex();
+    }
+
+    @TearDown
+    public void tearDown() {
+        encodeBuffer.release();
+        encoded.release();
+        channel.close();
+    }
+
+    @Benchmark
+    public @NotNull ByteBuf encode() {
+        encodeBuffer.clear();
+        encoder.bufferSize(clientConnection, publish);
+        encoder.encode(clientConnection, publish, encodeBuffer);
+        return encodeBuffer;
+    }
+
+    @Benchmark
+    public @Nullable Mqtt5PUBLISH decode() {
+        encoded.readerIndex(encodedBodyIndex);
+        return decoder.decode(clientConnection, encoded, encodedHeader);
+    }
+
+    @Benchmark
+    public @Nullable Mqtt5PUBLISH roundTrip() {
+        encodeBuffer.clear();
+        encoder.bufferSize(clientConnection, publish);
+        encoder.encode(clientConnection, publish, encodeBuffer);
+        final byte header = encodeBuffer.readByte();
+        MqttVariableByteInteger.decode(encodeBuffer);
+        return decoder.decode(clientConnection, encodeBuffer, header);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.codec.encoder.PublishEncodingCache;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PublishEncoder;
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.handler.publish.PublishFlushHandler;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures the encoding of one message for all of its subscribers with and without the {@link PublishEncodingCache}.
+ * Every invocation encodes a new message, so the cache has to miss and insert once per message as it does in
+ * production. With a fan-out of 1 the difference between both variants is the cost that the cache adds to messages
+ * with a single subscriber, with higher fan-outs it is the gain of encoding topic and properties only once.
+ */
+@State(Scope.Thread)
+public class PublishEncodingCacheBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int fanOut;
+
+    @Param({"false", "true"})
+    public boolean encodingCache;
+
+    private @NotNull Mqtt5PublishEncoder encoder;
+    private @NotNull ClientConnection clientConnection;
+    private @NotNull EmbeddedChannel channel;
+    private @NotNull PUBLISH template;
+    private @NotNull ByteBuf out;
+    /**
+     * Far above the ids that the publish counter hands out, so the messages never collide with the template.
+     */
+    private long publishId = 1L << 40;
+
+    @Setup
+    public void setUp() {
+        InternalConfigurations.PUBLISH_ENCODING_CACHE_MAX_SIZE_BYTES.set(encodingCache ? 16 * 1024 * 1024 : 0);
+        final ConfigurationService configurationService = BenchmarkData.configurationService();
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final MetricsHolder metricsHolder = new MetricsHolder(metricRegistry);
+        encoder = new Mqtt5PublishEncoder(new MessageDroppedServiceImpl(metricsHolder, new EventLog()),
+                configurationService.securityConfiguration(),
+                new PublishEncodingCache(metricRegistry));
+
+        channel = new EmbeddedChannel();
+        clientConnection = new ClientConnection(channel, new PublishFlushHandler(metricsHolder));
+        clientConnection.setProtocolVersion(ProtocolVersion.MQTTv5);
+        clientConnection.setClientId("client");
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(clientConnection);
+
+        template = BenchmarkData.fullPublish(BenchmarkData.deviceTopic(1, 2, 3, 0),
+                QoS.AT_LEAST_ONCE,
+                BenchmarkData.payload(new Random(BenchmarkData.SEED), 64));
+        out = Unpooled.directBuffer(encoder.bufferSize(clientConnection, template));
+    }
+
+    @TearDown
+    public void tearDown() {
+        out.release();
+        channel.close();
+    }
+
+    @Benchmark
+    public @NotNull ByteBuf encodeForAllSubscribers() {
+        final PUBLISH publish =
+                new PUBLISHFactory.Mqtt5Builder().fromPublish(template).withPublishId(++publishId).build();
+        for (int i = 0; i < fanOut; i++) {
+            out.clear();
+            encoder.bufferSize(clientConnection, publish);
+            encoder.encode(clientConnection, publish, out);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the per message topic handling of a bridge subscription: matching the excludes and rewriting the topic to
+ * its destination, once interpreted from the configuration strings and once with the compiled
+ * {@link TopicFilterMatcher} and {@link TopicDestinationRewriter}.
+ */
+@State(Scope.Benchmark)
+public class BridgeTopicBenchmark {
+
+    private static final int SITES = 4;
+    private static final int LINES_PER_SITE = 8;
+    private static final int DEVICES_PER_LINE = 16;
+    private static final int TOPIC_COUNT = 4096;
+    private static final @NotNull String DESTINATION = "${bridge.name}/{1}/{3-#}";
+    private static final @NotNull Map<String, String> TOKENS = Map.of("bridge.name", "benchmark");
+
+    @Param({"1", "32"})
+    public int excludeCount;
+
+    private @NotNull List<String> excludes;
+    private @NotNull TopicFilterMatcher excludeMatcher;
+    private @NotNull TopicDestinationRewriter destinationRewriter;
+    private @NotNull String[] topics;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(BenchmarkData.SEED);
+        excludes = new ArrayList<>();
+        for (int i = 0; i < excludeCount; i++) {
+            switch (i % 3) {
+                case 0:
+                    excludes.add("site" + random.nextInt(SITES) + "/line" + random.nextInt(LINES_PER_SITE) + "/#");
+                    break;
+                case 1:
+                    excludes.add("+/+/device" + random.nextInt(DEVICES_PER_LINE) + "/" +
+                            BenchmarkData.measurement(random.nextInt(BenchmarkData.measurementCount())));
+                    break;
+                default:
+                    excludes.add(BenchmarkData.deviceTopic(random.nextInt(SITES),
+                            random.nextInt(LINES_PER_SITE),
+                            random.nextInt(DEVICES_PER_LINE),
+                            random.nextInt(BenchmarkData.measurementCount())));
+            }
+        }
+        excludeMatcher = new TopicFilterMatcher(excludes);
+        destinationRewriter = TopicDestinationRewriter.compile(DESTINATION, TOKENS, 1000);
+
+        topics = new String[TOPIC_COUNT];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = BenchmarkData.deviceTopic(random.nextInt(SITES),
+                    random.nextInt(LINES_PER_SITE),
+                    random.nextInt(DEVICES_PER_LINE),
+                    random.nextInt(BenchmarkData.measurementCount()));
+        }
+    }
+
+    @Benchmark
+    public boolean excludes_interpreted() {
+        final String topic = nextTopic();
+        for (final String exclude : excludes) {
+            if (MqttTopicFilter.of(exclude).matches(MqttTopicFilter.of(topic))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean excludes_compiled() {
+        return excludeMatcher.matches(nextTopic());
+    }
+
+    @Benchmark
+    public @NotNull MqttTopic destination_interpreted() {
+        return TopicFilterProcessor.modifyTopic(DESTINATION, MqttTopic.of(nextTopic()), TOKENS);
+    }
+
+    @Benchmark
+    public @NotNull MqttTopic destination_compiled() {
+        return destinationRewriter.rewrite(nextTopic());
+    }
+
+    private @NotNull String nextTopic() {
+        index = (index + 1) & (TOPIC_COUNT - 1);
+        return topics[index];
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua.payload;
+
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Measures {@link OpcUaJsonPayloadConverter#convertPayload(OpcUaClient, DataValue)} for the value types that are
+ * reported most often by subscriptions on OPC UA servers.
+ */
+@State(Scope.Thread)
+public class OpcUaJsonPayloadConverterBenchmark {
+
+    @Param({"double", "string", "datetime", "nodeid", "localizedtext"})
+    public @NotNull String valueType;
+
+    private @NotNull DataValue dataValue;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(BenchmarkData.SEED);
+        final Object value;
+        switch (valueType) {
+            case "double":
+                value = random.nextDouble() * 1000;
+                break;
+            case "string":
+                value = Long.toHexString(random.nextLong()) + " \"quoted\" " + Long.toHexString(random.nextLong());
+                break;
+            case "datetime":
+                value = new DateTime(Instant.ofEpochMilli(1683724156000L + random.nextInt(1_000_000)));
+                break;
+            case "nodeid":
+                value = new NodeId(2, "Line1.Device" + random.nextInt(64) + ".Temperature");
+                break;
+            case "localizedtext":
+                value = LocalizedText.english("Temperature of device " + random.nextInt(64));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown value type " + valueType);
+        }
+        dataValue = new DataValue(new Variant(value));
+    }
+
+    @Benchmark
+    public @NotNull ByteBuffer convertPayload() {
+        // the client is only needed to decode extension objects, which are not part of this benchmark
+        //noinspection ConstantConditions
+        return OpcUaJsonPayloadConverter.convertPayload(null, dataValue);
+    }
+}
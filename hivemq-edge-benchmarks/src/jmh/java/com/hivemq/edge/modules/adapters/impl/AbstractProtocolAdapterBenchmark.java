@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
+import com.hivemq.edge.modules.adapters.simulation.SimulationAdapterConfig;
+import com.hivemq.edge.modules.adapters.simulation.SimulationProtocolAdapter;
+import com.hivemq.edge.modules.adapters.simulation.SimulationProtocolAdapterInformation;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures {@link AbstractProtocolAdapter#convertToJson(Object)}, which wraps every sample of a polling protocol
+ * adapter into the JSON envelope before it is published.
+ */
+@State(Scope.Thread)
+public class AbstractProtocolAdapterBenchmark {
+
+    @Param({"number", "string", "map"})
+    public @NotNull String dataType;
+
+    private @NotNull AbstractProtocolAdapter adapter;
+    private @NotNull Object data;
+
+    @Setup
+    public void setUp() {
+        adapter = new SimulationProtocolAdapter(SimulationProtocolAdapterInformation.INSTANCE,
+                new SimulationAdapterConfig(),
+                new MetricRegistry());
+
+        final Random random = new Random(BenchmarkData.SEED);
+        switch (dataType) {
+            case "number":
+                data = random.nextDouble() * 1000;
+                break;
+            case "string":
+                data = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+                break;
+            case "map":
+                final Map<String, Object> fields = new LinkedHashMap<>();
+                for (int i = 0; i < BenchmarkData.measurementCount(); i++) {
+                    fields.put(BenchmarkData.measurement(i), random.nextDouble() * 1000);
+                }
+                fields.put("device", "device" + random.nextInt(64));
+                fields.put("online", random.nextBoolean());
+                data = fields;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown data type " + dataType);
+        }
+    }
+
+    @Benchmark
+    public @NotNull byte[] convertToJson() throws ProtocolAdapterException {
+        return adapter.convertToJson(data);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.services;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.reflect.Reflection;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.handler.publish.PublishStatus;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.tree.LocalTopicTree;
+import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures the fan-out of {@link InternalPublishServiceImpl#publish(PUBLISH, ExecutorService, String)}: the lookup of
+ * the subscribers, the filtering of no-local subscriptions and the hand-over to the {@link PublishDistributor}. The
+ * distributor only consumes the subscribers, so the client queues are not part of the measurement (see
+ * ClientQueueMemoryLocalPersistenceBenchmark for those).
+ */
+@State(Scope.Thread)
+public class InternalPublishServiceBenchmark {
+
+    private static final int TOPIC_COUNT = 1024;
+
+    /**
+     * Amount of messages of a batch, the values that a protocol adapter reads in one poll.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Amount of subscribers that receive every published message.
+     */
+    @Param({"1", "10", "100", "1000"})
+    public int fanOut;
+
+    @Param({"false", "true"})
+    public boolean sharedSubscriptions;
+
+    private @NotNull InternalPublishServiceImpl publishService;
+    private @NotNull ExecutorService executorService;
+    private @NotNull PUBLISH[] publishes;
+    private @NotNull List<PUBLISH> batch;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        final LocalTopicTree topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        for (int i = 0; i < fanOut; i++) {
+            topicTree.addTopic("subscriber" + i, new Topic("site0/#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        }
+        if (sharedSubscriptions) {
+            topicTree.addTopic("shared-subscriber", new Topic("site0/+/+/temperature", QoS.AT_LEAST_ONCE), (byte) 0,
+                    "group");
+        }
+
+        publishService = new InternalPublishServiceImpl(
+                Reflection.newProxy(RetainedMessagePersistence.class, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException("retained messages are not part of this benchmark");
+                }), topicTree, new ConsumingPublishDistributor());
+        executorService = MoreExecutors.newDirectExecutorService();
+
+        final Random random = new Random(BenchmarkData.SEED);
+        final byte[] payload = BenchmarkData.payload(random, 128);
+        publishes = new PUBLISH[TOPIC_COUNT];
+        for (int i = 0; i < publishes.length; i++) {
+            publishes[i] = BenchmarkData.publish(BenchmarkData.deviceTopic(0,
+                    random.nextInt(8),
+                    random.nextInt(64),
+                    random.nextInt(BenchmarkData.measurementCount())), QoS.AT_LEAST_ONCE, payload);
+        }
+        batch = List.of(publishes).subList(0, BATCH_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public @NotNull PublishReturnCode publish() throws ExecutionException {
+        cursor = (cursor + 1) & (TOPIC_COUNT - 1);
+        return Futures.getDone(publishService.publish(publishes[cursor], executorService, "sender"));
+    }
+
+    /**
+     * Publishes the messages of a batch one by one, the baseline of {@link #publishBatch()}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void publishEach(final @NotNull Blackhole blackhole) throws ExecutionException {
+        for (final PUBLISH publish : batch) {
+            blackhole.consume(Futures.getDone(publishService.publish(publish, executorService, "sender")));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public @NotNull List<ListenableFuture<PublishReturnCode>> publishBatch() {
+        return publishService.publish(batch, executorService, "sender");
+    }
+
+    private static class ConsumingPublishDistributor implements PublishDistributor {
+
+        private long deliveries;
+
+        @Override
+        public @NotNull ListenableFuture<Void> distributeToNonSharedSubscribers(
+                final @NotNull Map<String, SubscriberWithIdentifiers> subscribers,
+                final @NotNull PUBLISH publish,
+                final @NotNull ExecutorService executorService) {
+            for (final SubscriberWithIdentifiers subscriber : subscribers.values()) {
+                deliveries += subscriber.getQos();
+            }
+            return Futures.immediateVoidFuture();
+        }
+
+        @Override
+        public @NotNull ListenableFuture<Void> distributeToSharedSubscribers(
+                final @NotNull Set<String> sharedSubscriptions,
+                final @NotNull PUBLISH publish,
+                final @NotNull ExecutorService executorService) {
+            deliveries += sharedSubscriptions.size();
+            return Futures.immediateVoidFuture();
+        }
+
+        @Override
+        public @NotNull ListenableFuture<PublishStatus> sendMessageToSubscriber(
+                final @NotNull PUBLISH publish,
+                final @NotNull String clientId,
+                final int subscriptionQos,
+                final boolean sharedSubscription,
+                final boolean retainAsPublished,
+                final @Nullable ImmutableIntArray subscriptionIdentifier) {
+            return Futures.immediateFuture(PublishStatus.DELIVERED);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.services;
+
+import com.google.common.reflect.Reflection;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.configuration.service.MqttConfigurationService;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extensions.packets.publish.PublishPacketImpl;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.persistence.SingleWriterService;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
+import com.hivemq.persistence.clientsession.ClientSession;
+import com.hivemq.persistence.clientsession.ClientSessionPersistence;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures the fan-out of one message to {@link #SUBSCRIBER_COUNT} subscribers with
+ * {@link PublishDistributorImpl#distributeToNonSharedSubscribers(Map, PUBLISH, ExecutorService)}, which creates a
+ * PUBLISH for every subscriber, and the merge of every subscriber PUBLISH after an outbound interceptor with
+ * {@link PUBLISHFactory#merge(PublishPacketImpl, PUBLISH)}. The client queues only collect the PUBLISHes.
+ * <p>
+ * All subscriber PUBLISHes share the payload array of the published message, the setup fails if they do not. Run
+ * with <code>./gradlew jmh -PjmhIncludes=PublishFanOut -PjmhProfilers=gc</code>: the <code>gc.alloc.rate.norm</code>
+ * of {@link #distribute()} and {@link #distributeAndMerge()} stays the same for every payload size, while
+ * {@link #copyPayloads(Blackhole)} shows what copying the payload for every subscriber allocates.
+ */
+@State(Scope.Thread)
+public class PublishFanOutBenchmark {
+
+    private static final int SUBSCRIBER_COUNT = 50;
+
+    @Param({"64", "1024", "65536"})
+    public int payloadSize;
+
+    private @NotNull PublishDistributorImpl publishDistributor;
+    private @NotNull CollectingClientQueuePersistence clientQueuePersistence;
+    private @NotNull ExecutorService executorService;
+    private @NotNull Map<String, SubscriberWithIdentifiers> subscribers;
+    private @NotNull PUBLISH publish;
+
+    @Setup
+    public void setUp() throws ExecutionException {
+        clientQueuePersistence = new CollectingClientQueuePersistence();
+        final ClientSession session = new ClientSession(true, 0);
+        final ClientSessionPersistence clientSessionPersistence =
+                Reflection.newProxy(ClientSessionPersistence.class, (proxy, method, args) -> {
+                    if (method.getName().equals("getSession")) {
+                        return session;
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not part of this benchmark");
+                });
+        final SingleWriterService singleWriterService =
+                Reflection.newProxy(SingleWriterService.class, (proxy, method, args) -> {
+                    if (method.getName().equals("callbackExecutor")) {
+                        return MoreExecutors.directExecutor();
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not part of this benchmark");
+                });
+        final MqttConfigurationService mqttConfigurationService =
+                Reflection.newProxy(MqttConfigurationService.class, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName() + " is not part of this benchmark");
+                });
+        publishDistributor = new PublishDistributorImpl(new PublishPayloadNoopPersistenceImpl(),
+                clientQueuePersistence.proxy(),
+                () -> clientSessionPersistence,
+                singleWriterService,
+                mqttConfigurationService);
+        executorService = MoreExecutors.newDirectExecutorService();
+
+        subscribers = new HashMap<>();
+        for (int i = 0; i < SUBSCRIBER_COUNT; i++) {
+            subscribers.put("subscriber" + i, new SubscriberWithIdentifiers("subscriber" + i, 1, (byte) 0, null));
+        }
+        publish = BenchmarkData.publish(BenchmarkData.deviceTopic(0, 1, 2, 0),
+                QoS.AT_LEAST_ONCE,
+                BenchmarkData.payload(new Random(BenchmarkData.SEED), payloadSize));
+
+        Futures.getDone(distributeAndMerge());
+        for (final PUBLISH queued : clientQueuePersistence.publishes) {
+            if (queued.getPayload() != publish.getPayload()) {
+                throw new IllegalStateException("The subscriber PUBLISHes must share the payload array");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SUBSCRIBER_COUNT)
+    public @NotNull ListenableFuture<Void> distribute() {
+        clientQueuePersistence.publishes.clear();
+        return publishDistributor.distributeToNonSharedSubscribers(subscribers, publish, executorService);
+    }
+
+    /**
+     * {@link #distribute()} followed by the merge of every subscriber PUBLISH with the packet that an outbound
+     * interceptor left unmodified.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SUBSCRIBER_COUNT)
+    public @NotNull ListenableFuture<Void> distributeAndMerge() {
+        final ListenableFuture<Void> future = distribute();
+        final List<PUBLISH> publishes = clientQueuePersistence.publishes;
+        for (int i = 0; i < publishes.size(); i++) {
+            final PUBLISH queued = publishes.get(i);
+            publishes.set(i, PUBLISHFactory.merge(new PublishPacketImpl(queued), queued));
+        }
+        return future;
+    }
+
+    /**
+     * A copy of the payload for every subscriber, what the fan-out would allocate on top of {@link #distribute()}
+     * if the subscriber PUBLISHes did not share the payload array.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SUBSCRIBER_COUNT)
+    public void copyPayloads(final @NotNull Blackhole blackhole) {
+        final byte[] payload = publish.getPayload();
+        for (int i = 0; i < SUBSCRIBER_COUNT; i++) {
+            blackhole.consume(payload.clone());
+        }
+    }
+
+    private static class CollectingClientQueuePersistence {
+
+        private final @NotNull List<PUBLISH> publishes = new ArrayList<>(SUBSCRIBER_COUNT);
+
+        private @NotNull ClientQueuePersistence proxy() {
+            return Reflection.newProxy(ClientQueuePersistence.class, (proxy, method, args) -> {
+                if (method.getName().equals("add") && args[2] instanceof PUBLISH) {
+                    publishes.add((PUBLISH) args[2]);
+                    return Futures.immediateVoidFuture();
+                }
+                throw new UnsupportedOperationException(method.getName() + " is not part of this benchmark");
+            });
+        }
+    }
+}
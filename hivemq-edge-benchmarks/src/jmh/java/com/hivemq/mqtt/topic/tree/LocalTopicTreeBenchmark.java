@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+
+/**
+ * Measures {@link LocalTopicTree#findTopicSubscribers(String)} on trees that are dominated by wildcard subscriptions,
+ * which is the common shape on gateways where northbound consumers subscribe to whole sites, lines or measurements.
+ */
+@State(Scope.Benchmark)
+public class LocalTopicTreeBenchmark {
+
+    private static final int SITES = 4;
+    private static final int LINES_PER_SITE = 8;
+    private static final int TOPIC_COUNT = 4096;
+
+    @Param({"1000", "10000"})
+    public int subscriberCount;
+
+    /**
+     * Share of subscriptions that contain at least one wildcard, in percent.
+     */
+    @Param({"50", "90"})
+    public int wildcardPercentage;
+
+    private @NotNull LocalTopicTree topicTree;
+    private @NotNull String[] topics;
+    private int devicesPerLine;
+
+    @Setup
+    public void setUp() {
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        final Random random = new Random(BenchmarkData.SEED);
+        devicesPerLine = Math.max(1, subscriberCount / (SITES * LINES_PER_SITE));
+
+        for (int i = 0; i < subscriberCount; i++) {
+            final String filter = random.nextInt(100) < wildcardPercentage ?
+                    wildcardFilter(random) :
+                    BenchmarkData.deviceTopic(random.nextInt(SITES),
+                            random.nextInt(LINES_PER_SITE),
+                            random.nextInt(devicesPerLine),
+                            random.nextInt(BenchmarkData.measurementCount()));
+            topicTree.addTopic("subscriber" + i, new Topic(filter, QoS.AT_LEAST_ONCE), (byte) 0, null);
+        }
+
+        topics = new String[TOPIC_COUNT];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = BenchmarkData.deviceTopic(random.nextInt(SITES),
+                    random.nextInt(LINES_PER_SITE),
+                    random.nextInt(devicesPerLine),
+                    random.nextInt(BenchmarkData.measurementCount()));
+        }
+    }
+
+    @Benchmark
+    public @NotNull TopicSubscribers findTopicSubscribers(final @NotNull Cursor cursor) {
+        return topicTree.findTopicSubscribers(topics[cursor.next()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public @NotNull TopicSubscribers findTopicSubscribers_concurrent(final @NotNull Cursor cursor) {
+        return topicTree.findTopicSubscribers(topics[cursor.next()]);
+    }
+
+    @Benchmark
+    public int findTopicSubscribers_iterate(final @NotNull Cursor cursor) {
+        int count = 0;
+        for (final SubscriberWithIdentifiers subscriber : topicTree.findTopicSubscribers(topics[cursor.next()])
+                .getSubscribers()) {
+            count += subscriber.getQos();
+        }
+        return count;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            index = (index + 1) & (TOPIC_COUNT - 1);
+            return index;
+        }
+    }
+
+    private @NotNull String wildcardFilter(final @NotNull Random random) {
+        final int site = random.nextInt(SITES);
+        final int line = random.nextInt(LINES_PER_SITE);
+        final int device = random.nextInt(devicesPerLine);
+        final String measurement = BenchmarkData.measurement(random.nextInt(BenchmarkData.measurementCount()));
+        switch (random.nextInt(6)) {
+            case 0:
+                return "site" + site + "/#";
+            case 1:
+                return "site" + site + "/line" + line + "/#";
+            case 2:
+                return "site" + site + "/+/+/" + measurement;
+            case 3:
+                return "+/+/device" + device + "/#";
+            case 4:
+                return "+/line" + line + "/+/" + measurement;
+            default:
+                return "site" + site + "/line" + line + "/device" + device + "/+";
+        }
+    }
+}
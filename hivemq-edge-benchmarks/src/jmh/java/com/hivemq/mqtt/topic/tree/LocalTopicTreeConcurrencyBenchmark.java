@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Compares the locked and the lock-free read path of {@link LocalTopicTree} while publishes look up subscribers and a
+ * writer keeps subscribing and unsubscribing. The subscriber cache is disabled so every lookup reads the tree.
+ */
+@State(Scope.Group)
+public class LocalTopicTreeConcurrencyBenchmark {
+
+    private static final int SITES = 4;
+    private static final int LINES_PER_SITE = 8;
+    private static final int DEVICES_PER_LINE = 32;
+    private static final int TOPIC_COUNT = 4096;
+    private static final int SUBSCRIBER_COUNT = 5000;
+
+    @Param({"false", "true"})
+    public boolean lockFreeReads;
+
+    private @NotNull LocalTopicTree topicTree;
+    private @NotNull String[] topics;
+    private @NotNull String[] churnFilters;
+
+    @Setup
+    public void setUp() {
+        InternalConfigurations.TOPIC_TREE_LOCK_FREE_READS_ENABLED.set(lockFreeReads);
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(0);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        final Random random = new Random(BenchmarkData.SEED);
+        for (int i = 0; i < SUBSCRIBER_COUNT; i++) {
+            final String filter = random.nextBoolean() ?
+                    "+/line" + random.nextInt(LINES_PER_SITE) + "/+/" +
+                            BenchmarkData.measurement(random.nextInt(BenchmarkData.measurementCount())) :
+                    "site" + random.nextInt(SITES) + "/line" + random.nextInt(LINES_PER_SITE) + "/#";
+            topicTree.addTopic("subscriber" + i, new Topic(filter, QoS.AT_LEAST_ONCE), (byte) 0, null);
+        }
+
+        topics = new String[TOPIC_COUNT];
+        churnFilters = new String[TOPIC_COUNT];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = BenchmarkData.deviceTopic(random.nextInt(SITES),
+                    random.nextInt(LINES_PER_SITE),
+                    random.nextInt(DEVICES_PER_LINE),
+                    random.nextInt(BenchmarkData.measurementCount()));
+            churnFilters[i] = "site" + random.nextInt(SITES) + "/+/device" + random.nextInt(DEVICES_PER_LINE) + "/#";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        InternalConfigurations.TOPIC_TREE_LOCK_FREE_READS_ENABLED.set(false);
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(10_000);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public @NotNull TopicSubscribers publish(final @NotNull Cursor cursor) {
+        return topicTree.findTopicSubscribers(topics[cursor.next()]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void subscribe(final @NotNull Cursor cursor) {
+        final String filter = churnFilters[cursor.next()];
+        topicTree.addTopic("churn", new Topic(filter, QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.removeSubscriber("churn", filter, null);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            index = (index + 1) & (TOPIC_COUNT - 1);
+            return index;
+        }
+    }
+}
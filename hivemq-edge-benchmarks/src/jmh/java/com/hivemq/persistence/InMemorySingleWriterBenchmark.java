@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Random;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST;
+
+/**
+ * Measures how the throughput of {@link ClientQueueMemoryLocalPersistence#add} through the {@link InMemorySingleWriter}
+ * scales with the amount of publishing threads and persistence buckets. Every publishing thread queues messages for
+ * all clients, just like many adapters fanning out to many subscribers. The queues are full, so every add discards the
+ * oldest message and the persistence stays at a constant size.
+ */
+@State(Scope.Benchmark)
+public class InMemorySingleWriterBenchmark {
+
+    private static final int CLIENT_COUNT = 1000;
+    private static final int QUEUE_LIMIT = 100;
+
+    @Param({"1", "16", "64"})
+    public int bucketCount;
+
+    private int previousBucketCount;
+    private int previousThreadPoolSize;
+    private @NotNull InMemorySingleWriter singleWriter;
+    private @NotNull ProducerQueues queues;
+    private @NotNull ClientQueueMemoryLocalPersistence persistence;
+    private @NotNull PUBLISH publish;
+    private @NotNull String[] clientIds;
+
+    @Setup
+    public void setUp() {
+        previousBucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        previousThreadPoolSize = InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.get();
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.set(Runtime.getRuntime().availableProcessors());
+
+        singleWriter = new InMemorySingleWriter();
+        queues = singleWriter.getQueuedMessagesQueue();
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        persistence = new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                metricRegistry);
+        publish = BenchmarkData.publish("site0/line0/device0/temperature",
+                QoS.AT_LEAST_ONCE,
+                BenchmarkData.payload(new Random(BenchmarkData.SEED), 256));
+
+        clientIds = new String[CLIENT_COUNT];
+        for (int i = 0; i < clientIds.length; i++) {
+            clientIds[i] = "client" + i;
+            final int bucketIndex = queues.getBucket(clientIds[i]);
+            for (int j = 0; j < QUEUE_LIMIT; j++) {
+                persistence.add(clientIds[i], false, publish, QUEUE_LIMIT, DISCARD_OLDEST, false, bucketIndex);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        singleWriter.stop();
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(previousBucketCount);
+        InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.set(previousThreadPoolSize);
+    }
+
+    /**
+     * The client a publishing thread queues its next message for. The threads start at different clients, so they do
+     * not submit to the same bucket in lockstep.
+     */
+    @State(Scope.Thread)
+    public static class Publisher {
+
+        private int nextClient;
+
+        @Setup
+        public void setUp(final @NotNull ThreadParams threadParams) {
+            nextClient = threadParams.getThreadIndex() * (CLIENT_COUNT / threadParams.getThreadCount());
+        }
+
+        int nextClient() {
+            final int client = nextClient;
+            nextClient = (nextClient + 1) % CLIENT_COUNT;
+            return client;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public @NotNull ListenableFuture<Void> add_1Thread(final @NotNull Publisher publisher) {
+        return add(publisher);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public @NotNull ListenableFuture<Void> add_4Threads(final @NotNull Publisher publisher) {
+        return add(publisher);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public @NotNull ListenableFuture<Void> add_maxThreads(final @NotNull Publisher publisher) {
+        return add(publisher);
+    }
+
+    private @NotNull ListenableFuture<Void> add(final @NotNull Publisher publisher) {
+        final String clientId = clientIds[publisher.nextClient()];
+        return queues.submit(clientId, bucketIndex -> {
+            persistence.add(clientId, false, publish, QUEUE_LIMIT, DISCARD_OLDEST, false, bucketIndex);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.persistence.InMemorySingleWriter;
+import com.hivemq.persistence.ProducerQueues;
+import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST;
+
+/**
+ * Measures how long {@link ClientQueueFileLocalPersistence} takes to recover millions of queued messages after a
+ * restart, which is the time a gateway needs before it can serve its clients again after a power cycle.
+ * <p>
+ * The journals are written once per trial: the messages are spread across offline persistent sessions and a part of
+ * every queue is in-flight. Every invocation replays all journals into a fresh memory persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ClientQueueFileLocalPersistenceRecoveryBenchmark {
+
+    private static final long BYTES_LIMIT = 5 * 1024 * 1024;
+    private static final int INFLIGHT_PER_QUEUE = 10;
+
+    @Param({"1000000", "2000000"})
+    public int messageCount;
+
+    @Param({"1000"})
+    public int queueCount;
+
+    @Param({"64"})
+    public int payloadSize;
+
+    private @NotNull File folder;
+    private int bucketCount;
+    private @NotNull InMemorySingleWriter singleWriter;
+    private @Nullable ClientQueueFileLocalPersistence recovered;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("client-queue-recovery").toFile();
+        bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        singleWriter = new InMemorySingleWriter();
+        // the journals are only forced once per second while they are filled, this only speeds up the setup. The
+        // journals are filled through the single writer, as it also executes the scheduled forces.
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC.set(1000);
+        final ProducerQueues queues = singleWriter.getQueuedMessagesQueue();
+
+        final ClientQueueFileLocalPersistence persistence = open();
+        final Random random = new Random(BenchmarkData.SEED);
+        final String[] queueIds = new String[queueCount];
+        for (int i = 0; i < queueCount; i++) {
+            queueIds[i] = "client" + i;
+        }
+        for (int i = 0; i < messageCount; i++) {
+            final String queueId = queueIds[i % queueCount];
+            final PUBLISH publish = BenchmarkData.publish(
+                    BenchmarkData.deviceTopic(0, i % 10, i % queueCount, i),
+                    QoS.AT_LEAST_ONCE,
+                    BenchmarkData.payload(random, payloadSize));
+            queues.submit(BucketUtils.getBucket(queueId, bucketCount), (bucketIndex) -> {
+                persistence.add(queueId, false, publish, Long.MAX_VALUE, DISCARD_OLDEST, false, bucketIndex);
+                return null;
+            });
+        }
+        final ImmutableIntArray.Builder packetIds = ImmutableIntArray.builder(INFLIGHT_PER_QUEUE);
+        for (int i = 1; i <= INFLIGHT_PER_QUEUE; i++) {
+            packetIds.add(i);
+        }
+        final ImmutableIntArray inflightPacketIds = packetIds.build();
+        final List<ListenableFuture<Void>> futures = new ArrayList<>(queueIds.length);
+        for (final String queueId : queueIds) {
+            futures.add(queues.submit(BucketUtils.getBucket(queueId, bucketCount), (bucketIndex) -> {
+                persistence.readNew(queueId, false, inflightPacketIds, BYTES_LIMIT, bucketIndex);
+                return null;
+            }));
+        }
+        futures.addAll(queues.submitToAllBucketsParallel((bucketIndex) -> {
+            persistence.closeDB(bucketIndex);
+            return null;
+        }));
+        try {
+            Futures.allAsList(futures).get();
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new IOException("Unable to fill the journals", e);
+        }
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC.set(0);
+    }
+
+    @Benchmark
+    public @NotNull ClientQueueFileLocalPersistence recover() {
+        recovered = open();
+        return recovered;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeRecovered() {
+        if (recovered != null) {
+            close(recovered);
+            recovered = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = Files.walk(folder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private @NotNull ClientQueueFileLocalPersistence open() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ClientQueueMemoryLocalPersistence memoryPersistence =
+                new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                        new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                        metricRegistry);
+        return new ClientQueueFileLocalPersistence(memoryPersistence,
+                folder,
+                singleWriter.getQueuedMessagesQueue(),
+                metricRegistry);
+    }
+
+    private void close(final @NotNull ClientQueueFileLocalPersistence persistence) {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST;
+
+/**
+ * Measures the queue operations of {@link ClientQueueMemoryLocalPersistence} that are executed for every message that
+ * is delivered to a subscriber. The queue of the benchmarked client is kept at a constant size, so every invocation
+ * works on the same amount of data.
+ */
+@State(Scope.Thread)
+public class ClientQueueMemoryLocalPersistenceBenchmark {
+
+    private static final int BUCKET_INDEX = 0;
+    private static final @NotNull String QUEUE_ID = "client";
+    private static final long BYTES_LIMIT = 5 * 1024 * 1024;
+
+    @Param({"100", "1000"})
+    public int queueSize;
+
+    /**
+     * Amount of messages of the queue that are inflight, e.g. waiting for a PUBACK.
+     */
+    @Param({"10", "100"})
+    public int inflightCount;
+
+    @Param({"64", "1024"})
+    public int payloadSize;
+
+    private @NotNull ClientQueueMemoryLocalPersistence persistence;
+    private @NotNull PUBLISH publish;
+    private @NotNull ImmutableIntArray[] packetIds;
+    private int oldestInflight;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        persistence = new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                metricRegistry);
+        publish = BenchmarkData.publish("site0/line0/device0/temperature",
+                QoS.AT_LEAST_ONCE,
+                BenchmarkData.payload(new Random(BenchmarkData.SEED), payloadSize));
+
+        for (int i = 0; i < queueSize; i++) {
+            persistence.add(QUEUE_ID, false, publish, queueSize, DISCARD_OLDEST, false, BUCKET_INDEX);
+        }
+        packetIds = new ImmutableIntArray[Math.min(inflightCount, queueSize)];
+        final ImmutableIntArray.Builder allPacketIds = ImmutableIntArray.builder(packetIds.length);
+        for (int i = 0; i < packetIds.length; i++) {
+            packetIds[i] = ImmutableIntArray.of(i + 1);
+            allPacketIds.add(i + 1);
+        }
+        persistence.readNew(QUEUE_ID, false, allPacketIds.build(), BYTES_LIMIT, BUCKET_INDEX);
+        oldestInflight = 0;
+    }
+
+    /**
+     * Adds to a full queue, which discards the oldest message that is not inflight.
+     */
+    @Benchmark
+    public void add() {
+        persistence.add(QUEUE_ID, false, publish, queueSize, DISCARD_OLDEST, false, BUCKET_INDEX);
+    }
+
+    /**
+     * A complete delivery cycle: the oldest inflight message is acknowledged, a new message is queued and the next
+     * queued message is read with the freed packet identifier.
+     */
+    @Benchmark
+    public @NotNull ImmutableList<PUBLISH> readNew() {
+        final ImmutableIntArray freedPacketId = packetIds[oldestInflight];
+        oldestInflight = (oldestInflight + 1) % packetIds.length;
+        persistence.remove(QUEUE_ID, freedPacketId.get(0), BUCKET_INDEX);
+        persistence.add(QUEUE_ID, false, publish, queueSize, DISCARD_OLDEST, false, BUCKET_INDEX);
+        return persistence.readNew(QUEUE_ID, false, freedPacketId, BYTES_LIMIT, BUCKET_INDEX);
+    }
+
+    /**
+     * Reads all inflight messages, as it is done when a client reconnects.
+     */
+    @Benchmark
+    public @NotNull ImmutableList<MessageWithID> readInflight() {
+        return persistence.readInflight(QUEUE_ID, false, inflightCount, BYTES_LIMIT, BUCKET_INDEX);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.benchmark.BenchmarkData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedServiceImpl;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.persistence.payload.PublishPayloadNoopPersistenceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD_OLDEST;
+
+/**
+ * Measures how {@link ClientQueueMemoryLocalPersistence} delivers a deep queue, as it happens when a persistent
+ * session, for example of a historian, reconnects after it was offline for a long time. The client keeps its receive
+ * window full: every acknowledgement frees a packet identifier that is immediately used for the next queued message.
+ */
+@State(Scope.Thread)
+public class ClientQueueMemoryLocalPersistenceDrainBenchmark {
+
+    private static final int BUCKET_INDEX = 0;
+    private static final @NotNull String QUEUE_ID = "historian";
+    private static final long BYTES_LIMIT = 5 * 1024 * 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int queueSize;
+
+    /**
+     * The receive maximum of the client, the amount of messages that are inflight at the same time.
+     */
+    @Param({"10", "1000"})
+    public int receiveMaximum;
+
+    @Param({"64"})
+    public int payloadSize;
+
+    private @NotNull ClientQueueMemoryLocalPersistence persistence;
+    private @NotNull PUBLISH publish;
+    private @NotNull ImmutableIntArray[] packetIds;
+    private int oldestInflight;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        persistence = new ClientQueueMemoryLocalPersistence(new PublishPayloadNoopPersistenceImpl(),
+                new MessageDroppedServiceImpl(new MetricsHolder(metricRegistry), new EventLog()),
+                metricRegistry);
+        publish = BenchmarkData.publish("site0/line0/device0/temperature",
+                QoS.AT_LEAST_ONCE,
+                BenchmarkData.payload(new Random(BenchmarkData.SEED), payloadSize));
+
+        for (int i = 0; i < queueSize; i++) {
+            persistence.add(QUEUE_ID, false, publish, queueSize, DISCARD_OLDEST, false, BUCKET_INDEX);
+        }
+        packetIds = new ImmutableIntArray[receiveMaximum];
+        final ImmutableIntArray.Builder allPacketIds = ImmutableIntArray.builder(receiveMaximum);
+        for (int i = 0; i < receiveMaximum; i++) {
+            packetIds[i] = ImmutableIntArray.of(i + 1);
+            allPacketIds.add(i + 1);
+        }
+        persistence.readNew(QUEUE_ID, false, allPacketIds.build(), BYTES_LIMIT, BUCKET_INDEX);
+        oldestInflight = 0;
+    }
+
+    /**
+     * One acknowledgement of the oldest inflight message and the read of the next queued message, while the queue is
+     * kept at its size.
+     */
+    @Benchmark
+    public @NotNull ImmutableList<PUBLISH> acknowledgeAndReadNew() {
+        final ImmutableIntArray freedPacketId = packetIds[oldestInflight];
+        oldestInflight = (oldestInflight + 1) % receiveMaximum;
+        persistence.remove(QUEUE_ID, freedPacketId.get(0), BUCKET_INDEX);
+        persistence.add(QUEUE_ID, false, publish, queueSize, DISCARD_OLDEST, false, BUCKET_INDEX);
+        return persistence.readNew(QUEUE_ID, false, freedPacketId, BYTES_LIMIT, BUCKET_INDEX);
+    }
+
+    /**
+     * Delivers the whole queue until it is empty.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public int drain() {
+        int delivered = receiveMaximum;
+        while (persistence.size(QUEUE_ID, false, BUCKET_INDEX) > 0) {
+            final ImmutableIntArray freedPacketId = packetIds[oldestInflight];
+            oldestInflight = (oldestInflight + 1) % receiveMaximum;
+            persistence.remove(QUEUE_ID, freedPacketId.get(0), BUCKET_INDEX);
+            delivered += persistence.readNew(QUEUE_ID, false, freedPacketId, BYTES_LIMIT, BUCKET_INDEX).size();
+        }
+        return delivered;
+    }
+}
@@ -111,6 +111,9 @@ dependencies {
     implementation("io.netty:netty-common:${property("netty.version")}")
     implementation("io.netty:netty-handler:${property("netty.version")}")
     implementation("io.netty:netty-transport:${property("netty.version")}")
+    implementation("io.netty:netty-transport-classes-epoll:${property("netty.version")}")
+    runtimeOnly("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-x86_64")
+    runtimeOnly("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-aarch_64")
 
     // logging
     implementation("org.slf4j:slf4j-api:${property("slf4j.version")}")
@@ -169,7 +172,7 @@ dependencies {
     implementation("com.fasterxml.jackson.jaxrs:jackson-jaxrs-json-provider:${property("jackson.version")}")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:${property("jackson.version")}")
 
-    implementation("com.hivemq:hivemq-mqtt-client:1.3.1")
+    implementation("com.hivemq:hivemq-mqtt-client:${property("hivemq-mqtt-client.version")}")
 
     //Open API
     implementation("io.swagger.core.v3:swagger-annotations:${property("swagger.openapi.annotations.version")}")
@@ -31,7 +31,7 @@ public class DataPoint {
 
     @JsonProperty("value")
     @Schema(description = "The value of the data point")
-    private final @NotNull Long value;
+    private final @NotNull Number value;
 
     @JsonProperty("sampleTime")
     @JsonSerialize(using = TimestampToDateConverter.Serializer.class)
@@ -44,12 +44,12 @@ public class DataPoint {
 
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     public DataPoint(@JsonProperty("sampleTime") final @NotNull Long sampleTime,
-                     @JsonProperty("value") final @NotNull Long value) {
+                     @JsonProperty("value") final @NotNull Number value) {
         this.sampleTime = sampleTime;
         this.value = value;
     }
 
-    public Long getValue() {
+    public Number getValue() {
         return value;
     }
 
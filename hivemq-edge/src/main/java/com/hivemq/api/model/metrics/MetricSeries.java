@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.api.model.metrics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Bean to transport the sampled history of a metric across the API
+ */
+public class MetricSeries {
+
+    @JsonProperty("name")
+    @Schema(description = "The name of the metric")
+    private final @NotNull String name;
+
+    @JsonProperty("resolution")
+    @Schema(description = "The time between two data points in milliseconds")
+    private final @NotNull Long resolution;
+
+    @JsonProperty("dataPoints")
+    @Schema(description = "The data points in ascending order of their sample time")
+    private final @NotNull List<@NotNull DataPoint> dataPoints;
+
+    @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+    public MetricSeries(
+            @JsonProperty("name") final @NotNull String name,
+            @JsonProperty("resolution") final @NotNull Long resolution,
+            @JsonProperty("dataPoints") final @NotNull List<@NotNull DataPoint> dataPoints) {
+        this.name = name;
+        this.resolution = resolution;
+        this.dataPoints = dataPoints;
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public @NotNull Long getResolution() {
+        return resolution;
+    }
+
+    public @NotNull List<@NotNull DataPoint> getDataPoints() {
+        return dataPoints;
+    }
+}
@@ -18,6 +18,7 @@ package com.hivemq.api.resources;
 import com.hivemq.api.model.ApiBodyExamples;
 import com.hivemq.api.model.metrics.DataPoint;
 import com.hivemq.api.model.metrics.MetricList;
+import com.hivemq.api.model.metrics.MetricSeriesList;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,9 +34,11 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.List;
 
 /**
  * @author Simon L Johnson
@@ -94,4 +97,32 @@ public interface MetricsApi {
                                                  in = ParameterIn.PATH)
                        @PathParam("metricName") String prefix);
 
+    @GET
+    @Path("/series")
+    @Operation(summary = "Obtain the sampled history of the metrics requested",
+               operationId = "getSeries",
+               description = "Obtain the sampled history of one or more metrics in a single request. The resolution " +
+                       "of the data points depends on how far back the requested time range reaches.",
+               tags = {"Metrics"},
+               responses = {
+                       @ApiResponse(responseCode = "200",
+                                    description = "Success",
+                                    content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                                       schema = @Schema(implementation = MetricSeriesList.class)))})
+    Response getSeries(final @NotNull @Parameter(name = "metric",
+                                                 description = "The metrics to obtain the history for.",
+                                                 required = true,
+                                                 in = ParameterIn.QUERY)
+                       @QueryParam("metric") List<String> metricNames,
+                       final @Parameter(name = "since",
+                                        description = "The start of the time range in epoch milliseconds, " +
+                                                "defaults to one hour ago.",
+                                        in = ParameterIn.QUERY)
+                       @QueryParam("since") Long since,
+                       final @Parameter(name = "until",
+                                        description = "The end of the time range in epoch milliseconds, " +
+                                                "defaults to now.",
+                                        in = ParameterIn.QUERY)
+                       @QueryParam("until") Long until);
+
 }
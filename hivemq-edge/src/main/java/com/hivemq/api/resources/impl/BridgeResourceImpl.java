@@ -35,6 +35,7 @@ import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.edge.HiveMQEdgeConstants;
 import com.hivemq.exceptions.UnrecoverableException;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
@@ -186,9 +187,15 @@ public class BridgeResourceImpl extends AbstractApi implements BridgeApi {
         if (ApiErrorUtils.hasRequestErrors(errorMessages)) {
             return ApiErrorUtils.badRequest(errorMessages);
         } else {
-            //-- Modify the configuration
+            //-- Modify the configuration, settings that are not part of the API model are retained
+            final MqttBridge existingBridge = configurationService.bridgeConfiguration()
+                    .getBridges()
+                    .stream()
+                    .filter(b -> b.getId().equals(bridgeId))
+                    .findFirst()
+                    .orElse(null);
             configurationService.bridgeConfiguration().removeBridge(bridgeId);
-            configurationService.bridgeConfiguration().addBridge(unconvert(bridge));
+            configurationService.bridgeConfiguration().addBridge(unconvert(bridge, existingBridge));
             //-- Restart the new configuration on a new connection
             bridgeService.restartBridge(bridgeId);
             return Response.status(200).build();
@@ -302,6 +309,10 @@ public class BridgeResourceImpl extends AbstractApi implements BridgeApi {
 
 
     private static MqttBridge unconvert(final @NotNull Bridge bridge) {
+        return unconvert(bridge, null);
+    }
+
+    private static MqttBridge unconvert(final @NotNull Bridge bridge, final @Nullable MqttBridge existingBridge) {
 
         MqttBridge.Builder builder = new MqttBridge.Builder();
         builder.withCleanStart(bridge.isCleanStart())
@@ -333,6 +344,11 @@ public class BridgeResourceImpl extends AbstractApi implements BridgeApi {
                                 .collect(Collectors.toList()) :
                         List.of())
                 .withBridgeTls(convertTls(bridge.getTlsConfiguration()));
+        if (existingBridge != null) {
+            builder.withBridgeBuffer(existingBridge.getBridgeBuffer())
+                    .withConnectionCount(existingBridge.getConnectionCount())
+                    .withBridgeBatching(existingBridge.getBridgeBatching());
+        }
         return builder.build();
     }
 
@@ -16,7 +16,6 @@
 package com.hivemq.api.resources.impl;
 
 import com.codahale.metrics.Counter;
-import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.api.AbstractApi;
@@ -24,15 +23,20 @@ import com.hivemq.api.model.ApiErrorMessages;
 import com.hivemq.api.model.metrics.DataPoint;
 import com.hivemq.api.model.metrics.Metric;
 import com.hivemq.api.model.metrics.MetricList;
+import com.hivemq.api.model.metrics.MetricSeries;
+import com.hivemq.api.model.metrics.MetricSeriesList;
 import com.hivemq.api.resources.MetricsApi;
 import com.hivemq.api.utils.ApiErrorUtils;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.timeseries.MetricTimeSeries;
+import com.hivemq.metrics.timeseries.MetricTimeSeriesStore;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.ws.rs.core.Response;
 import java.util.Iterator;
-import java.util.SortedMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Simon L Johnson
@@ -40,11 +44,18 @@ import java.util.SortedMap;
 @Singleton
 public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
 
+    static final int MAX_SERIES_PER_REQUEST = 50;
+    static final long DEFAULT_SERIES_RANGE = TimeUnit.HOURS.toMillis(1);
+
     private final @NotNull MetricRegistry metricsRegistry;
+    private final @NotNull MetricTimeSeriesStore metricTimeSeriesStore;
 
     @Inject
-    public MetricsResourceImpl(final @NotNull MetricRegistry metricsRegistry) {
+    public MetricsResourceImpl(
+            final @NotNull MetricRegistry metricsRegistry,
+            final @NotNull MetricTimeSeriesStore metricTimeSeriesStore) {
         this.metricsRegistry = metricsRegistry;
+        this.metricTimeSeriesStore = metricTimeSeriesStore;
     }
 
     @Override
@@ -66,10 +77,10 @@ public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
             return ApiErrorUtils.badRequest(messages);
         } else {
             logger.trace("Metrics API obtaining latest sample for {} at {}", metricName, System.currentTimeMillis());
-            SortedMap<String, Counter> metrics = metricsRegistry.getCounters(MetricFilter.contains(metricName));
-            Counter counter = metrics.get(metricName);
-            if(counter != null){
-                DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), counter.getCount());
+            //-- a direct lookup, filtering the registry would visit every metric for each sample
+            com.codahale.metrics.Metric metric = metricsRegistry.getMetrics().get(metricName);
+            if(metric instanceof Counter){
+                DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), ((Counter) metric).getCount());
                 return Response.status(200).entity(dataPoint).build();
             } else {
                 DataPoint dataPoint = new DataPoint(System.currentTimeMillis(), 0L);
@@ -78,4 +89,41 @@ public class MetricsResourceImpl extends AbstractApi implements MetricsApi {
             }
         }
     }
+
+    @Override
+    public Response getSeries(final List<String> metricNames, final Long since, final Long until) {
+        final ApiErrorMessages messages = ApiErrorUtils.createErrorContainer();
+        if (metricNames == null || metricNames.isEmpty()) {
+            ApiErrorUtils.addValidationError(messages, "metric", "At least one metric is required");
+        } else if (metricNames.size() > MAX_SERIES_PER_REQUEST) {
+            ApiErrorUtils.addValidationError(messages,
+                    "metric",
+                    "At most " + MAX_SERIES_PER_REQUEST + " metrics can be requested at once");
+        }
+        final long now = System.currentTimeMillis();
+        final long to = until != null ? until : now;
+        final long from = since != null ? since : to - DEFAULT_SERIES_RANGE;
+        if (from > to) {
+            ApiErrorUtils.addValidationError(messages, "since", "Must not be after until");
+        }
+        if (ApiErrorUtils.hasRequestErrors(messages)) {
+            return ApiErrorUtils.badRequest(messages);
+        }
+        logger.trace("Metrics API obtaining series for {} from {} to {}", metricNames, from, to);
+        final ImmutableList.Builder<MetricSeries> builder = ImmutableList.builder();
+        for (final String metricName : metricNames) {
+            final MetricTimeSeries series = metricTimeSeriesStore.getSeries(metricName);
+            if (series == null) {
+                continue;
+            }
+            final ImmutableList.Builder<DataPoint> dataPoints = ImmutableList.builder();
+            for (final MetricTimeSeries.Sample sample : series.read(from, to, now)) {
+                //-- counts stay integral, gauges keep their fractions
+                final Number value = series.isGauge() ? (Number) sample.getValue() : (Number) (long) sample.getValue();
+                dataPoints.add(new DataPoint(sample.getTimestamp(), value));
+            }
+            builder.add(new MetricSeries(metricName, series.resolutionFor(from, now), dataPoints.build()));
+        }
+        return Response.status(200).entity(new MetricSeriesList(builder.build())).build();
+    }
 }
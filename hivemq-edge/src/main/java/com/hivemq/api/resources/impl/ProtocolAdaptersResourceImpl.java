@@ -34,6 +34,7 @@ import com.hivemq.api.resources.ProtocolAdaptersApi;
 import com.hivemq.api.utils.ApiErrorUtils;
 import com.hivemq.api.utils.ApiUtils;
 import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.edge.HiveMQEdgeConstants;
 import com.hivemq.edge.modules.adapters.impl.ProtocolAdapterDiscoveryOutputImpl;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryInput;
@@ -53,6 +54,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 public class ProtocolAdaptersResourceImpl extends AbstractApi implements ProtocolAdaptersApi {
@@ -177,18 +182,33 @@ public class ProtocolAdaptersResourceImpl extends AbstractApi implements Protoco
             AdapterInstance adapterInstance = instance.get();
             Thread.currentThread()
                     .setContextClassLoader(adapterInstance.getAdapterFactory().getClass().getClassLoader());
-            adapterInstance.getAdapter().discoverValues(new ProtocolAdapterDiscoveryInput() {
-                @Override
-                public @Nullable String getRootNode() {
-                    return rootNode;
-                }
-
-                @Override
-                public int getDepth() {
-                    return (depth != null && depth > 0) ? depth : 1;
-                }
-
-            }, output);
+            final CompletableFuture<Void> discoveryFuture =
+                    adapterInstance.getAdapter().discoverValues(new ProtocolAdapterDiscoveryInput() {
+                        @Override
+                        public @Nullable String getRootNode() {
+                            return rootNode;
+                        }
+
+                        @Override
+                        public int getDepth() {
+                            return (depth != null && depth > 0) ? depth : 1;
+                        }
+
+                    }, output);
+            //-- adapters browse asynchronously, the tree is only complete once the discovery is done
+            if (discoveryFuture != null) {
+                discoveryFuture.get(InternalConfigurations.HTTP_API_ADAPTER_DISCOVERY_TIMEOUT_SEC.get(),
+                        TimeUnit.SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ApiErrorUtils.internalServerError("Discovery of adapter values was interrupted");
+        } catch (final TimeoutException e) {
+            logger.warn("Discovery of values for adapter {} timed out", adapterId);
+            return ApiErrorUtils.internalServerError("Discovery of adapter values timed out");
+        } catch (final ExecutionException e) {
+            logger.warn("Discovery of values for adapter {} failed", adapterId, e.getCause());
+            return ApiErrorUtils.internalServerError("Discovery of adapter values failed");
         } finally {
             Thread.currentThread().setContextClassLoader(contextClassLoader);
         }
@@ -98,6 +98,14 @@ public class ApiErrorUtils {
         }
     }
 
+    public static Response internalServerError(@NotNull final String message){
+        ApiErrorMessages messages = ApiErrorUtils.createErrorContainer().addError(ApiErrorMessage.from(message));
+        return Response.status(HttpConstants.SC_INTERNAL_SERVER_ERROR)
+                .entity(messages)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
     public static boolean hasRequestErrors(@NotNull final ApiErrorMessages apiErrorMessages){
         return !apiErrorMessages.getErrors().isEmpty();
     }
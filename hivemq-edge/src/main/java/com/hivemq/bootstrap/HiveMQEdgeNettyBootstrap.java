@@ -28,6 +28,7 @@ import com.hivemq.common.shutdown.ShutdownHooks;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.entity.ClientWriteBufferProperties;
 import com.hivemq.configuration.service.entity.Listener;
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.configuration.service.entity.MqttTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsWebsocketListener;
@@ -45,6 +46,8 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -128,8 +131,7 @@ public class HiveMQEdgeNettyBootstrap {
             log.debug("Starting MQTT TCP listener on address {} and port {}",
                     listener.getBindAddress(),
                     listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
+            final ChannelFuture bind = bindTcp(b, listener);
             futures.add(new BindInformation(listener, bind));
         }
         return futures.build();
@@ -147,8 +149,7 @@ public class HiveMQEdgeNettyBootstrap {
             log.debug("Starting MQTT TLS TCP listener on address {} and port {}",
                     listener.getBindAddress(),
                     listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
+            final ChannelFuture bind = bindTcp(b, listener);
             futures.add(new BindInformation(listener, bind));
         }
         return futures.build();
@@ -166,8 +167,7 @@ public class HiveMQEdgeNettyBootstrap {
             log.debug("Starting MQTT Websocket listener on address {} and port {}",
                     listener.getBindAddress(),
                     listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
+            final ChannelFuture bind = bindTcp(b, listener);
             futures.add(new BindInformation(listener, bind));
         }
         return futures.build();
@@ -186,8 +186,7 @@ public class HiveMQEdgeNettyBootstrap {
             log.debug("Starting MQTT Websocket TLS listener on address {} and port {}",
                     listener.getBindAddress(),
                     listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
+            final ChannelFuture bind = bindTcp(b, listener);
             futures.add(new BindInformation(listener, bind));
         }
         return futures.build();
@@ -245,9 +244,60 @@ public class HiveMQEdgeNettyBootstrap {
                 .childOption(ChannelOption.SO_REUSEADDR, true)
                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
         setAdvancedOptions(tcpBootstrap);
+        if (nettyTcpConfiguration.isNativeTransport()) {
+            setNativeOptions(tcpBootstrap, nettyTcpConfiguration.getTransport());
+        }
         return tcpBootstrap;
     }
 
+    /**
+     * Binds the TCP listener. When several sockets share the port, one server channel per acceptor thread is bound
+     * and the kernel balances the incoming connections across them.
+     *
+     * @return the bind future of the first server channel
+     */
+    private @NotNull ChannelFuture bindTcp(final @NotNull ServerBootstrap b, final @NotNull Listener listener) {
+        final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
+        connectionPersistence.addServerChannel(listener.getName(), bind.channel());
+
+        final ListenerTransport transport = nettyTcpConfiguration.getTransport();
+        // an ephemeral port can not be shared, it is only known after the first bind
+        if (!nettyTcpConfiguration.isNativeTransport() || !transport.isReusePort() || listener.getPort() == 0) {
+            return bind;
+        }
+        for (int i = 1; i < transport.getAcceptorThreads(); i++) {
+            final ChannelFuture additionalBind = b.bind(listener.getBindAddress(), listener.getPort());
+            connectionPersistence.addServerChannel(listener.getName() + "-" + i, additionalBind.channel());
+            additionalBind.addListener((ChannelFutureListener) future -> {
+                if (!future.isSuccess()) {
+                    log.warn("Could not bind additional acceptor for listener {} on port {}: {}",
+                            listener.getName(),
+                            listener.getPort(),
+                            future.cause().getMessage());
+                }
+            });
+        }
+        return bind;
+    }
+
+    /**
+     * Sets the options that are only available for the native Epoll transport
+     *
+     * @param b         the server bootstrap
+     * @param transport the configured listener transport
+     */
+    private static void setNativeOptions(final @NotNull ServerBootstrap b, final @NotNull ListenerTransport transport) {
+        final EpollMode epollMode = transport.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+        b.option(EpollChannelOption.EPOLL_MODE, epollMode);
+        b.childOption(EpollChannelOption.EPOLL_MODE, epollMode);
+        if (transport.isTcpQuickAck()) {
+            b.childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (transport.isReusePort()) {
+            b.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+    }
+
     private @NotNull AbstractBootstrap createUdpBootstrap(
             final @NotNull EventLoopGroup bossGroup,
             final @NotNull EventLoopGroup workerGroup,
@@ -255,11 +305,10 @@ public class HiveMQEdgeNettyBootstrap {
 
         return new ServerBootstrap().group(bossGroup)
                 .childHandler(channelInitializerFactory.getChannelInitializer(listener))
-//                .channel(UdpServerChannel.class)
-                .channelFactory(() -> {
-                    UdpServerChannel serverChannel = new UdpServerChannel(workerGroup);
-                    return serverChannel;
-                })
+                .channelFactory(() -> new UdpServerChannel(workerGroup,
+                        nettyUdpConfiguration.getServerSocketChannelClass(),
+                        nettyUdpConfiguration.getTransport(),
+                        nettyUdpConfiguration.isNativeTransport()))
                 .option(ChannelOption.AUTO_CLOSE, true)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.SO_BROADCAST, true)
@@ -15,7 +15,9 @@
  */
 package com.hivemq.bootstrap.netty;
 
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.extension.sdk.api.annotations.Immutable;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 
@@ -38,10 +40,22 @@ public class NettyTcpConfiguration {
 
     private final EventLoopGroup childEventLoopGroup;
 
+    private final @NotNull ListenerTransport transport;
+
+    private final boolean nativeTransport;
+
 
     public NettyTcpConfiguration(final Class<? extends ServerSocketChannel> serverSocketChannelClass,
                                  final EventLoopGroup parentEventLoopGroup,
                                  final EventLoopGroup childEventLoopGroup) {
+        this(serverSocketChannelClass, parentEventLoopGroup, childEventLoopGroup, ListenerTransport.DEFAULT, false);
+    }
+
+    public NettyTcpConfiguration(final Class<? extends ServerSocketChannel> serverSocketChannelClass,
+                                 final EventLoopGroup parentEventLoopGroup,
+                                 final EventLoopGroup childEventLoopGroup,
+                                 final @NotNull ListenerTransport transport,
+                                 final boolean nativeTransport) {
 
         checkNotNull(serverSocketChannelClass, "Server Socket Channel Class must not be null");
         checkNotNull(parentEventLoopGroup, "Parent Event Loop Group must not be null");
@@ -50,6 +64,8 @@ public class NettyTcpConfiguration {
         this.serverSocketChannelClass = serverSocketChannelClass;
         this.parentEventLoopGroup = parentEventLoopGroup;
         this.childEventLoopGroup = childEventLoopGroup;
+        this.transport = transport;
+        this.nativeTransport = nativeTransport;
     }
 
     public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
@@ -64,4 +80,14 @@ public class NettyTcpConfiguration {
         return childEventLoopGroup;
     }
 
+    public @NotNull ListenerTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return true if the channels use the native Epoll transport, false for NIO
+     */
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
 }
@@ -15,7 +15,9 @@
  */
 package com.hivemq.bootstrap.netty;
 
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.extension.sdk.api.annotations.Immutable;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.DatagramChannel;
 
@@ -35,10 +37,22 @@ public class NettyUdpConfiguration {
     private final EventLoopGroup parentEventLoopGroup;
     private final EventLoopGroup childEventLoopGroup;
 
+    private final @NotNull ListenerTransport transport;
+
+    private final boolean nativeTransport;
+
 
     public NettyUdpConfiguration(final Class<? extends DatagramChannel> serverSocketChannelClass,
                                  final EventLoopGroup parentEventLoopGroup,
                                  final EventLoopGroup childEventLoopGroup) {
+        this(serverSocketChannelClass, parentEventLoopGroup, childEventLoopGroup, ListenerTransport.DEFAULT, false);
+    }
+
+    public NettyUdpConfiguration(final Class<? extends DatagramChannel> serverSocketChannelClass,
+                                 final EventLoopGroup parentEventLoopGroup,
+                                 final EventLoopGroup childEventLoopGroup,
+                                 final @NotNull ListenerTransport transport,
+                                 final boolean nativeTransport) {
 
         checkNotNull(serverSocketChannelClass, "Server Socket Channel Class must not be null");
         checkNotNull(parentEventLoopGroup, "Parent Event Loop Group must not be null");
@@ -47,6 +61,8 @@ public class NettyUdpConfiguration {
         this.serverSocketChannelClass = serverSocketChannelClass;
         this.parentEventLoopGroup = parentEventLoopGroup;
         this.childEventLoopGroup = childEventLoopGroup;
+        this.transport = transport;
+        this.nativeTransport = nativeTransport;
     }
 
     public Class<? extends DatagramChannel> getServerSocketChannelClass() {
@@ -60,4 +76,15 @@ public class NettyUdpConfiguration {
     public EventLoopGroup getParentEventLoopGroup() {
         return parentEventLoopGroup;
     }
+
+    public @NotNull ListenerTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return true if the channels use the native Epoll transport, false for NIO
+     */
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
 }
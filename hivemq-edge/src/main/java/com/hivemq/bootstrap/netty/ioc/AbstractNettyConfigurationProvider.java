@@ -15,10 +15,18 @@
  */
 package com.hivemq.bootstrap.netty.ioc;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hivemq.configuration.service.entity.ListenerTransport;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ThreadFactory;
 
@@ -26,15 +34,67 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class AbstractNettyConfigurationProvider {
 
+    private static final @NotNull Logger log = LoggerFactory.getLogger(AbstractNettyConfigurationProvider.class);
+
+    protected final @NotNull ListenerTransport transport;
+    private final boolean nativeTransport;
+
+    protected AbstractNettyConfigurationProvider(
+            final @NotNull ListenerConfigurationService listenerConfigurationService) {
+        transport = listenerConfigurationService.getTransport();
+        nativeTransport = useNativeTransport(transport, Epoll.isAvailable(), Epoll.unavailabilityCause());
+    }
+
+    /**
+     * Decides if the native Epoll transport is used for the given transport configuration.
+     *
+     * @param transport        the configured transport
+     * @param epollAvailable   if the native Epoll transport could be loaded on this platform
+     * @param unavailableCause the reason the native Epoll transport could not be loaded
+     * @return true if the native Epoll transport is used, false if NIO is used
+     */
+    @VisibleForTesting
+    static boolean useNativeTransport(
+            final @NotNull ListenerTransport transport,
+            final boolean epollAvailable,
+            final @Nullable Throwable unavailableCause) {
+        switch (transport.getType()) {
+            case NIO:
+                return false;
+            case EPOLL:
+                if (!epollAvailable) {
+                    log.warn("The native epoll transport is configured but not available on this platform, " +
+                            "falling back to NIO.");
+                    log.debug("Original exception:", unavailableCause);
+                }
+                return epollAvailable;
+            case AUTO:
+            default:
+                return epollAvailable;
+        }
+    }
+
+    /**
+     * @return true if the native Epoll transport is used, false if NIO is used
+     */
+    protected boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
     /**
      * Creates the Parent Eventloop. Creates either a NIO Eventloop or a native Epoll Eventloop with a preference
-     * for native Epoll.
+     * for native Epoll. When several sockets share a listener port, every socket gets its own parent thread.
      *
      * @return the Boss EventLoopGroup
      */
     @NotNull
     protected EventLoopGroup createParentEventLoop() {
-        return new NioEventLoopGroup(1, createThreadFactory("hivemq-eventloop-parent-%d"));
+        final ThreadFactory threadFactory = createThreadFactory("hivemq-eventloop-parent-%d");
+        if (nativeTransport) {
+            return new EpollEventLoopGroup(transport.isReusePort() ? transport.getAcceptorThreads() : 1,
+                    threadFactory);
+        }
+        return new NioEventLoopGroup(1, threadFactory);
     }
 
     /**
@@ -46,7 +106,11 @@ public abstract class AbstractNettyConfigurationProvider {
     @NotNull
     protected EventLoopGroup createChildEventLoop() {
         //Default Netty Threads.
-        return new NioEventLoopGroup(0, createThreadFactory("hivemq-eventloop-child-%d"));
+        final ThreadFactory threadFactory = createThreadFactory("hivemq-eventloop-child-%d");
+        if (nativeTransport) {
+            return new EpollEventLoopGroup(0, threadFactory);
+        }
+        return new NioEventLoopGroup(0, threadFactory);
     }
 
     /**
@@ -16,8 +16,10 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyTcpConfiguration;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import javax.inject.Inject;
@@ -34,7 +36,8 @@ public class NettyTcpConfigurationProvider extends AbstractNettyConfigurationPro
         implements Provider<NettyTcpConfiguration> {
 
     @Inject
-    public NettyTcpConfigurationProvider() {
+    public NettyTcpConfigurationProvider(final @NotNull ListenerConfigurationService listenerConfigurationService) {
+        super(listenerConfigurationService);
     }
 
     @NotNull
@@ -44,6 +47,9 @@ public class NettyTcpConfigurationProvider extends AbstractNettyConfigurationPro
         final EventLoopGroup parentGroup = createParentEventLoop();
         final EventLoopGroup childGroup = createChildEventLoop();
 
-        return new NettyTcpConfiguration(NioServerSocketChannel.class, parentGroup, childGroup);
+        if (isNativeTransport()) {
+            return new NettyTcpConfiguration(EpollServerSocketChannel.class, parentGroup, childGroup, transport, true);
+        }
+        return new NettyTcpConfiguration(NioServerSocketChannel.class, parentGroup, childGroup, transport, false);
     }
 }
@@ -16,8 +16,10 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyUdpConfiguration;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 
 import javax.inject.Inject;
@@ -31,7 +33,8 @@ import javax.inject.Singleton;
 public class NettyUdpConfigurationProvider extends AbstractNettyConfigurationProvider implements Provider<NettyUdpConfiguration> {
 
     @Inject
-    public NettyUdpConfigurationProvider() {
+    public NettyUdpConfigurationProvider(final @NotNull ListenerConfigurationService listenerConfigurationService) {
+        super(listenerConfigurationService);
     }
 
     @NotNull
@@ -41,7 +44,14 @@ public class NettyUdpConfigurationProvider extends AbstractNettyConfigurationPro
         final EventLoopGroup parentEventLoop = createParentEventLoop();
         final EventLoopGroup childEventLoop = createChildEventLoop();
 
-        return new NettyUdpConfiguration(NioDatagramChannel.class, parentEventLoop, childEventLoop);
+        if (isNativeTransport()) {
+            return new NettyUdpConfiguration(EpollDatagramChannel.class,
+                    parentEventLoop,
+                    childEventLoop,
+                    transport,
+                    true);
+        }
+        return new NettyUdpConfiguration(NioDatagramChannel.class, parentEventLoop, childEventLoop, transport, false);
     }
 
 }
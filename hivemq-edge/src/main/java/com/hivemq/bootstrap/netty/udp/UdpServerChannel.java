@@ -16,10 +16,13 @@
 package com.hivemq.bootstrap.netty.udp;
 
 import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
@@ -52,8 +55,21 @@ public class UdpServerChannel extends AbstractServerChannel {
     protected volatile boolean open = true;
 
     public UdpServerChannel(final @NotNull EventLoopGroup group) {
+        this(group, NioDatagramChannel.class, ListenerTransport.DEFAULT, false);
+    }
+
+    /**
+     * @param group           the event loop group the datagram channels are registered with
+     * @param channelClass    the datagram channel implementation, either NIO or native Epoll
+     * @param transport       the configured listener transport
+     * @param nativeTransport true if {@code channelClass} is a native Epoll channel
+     */
+    public UdpServerChannel(
+            final @NotNull EventLoopGroup group,
+            final @NotNull Class<? extends DatagramChannel> channelClass,
+            final @NotNull ListenerTransport transport,
+            final boolean nativeTransport) {
         this.group = group;
-        Class<? extends DatagramChannel> channel = NioDatagramChannel.class;
         ChannelInitializer<Channel> initializer = new ChannelInitializer<>() {
             final ReadRouteChannelHandler ioReadRoute = new ReadRouteChannelHandler();
             @Override
@@ -62,9 +78,22 @@ public class UdpServerChannel extends AbstractServerChannel {
             }
         };
 
-        Bootstrap ioBootstrap = new Bootstrap().group(group).
-                channel(channel).handler(initializer);
-        ioBootstraps.add(ioBootstrap);
+        // with SO_REUSEPORT the kernel balances the datagrams across several sockets bound to the same port,
+        // every socket is read by its own event loop
+        final boolean reusePort = nativeTransport && transport.isReusePort();
+        final int ioChannelCount = reusePort ? transport.getAcceptorThreads() : 1;
+        for (int i = 0; i < ioChannelCount; i++) {
+            final Bootstrap ioBootstrap = new Bootstrap().group(group).
+                    channel(channelClass).handler(initializer);
+            if (nativeTransport) {
+                ioBootstrap.option(EpollChannelOption.EPOLL_MODE,
+                        transport.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+            }
+            if (reusePort) {
+                ioBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+            ioBootstraps.add(ioBootstrap);
+        }
     }
 
     protected class ReadRouteChannelHandler extends SimpleChannelInboundHandler<DatagramPacket> {
@@ -90,7 +119,7 @@ public class UdpServerChannel extends AbstractServerChannel {
     }
 
     protected void doWrite(RecyclableArrayList list, InetSocketAddress remote) {
-        Channel ioChannel = ioChannels.get(remote.hashCode() & (ioChannels.size() - 1));
+        Channel ioChannel = ioChannels.get(Math.floorMod(remote.hashCode(), ioChannels.size()));
         ioChannel.eventLoop().execute(() -> {
             try {
                 for (Object buf : list) {
@@ -146,7 +175,9 @@ public class UdpServerChannel extends AbstractServerChannel {
     @Override
     protected void doBind(SocketAddress local) throws Exception {
         for (Bootstrap bootstrap : ioBootstraps) {
-            ioChannels.add(bootstrap.bind(local).sync().channel());
+            // an ephemeral port is resolved by the first bind, the other sockets have to share that port
+            final SocketAddress address = ioChannels.isEmpty() ? local : ioChannels.get(0).localAddress();
+            ioChannels.add(bootstrap.bind(address).sync().channel());
         }
         ioBootstraps.clear();
     }
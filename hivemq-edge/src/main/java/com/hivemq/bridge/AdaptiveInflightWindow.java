@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The in-flight window of the messages a bridge forwards to its remote broker, adapted like the congestion window of
+ * TCP.
+ * <p>
+ * The window starts in slow start and grows by one message per acknowledgement, so it doubles every round trip, until
+ * it reaches the slow start threshold. Afterwards it grows by one message per round trip. When the smoothed round trip
+ * time rises clearly above the lowest recently seen round trip time, the remote broker or the link queues messages and
+ * the window shrinks. Errors halve the window.
+ * <p>
+ * Every connection of a bridge has its own window, which is shared by all forwarders that publish over that
+ * connection.
+ */
+public class AdaptiveInflightWindow {
+
+    /**
+     * The factor the smoothed round trip time may exceed the base round trip time before the window shrinks.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final long BASE_RTT_EPOCH_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final @NotNull AtomicInteger inflight = new AtomicInteger();
+    private final @NotNull AtomicInteger peakInflight = new AtomicInteger();
+
+    private volatile int limit;
+    private int slowStartThreshold;
+    private int acknowledgedInRound;
+    private long smoothedRttNanos = -1;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long previousMinRttNanos = Long.MAX_VALUE;
+    private long epochStartNanos;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+    private long roundStartNanos;
+    private boolean utilized;
+
+    public AdaptiveInflightWindow() {
+        this(InternalConfigurations.BRIDGE_INFLIGHT_WINDOW_INITIAL_MESSAGES.get(),
+                InternalConfigurations.BRIDGE_INFLIGHT_WINDOW_MIN_MESSAGES.get(),
+                InternalConfigurations.BRIDGE_INFLIGHT_WINDOW_MAX_MESSAGES.get(),
+                System.nanoTime());
+    }
+
+    @VisibleForTesting
+    AdaptiveInflightWindow(final int initialLimit, final int minLimit, final int maxLimit, final long nowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.limit = Math.max(minLimit, Math.min(initialLimit, this.maxLimit));
+        this.slowStartThreshold = this.maxLimit;
+        this.epochStartNanos = nowNanos;
+        this.roundStartNanos = nowNanos;
+    }
+
+    /**
+     * @return the max. amount of messages that should be in-flight
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the amount of messages that were sent and are not acknowledged yet
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public void onSent() {
+        final int current = inflight.incrementAndGet();
+        if (current > peakInflight.get()) {
+            peakInflight.accumulateAndGet(current, Math::max);
+        }
+    }
+
+    public synchronized void onAcknowledged(final long rttNanos, final long nowNanos) {
+        final int inflightAfterAck = inflight.decrementAndGet();
+        smoothedRttNanos = smoothedRttNanos < 0 ? rttNanos : smoothedRttNanos + (rttNanos - smoothedRttNanos) / 8;
+
+        //-- the base round trip time is the min. of the current and the previous epoch, so it follows route changes
+        if (nowNanos - epochStartNanos > BASE_RTT_EPOCH_NANOS) {
+            previousMinRttNanos = minRttNanos;
+            minRttNanos = Long.MAX_VALUE;
+            epochStartNanos = nowNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        final long baseRttNanos = Math.min(minRttNanos, previousMinRttNanos);
+
+        if (smoothedRttNanos > baseRttNanos * LATENCY_TOLERANCE) {
+            decrease(nowNanos, limit * 4 / 5);
+            return;
+        }
+        //-- the window only grows while it is used, otherwise it would grow unbounded while there is little traffic
+        if (nowNanos - roundStartNanos >= smoothedRttNanos) {
+            roundStartNanos = nowNanos;
+            utilized = peakInflight.getAndSet(inflightAfterAck) >= limit / 2;
+        }
+        if (!utilized) {
+            return;
+        }
+        if (limit < slowStartThreshold) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else if (++acknowledgedInRound >= limit) {
+            acknowledgedInRound = 0;
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public synchronized void onFailed(final long nowNanos) {
+        inflight.decrementAndGet();
+        decrease(nowNanos, limit / 2);
+    }
+
+    private void decrease(final long nowNanos, final int newLimit) {
+        //-- all messages of the same round trip see the same congestion, so the window shrinks once per round trip
+        if (decreased && nowNanos - lastDecreaseNanos < smoothedRttNanos) {
+            return;
+        }
+        decreased = true;
+        lastDecreaseNanos = nowNanos;
+        limit = Math.max(minLimit, newLimit);
+        slowStartThreshold = limit;
+        acknowledgedInRound = 0;
+    }
+}
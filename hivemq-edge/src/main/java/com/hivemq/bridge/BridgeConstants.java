@@ -30,4 +30,9 @@ public class BridgeConstants {
     public static final @NotNull String HMQ_BRIDGE_HOP_COUNT = "hmq-bridge-hop-count";
 
     public static final @NotNull String BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN = "bridge.name";
+
+    /**
+     * Upper limit for the number of parallel connections of a bridge to its remote broker.
+     */
+    public static final int MAX_CONNECTION_COUNT = 32;
 }
@@ -141,7 +141,7 @@ public class BridgeService {
             } else {
                 bridgeMqttClient = bridgeToClientMap.get(bridgeName);
             }
-            if (!bridgeMqttClient.isConnected()) {
+            if (!bridgeMqttClient.isFullyConnected()) {
                 ListenableFuture<Void> future = bridgeMqttClient.start();
                 Futures.addCallback(future, new FutureCallback<>() {
                     public void onSuccess(Void result) {
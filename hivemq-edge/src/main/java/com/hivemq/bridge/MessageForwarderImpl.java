@@ -20,10 +20,10 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.subscribe.Topic;
@@ -39,14 +39,13 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.hivemq.configuration.service.InternalConfigurations.FORWARDER_POLL_THRESHOLD_MESSAGES;
 import static com.hivemq.configuration.service.InternalConfigurations.PUBLISH_POLL_BATCH_SIZE_BYTES;
 
 @Singleton
@@ -60,7 +59,12 @@ public class MessageForwarderImpl implements MessageForwarder {
     private final @NotNull HivemqId hivemqId;
     private final @NotNull Lazy<ClientQueuePersistence> queuePersistence;
     private final @NotNull SingleWriterService singleWriterService;
-    private final @NotNull Set<String> notEmptyQueues = new ConcurrentSkipListSet<>();
+    private final @NotNull Map<String, QueuePoller> queuePollers = new ConcurrentHashMap<>();
+    /**
+     * The queues that were not polled because the in-flight limit of their bridge was reached, they are polled again
+     * as soon as an in-flight message of any queue is finished.
+     */
+    private final @NotNull Set<String> starvedQueues = ConcurrentHashMap.newKeySet();
     private final @NotNull Map<String, MqttForwarder> forwarders = new ConcurrentHashMap<>(0);
     private final @NotNull Map<String, Set<String>> queueIdsForForwarder = new ConcurrentHashMap<>(0);
     private final @NotNull ExecutorService executorService =
@@ -102,7 +106,9 @@ public class MessageForwarderImpl implements MessageForwarder {
                 cancelled));
         forwarders.put(forwarderId, mqttForwarder);
         queueIdsForForwarder.put(forwarderId, queueIds);
-        notEmptyQueues.addAll(queueIds);
+        for (final String queueId : queueIds) {
+            queuePollers.put(queueId, new QueuePoller(queueId, mqttForwarder));
+        }
         mqttForwarder.start();
         checkBuffers();
     }
@@ -114,7 +120,8 @@ public class MessageForwarderImpl implements MessageForwarder {
         for (String topic : mqttForwarder.getTopics()) {
             topicTree.removeSubscriber(clientId, topic, FORWARDER_PREFIX + forwarderId);
             final String queueId = createQueueId(forwarderId, topic);
-            notEmptyQueues.remove(queueId);
+            queuePollers.remove(queueId);
+            starvedQueues.remove(queueId);
             queuePersistence.get().clear(queueId, true); //clear up queue
         }
         queueIdsForForwarder.remove(forwarderId);
@@ -135,22 +142,34 @@ public class MessageForwarderImpl implements MessageForwarder {
                 FutureUtils.addExceptionLogger(queuePersistence.get()
                         .removeShared(queueId, message.getUniqueId()));
             }
-            continueForwarding(queueId, forwarders.get(forwarderId));
+            continueForwarding(queueId);
         });
     }
 
-    private void continueForwarding(final @NotNull String queueId, final @NotNull MqttForwarder mqttForwarder) {
-        notEmptyQueues.add(queueId);
-        if (mqttForwarder.getInflightCount() < FORWARDER_POLL_THRESHOLD_MESSAGES) {
-            checkBuffers();
+    private void continueForwarding(final @NotNull String queueId) {
+        final QueuePoller queuePoller = queuePollers.get(queueId);
+        if (queuePoller != null && queuePoller.hasCapacity()) {
+            queuePoller.schedule();
+        }
+        //the finished message released capacity that the queues which were skipped for lack of it may use now
+        for (final String starvedQueueId : starvedQueues) {
+            final QueuePoller starvedPoller = queuePollers.get(starvedQueueId);
+            if (starvedPoller == null) {
+                starvedQueues.remove(starvedQueueId);
+            } else if (starvedPoller.hasCapacity() && starvedQueues.remove(starvedQueueId)) {
+                starvedPoller.schedule();
+            }
         }
     }
 
     @Override
     public void messageAvailable(final @NotNull String queueId) {
+        //called by the persistence, the poll must not run on its single writer thread
         singleWriterService.callbackExecutor(queueId).execute(() -> {
-            notEmptyQueues.add(queueId);
-            checkBuffers();
+            final QueuePoller queuePoller = queuePollers.get(queueId);
+            if (queuePoller != null) {
+                queuePoller.schedule();
+            }
         });
     }
 
@@ -159,118 +178,93 @@ public class MessageForwarderImpl implements MessageForwarder {
         return FORWARDER_PREFIX + forwarderId + "/" + topic;
     }
 
-    @NotNull
-    private final Lock pollLock = new ReentrantLock();
-    private boolean polling = false;
-    private boolean pollAgain = false;
-
     @Override
     public void checkBuffers() {
-
-        pollLock.lock();
-        try {
-            if (polling) {
-                pollAgain = true;
-                return;
-            } else {
-                polling = true;
-            }
-        } finally {
-            pollLock.unlock();
+        for (final QueuePoller queuePoller : queuePollers.values()) {
+            queuePoller.schedule();
         }
-        checkBuffersAfterLock();
     }
 
-    private void checkBuffersAfterLock() {
-        if (notEmptyQueues.isEmpty()) {
-            polling = false;
-            return;
+    /**
+     * Polls one queue of a forwarder. Every queue is polled on its own, so a forwarder whose in-flight window is full
+     * or whose queue is slow does not hold back the polling of the other queues. The in-flight limit is the one of the
+     * bridge, the capacity is shared by all queues of the forwarders of a bridge.
+     */
+    private class QueuePoller {
+
+        private final @NotNull String queueId;
+        private final @NotNull MqttForwarder mqttForwarder;
+        /**
+         * The amount of poll requests since the last poll started, only the request that increments it from 0 polls.
+         */
+        private final @NotNull AtomicInteger requested = new AtomicInteger();
+
+        QueuePoller(final @NotNull String queueId, final @NotNull MqttForwarder mqttForwarder) {
+            this.queueId = queueId;
+            this.mqttForwarder = mqttForwarder;
         }
-        final ImmutableList.Builder<ListenableFuture<Boolean>> pollFuturesBuilder = ImmutableList.builder();
-        for (MqttForwarder forwarder : forwarders.values()) {
-            final List<ListenableFuture<Boolean>> singlePollFuture = pollForBuffer(forwarder);
-            pollFuturesBuilder.addAll(singlePollFuture);
+
+        boolean hasCapacity() {
+            return capacity() > 0;
         }
-        final ImmutableList<ListenableFuture<Boolean>> pollFutures = pollFuturesBuilder.build();
-        final ListenableFuture<List<Boolean>> pollFuture = Futures.allAsList(pollFutures);
-        Futures.addCallback(pollFuture, new FutureCallback<>() {
-            @Override
-            public void onSuccess(final @NotNull List<Boolean> result) {
-                for (final Boolean queueNotEmpty : result) {
-                    if (queueNotEmpty) {
-                        // At least one queue was not empty and not over the threshold
-                        checkBuffersAfterLock();
-                        return;
-                    }
-                }
 
-                pollLock.lock();
-                try {
-                    //we don't need to poll again
-                    if (!pollAgain) {
-                        polling = false;
-                        return;
-                    }
-                    //we need to poll again
-                    pollAgain = false;
-                } finally {
-                    pollLock.unlock();
-                }
-                checkBuffersAfterLock();
+        void schedule() {
+            if (requested.getAndIncrement() == 0) {
+                poll();
             }
+        }
 
-            @Override
-            public void onFailure(final @NotNull Throwable throwable) {
-                log.error("An exception was thrown while polling messages for an extension consumer.", throwable);
+        private int capacity() {
+            return mqttForwarder.getInflightLimit() - mqttForwarder.getInflightCount();
+        }
 
-                //we need to reset the polling flag and re-schedule a poll here
-                pollLock.lock();
-                try {
-                    polling = false;
-                } finally {
-                    pollLock.unlock();
+        private void poll() {
+            final int missed = requested.get();
+            if (queuePollers.get(queueId) != this) {
+                pollDone(missed);
+                return;
+            }
+            int capacity = capacity();
+            if (capacity <= 0) {
+                starvedQueues.add(queueId);
+                //the capacity may have been released before the queue was marked as starved
+                capacity = capacity();
+                if (capacity <= 0 || !starvedQueues.remove(queueId)) {
+                    pollDone(missed);
+                    return;
                 }
-
-                //which callback executor does not matter, but it must be scheduled to prevent a stack-overflow if multiple errors occur back-to-back
-                final Executor callbackExecutor = singleWriterService.callbackExecutor("forwarder");
-                callbackExecutor.execute(() -> {
-                    checkBuffers();
-                });
             }
-        }, MoreExecutors.directExecutor());
-    }
-
-    @NotNull
-    private List<ListenableFuture<Boolean>> pollForBuffer(final @NotNull MqttForwarder mqttForwarder) {
-        final ImmutableList.Builder<ListenableFuture<Boolean>> pollFuturesBuilder = ImmutableList.builder();
+            final ListenableFuture<ImmutableList<PUBLISH>> pollFuture =
+                    queuePersistence.get().readShared(queueId, capacity, PUBLISH_POLL_BATCH_SIZE_BYTES);
+            Futures.addCallback(pollFuture, new FutureCallback<>() {
+                @Override
+                public void onSuccess(final @Nullable ImmutableList<PUBLISH> publishes) {
+                    if (publishes == null || publishes.isEmpty()) {
+                        pollDone(missed);
+                        return;
+                    }
+                    for (final PUBLISH publish : publishes) {
+                        mqttForwarder.onMessage(publish, queueId);
+                    }
+                    //the queue had messages, there may be more
+                    poll();
+                }
 
-        final Set<String> forwarderNonEmptyQueue = queueIdsForForwarder.get(mqttForwarder.getId());
-        if (forwarderNonEmptyQueue != null) {
-            for (final String queueId : forwarderNonEmptyQueue) {
-                if (mqttForwarder.getInflightCount() <= FORWARDER_POLL_THRESHOLD_MESSAGES) {
-                    final ListenableFuture<Boolean> pollFuture = pollForQueue(queueId, mqttForwarder);
-                    pollFuturesBuilder.add(pollFuture);
+                @Override
+                public void onFailure(final @NotNull Throwable throwable) {
+                    log.error("An exception was thrown while polling messages for a bridge forwarder.", throwable);
+                    pollDone(missed);
+                    //it must be scheduled to prevent a stack-overflow if multiple errors occur back-to-back
+                    singleWriterService.callbackExecutor(queueId).execute(QueuePoller.this::schedule);
                 }
-            }
+            }, executorService);
         }
-        return pollFuturesBuilder.build();
-    }
 
-    @NotNull
-    private ListenableFuture<Boolean> pollForQueue(
-            final @NotNull String queueId, final @NotNull MqttForwarder mqttForwarder) {
-        final ListenableFuture<ImmutableList<PUBLISH>> pollFuture = queuePersistence.get()
-                .readShared(queueId, FORWARDER_POLL_THRESHOLD_MESSAGES, PUBLISH_POLL_BATCH_SIZE_BYTES);
-        return Futures.transformAsync(pollFuture, publishes -> {
-            if (publishes == null) {
-                notEmptyQueues.remove(queueId);
-                return Futures.immediateFuture(false);
-            }
-            for (final PUBLISH publish : publishes) {
-                mqttForwarder.onMessage(publish, queueId);
+        private void pollDone(final int missed) {
+            //poll again if it was requested while this poll was running
+            if (requested.addAndGet(-missed) != 0) {
+                poll();
             }
-            return Futures.immediateFuture(!publishes.isEmpty());
-        }, executorService);
+        }
     }
-
 }
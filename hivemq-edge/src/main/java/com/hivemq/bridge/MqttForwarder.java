@@ -23,14 +23,29 @@ import java.util.concurrent.ExecutorService;
 
 public interface MqttForwarder {
 
+    /**
+     * @return the amount of in-flight messages of all forwarders of the bridge, in the same unit as
+     *         {@link #getInflightLimit()}
+     */
     int getInflightCount();
 
+    /**
+     * @return the amount of in-flight messages at which the polling of the local queues of the bridge stops
+     */
+    int getInflightLimit();
+
     void onMessage(@NotNull PUBLISH publish, @NotNull String queueId);
 
     void start();
 
     void stop();
 
+    /**
+     * Forwards the messages that were buffered while the remote broker was not reachable. Called when the connection
+     * to the remote broker was (re)established.
+     */
+    void drainBuffer();
+
     void setCallback(@NotNull MqttForwarder.AfterForwardCallback callback);
 
     void setExecutorService(@NotNull ExecutorService executorService);
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.batch;
+
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary format of the envelope messages of a bridge in batching mode. An envelope consists of a header and the
+ * entries, optionally compressed:
+ * <pre>
+ * version (1 byte) | compression (1 byte) | created timestamp (8 bytes) | entry count (4 bytes) | entries
+ * entry: timestamp (8 bytes) | length (4 bytes) | publish in the format of the {@link BufferedPublishSerializer}
+ * </pre>
+ * The timestamps are only compared with each other, so the clocks of the sender and the receiver do not need to be in
+ * sync.
+ */
+public final class BridgeBatchEnvelope {
+
+    public static final @NotNull String CONTENT_TYPE = "application/vnd.hivemq.edge.batch";
+
+    static final int HEADER_SIZE = 1 + 1 + 8 + 4;
+    static final int ENTRY_HEADER_SIZE = 8 + 4;
+
+    private static final byte VERSION = 1;
+    private static final byte COMPRESSION_NONE = 0;
+    private static final byte COMPRESSION_GZIP = 1;
+    private static final int MAX_ENTRIES_SIZE_BYTES = 1024 * 1024 * 256; //256MB, the maximum MQTT packet size
+
+    private BridgeBatchEnvelope() {
+    }
+
+    public static boolean isEnvelope(final @Nullable String contentType) {
+        return CONTENT_TYPE.equals(contentType);
+    }
+
+    /**
+     * @param entries     the serialized publishes
+     * @param timestamps  the time each publish was added to the envelope
+     * @param entriesSize the sum of the sizes of the serialized publishes
+     */
+    public static @NotNull byte[] encode(
+            final @NotNull List<byte[]> entries,
+            final @NotNull long[] timestamps,
+            final int entriesSize,
+            final @NotNull BridgeBatching.Compression compression,
+            final long createdTimestamp) throws IOException {
+        final ByteBuffer body = ByteBuffer.allocate(entriesSize + entries.size() * ENTRY_HEADER_SIZE);
+        for (int i = 0; i < entries.size(); i++) {
+            final byte[] entry = entries.get(i);
+            body.putLong(timestamps[i]);
+            body.putInt(entry.length);
+            body.put(entry);
+        }
+
+        final byte[] bodyBytes;
+        if (compression == BridgeBatching.Compression.GZIP) {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.capacity() / 4);
+            try (final GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body.array());
+            }
+            bodyBytes = compressed.toByteArray();
+        } else {
+            bodyBytes = body.array();
+        }
+
+        final ByteBuffer envelope = ByteBuffer.allocate(HEADER_SIZE + bodyBytes.length);
+        envelope.put(VERSION);
+        envelope.put(compression == BridgeBatching.Compression.GZIP ? COMPRESSION_GZIP : COMPRESSION_NONE);
+        envelope.putLong(createdTimestamp);
+        envelope.putInt(entries.size());
+        envelope.put(bodyBytes);
+        return envelope.array();
+    }
+
+    /**
+     * Unpacks the publishes of an envelope. The message expiry of every publish is reduced by the time it waited in
+     * the envelope, publishes that expired in the meantime are left out.
+     *
+     * @throws IOException if the payload is not a valid envelope
+     */
+    public static @NotNull List<PUBLISH> decode(
+            final @NotNull byte[] payload, final @NotNull BufferedPublishSerializer serializer) throws IOException {
+        try {
+            final ByteBuffer envelope = ByteBuffer.wrap(payload);
+            final byte version = envelope.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported envelope version " + version);
+            }
+            final byte compression = envelope.get();
+            final long createdTimestamp = envelope.getLong();
+            final int entryCount = envelope.getInt();
+            if (entryCount < 0) {
+                throw new IOException("Invalid envelope entry count " + entryCount);
+            }
+
+            final ByteBuffer body;
+            if (compression == COMPRESSION_GZIP) {
+                body = ByteBuffer.wrap(decompress(payload, envelope.position()));
+            } else if (compression == COMPRESSION_NONE) {
+                body = envelope.slice();
+            } else {
+                throw new IOException("Unsupported envelope compression " + compression);
+            }
+
+            final List<PUBLISH> publishes = new ArrayList<>(Math.min(entryCount, body.remaining() / ENTRY_HEADER_SIZE));
+            for (int i = 0; i < entryCount; i++) {
+                final long timestamp = body.getLong();
+                final int length = body.getInt();
+                if (length < 0 || length > body.remaining()) {
+                    throw new IOException("Invalid envelope entry length " + length);
+                }
+                final ByteBuffer entry = body.slice();
+                entry.limit(length);
+                body.position(body.position() + length);
+
+                final PUBLISH publish = serializer.deserialize(entry, timestamp);
+                if (publish.getMessageExpiryInterval() <= PUBLISH.MESSAGE_EXPIRY_INTERVAL_MAX) {
+                    final long waitedSeconds = Math.max(0, createdTimestamp - timestamp) / 1000;
+                    final long remainingExpiry = publish.getMessageExpiryInterval() - waitedSeconds;
+                    if (remainingExpiry <= 0) {
+                        continue;
+                    }
+                    publish.setMessageExpiryInterval(remainingExpiry);
+                }
+                publishes.add(publish);
+            }
+            return publishes;
+        } catch (final BufferUnderflowException | IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Malformed envelope", e);
+        }
+    }
+
+    private static @NotNull byte[] decompress(final @NotNull byte[] payload, final int offset) throws IOException {
+        final ByteArrayOutputStream decompressed =
+                new ByteArrayOutputStream((int) Math.min(payload.length * 4L, MAX_ENTRIES_SIZE_BYTES));
+        try (final InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload,
+                offset,
+                payload.length - offset))) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                if (decompressed.size() + read > MAX_ENTRIES_SIZE_BYTES) {
+                    throw new IOException("Envelope exceeds the maximum size of " + MAX_ENTRIES_SIZE_BYTES + " bytes");
+                }
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        return decompressed.toByteArray();
+    }
+}
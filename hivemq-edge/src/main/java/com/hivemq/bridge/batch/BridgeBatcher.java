@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.batch;
+
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the messages of a forwarder into envelopes. An envelope is flushed when it reaches the maximum number of
+ * messages or the maximum size, or when its first message waited for the linger time.
+ * <p>
+ * Envelopes are handed to the {@link FlushHandler} in the order the messages were added, but not while the lock of
+ * the batcher is held, so a slow handler does not block threads that add messages.
+ *
+ * @param <C> the context that is kept for every message until its envelope is acknowledged
+ */
+public class BridgeBatcher<C> {
+
+    private static final Logger log = LoggerFactory.getLogger(BridgeBatcher.class);
+
+    public interface FlushHandler<C> {
+
+        void onFlush(@NotNull Batch<C> batch);
+    }
+
+    private final @NotNull BridgeBatching config;
+    private final @NotNull BufferedPublishSerializer serializer;
+    private final @NotNull ScheduledExecutorService scheduler;
+    private final @NotNull FlushHandler<C> flushHandler;
+
+    private final @NotNull Object lock = new Object();
+    private @NotNull List<byte[]> entries = new ArrayList<>();
+    private @NotNull List<C> contexts = new ArrayList<>();
+    private final @NotNull long[] timestamps;
+    private int entriesSize = 0;
+    private @NotNull QoS qos = QoS.AT_MOST_ONCE;
+    private @Nullable ScheduledFuture<?> lingerFuture;
+    private boolean closed = false;
+    private final @NotNull Deque<Batch<C>> flushed = new ArrayDeque<>();
+    private boolean handingOver = false;
+
+    public BridgeBatcher(
+            final @NotNull BridgeBatching config,
+            final @NotNull BufferedPublishSerializer serializer,
+            final @NotNull ScheduledExecutorService scheduler,
+            final @NotNull FlushHandler<C> flushHandler) {
+        this.config = config;
+        this.serializer = serializer;
+        this.scheduler = scheduler;
+        this.flushHandler = flushHandler;
+        this.timestamps = new long[config.getMaxMessages()];
+    }
+
+    /**
+     * @return false if the batcher is closed and the message was not added
+     */
+    public boolean add(final @NotNull PUBLISH publish, final @NotNull C context) {
+        final byte[] entry = serializer.serialize(publish);
+        synchronized (lock) {
+            if (closed) {
+                return false;
+            }
+            if (!entries.isEmpty() && entriesSize + entry.length > config.getMaxSizeBytes()) {
+                flushLocked();
+            }
+            timestamps[entries.size()] = System.currentTimeMillis();
+            entries.add(entry);
+            contexts.add(context);
+            entriesSize += entry.length;
+            if (publish.getQoS().getQosNumber() > qos.getQosNumber()) {
+                qos = publish.getQoS();
+            }
+
+            if (entries.size() >= config.getMaxMessages() || entriesSize >= config.getMaxSizeBytes()) {
+                flushLocked();
+            } else if (entries.size() == 1) {
+                lingerFuture = scheduler.schedule(this::flush, config.getLingerMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        handOverFlushed();
+        return true;
+    }
+
+    public void flush() {
+        synchronized (lock) {
+            if (!closed) {
+                flushLocked();
+            }
+        }
+        handOverFlushed();
+    }
+
+    /**
+     * Discards the messages that were not flushed yet.
+     *
+     * @return the contexts of the discarded messages
+     */
+    public @NotNull List<C> close() {
+        synchronized (lock) {
+            closed = true;
+            cancelLinger();
+            final List<C> discarded = contexts;
+            entries = new ArrayList<>();
+            contexts = new ArrayList<>();
+            entriesSize = 0;
+            return discarded;
+        }
+    }
+
+    private void flushLocked() {
+        cancelLinger();
+        if (entries.isEmpty()) {
+            return;
+        }
+        final List<C> flushedContexts = contexts;
+        final QoS flushedQos = qos;
+        byte[] payload = null;
+        IOException failure = null;
+        try {
+            payload = BridgeBatchEnvelope.encode(entries,
+                    timestamps,
+                    entriesSize,
+                    config.getCompression(),
+                    System.currentTimeMillis());
+        } catch (final IOException e) {
+            failure = e;
+        }
+        entries = new ArrayList<>();
+        contexts = new ArrayList<>();
+        entriesSize = 0;
+        qos = QoS.AT_MOST_ONCE;
+
+        flushed.add(new Batch<>(payload, flushedContexts, flushedQos, failure));
+    }
+
+    /**
+     * Hands the flushed envelopes to the flush handler outside the lock. Only one thread hands over at a time, so
+     * consecutive envelopes are still sent in order.
+     */
+    private void handOverFlushed() {
+        synchronized (lock) {
+            if (handingOver || flushed.isEmpty()) {
+                return;
+            }
+            handingOver = true;
+        }
+        while (true) {
+            final Batch<C> batch;
+            synchronized (lock) {
+                batch = flushed.poll();
+                if (batch == null) {
+                    handingOver = false;
+                    return;
+                }
+            }
+            try {
+                flushHandler.onFlush(batch);
+            } catch (final Exception e) {
+                log.error("Unable to send batch envelope", e);
+            }
+        }
+    }
+
+    private void cancelLinger() {
+        if (lingerFuture != null) {
+            lingerFuture.cancel(false);
+            lingerFuture = null;
+        }
+    }
+
+    public static class Batch<C> {
+
+        private final @Nullable byte[] payload;
+        private final @NotNull List<C> contexts;
+        private final @NotNull QoS qos;
+        private final @Nullable IOException failure;
+
+        private Batch(
+                final @Nullable byte[] payload,
+                final @NotNull List<C> contexts,
+                final @NotNull QoS qos,
+                final @Nullable IOException failure) {
+            this.payload = payload;
+            this.contexts = contexts;
+            this.qos = qos;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the envelope, or null if the envelope could not be encoded
+         */
+        public @Nullable byte[] getPayload() {
+            return payload;
+        }
+
+        public @NotNull List<C> getContexts() {
+            return contexts;
+        }
+
+        /**
+         * @return the highest QoS of the messages in the envelope
+         */
+        public @NotNull QoS getQos() {
+            return qos;
+        }
+
+        public @Nullable IOException getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,596 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.buffer;
+
+import com.hivemq.bridge.config.BridgeBuffer;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A disk backed, segmented, append-only buffer for the messages of a single bridge forwarder.
+ * <p>
+ * Messages are appended to the newest segment file. Every record carries a CRC32 checksum so a torn write after a
+ * power loss is detected and cut off on recovery. Readers hand out records in append order and advance a committed
+ * cursor once the remote broker acknowledged them, fully committed segments are deleted.
+ * <p>
+ * The buffer is bounded by bytes and by age, the behaviour when the byte limit is reached is determined by the
+ * {@link BridgeBuffer.OverflowPolicy}.
+ * <p>
+ * Appended records and the committed cursor are forced to the disk at most
+ * {@link BridgeBuffer#getForceIntervalMillis()} after they were written, as long as the buffer is used. An interval of
+ * 0 forces them on every append and commit.
+ * <p>
+ * This class is not thread safe, callers have to synchronize access.
+ */
+public class BridgeMessageBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(BridgeMessageBuffer.class);
+
+    static final String SEGMENT_FILE_SUFFIX = ".segment";
+    static final String CURSOR_FILE_NAME = "cursor";
+
+    // length (int) + crc (int) + timestamp (long)
+    static final int RECORD_HEADER_SIZE = 16;
+    // committed sequence (long) + segment base (long) + position (long) + crc (long)
+    private static final int CURSOR_SIZE = 32;
+
+    private final @NotNull File folder;
+    private final @NotNull BridgeBuffer config;
+    private final @NotNull BufferedPublishSerializer serializer;
+    private final @NotNull PerBridgeMetrics perBridgeMetrics;
+    private final @NotNull TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final @NotNull FileChannel cursorChannel;
+    private final @NotNull ByteBuffer headerBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+    private @Nullable Segment writeSegment;
+    private long nextSequence;
+    private long sizeBytes;
+
+    private @NotNull Position readPosition;
+    private @NotNull Position committedPosition;
+    private long lastSegmentForce;
+    private long lastCursorFlush;
+    private boolean closed;
+
+    private BridgeMessageBuffer(
+            final @NotNull File folder,
+            final @NotNull BridgeBuffer config,
+            final @NotNull BufferedPublishSerializer serializer,
+            final @NotNull PerBridgeMetrics perBridgeMetrics,
+            final @NotNull FileChannel cursorChannel) {
+        this.folder = folder;
+        this.config = config;
+        this.serializer = serializer;
+        this.perBridgeMetrics = perBridgeMetrics;
+        this.cursorChannel = cursorChannel;
+        this.readPosition = new Position(0, 0, 0);
+        this.committedPosition = readPosition;
+    }
+
+    /**
+     * Opens the buffer in the given folder and recovers all segments and the committed cursor that are present.
+     */
+    public static @NotNull BridgeMessageBuffer open(
+            final @NotNull File folder,
+            final @NotNull BridgeBuffer config,
+            final @NotNull BufferedPublishSerializer serializer,
+            final @NotNull PerBridgeMetrics perBridgeMetrics) throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create bridge buffer folder " + folder.getAbsolutePath());
+        }
+        final FileChannel cursorChannel = FileChannel.open(new File(folder, CURSOR_FILE_NAME).toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        final BridgeMessageBuffer buffer =
+                new BridgeMessageBuffer(folder, config, serializer, perBridgeMetrics, cursorChannel);
+        buffer.recover();
+        return buffer;
+    }
+
+    /**
+     * Appends a message to the buffer.
+     *
+     * @return false if the buffer is full and the overflow policy is {@link BridgeBuffer.OverflowPolicy#BLOCK},
+     *         true otherwise
+     */
+    public boolean append(final @NotNull PUBLISH publish) throws IOException {
+        checkNotClosed();
+        final long now = System.currentTimeMillis();
+        final byte[] body = serializer.serialize(publish);
+        final int recordSize = RECORD_HEADER_SIZE + body.length;
+
+        dropExpiredSegments(now);
+        if (isEmpty() && sizeBytes > 0) {
+            // everything was delivered, the remaining segments only hold committed messages
+            while (!segments.isEmpty()) {
+                dropSegment(segments.firstEntry().getValue(), false);
+            }
+        }
+
+        if (sizeBytes + recordSize > config.getMaxSizeBytes()) {
+            if (config.getOverflowPolicy() == BridgeBuffer.OverflowPolicy.BLOCK) {
+                return false;
+            }
+            // make sure the oldest segment is not the one we write to, so that it can be discarded
+            if (segments.size() == 1 && writeSegment != null && writeSegment.size > 0) {
+                rollSegment();
+            }
+            while (sizeBytes + recordSize > config.getMaxSizeBytes() && segments.size() > 1) {
+                dropSegment(segments.firstEntry().getValue(), true);
+            }
+            if (sizeBytes + recordSize > config.getMaxSizeBytes()) {
+                log.debug("Message on topic '{}' exceeds the maximum bridge buffer size, discarding it",
+                        publish.getTopic());
+                perBridgeMetrics.getBufferDroppedCounter().inc();
+                return true;
+            }
+        }
+
+        Segment segment = writeSegment;
+        if (segment == null || (segment.size > 0 && segment.size + recordSize > config.getSegmentSizeBytes())) {
+            segment = rollSegment();
+        }
+
+        final ByteBuffer record = ByteBuffer.allocate(recordSize);
+        record.putInt(body.length);
+        record.putInt(0); //placeholder for the crc
+        record.putLong(now);
+        record.put(body);
+        record.putInt(4, (int) crc(record.array(), 8, recordSize - 8));
+        record.flip();
+        while (record.hasRemaining()) {
+            segment.channel.write(record, segment.size + record.position());
+        }
+        segment.size += recordSize;
+        segment.count++;
+        segment.lastTimestamp = now;
+        sizeBytes += recordSize;
+        nextSequence++;
+        if (now - lastSegmentForce >= config.getForceIntervalMillis()) {
+            segment.channel.force(false);
+            lastSegmentForce = now;
+        }
+        perBridgeMetrics.getBufferedCounter().inc();
+        return true;
+    }
+
+    /**
+     * Reads the next message that was not yet handed out. Messages older than the configured maximum age are skipped.
+     *
+     * @return the next message or null if all messages were handed out
+     */
+    public @Nullable BufferedMessage read() throws IOException {
+        checkNotClosed();
+        final long expiredBefore = System.currentTimeMillis() - config.getMaxAgeSeconds() * 1000;
+        while (readPosition.sequence < nextSequence) {
+            final Segment segment = segments.get(readPosition.segmentBase);
+            if (segment == null || readPosition.position >= segment.size) {
+                final Map.Entry<Long, Segment> next = segment == null ?
+                        segments.ceilingEntry(readPosition.sequence) :
+                        segments.higherEntry(readPosition.segmentBase);
+                if (next == null) {
+                    return null;
+                }
+                readPosition = new Position(next.getKey(), 0, next.getKey());
+                continue;
+            }
+            headerBuffer.clear();
+            readFully(segment.channel, headerBuffer, readPosition.position);
+            headerBuffer.flip();
+            final int length = headerBuffer.getInt();
+            headerBuffer.getInt(); //crc was validated on recovery or written by us
+            final long timestamp = headerBuffer.getLong();
+            final long nextPosition = readPosition.position + RECORD_HEADER_SIZE + length;
+            final Position position = new Position(segment.base, nextPosition, readPosition.sequence + 1);
+            readPosition = position;
+            if (timestamp < expiredBefore) {
+                perBridgeMetrics.getBufferExpiredCounter().inc();
+                continue;
+            }
+            final ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(segment.channel, body, nextPosition - length);
+            body.flip();
+            return new BufferedMessage(serializer.deserialize(body, timestamp), timestamp, position);
+        }
+        return null;
+    }
+
+    /**
+     * Marks the given message and all messages before it as delivered.
+     */
+    public void commit(final @NotNull BufferedMessage message) throws IOException {
+        checkNotClosed();
+        if (message.position.sequence <= committedPosition.sequence) {
+            return;
+        }
+        committedPosition = message.position;
+        // delete all segments that are fully committed, but keep the write segment
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        boolean deleted = false;
+        while (first != null && first.getValue() != writeSegment &&
+                first.getValue().base + first.getValue().count <= committedPosition.sequence) {
+            dropSegment(first.getValue(), false);
+            deleted = true;
+            first = segments.firstEntry();
+        }
+        final long now = System.currentTimeMillis();
+        if (now - lastCursorFlush >= config.getForceIntervalMillis()) {
+            writeCursor();
+            cursorChannel.force(false);
+            lastCursorFlush = now;
+        } else if (deleted) {
+            // the cursor must not point to a deleted segment, the write alone is enough for that
+            writeCursor();
+        }
+    }
+
+    /**
+     * Resets the read cursor to the last committed message, all messages that were handed out but not committed are
+     * read again.
+     */
+    public void rewind() {
+        if (segments.isEmpty() || segments.containsKey(committedPosition.segmentBase)) {
+            readPosition = committedPosition;
+        } else {
+            // the committed segment was dropped in the meantime, continue at the oldest segment still present
+            final Segment first = segments.firstEntry().getValue();
+            readPosition = new Position(first.base, 0, first.base);
+        }
+    }
+
+    /**
+     * @return true if there are no messages left that have not been committed
+     */
+    public boolean isEmpty() {
+        return committedPosition.sequence >= nextSequence;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeCursor();
+            cursorChannel.force(true);
+        } catch (final IOException e) {
+            log.warn("Unable to write cursor of bridge buffer {}", folder.getAbsolutePath());
+            log.debug("Original exception", e);
+        }
+        closeQuietly(cursorChannel);
+        for (final Segment segment : segments.values()) {
+            try {
+                segment.channel.force(true);
+            } catch (final IOException e) {
+                log.debug("Unable to flush bridge buffer segment {}", segment.file.getAbsolutePath(), e);
+            }
+            closeQuietly(segment.channel);
+        }
+        segments.clear();
+        writeSegment = null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void recover() throws IOException {
+        final File[] files = folder.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files != null) {
+            for (final File file : files) {
+                final String name = file.getName();
+                final long base;
+                try {
+                    base = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+                } catch (final NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in bridge buffer folder", file.getAbsolutePath());
+                    continue;
+                }
+                final FileChannel channel =
+                        FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                segments.put(base, new Segment(base, file, channel));
+            }
+        }
+
+        long expectedBase = -1;
+        for (final Segment segment : segments.values().toArray(new Segment[0])) {
+            if (expectedBase != -1 && segment.base != expectedBase) {
+                log.warn("Bridge buffer segment {} does not continue the previous segment, discarding it",
+                        segment.file.getAbsolutePath());
+                dropSegment(segment, false);
+                continue;
+            }
+            scanSegment(segment);
+            sizeBytes += segment.size;
+            expectedBase = segment.base + segment.count;
+        }
+
+        if (segments.isEmpty()) {
+            nextSequence = 0;
+            committedPosition = new Position(0, 0, 0);
+        } else {
+            final Segment last = segments.lastEntry().getValue();
+            writeSegment = last;
+            nextSequence = last.base + last.count;
+            committedPosition = readCursor();
+        }
+        readPosition = committedPosition;
+
+        // remove segments that were fully delivered before the last shutdown
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        while (first != null && first.getValue() != writeSegment &&
+                first.getValue().base + first.getValue().count <= committedPosition.sequence) {
+            dropSegment(first.getValue(), false);
+            first = segments.firstEntry();
+        }
+        if (nextSequence > committedPosition.sequence) {
+            log.info("Recovered {} buffered messages from bridge buffer {}",
+                    nextSequence - committedPosition.sequence,
+                    folder.getAbsolutePath());
+        }
+    }
+
+    private void scanSegment(final @NotNull Segment segment) throws IOException {
+        final long fileSize = segment.channel.size();
+        long position = 0;
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            headerBuffer.clear();
+            readFully(segment.channel, headerBuffer, position);
+            headerBuffer.flip();
+            final int length = headerBuffer.getInt();
+            final int crc = headerBuffer.getInt();
+            final long timestamp = headerBuffer.getLong();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > fileSize) {
+                break;
+            }
+            final ByteBuffer record = ByteBuffer.allocate(8 + length);
+            record.putLong(timestamp);
+            readFully(segment.channel, record, position + RECORD_HEADER_SIZE);
+            if ((int) crc(record.array(), 0, record.capacity()) != crc) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            segment.count++;
+            segment.lastTimestamp = timestamp;
+        }
+        if (position < fileSize) {
+            log.warn("Bridge buffer segment {} contains an incomplete or corrupt record, truncating it at byte {}",
+                    segment.file.getAbsolutePath(),
+                    position);
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    private @NotNull Position readCursor() throws IOException {
+        final Segment first = segments.firstEntry().getValue();
+        final Position fallback = new Position(first.base, 0, first.base);
+        if (cursorChannel.size() < CURSOR_SIZE) {
+            return fallback;
+        }
+        final ByteBuffer cursor = ByteBuffer.allocate(CURSOR_SIZE);
+        readFully(cursorChannel, cursor, 0);
+        cursor.flip();
+        final long sequence = cursor.getLong();
+        final long segmentBase = cursor.getLong();
+        final long position = cursor.getLong();
+        final long crc = cursor.getLong();
+        if (crc != crc(cursor.array(), 0, 24)) {
+            log.warn("Cursor of bridge buffer {} is corrupt, messages may be forwarded again",
+                    folder.getAbsolutePath());
+            return fallback;
+        }
+        final Segment segment = segments.get(segmentBase);
+        if (segment != null && position <= segment.size && sequence <= nextSequence) {
+            return new Position(segmentBase, position, sequence);
+        }
+        // the committed segment is already gone, continue with the segment that follows it
+        final Map.Entry<Long, Segment> next = segments.ceilingEntry(sequence);
+        return next != null ? new Position(next.getKey(), 0, next.getKey()) : fallback;
+    }
+
+    private void writeCursor() throws IOException {
+        final ByteBuffer cursor = ByteBuffer.allocate(CURSOR_SIZE);
+        cursor.putLong(committedPosition.sequence);
+        cursor.putLong(committedPosition.segmentBase);
+        cursor.putLong(committedPosition.position);
+        cursor.putLong(crc(cursor.array(), 0, 24));
+        cursor.flip();
+        while (cursor.hasRemaining()) {
+            cursorChannel.write(cursor, cursor.position());
+        }
+    }
+
+    private @NotNull Segment rollSegment() throws IOException {
+        if (writeSegment != null) {
+            writeSegment.channel.force(false);
+            lastSegmentForce = System.currentTimeMillis();
+        }
+        final File file = new File(folder, String.format("%020d", nextSequence) + SEGMENT_FILE_SUFFIX);
+        final FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        final Segment segment = new Segment(nextSequence, file, channel);
+        segments.put(segment.base, segment);
+        writeSegment = segment;
+        return segment;
+    }
+
+    private void dropExpiredSegments(final long now) throws IOException {
+        final long expiredBefore = now - config.getMaxAgeSeconds() * 1000;
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        while (first != null && first.getValue() != writeSegment && first.getValue().lastTimestamp < expiredBefore) {
+            final Segment segment = first.getValue();
+            perBridgeMetrics.getBufferExpiredCounter().inc(undeliveredCount(segment));
+            dropSegment(segment, false);
+            first = segments.firstEntry();
+        }
+    }
+
+    private void dropSegment(final @NotNull Segment segment, final boolean overflow) throws IOException {
+        if (overflow) {
+            final long dropped = undeliveredCount(segment);
+            if (dropped > 0) {
+                log.debug("Bridge buffer {} is full, discarding {} of the oldest messages",
+                        folder.getAbsolutePath(),
+                        dropped);
+                perBridgeMetrics.getBufferDroppedCounter().inc(dropped);
+            }
+        }
+        segments.remove(segment.base);
+        sizeBytes -= segment.size;
+        closeQuietly(segment.channel);
+        if (!segment.file.delete()) {
+            log.warn("Unable to delete bridge buffer segment {}", segment.file.getAbsolutePath());
+        }
+        if (segment == writeSegment) {
+            writeSegment = null;
+        }
+
+        final long segmentEnd = segment.base + segment.count;
+        if (committedPosition.segmentBase == segment.base || committedPosition.sequence < segmentEnd) {
+            committedPosition = startOfSegmentAfter(segmentEnd);
+        }
+        if (readPosition.segmentBase == segment.base || readPosition.sequence < segmentEnd) {
+            readPosition = startOfSegmentAfter(segmentEnd);
+        }
+    }
+
+    private @NotNull Position startOfSegmentAfter(final long sequence) {
+        final Map.Entry<Long, Segment> next = segments.ceilingEntry(sequence);
+        if (next == null) {
+            return new Position(sequence, 0, sequence);
+        }
+        return new Position(next.getKey(), 0, next.getKey());
+    }
+
+    private long undeliveredCount(final @NotNull Segment segment) {
+        return Math.max(0, segment.base + segment.count - Math.max(segment.base, committedPosition.sequence));
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Bridge buffer " + folder.getAbsolutePath() + " is closed");
+        }
+    }
+
+    private static void readFully(
+            final @NotNull FileChannel channel, final @NotNull ByteBuffer buffer, final long position)
+            throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new IOException("Unexpected end of bridge buffer file");
+            }
+            current += read;
+        }
+    }
+
+    private static long crc(final @NotNull byte[] bytes, final int offset, final int length) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return crc32.getValue();
+    }
+
+    private static void closeQuietly(final @NotNull FileChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.debug("Unable to close bridge buffer file", e);
+        }
+    }
+
+    /**
+     * A message that was read from the buffer, it has to be passed to {@link #commit(BufferedMessage)} after it was
+     * delivered.
+     */
+    public static class BufferedMessage {
+
+        private final @NotNull PUBLISH publish;
+        private final long timestamp;
+        private final @NotNull Position position;
+
+        private BufferedMessage(final @NotNull PUBLISH publish, final long timestamp, final @NotNull Position position) {
+            this.publish = publish;
+            this.timestamp = timestamp;
+            this.position = position;
+        }
+
+        public @NotNull PUBLISH getPublish() {
+            return publish;
+        }
+
+        /**
+         * @return the time in milliseconds at which the message was added to the buffer
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * A position after a record. The sequence is the sequence number of the next record.
+     */
+    private static class Position {
+
+        private final long segmentBase;
+        private final long position;
+        private final long sequence;
+
+        private Position(final long segmentBase, final long position, final long sequence) {
+            this.segmentBase = segmentBase;
+            this.position = position;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Segment {
+
+        private final long base;
+        private final @NotNull File file;
+        private final @NotNull FileChannel channel;
+        private long size;
+        private long count;
+        private long lastTimestamp;
+
+        private Segment(final long base, final @NotNull File file, final @NotNull FileChannel channel) {
+            this.base = base;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+}
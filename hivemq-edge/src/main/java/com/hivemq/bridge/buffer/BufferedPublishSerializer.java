@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.buffer;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes the fields of a {@link PUBLISH} that are relevant for forwarding it to a remote broker into the record
+ * format of the {@link BridgeMessageBuffer}.
+ */
+public class BufferedPublishSerializer {
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte NO_PAYLOAD_FORMAT_INDICATOR = -1;
+
+    private final @NotNull String hivemqId;
+
+    public BufferedPublishSerializer(final @NotNull String hivemqId) {
+        this.hivemqId = hivemqId;
+    }
+
+    public @NotNull byte[] serialize(final @NotNull PUBLISH publish) {
+        final byte[] topic = publish.getTopic().getBytes(UTF_8);
+        final byte[] payload = publish.getPayload();
+        final byte[] contentType = toBytes(publish.getContentType());
+        final byte[] responseTopic = toBytes(publish.getResponseTopic());
+        final byte[] correlationData = publish.getCorrelationData();
+        final ImmutableList<MqttUserProperty> userProperties = publish.getUserProperties().asList();
+
+        int size = 1 + // qos
+                1 + // retain
+                1 + // payload format indicator
+                8 + // message expiry interval
+                4 + topic.length +
+                lengthOf(payload) +
+                lengthOf(contentType) +
+                lengthOf(responseTopic) +
+                lengthOf(correlationData) +
+                4; // user property count
+        final byte[][] userPropertyBytes = new byte[userProperties.size() * 2][];
+        for (int i = 0; i < userProperties.size(); i++) {
+            final MqttUserProperty userProperty = userProperties.get(i);
+            userPropertyBytes[i * 2] = userProperty.getName().getBytes(UTF_8);
+            userPropertyBytes[i * 2 + 1] = userProperty.getValue().getBytes(UTF_8);
+            size += 8 + userPropertyBytes[i * 2].length + userPropertyBytes[i * 2 + 1].length;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        byteBuffer.put((byte) publish.getQoS().getQosNumber());
+        byteBuffer.put((byte) (publish.isRetain() ? 1 : 0));
+        final Mqtt5PayloadFormatIndicator payloadFormatIndicator = publish.getPayloadFormatIndicator();
+        byteBuffer.put(payloadFormatIndicator != null ?
+                (byte) payloadFormatIndicator.getCode() :
+                NO_PAYLOAD_FORMAT_INDICATOR);
+        byteBuffer.putLong(publish.getMessageExpiryInterval());
+        putBytes(topic, byteBuffer);
+        putBytes(payload, byteBuffer);
+        putBytes(contentType, byteBuffer);
+        putBytes(responseTopic, byteBuffer);
+        putBytes(correlationData, byteBuffer);
+        byteBuffer.putInt(userProperties.size());
+        for (final byte[] userPropertyByte : userPropertyBytes) {
+            putBytes(userPropertyByte, byteBuffer);
+        }
+        return byteBuffer.array();
+    }
+
+    public @NotNull PUBLISH deserialize(final @NotNull ByteBuffer byteBuffer, final long timestamp) {
+        final QoS qos = Objects.requireNonNullElse(QoS.valueOf(byteBuffer.get()), QoS.AT_LEAST_ONCE);
+        final boolean retain = byteBuffer.get() == 1;
+        final byte payloadFormatIndicator = byteBuffer.get();
+        final long messageExpiryInterval = byteBuffer.getLong();
+        final String topic = Objects.requireNonNull(getString(byteBuffer));
+        final byte[] payload = getBytes(byteBuffer);
+        final String contentType = getString(byteBuffer);
+        final String responseTopic = getString(byteBuffer);
+        final byte[] correlationData = getBytes(byteBuffer);
+        final int userPropertyCount = byteBuffer.getInt();
+        final ImmutableList.Builder<MqttUserProperty> userProperties = ImmutableList.builder();
+        for (int i = 0; i < userPropertyCount; i++) {
+            userProperties.add(MqttUserProperty.of(Objects.requireNonNull(getString(byteBuffer)),
+                    Objects.requireNonNull(getString(byteBuffer))));
+        }
+
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId(hivemqId)
+                .withTopic(topic)
+                .withPayload(payload)
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withRetain(retain)
+                .withMessageExpiryInterval(messageExpiryInterval)
+                .withPayloadFormatIndicator(payloadFormatIndicator != NO_PAYLOAD_FORMAT_INDICATOR ?
+                        Mqtt5PayloadFormatIndicator.fromCode(payloadFormatIndicator) :
+                        null)
+                .withContentType(contentType)
+                .withResponseTopic(responseTopic)
+                .withCorrelationData(correlationData)
+                .withUserProperties(Mqtt5UserProperties.build(userProperties))
+                .withTimestamp(timestamp)
+                .build();
+    }
+
+    private static int lengthOf(final @Nullable byte[] bytes) {
+        return 4 + (bytes != null ? bytes.length : 0);
+    }
+
+    private static @Nullable byte[] toBytes(final @Nullable String string) {
+        return string != null ? string.getBytes(UTF_8) : null;
+    }
+
+    private static void putBytes(final @Nullable byte[] source, final @NotNull ByteBuffer destination) {
+        if (source == null) {
+            destination.putInt(NULL_LENGTH);
+            return;
+        }
+        destination.putInt(source.length);
+        destination.put(source);
+    }
+
+    private static @Nullable byte[] getBytes(final @NotNull ByteBuffer source) {
+        final int length = source.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        source.get(bytes);
+        return bytes;
+    }
+
+    private static @Nullable String getString(final @NotNull ByteBuffer source) {
+        final byte[] bytes = getBytes(source);
+        return bytes != null ? new String(bytes, UTF_8) : null;
+    }
+}
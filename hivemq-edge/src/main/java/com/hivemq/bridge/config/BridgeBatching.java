@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.config;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+/**
+ * Configuration of the batching mode of a bridge, in which many forwarded messages are packed into one envelope
+ * message for the remote broker.
+ */
+public class BridgeBatching {
+
+    public static final @NotNull String DEFAULT_TOPIC = "{bridge.name}/batch";
+    public static final int DEFAULT_MAX_MESSAGES = 1000;
+    public static final int DEFAULT_MAX_SIZE_BYTES = 1024 * 64; //64KB
+    public static final long DEFAULT_LINGER_MILLIS = 100;
+
+    public enum Compression {
+        NONE,
+        GZIP
+    }
+
+    private final boolean enabled;
+    private final @NotNull String topic;
+    private final int maxMessages;
+    private final int maxSizeBytes;
+    private final long lingerMillis;
+    private final @NotNull Compression compression;
+
+    private BridgeBatching(
+            final boolean enabled,
+            final @NotNull String topic,
+            final int maxMessages,
+            final int maxSizeBytes,
+            final long lingerMillis,
+            final @NotNull Compression compression) {
+        this.enabled = enabled;
+        this.topic = topic;
+        this.maxMessages = maxMessages;
+        this.maxSizeBytes = maxSizeBytes;
+        this.lingerMillis = lingerMillis;
+        this.compression = compression;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the topic on the remote broker the envelopes are published to
+     */
+    public @NotNull String getTopic() {
+        return topic;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public int getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * @return the maximum time a message waits for further messages before its envelope is sent
+     */
+    public long getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public @NotNull Compression getCompression() {
+        return compression;
+    }
+
+    public static class Builder {
+        private boolean enabled = false;
+        private @NotNull String topic = DEFAULT_TOPIC;
+        private int maxMessages = DEFAULT_MAX_MESSAGES;
+        private int maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+        private long lingerMillis = DEFAULT_LINGER_MILLIS;
+        private @NotNull Compression compression = Compression.NONE;
+
+        public @NotNull Builder withEnabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public @NotNull Builder withTopic(final @NotNull String topic) {
+            this.topic = topic;
+            return this;
+        }
+
+        public @NotNull Builder withMaxMessages(final int maxMessages) {
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        public @NotNull Builder withMaxSizeBytes(final int maxSizeBytes) {
+            this.maxSizeBytes = maxSizeBytes;
+            return this;
+        }
+
+        public @NotNull Builder withLingerMillis(final long lingerMillis) {
+            this.lingerMillis = lingerMillis;
+            return this;
+        }
+
+        public @NotNull Builder withCompression(final @NotNull Compression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public @NotNull BridgeBatching build() {
+            return new BridgeBatching(enabled, topic, maxMessages, maxSizeBytes, lingerMillis, compression);
+        }
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BridgeBatching)) {
+            return false;
+        }
+
+        final BridgeBatching that = (BridgeBatching) o;
+
+        if (enabled != that.enabled) {
+            return false;
+        }
+        if (maxMessages != that.maxMessages) {
+            return false;
+        }
+        if (maxSizeBytes != that.maxSizeBytes) {
+            return false;
+        }
+        if (lingerMillis != that.lingerMillis) {
+            return false;
+        }
+        if (!topic.equals(that.topic)) {
+            return false;
+        }
+        return compression == that.compression;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (enabled ? 1 : 0);
+        result = 31 * result + topic.hashCode();
+        result = 31 * result + maxMessages;
+        result = 31 * result + maxSizeBytes;
+        result = 31 * result + Long.hashCode(lingerMillis);
+        result = 31 * result + compression.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BridgeBatching{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", topic='").append(topic).append('\'');
+        sb.append(", maxMessages=").append(maxMessages);
+        sb.append(", maxSizeBytes=").append(maxSizeBytes);
+        sb.append(", lingerMillis=").append(lingerMillis);
+        sb.append(", compression=").append(compression);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.config;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+/**
+ * Configuration of the disk backed store-and-forward buffer of a bridge, which holds forwarded messages while the
+ * remote broker is not reachable.
+ */
+public class BridgeBuffer {
+
+    public static final long DEFAULT_MAX_SIZE_BYTES = 1024L * 1024 * 512; //512MB
+    public static final long DEFAULT_MAX_AGE_SECONDS = 60L * 60 * 24; //1 day
+    public static final int DEFAULT_SEGMENT_SIZE_BYTES = 1024 * 1024 * 16; //16MB
+    public static final long DEFAULT_FORCE_INTERVAL_MILLIS = 1000;
+
+    public enum OverflowPolicy {
+        /**
+         * The oldest segment of the buffer is discarded to make room for new messages
+         */
+        DROP_OLDEST,
+        /**
+         * New messages stay in the local queue of the bridge until the buffer has room again
+         */
+        BLOCK
+    }
+
+    private final boolean enabled;
+    private final long maxSizeBytes;
+    private final long maxAgeSeconds;
+    private final int segmentSizeBytes;
+    private final @NotNull OverflowPolicy overflowPolicy;
+    private final long forceIntervalMillis;
+
+    private BridgeBuffer(
+            final boolean enabled,
+            final long maxSizeBytes,
+            final long maxAgeSeconds,
+            final int segmentSizeBytes,
+            final @NotNull OverflowPolicy overflowPolicy,
+            final long forceIntervalMillis) {
+        this.enabled = enabled;
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.overflowPolicy = overflowPolicy;
+        this.forceIntervalMillis = forceIntervalMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public int getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public @NotNull OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the max. time in milliseconds that appended messages and the committed cursor may stay in the page cache
+     *         before they are forced to the disk, 0 forces them on every append and commit
+     */
+    public long getForceIntervalMillis() {
+        return forceIntervalMillis;
+    }
+
+    public static class Builder {
+        private boolean enabled = false;
+        private long maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+        private long maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+        private int segmentSizeBytes = DEFAULT_SEGMENT_SIZE_BYTES;
+        private @NotNull OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        private long forceIntervalMillis = DEFAULT_FORCE_INTERVAL_MILLIS;
+
+        public @NotNull Builder withEnabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public @NotNull Builder withMaxSizeBytes(final long maxSizeBytes) {
+            this.maxSizeBytes = maxSizeBytes;
+            return this;
+        }
+
+        public @NotNull Builder withMaxAgeSeconds(final long maxAgeSeconds) {
+            this.maxAgeSeconds = maxAgeSeconds;
+            return this;
+        }
+
+        public @NotNull Builder withSegmentSizeBytes(final int segmentSizeBytes) {
+            this.segmentSizeBytes = segmentSizeBytes;
+            return this;
+        }
+
+        public @NotNull Builder withOverflowPolicy(final @NotNull OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public @NotNull Builder withForceIntervalMillis(final long forceIntervalMillis) {
+            this.forceIntervalMillis = forceIntervalMillis;
+            return this;
+        }
+
+        public @NotNull BridgeBuffer build() {
+            return new BridgeBuffer(enabled,
+                    maxSizeBytes,
+                    maxAgeSeconds,
+                    segmentSizeBytes,
+                    overflowPolicy,
+                    forceIntervalMillis);
+        }
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BridgeBuffer)) {
+            return false;
+        }
+
+        final BridgeBuffer that = (BridgeBuffer) o;
+
+        if (enabled != that.enabled) {
+            return false;
+        }
+        if (maxSizeBytes != that.maxSizeBytes) {
+            return false;
+        }
+        if (maxAgeSeconds != that.maxAgeSeconds) {
+            return false;
+        }
+        if (segmentSizeBytes != that.segmentSizeBytes) {
+            return false;
+        }
+        if (forceIntervalMillis != that.forceIntervalMillis) {
+            return false;
+        }
+        return overflowPolicy == that.overflowPolicy;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (enabled ? 1 : 0);
+        result = 31 * result + Long.hashCode(maxSizeBytes);
+        result = 31 * result + Long.hashCode(maxAgeSeconds);
+        result = 31 * result + segmentSizeBytes;
+        result = 31 * result + overflowPolicy.hashCode();
+        result = 31 * result + Long.hashCode(forceIntervalMillis);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BridgeBuffer{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", maxSizeBytes=").append(maxSizeBytes);
+        sb.append(", maxAgeSeconds=").append(maxAgeSeconds);
+        sb.append(", segmentSizeBytes=").append(segmentSizeBytes);
+        sb.append(", overflowPolicy=").append(overflowPolicy);
+        sb.append(", forceIntervalMillis=").append(forceIntervalMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+}
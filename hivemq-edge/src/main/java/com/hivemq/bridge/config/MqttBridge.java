@@ -37,6 +37,9 @@ public class MqttBridge {
     private final @NotNull List<LocalSubscription> localSubscriptions;
     private final boolean loopPreventionEnabled;
     private final int loopPreventionHopCount;
+    private final @NotNull BridgeBuffer bridgeBuffer;
+    private final int connectionCount;
+    private final @NotNull BridgeBatching bridgeBatching;
 
     private MqttBridge(
             final @NotNull String id,
@@ -52,7 +55,10 @@ public class MqttBridge {
             final @NotNull List<RemoteSubscription> remoteSubscriptions,
             final @NotNull List<LocalSubscription> localSubscriptions,
             final boolean loopPreventionEnabled,
-            final int loopPreventionHopCount) {
+            final int loopPreventionHopCount,
+            final @NotNull BridgeBuffer bridgeBuffer,
+            final int connectionCount,
+            final @NotNull BridgeBatching bridgeBatching) {
         this.id = id;
         this.host = host;
         this.port = port;
@@ -67,6 +73,9 @@ public class MqttBridge {
         this.localSubscriptions = localSubscriptions;
         this.loopPreventionEnabled = loopPreventionEnabled;
         this.loopPreventionHopCount = loopPreventionHopCount;
+        this.bridgeBuffer = bridgeBuffer;
+        this.connectionCount = connectionCount;
+        this.bridgeBatching = bridgeBatching;
     }
 
     public @NotNull String getId() {
@@ -125,6 +134,22 @@ public class MqttBridge {
         return loopPreventionHopCount;
     }
 
+    public @NotNull BridgeBuffer getBridgeBuffer() {
+        return bridgeBuffer;
+    }
+
+    /**
+     * @return the number of parallel connections to the remote broker, forwarded messages are assigned to a
+     *         connection by their topic and remote subscriptions are shared between the connections
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    public @NotNull BridgeBatching getBridgeBatching() {
+        return bridgeBatching;
+    }
+
     public static class Builder {
         private @Nullable String id;
         private @Nullable String host;
@@ -140,6 +165,9 @@ public class MqttBridge {
         private @NotNull List<LocalSubscription> localSubscriptions = List.of();
         private boolean loopPreventionEnabled = true;
         private int loopPreventionHopCount = 1;
+        private @NotNull BridgeBuffer bridgeBuffer = new BridgeBuffer.Builder().build();
+        private int connectionCount = 1;
+        private @NotNull BridgeBatching bridgeBatching = new BridgeBatching.Builder().build();
 
         public @NotNull Builder withId(@NotNull String id) {
             this.id = id;
@@ -211,6 +239,21 @@ public class MqttBridge {
             return this;
         }
 
+        public @NotNull Builder withBridgeBuffer(final @NotNull BridgeBuffer bridgeBuffer) {
+            this.bridgeBuffer = bridgeBuffer;
+            return this;
+        }
+
+        public @NotNull Builder withConnectionCount(final int connectionCount) {
+            this.connectionCount = connectionCount;
+            return this;
+        }
+
+        public @NotNull Builder withBridgeBatching(final @NotNull BridgeBatching bridgeBatching) {
+            this.bridgeBatching = bridgeBatching;
+            return this;
+        }
+
         public @NotNull MqttBridge build() {
             return new MqttBridge(Objects.requireNonNull(id),
                     Objects.requireNonNull(host),
@@ -225,7 +268,10 @@ public class MqttBridge {
                     remoteSubscriptions,
                     localSubscriptions,
                     loopPreventionEnabled,
-                    loopPreventionHopCount);
+                    loopPreventionHopCount,
+                    bridgeBuffer,
+                    connectionCount,
+                    bridgeBatching);
         }
     }
 
@@ -258,6 +304,9 @@ public class MqttBridge {
         if (loopPreventionHopCount != that.loopPreventionHopCount) {
             return false;
         }
+        if (connectionCount != that.connectionCount) {
+            return false;
+        }
         if (!id.equals(that.id)) {
             return false;
         }
@@ -279,6 +328,12 @@ public class MqttBridge {
         if (!remoteSubscriptions.equals(that.remoteSubscriptions)) {
             return false;
         }
+        if (!bridgeBuffer.equals(that.bridgeBuffer)) {
+            return false;
+        }
+        if (!bridgeBatching.equals(that.bridgeBatching)) {
+            return false;
+        }
         return localSubscriptions.equals(that.localSubscriptions);
     }
 
@@ -298,6 +353,9 @@ public class MqttBridge {
         result = 31 * result + localSubscriptions.hashCode();
         result = 31 * result + (loopPreventionEnabled ? 1 : 0);
         result = 31 * result + loopPreventionHopCount;
+        result = 31 * result + bridgeBuffer.hashCode();
+        result = 31 * result + connectionCount;
+        result = 31 * result + bridgeBatching.hashCode();
         return result;
     }
 
@@ -318,6 +376,9 @@ public class MqttBridge {
         sb.append(", localSubscriptions=").append(localSubscriptions);
         sb.append(", loopPreventionEnabled=").append(loopPreventionEnabled);
         sb.append(", loopPreventionHopCount=").append(loopPreventionHopCount);
+        sb.append(", bridgeBuffer=").append(bridgeBuffer);
+        sb.append(", connectionCount=").append(connectionCount);
+        sb.append(", bridgeBatching=").append(bridgeBatching);
         sb.append('}');
         return sb.toString();
     }
@@ -16,7 +16,11 @@
 package com.hivemq.bridge.metrics;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.hivemq.bridge.AdaptiveInflightWindow;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.metrics.HiveMQMetrics;
 
@@ -34,8 +38,19 @@ public class PerBridgeMetrics {
     private final @NotNull Counter remotePublishExcludedCounter;
     private final @NotNull Counter loopPreventionForwardDropCounter;
     private final @NotNull Counter loopPreventionRemoteDropCounter;
+    private final @NotNull Counter bufferedCounter;
+    private final @NotNull Counter bufferDroppedCounter;
+    private final @NotNull Counter bufferExpiredCounter;
+    private final @NotNull Counter batchForwardCounter;
+    private final @NotNull Counter batchRemoteReceivedCounter;
+    private final @NotNull Timer publishForwardRoundTripTimer;
+    private final @NotNull Meter publishForwardThroughputMeter;
+    private final @NotNull String bridgeName;
+    private final @NotNull MetricRegistry metricRegistry;
 
     public PerBridgeMetrics(final @NotNull String bridgeName, final @NotNull MetricRegistry metricRegistry) {
+        this.bridgeName = bridgeName;
+        this.metricRegistry = metricRegistry;
 
         publishForwardSuccessCounter =
                 metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX, bridgeName, "forward.publish", "count"));
@@ -82,6 +97,83 @@ public class PerBridgeMetrics {
                 bridgeName,
                 "remote.publish.loop-hops-exceeded",
                 "count"));
+
+        bufferedCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.buffered",
+                "count"));
+
+        bufferDroppedCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.buffer-overflow",
+                "count"));
+
+        bufferExpiredCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.buffer-expired",
+                "count"));
+
+        batchForwardCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.batch",
+                "count"));
+
+        batchRemoteReceivedCounter = metricRegistry.counter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "remote.batch.received",
+                "count"));
+
+        publishForwardRoundTripTimer = metricRegistry.timer(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.round-trip",
+                "time"));
+
+        publishForwardThroughputMeter = metricRegistry.meter(MetricRegistry.name(BRIDGE_PREFIX,
+                bridgeName,
+                "forward.publish.acknowledged",
+                "rate"));
+    }
+
+    /**
+     * Registers the gauges for the in-flight messages and the in-flight window of the bridge. A window of a previous
+     * connection of the same bridge is replaced.
+     */
+    public void registerInflightWindow(final @NotNull AdaptiveInflightWindow inflightWindow) {
+        registerInflightGauges(inflightWindow::getInflight, inflightWindow::getLimit);
+    }
+
+    /**
+     * Registers the gauges for the in-flight messages and the in-flight window of a bridge with multiple connections,
+     * where the values are the sums over all connections.
+     */
+    public void registerInflightGauges(
+            final @NotNull Gauge<Integer> inflightGauge, final @NotNull Gauge<Integer> inflightWindowGauge) {
+        registerGauge(MetricRegistry.name(BRIDGE_PREFIX, bridgeName, "forward.publish.inflight", "current"),
+                inflightGauge);
+        registerGauge(MetricRegistry.name(BRIDGE_PREFIX, bridgeName, "forward.publish.inflight-window", "current"),
+                inflightWindowGauge);
+    }
+
+    /**
+     * Registers the gauge for the amount of connected connections of a bridge with multiple connections to its remote
+     * broker, a bridge stays available while some of them are reconnecting.
+     */
+    public void registerConnectionGauge(final @NotNull Gauge<Integer> connectedGauge) {
+        registerGauge(MetricRegistry.name(BRIDGE_PREFIX, bridgeName, "connections.connected", "current"),
+                connectedGauge);
+    }
+
+    /**
+     * Removes all metrics of this bridge, or of this connection of a bridge, from the registry.
+     */
+    public void remove() {
+        final String prefix = MetricRegistry.name(BRIDGE_PREFIX, bridgeName) + ".";
+        metricRegistry.removeMatching((name, metric) -> name.startsWith(prefix));
+    }
+
+    private void registerGauge(final @NotNull String name, final @NotNull Gauge<Integer> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
     }
 
     public @NotNull Counter getPublishForwardSuccessCounter() {
@@ -123,4 +215,32 @@ public class PerBridgeMetrics {
     public @NotNull Counter getLoopPreventionRemoteDropCounter() {
         return loopPreventionRemoteDropCounter;
     }
+
+    public @NotNull Counter getBufferedCounter() {
+        return bufferedCounter;
+    }
+
+    public @NotNull Counter getBufferDroppedCounter() {
+        return bufferDroppedCounter;
+    }
+
+    public @NotNull Counter getBufferExpiredCounter() {
+        return bufferExpiredCounter;
+    }
+
+    public @NotNull Counter getBatchForwardCounter() {
+        return batchForwardCounter;
+    }
+
+    public @NotNull Counter getBatchRemoteReceivedCounter() {
+        return batchRemoteReceivedCounter;
+    }
+
+    public @NotNull Timer getPublishForwardRoundTripTimer() {
+        return publishForwardRoundTripTimer;
+    }
+
+    public @NotNull Meter getPublishForwardThroughputMeter() {
+        return publishForwardThroughputMeter;
+    }
 }
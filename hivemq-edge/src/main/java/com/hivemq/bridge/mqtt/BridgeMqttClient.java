@@ -16,12 +16,17 @@
 package com.hivemq.bridge.mqtt;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import com.hivemq.bridge.AdaptiveInflightWindow;
 import com.hivemq.bridge.MqttForwarder;
+import com.hivemq.bridge.buffer.BridgeMessageBuffer;
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBuffer;
 import com.hivemq.bridge.config.BridgeTls;
 import com.hivemq.bridge.config.LocalSubscription;
 import com.hivemq.bridge.config.MqttBridge;
@@ -50,21 +55,29 @@ import com.hivemq.configuration.info.SystemInformation;
 import com.hivemq.edge.HiveMQEdgeConstants;
 import com.hivemq.edge.utils.HiveMQEdgeEnvironmentUtils;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.security.ssl.SslUtil;
+import com.hivemq.util.LocalPersistenceFileUtil;
+import com.hivemq.util.ThreadFactoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -73,15 +86,22 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class BridgeMqttClient {
 
     private static final Logger log = LoggerFactory.getLogger(BridgeMqttClient.class);
+    private static final String BRIDGE_BUFFER_FOLDER = "bridge-buffer";
+    private static final String SHARED_SUBSCRIPTION_PREFIX = "$share/";
 
     private final @NotNull MqttBridge bridge;
     private final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler;
     private final @NotNull SystemInformation systemInformation;
     private final @NotNull HivemqId hivemqId;
-    private final @NotNull Mqtt5AsyncClient mqtt5Client;
     private final @NotNull ListeningExecutorService executorService;
     private final @NotNull PerBridgeMetrics perBridgeMetrics;
-    private final AtomicBoolean connected = new AtomicBoolean(false);
+    private final @NotNull List<Connection> connections;
+    private final @NotNull List<PerBridgeMetrics> connectionMetrics;
+    private final @NotNull BufferedPublishSerializer serializer;
+    private final @Nullable ScheduledExecutorService batchScheduler;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+    //messages of all forwarders of the bridge that were polled from the local queues and are not finished yet
+    private final AtomicInteger forwardInflight = new AtomicInteger(0);
     private final AtomicBoolean stopped = new AtomicBoolean(false);
     private List<MqttForwarder> forwarders = Collections.synchronizedList(new ArrayList<>());
 
@@ -96,23 +116,54 @@ public class BridgeMqttClient {
         this.systemInformation = systemInformation;
         this.bridge = bridge;
         this.bridgeInterceptorHandler = bridgeInterceptorHandler;
-        this.mqtt5Client = createClient();
         executorService = MoreExecutors.newDirectExecutorService();
         perBridgeMetrics = new PerBridgeMetrics(bridge.getId(), metricRegistry);
+        serializer = new BufferedPublishSerializer(hivemqId.get());
+        batchScheduler = bridge.getBridgeBatching().isEnabled() ?
+                Executors.newSingleThreadScheduledExecutor(ThreadFactoryUtil.create("bridge-batch-" + bridge.getId())) :
+                null;
+
+        final int connectionCount = Math.max(1, bridge.getConnectionCount());
+        final ImmutableList.Builder<Connection> connectionsBuilder = ImmutableList.builder();
+        final ImmutableList.Builder<PerBridgeMetrics> connectionMetricsBuilder = ImmutableList.builder();
+        for (int i = 0; i < connectionCount; i++) {
+            //a single connection keeps the client id and reports to the metrics of the bridge
+            final String clientId = i == 0 ? bridge.getClientId() : bridge.getClientId() + "-" + i;
+            final PerBridgeMetrics metrics = connectionCount == 1 ?
+                    null :
+                    new PerBridgeMetrics(MetricRegistry.name(bridge.getId(), "connection-" + i), metricRegistry);
+            if (metrics != null) {
+                connectionMetricsBuilder.add(metrics);
+            }
+            connectionsBuilder.add(new Connection(i, clientId, metrics));
+        }
+        connections = connectionsBuilder.build();
+        connectionMetrics = connectionMetricsBuilder.build();
+        if (connectionCount == 1) {
+            perBridgeMetrics.registerInflightWindow(connections.get(0).getInflightWindow());
+        } else {
+            perBridgeMetrics.registerInflightGauges(this::getInflight, this::getInflightLimit);
+        }
+        perBridgeMetrics.registerConnectionGauge(this::getConnectedCount);
     }
 
     @NotNull
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private Mqtt5AsyncClient createClient() {
+    private Mqtt5AsyncClient createClient(final @NotNull Connection connection) {
         final Mqtt5ClientBuilder builder = Mqtt5Client.builder();
-        builder.identifier(bridge.getClientId());
+        builder.identifier(connection.clientId);
         builder.serverHost(bridge.getHost());
         builder.serverPort(bridge.getPort());
 
         //-- Bind connection listeners to maintain status
         builder.addConnectedListener(context -> {
-            log.debug("Bridge {} connected", bridge.getId());
-            connected.set(true);
+            log.debug("Bridge {} connection {} connected", bridge.getId(), connection.index);
+            connection.connected.set(true);
+            if (isFullyConnected()) {
+                reconnectAttempts.set(0);
+                //forward everything that was buffered while the remote broker was unreachable
+                new ArrayList<>(forwarders).forEach(MqttForwarder::drainBuffer);
+            }
         });
         builder.addDisconnectedListener(context -> {
             final Throwable cause = context.getCause();
@@ -125,8 +176,8 @@ public class BridgeMqttClient {
                     message += " Reason: " + reasonString.get();
                 }
             }
-            log.debug("Bridge {} disconnected: {}", bridge.getId(), message);
-            connected.set(false);
+            log.debug("Bridge {} connection {} disconnected: {}", bridge.getId(), connection.index, message);
+            connection.connected.set(false);
         });
 
         //auto-reconnect
@@ -136,7 +187,10 @@ public class BridgeMqttClient {
             }
             if (context.getSource() != MqttDisconnectSource.USER) {
                 final MqttClientReconnector reconnector = context.getReconnector();
-                final long delay = (long) Math.min(1_000_000_000L * Math.pow(2, reconnector.getAttempts()),
+                //the connections of a bridge share the backoff, a connection that is lost while the others are
+                //already reconnecting does not start over with the minimal delay
+                final int attempts = reconnectAttempts.accumulateAndGet(reconnector.getAttempts(), Math::max);
+                final long delay = (long) Math.min(1_000_000_000L * Math.pow(2, attempts),
                         120_000_000_000L); //exponential backoff with min 1s, max 120s (+ random delay)
                 final long randomDelay =
                         (long) (delay / 4d / Integer.MAX_VALUE * ThreadLocalRandom.current().nextInt());
@@ -186,8 +240,21 @@ public class BridgeMqttClient {
         return builder.buildAsync();
     }
 
-    public @NotNull Mqtt5AsyncClient getMqtt5Client() {
-        return mqtt5Client;
+    /**
+     * Selects the connection for a forwarded message. The selection only depends on the topic, so all messages on a
+     * topic are sent in order over the same connection.
+     */
+    public @NotNull Connection getConnection(final @NotNull String topic) {
+        return connections.get(connectionIndex(topic, connections.size()));
+    }
+
+    public @NotNull List<Connection> getConnections() {
+        return connections;
+    }
+
+    @VisibleForTesting
+    static int connectionIndex(final @NotNull String topic, final int connectionCount) {
+        return (topic.hashCode() & Integer.MAX_VALUE) % connectionCount;
     }
 
     public @NotNull ListenableFuture<Void> start() {
@@ -195,10 +262,29 @@ public class BridgeMqttClient {
         final SettableFuture<Void> resultFuture = SettableFuture.create();
         stopped.set(false);
 
+        final List<CompletableFuture<Void>> connectFutures = new ArrayList<>(connections.size());
+        for (final Connection connection : connections) {
+            connectFutures.add(connect(connection));
+        }
+        CompletableFuture.allOf(connectFutures.toArray(new CompletableFuture[0])).thenRun(() -> {
+            resultFuture.set(null);
+        });
+
+        return resultFuture;
+    }
+
+    private @NotNull CompletableFuture<Void> connect(final @NotNull Connection connection) {
+        final CompletableFuture<Void> subscribedFuture = new CompletableFuture<>();
+        if (connection.mqtt5Client.getState().isConnectedOrReconnect()) {
+            //the connection was not lost or is already reconnecting on its own
+            subscribedFuture.complete(null);
+            return subscribedFuture;
+        }
+
         final Mqtt5UserPropertiesBuilder mqtt5UserPropertiesBuilder = Mqtt5UserProperties.builder();
         mqtt5UserPropertiesBuilder.add(HiveMQEdgeConstants.CLIENT_AGENT_PROPERTY,
                 String.format(HiveMQEdgeConstants.CLIENT_AGENT_PROPERTY_VALUE, systemInformation.getHiveMQVersion()));
-        final CompletableFuture<Mqtt5ConnAck> connectFuture = mqtt5Client.connectWith()
+        final CompletableFuture<Mqtt5ConnAck> connectFuture = connection.mqtt5Client.connectWith()
                 .cleanStart(bridge.isCleanStart())
                 .keepAlive(bridge.getKeepAlive())
                 .userProperties(mqtt5UserPropertiesBuilder.build())
@@ -219,16 +305,18 @@ public class BridgeMqttClient {
                         mqtt5ConnAck.getReasonString().map(Objects::toString).orElse(""));
             }
 
+            final boolean sessionPresent = !mqtt5ConnAck.getReasonCode().isError() && mqtt5ConnAck.isSessionPresent();
             ImmutableList.Builder<CompletableFuture<Mqtt5SubAck>> subscribeFutures = new ImmutableList.Builder<>();
             for (RemoteSubscription remoteSubscription : bridge.getRemoteSubscriptions()) {
-                final List<Mqtt5Subscription> subscriptions = convertSubscriptions(remoteSubscription, bridge);
+                final List<Mqtt5Subscription> subscriptions =
+                        convertSubscriptions(remoteSubscription, bridge, connections.size());
                 final Consumer<Mqtt5Publish> mqtt5PublishConsumer = new RemotePublishConsumer(remoteSubscription,
                         bridgeInterceptorHandler,
                         bridge,
                         executorService,
                         hivemqId,
                         perBridgeMetrics);
-                final CompletableFuture<Mqtt5SubAck> send = mqtt5Client.subscribeWith()
+                final CompletableFuture<Mqtt5SubAck> send = connection.mqtt5Client.subscribeWith()
                         .addSubscriptions(subscriptions)
                         .callback(mqtt5PublishConsumer)
                         .send();
@@ -237,21 +325,28 @@ public class BridgeMqttClient {
             }
 
             CompletableFuture.allOf(subscribeFutures.build().toArray(new CompletableFuture[0])).thenRun(() -> {
-                resultFuture.set(null);
+                if (sessionPresent && !bridge.isCleanStart() && connection.index == 0) {
+                    unsubscribeStaleFilters(connection);
+                }
+                subscribedFuture.complete(null);
             });
 
             return null;
         });
 
-        return resultFuture;
+        return subscribedFuture;
     }
 
 
     @NotNull
     private static List<Mqtt5Subscription> convertSubscriptions(
-            final @NotNull RemoteSubscription remoteSubscription, final @NotNull MqttBridge bridge) {
+            final @NotNull RemoteSubscription remoteSubscription,
+            final @NotNull MqttBridge bridge,
+            final int connectionCount) {
         return remoteSubscription.getFilters().stream().map(originalFilter -> {
-            MqttTopicFilter topicFilter = MqttTopicFilter.of(originalFilter);
+            final String filter =
+                    connectionCount > 1 ? toSharedFilter(bridge.getClientId(), originalFilter) : originalFilter;
+            MqttTopicFilter topicFilter = MqttTopicFilter.of(filter);
             return Mqtt5Subscription.builder()
                     .topicFilter(topicFilter)
                     .qos(Objects.requireNonNullElse(MqttQos.fromCode(remoteSubscription.getMaxQoS()),
@@ -262,35 +357,235 @@ public class BridgeMqttClient {
         }).collect(Collectors.toUnmodifiableList());
     }
 
+    /**
+     * The first connection keeps the client id of the bridge, so a persistent session that was created with a different
+     * amount of connections still holds the subscriptions in the other form. A left-over non-shared subscription would
+     * deliver every message a second time to the first connection, a left-over shared subscription would take messages
+     * away from the single connection.
+     */
+    private void unsubscribeStaleFilters(final @NotNull Connection connection) {
+        for (final RemoteSubscription remoteSubscription : bridge.getRemoteSubscriptions()) {
+            for (final String filter : remoteSubscription.getFilters()) {
+                if (filter.startsWith(SHARED_SUBSCRIPTION_PREFIX)) {
+                    continue;
+                }
+                final String staleFilter =
+                        connections.size() > 1 ? filter : toSharedFilter(bridge.getClientId(), filter);
+                connection.mqtt5Client.unsubscribeWith().topicFilter(staleFilter).send().whenComplete((unsubAck, t) -> {
+                    if (t != null) {
+                        log.warn("Not able to remove the previous subscription '{}' of bridge '{}': {}",
+                                staleFilter,
+                                bridge.getId(),
+                                t.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * With multiple connections the remote subscriptions are shared subscriptions of all connections of the bridge, so
+     * the remote broker delivers every message to only one of the connections.
+     */
+    @VisibleForTesting
+    static @NotNull String toSharedFilter(final @NotNull String clientId, final @NotNull String filter) {
+        if (filter.startsWith(SHARED_SUBSCRIPTION_PREFIX)) {
+            return filter;
+        }
+        final String shareName = clientId.replace('/', '_').replace('+', '_').replace('#', '_');
+        return SHARED_SUBSCRIPTION_PREFIX + shareName + "/" + filter;
+    }
+
     public void stop() {
         stopped.set(true);
-        mqtt5Client.toAsync().disconnect();
+        for (final Connection connection : connections) {
+            connection.mqtt5Client.disconnect();
+        }
+        if (batchScheduler != null) {
+            batchScheduler.shutdown();
+        }
+        //a restarted or reconfigured bridge creates a new client, possibly with a different amount of connections
+        connectionMetrics.forEach(PerBridgeMetrics::remove);
     }
 
     public @NotNull List<MqttForwarder> createForwarders() {
         final ImmutableList.Builder<MqttForwarder> builder = ImmutableList.builder();
         int i = 0;
         for (LocalSubscription localSubscription : bridge.getLocalSubscriptions()) {
-            builder.add(new RemoteMqttForwarder(bridge.getId() + "-" + i,
+            final String forwarderId = bridge.getId() + "-" + i++;
+            builder.add(new RemoteMqttForwarder(forwarderId,
                     bridge,
                     localSubscription,
                     this,
                     perBridgeMetrics,
-                    bridgeInterceptorHandler));
+                    bridgeInterceptorHandler,
+                    openBuffer(forwarderId)));
         }
         forwarders.addAll(builder.build());
         return Collections.unmodifiableList(forwarders);
     }
 
+    private @Nullable BridgeMessageBuffer openBuffer(final @NotNull String forwarderId) {
+        final BridgeBuffer bridgeBuffer = bridge.getBridgeBuffer();
+        if (!bridgeBuffer.isEnabled()) {
+            return null;
+        }
+        final File folder = new File(systemInformation.getDataFolder(),
+                LocalPersistenceFileUtil.PERSISTENCE_SUBFOLDER_NAME +
+                        File.separator +
+                        BRIDGE_BUFFER_FOLDER +
+                        File.separator +
+                        forwarderId);
+        try {
+            return BridgeMessageBuffer.open(folder,
+                    bridgeBuffer,
+                    serializer,
+                    perBridgeMetrics);
+        } catch (final IOException e) {
+            log.error(
+                    "Unable to open the store-and-forward buffer for bridge '{}', messages are not buffered while the remote broker is unreachable",
+                    bridge.getId(),
+                    e);
+            return null;
+        }
+    }
+
     public @NotNull List<MqttForwarder> getActiveForwarders(){
         return forwarders;
     }
 
+    public @NotNull BufferedPublishSerializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * @return the executor for the linger time of envelopes, only present if batching is enabled for the bridge
+     */
+    public @Nullable ScheduledExecutorService getBatchScheduler() {
+        return batchScheduler;
+    }
+
     public @NotNull MqttBridge getBridge() {
         return bridge;
     }
 
+    /**
+     * @return true if at least one connection of the bridge is connected, messages on the topics of the other
+     *         connections are not forwarded until they are reconnected, see {@link #getConnectedCount()}
+     */
     public boolean isConnected() {
-        return connected.get();
+        return getConnectedCount() > 0;
+    }
+
+    /**
+     * @return true if all connections of the bridge are connected
+     */
+    public boolean isFullyConnected() {
+        return getConnectedCount() == connections.size();
+    }
+
+    public int getConnectedCount() {
+        int connected = 0;
+        for (final Connection connection : connections) {
+            if (connection.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * @return the counter of the messages that the forwarders of the bridge polled and did not finish yet, shared by
+     *         all forwarders so it can be compared with {@link #getInflightLimit()}
+     */
+    public @NotNull AtomicInteger getForwardInflight() {
+        return forwardInflight;
+    }
+
+    public int getInflight() {
+        int inflight = 0;
+        for (final Connection connection : connections) {
+            inflight += connection.inflightWindow.getInflight();
+        }
+        return inflight;
+    }
+
+    /**
+     * @return the sum of the in-flight windows of all connections, which limits the messages of all forwarders of the
+     *         bridge, see {@link #getForwardInflight()}
+     */
+    public int getInflightLimit() {
+        int limit = 0;
+        for (final Connection connection : connections) {
+            limit += connection.inflightWindow.getLimit();
+        }
+        return limit;
+    }
+
+    /**
+     * One of the parallel connections of a bridge to its remote broker, each with its own in-flight window.
+     */
+    public class Connection {
+
+        private final int index;
+        private final @NotNull String clientId;
+        private final @NotNull Mqtt5AsyncClient mqtt5Client;
+        private final @NotNull AdaptiveInflightWindow inflightWindow = new AdaptiveInflightWindow();
+        private final @Nullable PerBridgeMetrics connectionMetrics;
+        private final AtomicBoolean connected = new AtomicBoolean(false);
+
+        private Connection(
+                final int index, final @NotNull String clientId, final @Nullable PerBridgeMetrics connectionMetrics) {
+            this.index = index;
+            this.clientId = clientId;
+            this.connectionMetrics = connectionMetrics;
+            this.mqtt5Client = createClient(this);
+            if (connectionMetrics != null) {
+                connectionMetrics.registerInflightWindow(inflightWindow);
+            }
+        }
+
+        /**
+         * @return the position of the connection in {@link #getConnections()}
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public @NotNull Mqtt5AsyncClient getMqtt5Client() {
+            return mqtt5Client;
+        }
+
+        public @NotNull AdaptiveInflightWindow getInflightWindow() {
+            return inflightWindow;
+        }
+
+        public boolean isConnected() {
+            return connected.get();
+        }
+
+        public void onSent() {
+            inflightWindow.onSent();
+        }
+
+        public void onAcknowledged(final long sentNanos) {
+            final long nowNanos = System.nanoTime();
+            final long roundTripNanos = nowNanos - sentNanos;
+            inflightWindow.onAcknowledged(roundTripNanos, nowNanos);
+            perBridgeMetrics.getPublishForwardRoundTripTimer().update(roundTripNanos, TimeUnit.NANOSECONDS);
+            perBridgeMetrics.getPublishForwardThroughputMeter().mark();
+            if (connectionMetrics != null) {
+                connectionMetrics.getPublishForwardSuccessCounter().inc();
+                connectionMetrics.getPublishForwardRoundTripTimer().update(roundTripNanos, TimeUnit.NANOSECONDS);
+                connectionMetrics.getPublishForwardThroughputMeter().mark();
+            }
+        }
+
+        public void onFailed() {
+            inflightWindow.onFailed(System.nanoTime());
+            if (connectionMetrics != null) {
+                connectionMetrics.getPublishForwardFailCounter().inc();
+            }
+        }
     }
 }
@@ -22,13 +22,16 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.bridge.BridgeConstants;
 import com.hivemq.bridge.MqttForwarder;
+import com.hivemq.bridge.batch.BridgeBatchEnvelope;
+import com.hivemq.bridge.batch.BridgeBatcher;
+import com.hivemq.bridge.buffer.BridgeMessageBuffer;
+import com.hivemq.bridge.config.BridgeBatching;
 import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.LocalSubscription;
 import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.metrics.PerBridgeMetrics;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
-import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
 import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserPropertiesBuilder;
@@ -36,7 +39,9 @@ import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
-import com.hivemq.common.topic.TopicFilterProcessor;
+import com.hivemq.common.topic.TopicDestinationRewriter;
+import com.hivemq.common.topic.TopicFilterMatcher;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.QoS;
@@ -46,6 +51,10 @@ import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -69,9 +78,24 @@ public class RemoteMqttForwarder implements MqttForwarder {
     private final @NotNull BridgeMqttClient remoteMqttClient;
     private final @NotNull PerBridgeMetrics perBridgeMetrics;
     private final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler;
-    private final AtomicInteger inflightCounter = new AtomicInteger(0);
+    private final @NotNull TopicFilterMatcher excludes;
+    private final @NotNull TopicDestinationRewriter destinationRewriter;
+    //one batcher per connection, so envelopes follow the same topic to connection striping as single messages
+    private final @Nullable List<BridgeBatcher<PendingPublish>> batchers;
+    private final @Nullable String batchTopic;
+    private final @NotNull AtomicInteger inflightCounter;
     private final AtomicBoolean running = new AtomicBoolean(false);
 
+    private final @Nullable BridgeMessageBuffer buffer;
+    private final @NotNull Object bufferLock = new Object();
+    private final @NotNull Deque<PendingPublish> blockedPublishes = new ArrayDeque<>();
+    private final @NotNull Deque<DrainingMessage> drainingMessages = new ArrayDeque<>();
+    private int drainOutstanding = 0;
+    //only one drain runs at a time, so the messages are sent in buffer order without holding the lock
+    private boolean draining = false;
+    private boolean drainRequested = false;
+    private boolean drainFailed = false;
+
     private @Nullable MqttForwarder.AfterForwardCallback afterForwardCallback;
     private @Nullable ExecutorService executorService;
 
@@ -82,12 +106,52 @@ public class RemoteMqttForwarder implements MqttForwarder {
             final @NotNull BridgeMqttClient remoteMqttClient,
             final @NotNull PerBridgeMetrics perBridgeMetrics,
             final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler) {
+        this(id,
+                bridge,
+                localSubscription,
+                remoteMqttClient,
+                perBridgeMetrics,
+                bridgeInterceptorHandler,
+                null);
+    }
+
+    public RemoteMqttForwarder(
+            final @NotNull String id,
+            final @NotNull MqttBridge bridge,
+            final @NotNull LocalSubscription localSubscription,
+            final @NotNull BridgeMqttClient remoteMqttClient,
+            final @NotNull PerBridgeMetrics perBridgeMetrics,
+            final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler,
+            final @Nullable BridgeMessageBuffer buffer) {
         this.id = id;
         this.bridge = bridge;
         this.localSubscription = localSubscription;
         this.remoteMqttClient = remoteMqttClient;
         this.perBridgeMetrics = perBridgeMetrics;
         this.bridgeInterceptorHandler = bridgeInterceptorHandler;
+        this.buffer = buffer;
+        //the in-flight limit is the one of the bridge, so the count is the one of all forwarders of the bridge
+        this.inflightCounter = remoteMqttClient.getForwardInflight();
+        this.excludes = new TopicFilterMatcher(localSubscription.getExcludes());
+        this.destinationRewriter = TopicDestinationRewriter.compile(localSubscription.getDestination(),
+                Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId()),
+                InternalConfigurations.BRIDGE_DESTINATION_TOPIC_CACHE_MAX_SIZE.get());
+        final BridgeBatching batching = bridge.getBridgeBatching();
+        if (batching.isEnabled()) {
+            this.batchTopic = batching.getTopic()
+                    .replace("{" + BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN + "}", bridge.getId());
+            final List<BridgeBatcher<PendingPublish>> batchers = new ArrayList<>();
+            for (final BridgeMqttClient.Connection connection : remoteMqttClient.getConnections()) {
+                batchers.add(new BridgeBatcher<>(batching,
+                        remoteMqttClient.getSerializer(),
+                        Objects.requireNonNull(remoteMqttClient.getBatchScheduler()),
+                        batch -> sendBatch(connection, batch)));
+            }
+            this.batchers = batchers;
+        } else {
+            this.batchTopic = null;
+            this.batchers = null;
+        }
     }
 
     public void start() {
@@ -97,6 +161,18 @@ public class RemoteMqttForwarder implements MqttForwarder {
     @Override
     public void stop() {
         running.set(false);
+        if (batchers != null) {
+            //messages that were not sent yet are still in the local queue, they are not lost
+            batchers.forEach(BridgeBatcher::close);
+        }
+        if (buffer != null) {
+            synchronized (bufferLock) {
+                //blocked messages are still in the local queue, they are not lost
+                blockedPublishes.clear();
+                drainingMessages.clear();
+                buffer.close();
+            }
+        }
     }
 
 
@@ -128,12 +204,10 @@ public class RemoteMqttForwarder implements MqttForwarder {
             }
 
             //filter out excludes
-            for (String exclude : localSubscription.getExcludes()) {
-                if (MqttTopicFilter.of(exclude).matches(MqttTopicFilter.of(publish.getTopic()))) {
-                    perBridgeMetrics.getRemotePublishExcludedCounter().inc();
-                    finishProcessing(publish, queueId);
-                    return;
-                }
+            if (excludes.matches(publish.getTopic())) {
+                perBridgeMetrics.getRemotePublishExcludedCounter().inc();
+                finishProcessing(publish, queueId);
+                return;
             }
 
             final PUBLISH convertedPublish = convertPublishAfterBridge(publish, hopCount);
@@ -185,7 +259,7 @@ public class RemoteMqttForwarder implements MqttForwarder {
 
     @NotNull
     private PUBLISH convertPublishAfterBridge(@NotNull PUBLISH publish, int hopCount) {
-        final MqttTopic modifiedTopic = convertTopic(localSubscription.getDestination(), publish.getTopic());
+        final MqttTopic modifiedTopic = destinationRewriter.rewrite(publish.getTopic());
         final QoS modifiedQoS = convertQos(localSubscription.getMaxQoS(), publish.getQoS());
         final PUBLISHFactory.Mqtt5Builder mqtt5Builder = new PUBLISHFactory.Mqtt5Builder();
         mqtt5Builder.fromPublish(publish);
@@ -201,10 +275,34 @@ public class RemoteMqttForwarder implements MqttForwarder {
     @SuppressWarnings("ResultOfMethodCallIgnored")
     private void sendPublishToRemote(
             @NotNull PUBLISH publish, @NotNull String queueId, @NotNull PUBLISH origPublish) {
+        if (buffer != null && (!remoteMqttClient.isFullyConnected() || !isBufferEmpty())) {
+            //keep the order, as long as there are buffered messages new messages are added to the buffer as well
+            bufferPublish(publish, queueId, origPublish);
+            return;
+        }
+        if (batchers != null) {
+            addToBatch(publish, queueId, origPublish);
+            return;
+        }
         final Mqtt5Publish mqtt5Publish = convertPublishForClient(publish);
-        if(remoteMqttClient.isConnected()){
-            final CompletableFuture<Mqtt5PublishResult> publishResult = remoteMqttClient.getMqtt5Client().toAsync().publish(mqtt5Publish);
+        //all messages on a topic use the same connection, which keeps them in order
+        final BridgeMqttClient.Connection connection = remoteMqttClient.getConnection(publish.getTopic());
+        if(connection.isConnected()){
+            final long sentNanos = System.nanoTime();
+            connection.onSent();
+            final CompletableFuture<Mqtt5PublishResult> publishResult =
+                    connection.getMqtt5Client().publish(mqtt5Publish);
             publishResult.whenComplete((mqtt5PublishResult, throwable) -> {
+                if (throwable != null) {
+                    connection.onFailed();
+                } else {
+                    connection.onAcknowledged(sentNanos);
+                }
+                if (throwable != null && buffer != null) {
+                    //the connection was lost while the message was in-flight
+                    bufferPublish(publish, queueId, origPublish);
+                    return;
+                }
                 if (throwable != null) {
                     handlePublishError(origPublish, throwable);
                 } else {
@@ -220,6 +318,247 @@ public class RemoteMqttForwarder implements MqttForwarder {
         }
     }
 
+    private void addToBatch(
+            final @NotNull PUBLISH publish, final @NotNull String queueId, final @NotNull PUBLISH origPublish) {
+        final BridgeMqttClient.Connection connection = remoteMqttClient.getConnection(publish.getTopic());
+        if (!connection.isConnected()) {
+            if(log.isTraceEnabled()){
+                log.trace("cannot batch publish from {} for disconnected bridge, finishing", queueId);
+            }
+            finishProcessing(origPublish, queueId);
+            return;
+        }
+        final BridgeBatcher<PendingPublish> batcher = Objects.requireNonNull(batchers).get(connection.getIndex());
+        if (!batcher.add(publish, new PendingPublish(publish, queueId, origPublish))) {
+            finishProcessing(origPublish, queueId);
+        }
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void sendBatch(
+            final @NotNull BridgeMqttClient.Connection connection,
+            final @NotNull BridgeBatcher.Batch<PendingPublish> batch) {
+        final byte[] payload = batch.getPayload();
+        if (payload == null) {
+            for (final PendingPublish pendingPublish : batch.getContexts()) {
+                handlePublishError(pendingPublish.origPublish, Objects.requireNonNull(batch.getFailure()));
+                finishProcessing(pendingPublish.origPublish, pendingPublish.queueId);
+            }
+            return;
+        }
+        final String topic = Objects.requireNonNull(batchTopic);
+        if (!connection.isConnected()) {
+            for (final PendingPublish pendingPublish : batch.getContexts()) {
+                onBatchedPublishFailed(pendingPublish, null);
+            }
+            return;
+        }
+
+        final Mqtt5Publish envelope = Mqtt5Publish.builder()
+                .topic(topic)
+                .qos(Objects.requireNonNullElse(MqttQos.fromCode(batch.getQos().getQosNumber()),
+                        MqttQos.AT_LEAST_ONCE))
+                .payload(payload)
+                .contentType(BridgeBatchEnvelope.CONTENT_TYPE)
+                .build();
+        perBridgeMetrics.getBatchForwardCounter().inc();
+        final long sentNanos = System.nanoTime();
+        connection.onSent();
+        connection.getMqtt5Client().publish(envelope).whenComplete((mqtt5PublishResult, throwable) -> {
+            if (throwable != null) {
+                connection.onFailed();
+                for (final PendingPublish pendingPublish : batch.getContexts()) {
+                    onBatchedPublishFailed(pendingPublish, throwable);
+                }
+                return;
+            }
+            connection.onAcknowledged(sentNanos);
+            perBridgeMetrics.getPublishForwardSuccessCounter().inc(batch.getContexts().size());
+            for (final PendingPublish pendingPublish : batch.getContexts()) {
+                finishProcessing(pendingPublish.origPublish, pendingPublish.queueId);
+            }
+        });
+    }
+
+    private void onBatchedPublishFailed(
+            final @NotNull PendingPublish pendingPublish, final @Nullable Throwable throwable) {
+        if (buffer != null) {
+            //the connection was lost, the message is sent on its own once the connection is back
+            bufferPublish(pendingPublish.publish, pendingPublish.queueId, pendingPublish.origPublish);
+            return;
+        }
+        if (throwable != null) {
+            handlePublishError(pendingPublish.origPublish, throwable);
+        }
+        finishProcessing(pendingPublish.origPublish, pendingPublish.queueId);
+    }
+
+    private boolean isBufferEmpty() {
+        synchronized (bufferLock) {
+            return blockedPublishes.isEmpty() && (buffer == null || buffer.isEmpty());
+        }
+    }
+
+    private void bufferPublish(
+            final @NotNull PUBLISH publish, final @NotNull String queueId, final @NotNull PUBLISH origPublish) {
+        synchronized (bufferLock) {
+            //with the BLOCK overflow policy messages stay in-flight until the buffer has room again,
+            //which stops the polling of the local queue once the poll threshold is reached
+            if (blockedPublishes.isEmpty()) {
+                try {
+                    if (!buffer.append(publish)) {
+                        blockedPublishes.add(new PendingPublish(publish, queueId, origPublish));
+                        return;
+                    }
+                } catch (final IOException e) {
+                    handlePublishError(origPublish, e);
+                    finishProcessing(origPublish, queueId);
+                    return;
+                }
+            } else {
+                blockedPublishes.add(new PendingPublish(publish, queueId, origPublish));
+                return;
+            }
+        }
+        finishProcessing(origPublish, queueId);
+        if (remoteMqttClient.isFullyConnected()) {
+            scheduleDrain();
+        }
+    }
+
+    @Override
+    public void drainBuffer() {
+        if (buffer != null) {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        final ExecutorService executorService = this.executorService;
+        if (executorService == null) {
+            return;
+        }
+        synchronized (bufferLock) {
+            drainRequested = true;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        executorService.execute(this::drain);
+    }
+
+    private void drain() {
+        final int maxInflight = InternalConfigurations.BRIDGE_BUFFER_DRAIN_INFLIGHT_MESSAGES.get();
+        while (true) {
+            final List<DrainingMessage> toSend = new ArrayList<>();
+            synchronized (bufferLock) {
+                if (!drainRequested ||
+                        !running.get() ||
+                        buffer.isClosed() ||
+                        drainFailed ||
+                        !remoteMqttClient.isFullyConnected()) {
+                    draining = false;
+                    return;
+                }
+                drainRequested = false;
+                try {
+                    while (drainingMessages.size() < maxInflight) {
+                        final BridgeMessageBuffer.BufferedMessage bufferedMessage = buffer.read();
+                        if (bufferedMessage == null) {
+                            break;
+                        }
+                        final DrainingMessage drainingMessage = new DrainingMessage(bufferedMessage);
+                        drainingMessages.add(drainingMessage);
+                        drainOutstanding++;
+                        toSend.add(drainingMessage);
+                    }
+                } catch (final IOException e) {
+                    log.error("Unable to read from the store-and-forward buffer of bridge '{}'", bridge.getId(), e);
+                }
+            }
+            for (final DrainingMessage drainingMessage : toSend) {
+                final Mqtt5Publish mqtt5Publish = convertBufferedPublishForClient(drainingMessage.message);
+                if (mqtt5Publish == null) {
+                    perBridgeMetrics.getBufferExpiredCounter().inc();
+                    onDrained(drainingMessage, null, null);
+                    continue;
+                }
+                remoteMqttClient.getConnection(mqtt5Publish.getTopic().toString())
+                        .getMqtt5Client()
+                        .publish(mqtt5Publish)
+                        .whenComplete((result, throwable) -> onDrained(drainingMessage, result, throwable));
+            }
+        }
+    }
+
+    private void onDrained(
+            final @NotNull DrainingMessage drainingMessage,
+            final @Nullable Mqtt5PublishResult result,
+            final @Nullable Throwable throwable) {
+        final List<PendingPublish> unblocked = new ArrayList<>();
+        final boolean continueDraining;
+        synchronized (bufferLock) {
+            if (buffer.isClosed()) {
+                return;
+            }
+            drainOutstanding--;
+            if (throwable != null) {
+                //the connection was lost, everything after the last acknowledged message is sent again on reconnect
+                drainFailed = true;
+            } else {
+                drainingMessage.done = true;
+                if (result != null && result.getError().isPresent()) {
+                    handlePublishError(drainingMessage.message.getPublish(), result.getError().get());
+                } else if (result != null) {
+                    perBridgeMetrics.getPublishForwardSuccessCounter().inc();
+                }
+            }
+
+            BridgeMessageBuffer.BufferedMessage lastDone = null;
+            while (!drainingMessages.isEmpty() && drainingMessages.peekFirst().done) {
+                lastDone = drainingMessages.pollFirst().message;
+            }
+            try {
+                if (lastDone != null) {
+                    buffer.commit(lastDone);
+                }
+                while (!blockedPublishes.isEmpty() && buffer.append(blockedPublishes.peekFirst().publish)) {
+                    unblocked.add(blockedPublishes.pollFirst());
+                }
+            } catch (final IOException e) {
+                log.error("Unable to update the store-and-forward buffer of bridge '{}'", bridge.getId(), e);
+            }
+
+            if (drainFailed && drainOutstanding == 0) {
+                drainingMessages.clear();
+                buffer.rewind();
+                drainFailed = false;
+            }
+            continueDraining = !drainFailed;
+        }
+        for (final PendingPublish blockedPublish : unblocked) {
+            finishProcessing(blockedPublish.origPublish, blockedPublish.queueId);
+        }
+        if (continueDraining) {
+            scheduleDrain();
+        }
+    }
+
+    private @Nullable Mqtt5Publish convertBufferedPublishForClient(
+            final @NotNull BridgeMessageBuffer.BufferedMessage bufferedMessage) {
+        final PUBLISH publish = bufferedMessage.getPublish();
+        if (publish.getMessageExpiryInterval() <= PUBLISH.MESSAGE_EXPIRY_INTERVAL_MAX) {
+            final long bufferedSeconds = (System.currentTimeMillis() - bufferedMessage.getTimestamp()) / 1000;
+            final long remainingExpiry = publish.getMessageExpiryInterval() - bufferedSeconds;
+            if (remainingExpiry <= 0) {
+                return null;
+            }
+            publish.setMessageExpiryInterval(remainingExpiry);
+        }
+        return convertPublishForClient(publish);
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
     @NotNull
     private Mqtt5Publish convertPublishForClient(@NotNull PUBLISH publish) {
@@ -268,15 +607,6 @@ public class RemoteMqttForwarder implements MqttForwarder {
         }
     }
 
-    private @NotNull MqttTopic convertTopic(@Nullable String destination, @NotNull String topic) {
-        if (destination == null || destination.equals(DEFAULT_DESTINATION_PATTERN)) {
-            return MqttTopic.of(topic);
-        }
-        return TopicFilterProcessor.modifyTopic(destination,
-                MqttTopic.of(topic),
-                Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId()));
-    }
-
     private void handlePublishError(@NotNull PUBLISH publish, Throwable throwable) {
         perBridgeMetrics.getPublishForwardFailCounter().inc();
         log.warn("Unable to forward message on topic '{}' for bridge '{}', reason: {}",
@@ -364,8 +694,42 @@ public class RemoteMqttForwarder implements MqttForwarder {
         return inflightCounter.get();
     }
 
+    @Override
+    public int getInflightLimit() {
+        final int limit = remoteMqttClient.getInflightLimit();
+        if (batchers != null) {
+            //the in-flight window counts envelopes, the local queues are polled for messages
+            return (int) Math.min((long) limit * bridge.getBridgeBatching().getMaxMessages(), Integer.MAX_VALUE);
+        }
+        return limit;
+    }
+
     @Override
     public void setExecutorService(final ExecutorService executorService) {
         this.executorService = executorService;
     }
+
+    private static class PendingPublish {
+
+        private final @NotNull PUBLISH publish;
+        private final @NotNull String queueId;
+        private final @NotNull PUBLISH origPublish;
+
+        private PendingPublish(
+                final @NotNull PUBLISH publish, final @NotNull String queueId, final @NotNull PUBLISH origPublish) {
+            this.publish = publish;
+            this.queueId = queueId;
+            this.origPublish = origPublish;
+        }
+    }
+
+    private static class DrainingMessage {
+
+        private final @NotNull BridgeMessageBuffer.BufferedMessage message;
+        private boolean done = false;
+
+        private DrainingMessage(final @NotNull BridgeMessageBuffer.BufferedMessage message) {
+            this.message = message;
+        }
+    }
 }
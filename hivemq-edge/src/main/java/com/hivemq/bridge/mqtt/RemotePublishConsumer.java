@@ -18,15 +18,21 @@ package com.hivemq.bridge.mqtt;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.bridge.BridgeConstants;
+import com.hivemq.bridge.batch.BridgeBatchEnvelope;
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
 import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.config.RemoteSubscription;
 import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.client.internal.mqtt.message.publish.MqttPublish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
-import com.hivemq.common.topic.TopicFilterProcessor;
+import com.hivemq.common.topic.TopicDestinationRewriter;
+import com.hivemq.common.topic.TopicFilterMatcher;
 import com.hivemq.configuration.HivemqId;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
@@ -37,6 +43,7 @@ import com.hivemq.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -50,6 +57,8 @@ import static com.hivemq.bridge.BridgeConstants.HMQ_BRIDGE_HOP_COUNT;
 
 class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
     private static final Logger log = LoggerFactory.getLogger(RemotePublishConsumer.class);
+    private static final @NotNull String SHARED_SUBSCRIPTION_PREFIX = "$share/";
+    private static final @NotNull byte[] EMPTY_PAYLOAD = new byte[0];
 
     private final @NotNull RemoteSubscription remoteSubscription;
     private final @NotNull BridgeInterceptorHandler bridgeInterceptorHandler;
@@ -57,6 +66,9 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
     private final @NotNull ExecutorService executorService;
     private final @NotNull HivemqId hivemqId;
     private final @NotNull PerBridgeMetrics perBridgeMetrics;
+    private final @NotNull TopicDestinationRewriter destinationRewriter;
+    private final @NotNull BufferedPublishSerializer serializer;
+    private final @NotNull TopicFilterMatcher subscriptionFilters;
 
     public RemotePublishConsumer(
             final @NotNull RemoteSubscription remoteSubscription,
@@ -71,14 +83,29 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
         this.executorService = executorService;
         this.hivemqId = hivemqId;
         this.perBridgeMetrics = perBridgeMetrics;
+        this.destinationRewriter = TopicDestinationRewriter.compile(remoteSubscription.getDestination(),
+                Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId()),
+                InternalConfigurations.BRIDGE_DESTINATION_TOPIC_CACHE_MAX_SIZE.get());
+        this.serializer = new BufferedPublishSerializer(hivemqId.get());
+        this.subscriptionFilters = new TopicFilterMatcher(remoteSubscription.getFilters()
+                .stream()
+                .map(RemotePublishConsumer::withoutSharePrefix)
+                .collect(Collectors.toList()));
     }
 
     @Override
     public void accept(final @NotNull Mqtt5Publish mqtt5Publish) {
+        //-- only a bridge in batching mode accepts envelopes, otherwise they are forwarded like any other message
+        if (bridge.getBridgeBatching().isEnabled() &&
+                BridgeBatchEnvelope.isEnvelope(mqtt5Publish.getContentType().map(Object::toString).orElse(null))) {
+            acceptEnvelope(mqtt5Publish);
+            return;
+        }
         try {
             perBridgeMetrics.getPublishRemoteReceivedCounter().inc();
 
-            int hopCount = extractHopCount(mqtt5Publish);
+            final List<MqttUserProperty> userProperties = toUserProperties(mqtt5Publish);
+            int hopCount = extractHopCount(userProperties);
             if (bridge.isLoopPreventionEnabled() && hopCount > 0 && hopCount >= bridge.getLoopPreventionHopCount()) {
                 perBridgeMetrics.getLoopPreventionRemoteDropCounter().inc();
                 if (log.isDebugEnabled()) {
@@ -89,42 +116,119 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
                 return;
             }
 
-            final PUBLISH publish = convertPublish(mqtt5Publish, remoteSubscription, bridge, hopCount);
-
-            final ListenableFuture<PublishReturnCode> publishFuture =
-                    bridgeInterceptorHandler.interceptOrDelegateInbound(publish, executorService, bridge);
-
-            publishFuture.addListener(() -> {
-                try {
-                    final PublishReturnCode publishReturnCode = publishFuture.get();
-                    switch (publishReturnCode) {
-                        case DELIVERED:
-                            perBridgeMetrics.getPublishLocalSuccessCounter().inc();
-                            break;
-                        case NO_MATCHING_SUBSCRIBERS:
-                            perBridgeMetrics.getPublishLocalSuccessCounter().inc();
-                            perBridgeMetrics.getPublishLocalNoSubscriberCounter().inc();
-                            break;
-                        case FAILED:
-                            perBridgeMetrics.getPublishLocalFailCounter().inc();
-                            break;
-                    }
-                } catch (InterruptedException | ExecutionException e) {
-                    log.error("Not able to publish from remote subscription on bridge {}", bridge.getId(), e);
-                    perBridgeMetrics.getPublishLocalFailCounter().inc();
-                }
-
-            }, executorService);
+            final PUBLISH publish =
+                    convertPublish(mqtt5Publish, remoteSubscription, bridge, userProperties, hopCount);
+            publishLocally(publish);
         } catch (Throwable e) {
             perBridgeMetrics.getPublishLocalFailCounter().inc();
             log.debug("Not able to publish from remote subscription on bridge {}", bridge.getId(), e);
         }
     }
 
+    /**
+     * Unpacks an envelope of a bridge in batching mode, every message in the envelope is published on its own.
+     * <p>
+     * The topic of an entry is chosen by the sender of the envelope, so entries are only accepted if their topic matches
+     * the filters of the remote subscription, as if the message was received on its own.
+     */
+    private void acceptEnvelope(final @NotNull Mqtt5Publish envelope) {
+        perBridgeMetrics.getBatchRemoteReceivedCounter().inc();
+        final List<PUBLISH> entries;
+        try {
+            entries = BridgeBatchEnvelope.decode(payloadOf(envelope), serializer);
+        } catch (final IOException e) {
+            perBridgeMetrics.getPublishLocalFailCounter().inc();
+            log.warn("Not able to unpack batch envelope on topic '{}' for bridge '{}', reason: {}",
+                    envelope.getTopic(),
+                    bridge.getId(),
+                    e.getMessage());
+            log.debug("original exception", e);
+            return;
+        }
+
+        for (final PUBLISH entry : entries) {
+            try {
+                perBridgeMetrics.getPublishRemoteReceivedCounter().inc();
+
+                if (!subscriptionFilters.matches(entry.getTopic())) {
+                    perBridgeMetrics.getPublishLocalFailCounter().inc();
+                    log.warn("Dropping batched message on topic '{}' for bridge '{}', " +
+                                    "the topic does not match the filters of the remote subscription",
+                            entry.getTopic(),
+                            bridge.getId());
+                    continue;
+                }
+
+                final List<MqttUserProperty> userProperties = entry.getUserProperties().asList();
+                final int hopCount = extractHopCount(userProperties);
+                if (bridge.isLoopPreventionEnabled() &&
+                        hopCount > 0 &&
+                        hopCount >= bridge.getLoopPreventionHopCount()) {
+                    perBridgeMetrics.getLoopPreventionRemoteDropCounter().inc();
+                    continue;
+                }
+
+                publishLocally(convertEntry(entry, userProperties, hopCount));
+            } catch (Throwable e) {
+                perBridgeMetrics.getPublishLocalFailCounter().inc();
+                log.debug("Not able to publish batched message from remote subscription on bridge {}",
+                        bridge.getId(),
+                        e);
+            }
+        }
+    }
+
+    private void publishLocally(final @NotNull PUBLISH publish) {
+        final ListenableFuture<PublishReturnCode> publishFuture =
+                bridgeInterceptorHandler.interceptOrDelegateInbound(publish, executorService, bridge);
+
+        publishFuture.addListener(() -> {
+            try {
+                final PublishReturnCode publishReturnCode = publishFuture.get();
+                switch (publishReturnCode) {
+                    case DELIVERED:
+                        perBridgeMetrics.getPublishLocalSuccessCounter().inc();
+                        break;
+                    case NO_MATCHING_SUBSCRIBERS:
+                        perBridgeMetrics.getPublishLocalSuccessCounter().inc();
+                        perBridgeMetrics.getPublishLocalNoSubscriberCounter().inc();
+                        break;
+                    case FAILED:
+                        perBridgeMetrics.getPublishLocalFailCounter().inc();
+                        break;
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                log.error("Not able to publish from remote subscription on bridge {}", bridge.getId(), e);
+                perBridgeMetrics.getPublishLocalFailCounter().inc();
+            }
+
+        }, executorService);
+    }
+
+    private @NotNull PUBLISH convertEntry(
+            final @NotNull PUBLISH entry, final @NotNull List<MqttUserProperty> userProperties, final int hopCount) {
+        final QoS qos = Objects.requireNonNullElse(QoS.valueOf(Math.min(entry.getQoS().getQosNumber(),
+                remoteSubscription.getMaxQoS())), QoS.AT_MOST_ONCE);
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId(hivemqId.get())
+                .withTopic(destinationRewriter.rewrite(entry.getTopic()).toString())
+                .withContentType(entry.getContentType())
+                .withCorrelationData(entry.getCorrelationData())
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withPayload(entry.getPayload())
+                .withMessageExpiryInterval(entry.getMessageExpiryInterval())
+                .withPayloadFormatIndicator(entry.getPayloadFormatIndicator())
+                .withRetain(remoteSubscription.isPreserveRetain() && entry.isRetain())
+                .withResponseTopic(entry.getResponseTopic())
+                .withUserProperties(convertUserProperties(userProperties, hopCount))
+                .build();
+    }
+
     private @NotNull PUBLISH convertPublish(
             final @NotNull Mqtt5Publish mqtt5Publish,
             final @NotNull RemoteSubscription remoteSubscription,
             final @NotNull MqttBridge bridge,
+            final @NotNull List<MqttUserProperty> userProperties,
             final int hopCount) {
         final Integer payloadFormatInidicatorCode = mqtt5Publish.getPayloadFormatIndicator()
                 .map(com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator::getCode)
@@ -132,12 +236,12 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
         final QoS qos = Objects.requireNonNullElse(QoS.valueOf(Math.min(mqtt5Publish.getQos().getCode(),
                 remoteSubscription.getMaxQoS())), QoS.AT_MOST_ONCE);
         return new PUBLISHFactory.Mqtt5Builder().withHivemqId(hivemqId.get())
-                .withTopic(convertTopic(mqtt5Publish, remoteSubscription, bridge))
+                .withTopic(destinationRewriter.rewrite(mqtt5Publish.getTopic()).toString())
                 .withContentType(mqtt5Publish.getContentType().map(Object::toString).orElse(null))
-                .withCorrelationData(Bytes.getBytesFromReadOnlyBuffer(mqtt5Publish.getCorrelationData()))
+                .withCorrelationData(correlationDataOf(mqtt5Publish))
                 .withQoS(qos)
                 .withOnwardQos(qos)
-                .withPayload(mqtt5Publish.getPayloadAsBytes())
+                .withPayload(payloadOf(mqtt5Publish))
                 .withMessageExpiryInterval(mqtt5Publish.getMessageExpiryInterval()
                         .orElse(PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET))
                 .withPayloadFormatIndicator(payloadFormatInidicatorCode != null ?
@@ -145,24 +249,50 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
                         null)
                 .withRetain(remoteSubscription.isPreserveRetain() && mqtt5Publish.isRetain())
                 .withResponseTopic(mqtt5Publish.getResponseTopic().map(Object::toString).orElse(null))
-                .withUserProperties(convertUserProperties(mqtt5Publish.getUserProperties(), hopCount))
+                .withUserProperties(convertUserProperties(userProperties, hopCount))
                 .build();
     }
 
-    private static @NotNull String convertTopic(
-            final @NotNull Mqtt5Publish mqtt5Publish,
-            final @NotNull RemoteSubscription remoteSubscription,
-            final @NotNull MqttBridge bridge) {
+    /**
+     * The client decodes the payload of a received PUBLISH into a buffer of its own that is only exposed as read-only
+     * view, so {@link Mqtt5Publish#getPayloadAsBytes()} copies it once more. The received message is discarded after
+     * the conversion, which makes it safe to take the decoded array over instead.
+     */
+    private static @NotNull byte[] payloadOf(final @NotNull Mqtt5Publish mqtt5Publish) {
+        if (!(mqtt5Publish instanceof MqttPublish)) {
+            return mqtt5Publish.getPayloadAsBytes();
+        }
+        final byte[] payload = Bytes.fromOwnedBuffer(((MqttPublish) mqtt5Publish).getRawPayload());
+        return payload != null ? payload : EMPTY_PAYLOAD;
+    }
 
-        return TopicFilterProcessor.modifyTopic(remoteSubscription.getDestination(),
-                mqtt5Publish.getTopic(),
-                Map.of(BridgeConstants.BRIDGE_NAME_TOPIC_REPLACEMENT_TOKEN, bridge.getId())).toString();
+    private static @Nullable byte[] correlationDataOf(final @NotNull Mqtt5Publish mqtt5Publish) {
+        if (!(mqtt5Publish instanceof MqttPublish)) {
+            return Bytes.getBytesFromReadOnlyBuffer(mqtt5Publish.getCorrelationData());
+        }
+        return Bytes.fromOwnedBuffer(((MqttPublish) mqtt5Publish).getRawCorrelationData());
+    }
+
+    private static @NotNull String withoutSharePrefix(final @NotNull String filter) {
+        if (!filter.startsWith(SHARED_SUBSCRIPTION_PREFIX)) {
+            return filter;
+        }
+        final int filterStart = filter.indexOf('/', SHARED_SUBSCRIPTION_PREFIX.length());
+        return filterStart == -1 ? filter : filter.substring(filterStart + 1);
+    }
+
+    private static @NotNull List<MqttUserProperty> toUserProperties(final @NotNull Mqtt5Publish mqtt5Publish) {
+        return mqtt5Publish.getUserProperties()
+                .asList()
+                .stream()
+                .map(originalProp -> MqttUserProperty.of(originalProp.getName().toString(),
+                        originalProp.getValue().toString()))
+                .collect(Collectors.toList());
     }
 
     private @NotNull Mqtt5UserProperties convertUserProperties(
-            final @NotNull com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties userProperties,
-            final int hopCount) {
-        if (userProperties.asList().isEmpty() && remoteSubscription.getCustomUserProperties().isEmpty()) {
+            final @NotNull List<MqttUserProperty> userProperties, final int hopCount) {
+        if (userProperties.isEmpty() && remoteSubscription.getCustomUserProperties().isEmpty()) {
             if (bridge.isLoopPreventionEnabled()) {
                 return Mqtt5UserProperties.of(MqttUserProperty.of(HMQ_BRIDGE_HOP_COUNT, "1"));
             } else {
@@ -170,11 +300,8 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
             }
         }
 
-        final List<MqttUserProperty> filteredProps = userProperties.asList()
-                .stream()
-                .filter(mqtt5UserProperty -> !mqtt5UserProperty.getName().toString().equals(HMQ_BRIDGE_HOP_COUNT))
-                .map(originalProp -> MqttUserProperty.of(originalProp.getName().toString(),
-                        originalProp.getValue().toString()))
+        final List<MqttUserProperty> filteredProps = userProperties.stream()
+                .filter(userProperty -> !userProperty.getName().equals(HMQ_BRIDGE_HOP_COUNT))
                 .collect(Collectors.toList());
         for (CustomUserProperty customUserProperty : remoteSubscription.getCustomUserProperties()) {
             filteredProps.add(MqttUserProperty.of(customUserProperty.getKey(), customUserProperty.getValue()));
@@ -185,16 +312,14 @@ class RemotePublishConsumer implements Consumer<Mqtt5Publish> {
         return Mqtt5UserProperties.of(ImmutableList.copyOf(filteredProps));
     }
 
-    private int extractHopCount(@NotNull Mqtt5Publish mqtt5Publish) {
+    private int extractHopCount(final @NotNull List<MqttUserProperty> userProperties) {
         if (!bridge.isLoopPreventionEnabled()) {
             return 0;
         }
         try {
-            final Optional<Integer> originalHopCount = mqtt5Publish.getUserProperties()
-                    .asList()
-                    .stream()
-                    .filter(prop -> prop.getName().toString().equals(HMQ_BRIDGE_HOP_COUNT))
-                    .map(prop -> Integer.parseInt(prop.getValue().toString()))
+            final Optional<Integer> originalHopCount = userProperties.stream()
+                    .filter(prop -> prop.getName().equals(HMQ_BRIDGE_HOP_COUNT))
+                    .map(prop -> Integer.parseInt(prop.getValue()))
                     .findFirst();
             return originalHopCount.orElse(0);
         } catch (NumberFormatException e) {
@@ -78,9 +78,11 @@ public class EncoderFactory {
     public EncoderFactory(
             final @NotNull MessageDroppedService messageDroppedService,
             final @NotNull SecurityConfigurationService securityConfigurationService,
-            final @NotNull MqttServerDisconnector mqttServerDisconnector) {
-        mqtt5Instance = new Mqtt5EncoderFactory(messageDroppedService, securityConfigurationService);
-        mqtt3Instance = new Mqtt3EncoderFactory(mqttServerDisconnector);
+            final @NotNull MqttServerDisconnector mqttServerDisconnector,
+            final @NotNull PublishEncodingCache publishEncodingCache) {
+        mqtt5Instance =
+                new Mqtt5EncoderFactory(messageDroppedService, securityConfigurationService, publishEncodingCache);
+        mqtt3Instance = new Mqtt3EncoderFactory(mqttServerDisconnector, publishEncodingCache);
     }
 
     /**
@@ -157,9 +159,11 @@ public class EncoderFactory {
 
         Mqtt5EncoderFactory(
                 final @NotNull MessageDroppedService messageDroppedService,
-                final @NotNull SecurityConfigurationService securityConfigurationService) {
+                final @NotNull SecurityConfigurationService securityConfigurationService,
+                final @NotNull PublishEncodingCache publishEncodingCache) {
 
-            mqtt5PublishEncoder = new Mqtt5PublishEncoder(messageDroppedService, securityConfigurationService);
+            mqtt5PublishEncoder =
+                    new Mqtt5PublishEncoder(messageDroppedService, securityConfigurationService, publishEncodingCache);
             mqtt5DisconnectEncoder = new Mqtt5DisconnectEncoder(messageDroppedService, securityConfigurationService);
             mqtt5SubackEncoder = new Mqtt5SubackEncoder(messageDroppedService, securityConfigurationService);
             mqtt5ConnackEncoder = new Mqtt5ConnackEncoder(messageDroppedService, securityConfigurationService);
@@ -216,7 +220,9 @@ public class EncoderFactory {
         private final @NotNull Mqtt3DisconnectEncoder disconnectEncoder;
         private final @NotNull MqttPingrespEncoder pingrespEncoder;
 
-        Mqtt3EncoderFactory(final @NotNull MqttServerDisconnector mqttServerDisconnector) {
+        Mqtt3EncoderFactory(
+                final @NotNull MqttServerDisconnector mqttServerDisconnector,
+                final @NotNull PublishEncodingCache publishEncodingCache) {
             connackEncoder = new Mqtt3ConnackEncoder();
             pubackEncoder = new Mqtt3PubackEncoder();
             pubrecEncoder = new Mqtt3PubrecEncoder();
@@ -224,7 +230,7 @@ public class EncoderFactory {
             pubcompEncoder = new Mqtt3PubcompEncoder();
             subackEncoder = new Mqtt3SubackEncoder(mqttServerDisconnector);
             unsubackEncoder = new Mqtt3UnsubackEncoder();
-            publishEncoder = new Mqtt3PublishEncoder();
+            publishEncoder = new Mqtt3PublishEncoder(publishEncodingCache);
             disconnectEncoder = new Mqtt3DisconnectEncoder();
             pingrespEncoder = new MqttPingrespEncoder();
         }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.codec.encoder.mqtt5.MqttBinaryData;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the parts of an outgoing PUBLISH that are the same for every subscriber of a message, so a message that fans
+ * out to many clients has its topic and properties encoded once instead of once per channel. The fixed header, packet
+ * identifier, message expiry and subscription identifiers are still written per channel.
+ * <p>
+ * Entries are keyed by the publish id and are only reused if they were created from the very same topic, property
+ * and user property instances, so a publish that was changed by an interceptor is never written with stale bytes.
+ * <p>
+ * The encoder cannot tell how many subscribers a message has, so every message pays for a lookup and an insert. The
+ * cache is therefore disabled unless {@link InternalConfigurations#PUBLISH_ENCODING_CACHE_MAX_SIZE_BYTES} is set.
+ */
+@Singleton
+public class PublishEncodingCache {
+
+    private final @Nullable Cache<Long, EncodedPublish> cache;
+    private final @NotNull AtomicLong sizeBytes = new AtomicLong();
+    private final @NotNull Counter hitCounter;
+    private final @NotNull Counter missCounter;
+
+    @Inject
+    public PublishEncodingCache(final @NotNull MetricRegistry metricRegistry) {
+        this(metricRegistry,
+                InternalConfigurations.PUBLISH_ENCODING_CACHE_MAX_SIZE_BYTES.get(),
+                InternalConfigurations.PUBLISH_ENCODING_CACHE_EXPIRY_MSEC.get());
+    }
+
+    @VisibleForTesting
+    PublishEncodingCache(
+            final @NotNull MetricRegistry metricRegistry, final long maxSizeBytes, final long expiryMillis) {
+        if (maxSizeBytes > 0) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumWeight(maxSizeBytes)
+                    .weigher((Weigher<Long, EncodedPublish>) (publishId, encoded) -> encoded.getSizeBytes())
+                    .expireAfterAccess(expiryMillis, TimeUnit.MILLISECONDS)
+                    .removalListener((RemovalListener<Long, EncodedPublish>) notification -> sizeBytes.addAndGet(
+                            -notification.getValue().getSizeBytes()))
+                    .build();
+        } else {
+            cache = null;
+        }
+        hitCounter = metricRegistry.counter(HiveMQMetrics.PUBLISH_ENCODING_CACHE_HIT_COUNT.name());
+        missCounter = metricRegistry.counter(HiveMQMetrics.PUBLISH_ENCODING_CACHE_MISS_COUNT.name());
+        metricRegistry.register(HiveMQMetrics.PUBLISH_ENCODING_CACHE_TOTAL_SIZE.name(), (Gauge<Long>) sizeBytes::get);
+    }
+
+    /**
+     * Returns the shared encoding of the given publish, creating it if the publish was not encoded before.
+     *
+     * @param publish            the publish to encode
+     * @param propertiesEncoder  encodes the properties that are shared by all subscribers, {@code null} if the caller
+     *                           only needs the encoded topic
+     * @return the shared encoding or {@code null} if the cache is disabled
+     */
+    public @Nullable EncodedPublish get(
+            final @NotNull PUBLISH publish,
+            final @Nullable Function<PUBLISH, byte[]> propertiesEncoder) {
+
+        if (cache == null) {
+            return null;
+        }
+        final EncodedPublish cached = cache.getIfPresent(publish.getPublishId());
+        if (cached != null && cached.matches(publish) && (propertiesEncoder == null || cached.properties != null)) {
+            hitCounter.inc();
+            return cached;
+        }
+        missCounter.inc();
+        final EncodedPublish encoded = new EncodedPublish(publish,
+                propertiesEncoder == null ? null : propertiesEncoder.apply(publish));
+        sizeBytes.addAndGet(encoded.getSizeBytes());
+        cache.put(publish.getPublishId(), encoded);
+        return encoded;
+    }
+
+    @VisibleForTesting
+    long getSizeBytes() {
+        return sizeBytes.get();
+    }
+
+    /**
+     * The encoded topic and properties of a publish that are identical for all of its subscribers.
+     */
+    public static class EncodedPublish {
+
+        private final @NotNull String topic;
+        private final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator;
+        private final @Nullable String contentType;
+        private final @Nullable String responseTopic;
+        private final byte @Nullable [] correlationData;
+        private final @NotNull Mqtt5UserProperties userProperties;
+
+        private final byte @NotNull [] encodedTopic;
+        private final byte @Nullable [] properties;
+
+        EncodedPublish(final @NotNull PUBLISH publish, final byte @Nullable [] properties) {
+            topic = publish.getTopic();
+            payloadFormatIndicator = publish.getPayloadFormatIndicator();
+            contentType = publish.getContentType();
+            responseTopic = publish.getResponseTopic();
+            correlationData = publish.getCorrelationData();
+            userProperties = publish.getUserProperties();
+
+            final byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+            encodedTopic = new byte[topicBytes.length + 2];
+            encodedTopic[0] = (byte) (topicBytes.length >>> 8);
+            encodedTopic[1] = (byte) topicBytes.length;
+            System.arraycopy(topicBytes, 0, encodedTopic, 2, topicBytes.length);
+            this.properties = properties;
+        }
+
+        /**
+         * @return the topic encoded as UTF-8 string with its two byte length prefix, see {@link MqttBinaryData}
+         */
+        public byte @NotNull [] getEncodedTopic() {
+            return encodedTopic;
+        }
+
+        /**
+         * @return the MQTT 5 properties shared by all subscribers, {@code null} if only the topic was encoded
+         */
+        public byte @Nullable [] getProperties() {
+            return properties;
+        }
+
+        int getSizeBytes() {
+            return encodedTopic.length + (properties == null ? 0 : properties.length);
+        }
+
+        boolean matches(final @NotNull PUBLISH publish) {
+            return topic == publish.getTopic() &&
+                    payloadFormatIndicator == publish.getPayloadFormatIndicator() &&
+                    contentType == publish.getContentType() &&
+                    responseTopic == publish.getResponseTopic() &&
+                    correlationData == publish.getCorrelationData() &&
+                    userProperties == publish.getUserProperties();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.hivemq.codec.encoder.mqtt3;
 
 import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.codec.encoder.PublishEncodingCache;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.message.publish.Mqtt3PUBLISH;
 import com.hivemq.util.Strings;
@@ -29,6 +30,12 @@ public class Mqtt3PublishEncoder extends AbstractVariableHeaderLengthEncoder<Mqt
 
     private static final byte PUBLISH_FIXED_HEADER = 0b0011_0000;
 
+    private final @NotNull PublishEncodingCache encodingCache;
+
+    public Mqtt3PublishEncoder(final @NotNull PublishEncodingCache encodingCache) {
+        this.encodingCache = encodingCache;
+    }
+
     @Override
     public void encode(
             final @NotNull ClientConnection clientConnection,
@@ -48,7 +55,12 @@ public class Mqtt3PublishEncoder extends AbstractVariableHeaderLengthEncoder<Mqt
         out.writeByte(header);
         createRemainingLength(msg.getRemainingLength(), out);
 
-        Strings.createPrefixedBytesFromString(msg.getTopic(), out);
+        final PublishEncodingCache.EncodedPublish encoded = encodingCache.get(msg, null);
+        if (encoded != null) {
+            out.writeBytes(encoded.getEncodedTopic());
+        } else {
+            Strings.createPrefixedBytesFromString(msg.getTopic(), out);
+        }
 
         if (qos > 0) {
             out.writeShort(msg.getPacketIdentifier());
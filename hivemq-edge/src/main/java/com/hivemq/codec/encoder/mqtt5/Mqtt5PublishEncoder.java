@@ -16,14 +16,17 @@
 package com.hivemq.codec.encoder.mqtt5;
 
 import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.codec.encoder.PublishEncodingCache;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.MessageType;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import javax.inject.Singleton;
 
@@ -40,10 +43,14 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
 
     private static final int FIXED_HEADER = MessageType.PUBLISH.ordinal() << 4;
 
+    private final @NotNull PublishEncodingCache encodingCache;
+
     public Mqtt5PublishEncoder(
             final @NotNull MessageDroppedService messageDroppedService,
-            final @NotNull SecurityConfigurationService securityConfigurationService) {
+            final @NotNull SecurityConfigurationService securityConfigurationService,
+            final @NotNull PublishEncodingCache encodingCache) {
         super(messageDroppedService, securityConfigurationService);
+        this.encodingCache = encodingCache;
     }
 
     @Override
@@ -126,20 +133,36 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
 
     private void encodeVariableHeader(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
 
-        MqttBinaryData.encode(publish.getTopic(), out);
+        // PUBLISH packets with omitted properties are never written, so the shared properties always apply
+        final PublishEncodingCache.EncodedPublish encoded =
+                encodingCache.get(publish, Mqtt5PublishEncoder::encodeSharedProperties);
+
+        if (encoded != null) {
+            out.writeBytes(encoded.getEncodedTopic());
+        } else {
+            MqttBinaryData.encode(publish.getTopic(), out);
+        }
 
         if (publish.getQoS() != QoS.AT_MOST_ONCE) {
             out.writeShort(publish.getPacketIdentifier());
         }
 
-        encodeProperties(publish, out);
+        encodeProperties(publish, encoded, out);
     }
 
-    private void encodeProperties(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
+    private void encodeProperties(
+            final @NotNull PUBLISH publish,
+            final @Nullable PublishEncodingCache.EncodedPublish encoded,
+            final @NotNull ByteBuf out) {
 
         MqttVariableByteInteger.encode(publish.getPropertyLength(), out);
-        encodeFixedProperties(publish, out);
-        encodeOmissibleProperties(publish, out);
+        encodeIntProperty(MESSAGE_EXPIRY_INTERVAL, publish.getMessageExpiryInterval(), MAX_EXPIRY_INTERVAL_DEFAULT, out);
+        if (encoded != null && encoded.getProperties() != null) {
+            out.writeBytes(encoded.getProperties());
+        } else {
+            encodeSharedFixedProperties(publish, out);
+            encodeOmissibleProperties(publish, out);
+        }
 
         final ImmutableIntArray subscriptionIdentifiers = publish.getSubscriptionIdentifiers();
         if (subscriptionIdentifiers != null) {
@@ -149,8 +172,24 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
         }
     }
 
-    private static void encodeFixedProperties(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
-        encodeIntProperty(MESSAGE_EXPIRY_INTERVAL, publish.getMessageExpiryInterval(), MAX_EXPIRY_INTERVAL_DEFAULT, out);
+    /**
+     * Encodes the properties that are the same for every subscriber of the publish, which are all properties except
+     * the message expiry interval and the subscription identifiers.
+     */
+    private static byte @NotNull [] encodeSharedProperties(final @NotNull PUBLISH publish) {
+        final int length = nullablePropertyEncodedLength(publish.getPayloadFormatIndicator()) +
+                nullablePropertyEncodedLength(publish.getContentType()) +
+                nullablePropertyEncodedLength(publish.getResponseTopic()) +
+                nullablePropertyEncodedLength(publish.getCorrelationData()) +
+                publish.getUserProperties().encodedLength();
+        final byte[] properties = new byte[length];
+        final ByteBuf out = Unpooled.wrappedBuffer(properties).clear();
+        encodeSharedFixedProperties(publish, out);
+        publish.getUserProperties().encode(out);
+        return properties;
+    }
+
+    private static void encodeSharedFixedProperties(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
         encodeNullableProperty(PAYLOAD_FORMAT_INDICATOR, publish.getPayloadFormatIndicator(), out);
         encodeNullableProperty(CONTENT_TYPE, publish.getContentType(), out);
         encodeNullableProperty(RESPONSE_TOPIC, publish.getResponseTopic(), out);
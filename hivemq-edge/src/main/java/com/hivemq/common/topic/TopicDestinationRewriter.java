@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.hivemq.bridge.mqtt.RemoteMqttForwarder.DEFAULT_DESTINATION_PATTERN;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_ENV_VAR;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_NUM;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_OUT_TOPIC;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_OUT_TOPIC_REPLACER;
+import static com.hivemq.common.topic.TopicFilterProcessor.REGEX_VAR;
+
+/**
+ * A destination of a bridge subscription that is parsed once, the compiled form of
+ * {@link TopicFilterProcessor#modifyTopic(String, MqttTopic, Map)}.
+ * <p>
+ * Tokens and environment variables are resolved while compiling, only the levels taken from the original topic are
+ * inserted per message. The destination topics of recently rewritten topics are cached.
+ */
+public class TopicDestinationRewriter {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(TopicDestinationRewriter.class);
+
+    private final @NotNull String destination;
+    private final @NotNull Map<String, String> tokensAndValues;
+    private final @Nullable List<LevelWriter> levelWriters;
+    private final @Nullable Cache<String, MqttTopic> cache;
+
+    private TopicDestinationRewriter(
+            final @NotNull String destination,
+            final @NotNull Map<String, String> tokensAndValues,
+            final @Nullable List<LevelWriter> levelWriters,
+            final @Nullable Cache<String, MqttTopic> cache) {
+        this.destination = destination;
+        this.tokensAndValues = tokensAndValues;
+        this.levelWriters = levelWriters;
+        this.cache = cache;
+    }
+
+    /**
+     * @param destination     the destination of the subscription, <code>null</code> keeps the original topic
+     * @param tokensAndValues the tokens to replace in the destination, e.g. the bridge name
+     * @param cacheSize       the max. amount of rewritten topics that are cached
+     */
+    public static @NotNull TopicDestinationRewriter compile(
+            final @Nullable String destination,
+            final @NotNull Map<String, String> tokensAndValues,
+            final int cacheSize) {
+        if (destination == null || destination.equals(DEFAULT_DESTINATION_PATTERN) || destination.isEmpty()) {
+            return new TopicDestinationRewriter("", tokensAndValues, null, null);
+        }
+        final Cache<String, MqttTopic> cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+        try {
+            return new TopicDestinationRewriter(destination,
+                    tokensAndValues,
+                    compileLevels(destination, tokensAndValues),
+                    cache);
+        } catch (final RuntimeException e) {
+            //-- e.g. a level index that is not a number, this fails for every message like the interpreted destination
+            log.warn("Topic-Modifier: Destination \"{}\" can not be compiled, reason: {}", destination, e.getMessage());
+            return new TopicDestinationRewriter(destination, tokensAndValues, null, cache);
+        }
+    }
+
+    public @NotNull MqttTopic rewrite(final @NotNull MqttTopic topic) {
+        if (cache == null) {
+            return topic;
+        }
+        return rewrite(topic.toString());
+    }
+
+    public @NotNull MqttTopic rewrite(final @NotNull String topic) {
+        if (cache == null) {
+            return MqttTopic.of(topic);
+        }
+        final MqttTopic cached = cache.getIfPresent(topic);
+        if (cached != null) {
+            return cached;
+        }
+        final MqttTopic rewritten;
+        if (levelWriters != null) {
+            final List<String> inLevels = Arrays.asList(topic.split("/", -1));
+            final List<String> outTopic = new ArrayList<>(levelWriters.size());
+            for (final LevelWriter levelWriter : levelWriters) {
+                levelWriter.write(outTopic, inLevels, topic);
+            }
+            rewritten = MqttTopic.of(String.join("/", outTopic));
+        } else {
+            rewritten =
+                    TopicFilterProcessor.applyDestinationModifier(MqttTopic.of(topic), destination, tokensAndValues);
+        }
+        cache.put(topic, rewritten);
+        return rewritten;
+    }
+
+    private static @NotNull List<LevelWriter> compileLevels(
+            final @NotNull String destination, final @NotNull Map<String, String> tokensAndValues) {
+        final List<LevelWriter> levelWriters = new ArrayList<>();
+        //-- the same rules as TopicFilterProcessor.applyDestinationModifier, in the same order
+        for (String level : destination.split("/", -1)) {
+            if (!tokensAndValues.isEmpty()) {
+                level = TopicFilterProcessor.replaceTokens(level, tokensAndValues);
+            }
+
+            if (REGEX_ENV_VAR.matcher(level).find()) {
+                final List<String> resolved = new ArrayList<>(1);
+                TopicFilterProcessor.replaceEnvVar(level, resolved);
+                for (final String resolvedLevel : resolved) {
+                    levelWriters.add(constant(resolvedLevel));
+                }
+            } else if (REGEX_OUT_TOPIC.matcher(level).find()) {
+                levelWriters.add(constant(level.replaceAll(REGEX_OUT_TOPIC_REPLACER, "{")));
+
+            } else if (REGEX_VAR.matcher(level).find()) {
+                final int replacementInformationStart = level.indexOf('{') + "{".length();
+                final int replacementInformationEnd = level.indexOf('}', replacementInformationStart);
+                final String levelInsert = level.substring(replacementInformationStart, replacementInformationEnd);
+
+                if (levelInsert.contains("#") && levelInsert.length() == "#".length()) {
+                    TopicFilterProcessor.checkMultiWildcard(level,
+                            replacementInformationStart,
+                            replacementInformationEnd);
+                    levelWriters.add((outTopic, inLevels, inTopic) -> outTopic.add(inTopic));
+
+                } else if (levelInsert.contains("-#")) {
+                    final int wildcardStartLevel =
+                            Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-#")));
+                    TopicFilterProcessor.checkMultiWildcardWithStart(level,
+                            replacementInformationStart,
+                            replacementInformationEnd);
+                    levelWriters.add((outTopic, inLevels, inTopic) -> TopicFilterProcessor.insertLevelsFrom(outTopic,
+                            inLevels,
+                            inTopic,
+                            wildcardStartLevel));
+
+                } else if (levelInsert.contains("-")) {
+                    final int startLevel = Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-")));
+                    final int endLevel =
+                            Integer.parseInt(levelInsert.substring(levelInsert.indexOf("-") + "-".length()));
+                    TopicFilterProcessor.checkMultilevel(level, replacementInformationStart, replacementInformationEnd);
+                    levelWriters.add((outTopic, inLevels, inTopic) -> TopicFilterProcessor.insertLevelRange(outTopic,
+                            inLevels,
+                            inTopic,
+                            startLevel,
+                            endLevel));
+
+                } else if (REGEX_NUM.matcher(levelInsert).find()) {
+                    final int replaceLevelIndex = Integer.parseInt(levelInsert);
+                    final String template = level;
+                    levelWriters.add((outTopic, inLevels, inTopic) -> TopicFilterProcessor.insertSingleLevel(template,
+                            outTopic,
+                            inLevels,
+                            inTopic,
+                            replaceLevelIndex));
+
+                } else {
+                    log.warn("Topic Filter Processor: Found definition {} that does not exist!", levelInsert);
+                }
+
+            } else {
+                levelWriters.add(constant(level));
+            }
+        }
+        return levelWriters;
+    }
+
+    private static @NotNull LevelWriter constant(final @NotNull String level) {
+        return (outTopic, inLevels, inTopic) -> outTopic.add(level);
+    }
+
+    @FunctionalInterface
+    private interface LevelWriter {
+
+        void write(@NotNull List<String> outTopic, @NotNull List<String> inLevels, @NotNull String inTopic);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of topic filters compiled into a trie, so a topic is matched against all filters with about one walk over its
+ * levels instead of parsing and matching every filter on its own.
+ * <p>
+ * The matcher is immutable after construction and safe to use from multiple threads.
+ */
+public class TopicFilterMatcher {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(TopicFilterMatcher.class);
+
+    private final @NotNull Node root = new Node();
+    private final boolean empty;
+
+    /**
+     * @param topicFilters the filters to match, invalid filters are ignored
+     */
+    public TopicFilterMatcher(final @NotNull Iterable<String> topicFilters) {
+        boolean empty = true;
+        for (final String topicFilter : topicFilters) {
+            try {
+                MqttTopicFilter.of(topicFilter);
+            } catch (final IllegalArgumentException e) {
+                log.warn("Ignoring invalid topic filter '{}', reason: {}", topicFilter, e.getMessage());
+                continue;
+            }
+            Node node = root;
+            for (final String level : topicFilter.split("/", -1)) {
+                if ("#".equals(level)) {
+                    node.multiLevelWildcard = true;
+                    break;
+                }
+                if ("+".equals(level)) {
+                    if (node.singleLevelWildcard == null) {
+                        node.singleLevelWildcard = new Node();
+                    }
+                    node = node.singleLevelWildcard;
+                } else {
+                    node = node.children.computeIfAbsent(level, key -> new Node());
+                }
+            }
+            node.end = true;
+            empty = false;
+        }
+        this.empty = empty;
+    }
+
+    /**
+     * @return <code>true</code> if at least one of the filters matches the topic
+     */
+    public boolean matches(final @NotNull String topic) {
+        return !empty && matches(root, topic, 0);
+    }
+
+    private static boolean matches(final @NotNull Node node, final @NotNull String topic, final int levelStart) {
+        //-- a multi level wildcard also matches the parent level, so 'a/#' matches 'a'
+        if (node.multiLevelWildcard) {
+            return true;
+        }
+        if (levelStart > topic.length()) {
+            return node.end;
+        }
+        int levelEnd = topic.indexOf('/', levelStart);
+        if (levelEnd == -1) {
+            levelEnd = topic.length();
+        }
+        if (!node.children.isEmpty()) {
+            final Node child = node.children.get(topic.substring(levelStart, levelEnd));
+            if (child != null && matches(child, topic, levelEnd + 1)) {
+                return true;
+            }
+        }
+        return node.singleLevelWildcard != null && matches(node.singleLevelWildcard, topic, levelEnd + 1);
+    }
+
+    private static class Node {
+
+        private final @NotNull Map<String, Node> children = new HashMap<>();
+        private @Nullable Node singleLevelWildcard;
+        private boolean multiLevelWildcard;
+        private boolean end;
+    }
+}
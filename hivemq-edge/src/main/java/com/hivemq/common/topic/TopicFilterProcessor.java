@@ -38,12 +38,12 @@ public class TopicFilterProcessor {
 
     private static final @NotNull Logger log = LoggerFactory.getLogger(TopicFilterProcessor.class);
 
-    private static final @NotNull Pattern REGEX_ENV_VAR = Pattern.compile(".*\\$ENV\\{.*}.*");
-    private static final @NotNull Pattern REGEX_OUT_TOPIC = Pattern.compile(".*\\\\\\{.*}.*");
-    private static final @NotNull String REGEX_OUT_TOPIC_REPLACER = "\\\\\\{";
+    static final @NotNull Pattern REGEX_ENV_VAR = Pattern.compile(".*\\$ENV\\{.*}.*");
+    static final @NotNull Pattern REGEX_OUT_TOPIC = Pattern.compile(".*\\\\\\{.*}.*");
+    static final @NotNull String REGEX_OUT_TOPIC_REPLACER = "\\\\\\{";
     private static final @NotNull Pattern REGEX_ARBITRARY_TOKENS = Pattern.compile("\\$\\{([^}]+)\\}");
-    private static final @NotNull Pattern REGEX_VAR = Pattern.compile(".*\\{.*}.*");
-    private static final @NotNull Pattern REGEX_NUM = Pattern.compile("[0-9]+");
+    static final @NotNull Pattern REGEX_VAR = Pattern.compile(".*\\{.*}.*");
+    static final @NotNull Pattern REGEX_NUM = Pattern.compile("[0-9]+");
 
 
     public static @NotNull MqttTopic modifyTopic(
@@ -132,7 +132,7 @@ public class TopicFilterProcessor {
         return MqttTopic.of(String.join("/", outTopic));
     }
 
-    private static void replaceEnvVar(final @NotNull String level, final @NotNull List<String> outTopic) {
+    static void replaceEnvVar(final @NotNull String level, final @NotNull List<String> outTopic) {
         final int envIdStart = level.indexOf("$ENV{") + "$ENV{".length();
         final int envIdEnd = level.indexOf('}', envIdStart);
         final String envVar = level.substring(envIdStart, envIdEnd);
@@ -156,6 +156,11 @@ public class TopicFilterProcessor {
             final int replacementInformationStart,
             final int replacementInformationEnd) {
         outTopic.add(inTopic.toString());
+        checkMultiWildcard(level, replacementInformationStart, replacementInformationEnd);
+    }
+
+    static void checkMultiWildcard(
+            final @NotNull String level, final int replacementInformationStart, final int replacementInformationEnd) {
         if (replacementInformationStart != "{".length()) {
             log.warn(
                     "Topic-Replacer: Leading content \"{}\" in MultiLevelWildcard replacement is not allowed! Ignoring.",
@@ -176,8 +181,17 @@ public class TopicFilterProcessor {
             final int replacementInformationStart,
             final int replacementInformationEnd) {
         final int wildcardStartLevel = Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-#")));
+        insertLevelsFrom(outTopic, inTopic.getLevels(), inTopic.toString(), wildcardStartLevel);
+        checkMultiWildcardWithStart(level, replacementInformationStart, replacementInformationEnd);
+    }
+
+    static void insertLevelsFrom(
+            final @NotNull List<String> outTopic,
+            final @NotNull List<String> inLevels,
+            final @NotNull String inTopic,
+            final int wildcardStartLevel) {
         final String replacedWildcardLevels =
-                inTopic.getLevels().stream().skip(wildcardStartLevel - 1).collect(Collectors.joining("/"));
+                inLevels.stream().skip(wildcardStartLevel - 1).collect(Collectors.joining("/"));
         if (!replacedWildcardLevels.isEmpty()) {
             outTopic.add(replacedWildcardLevels);
         } else {
@@ -186,6 +200,10 @@ public class TopicFilterProcessor {
                     wildcardStartLevel,
                     inTopic);
         }
+    }
+
+    static void checkMultiWildcardWithStart(
+            final @NotNull String level, final int replacementInformationStart, final int replacementInformationEnd) {
         if (replacementInformationStart != "{".length()) {
             log.warn(
                     "Topic-Modifier: Leading content \"{}\" in MultiLevelWildcard-With-Start replacement is not allowed! Ignoring.",
@@ -207,8 +225,16 @@ public class TopicFilterProcessor {
             final int replacementInformationEnd) {
         final int startLevel = Integer.parseInt(levelInsert.substring(0, levelInsert.indexOf("-")));
         final int endLevel = Integer.parseInt(levelInsert.substring(levelInsert.indexOf("-") + "-".length()));
-        final @Immutable List<String> replacedLevels = inTopic.getLevels();
+        insertLevelRange(outTopic, inTopic.getLevels(), inTopic.toString(), startLevel, endLevel);
+        checkMultilevel(level, replacementInformationStart, replacementInformationEnd);
+    }
 
+    static void insertLevelRange(
+            final @NotNull List<String> outTopic,
+            final @Immutable @NotNull List<String> replacedLevels,
+            final @NotNull String inTopic,
+            final int startLevel,
+            final int endLevel) {
         if (startLevel > endLevel) {
             log.warn(
                     "Topic-Modifier: Could not insert topic levels from {{}-{}}, because end start level is bigger than end level! Skipping.",
@@ -238,6 +264,10 @@ public class TopicFilterProcessor {
             log.warn("Topic-Modifier: Unknown {{}-{}} from topic \"{}\".", startLevel, endLevel, inTopic);
             //Did I forget something?
         }
+    }
+
+    static void checkMultilevel(
+            final @NotNull String level, final int replacementInformationStart, final int replacementInformationEnd) {
         if (replacementInformationStart != "{".length()) {
             log.warn("Topic-Modifier: Leading content \"{}\" in MultiLevel replacement is not allowed! Ignoring.",
                     level.substring(0, replacementInformationStart - 1));
@@ -253,9 +283,15 @@ public class TopicFilterProcessor {
             final @NotNull List<String> outTopic,
             final @NotNull MqttTopic inTopic,
             final @NotNull String levelInsert) {
-        final int replaceLevelIndex = Integer.parseInt(levelInsert);
-        final @Immutable List<String> replacedLevel = inTopic.getLevels();
+        insertSingleLevel(level, outTopic, inTopic.getLevels(), inTopic.toString(), Integer.parseInt(levelInsert));
+    }
 
+    static void insertSingleLevel(
+            final @NotNull String level,
+            final @NotNull List<String> outTopic,
+            final @Immutable @NotNull List<String> replacedLevel,
+            final @NotNull String inTopic,
+            final int replaceLevelIndex) {
         if (replaceLevelIndex <= replacedLevel.size()) {
             final String replaceLevel = replacedLevel.get(replaceLevelIndex - 1);
             final String replaceLevelWithLeadingAndFollowing =
@@ -273,7 +309,7 @@ public class TopicFilterProcessor {
         }
     }
 
-    private static String replaceTokens(
+    static @NotNull String replaceTokens(
             final @NotNull String topicLevel, final @NotNull Map<String, String> tokensMap) {
         Matcher matcher = REGEX_ARBITRARY_TOKENS.matcher(topicLevel);
         String result = topicLevel;
@@ -18,6 +18,7 @@ package com.hivemq.configuration.entity;
 import com.hivemq.configuration.entity.api.AdminApiEntity;
 import com.hivemq.configuration.entity.bridge.MqttBridgeEntity;
 import com.hivemq.configuration.entity.listener.ListenerEntity;
+import com.hivemq.configuration.entity.listener.ListenerTransportEntity;
 import com.hivemq.configuration.entity.uns.UnsConfigEntity;
 import com.hivemq.configuration.reader.ArbitraryValuesMapAdapter;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -51,6 +52,9 @@ public class HiveMQConfigEntity {
     @XmlElementRef(required = false)
     private @NotNull List<ListenerEntity> mqttsnListeners = new ArrayList<>();
 
+    @XmlElementRef(required = false)
+    private @NotNull ListenerTransportEntity listenerTransport = new ListenerTransportEntity();
+
     @XmlElementRef(required = false)
     private @NotNull MqttConfigEntity mqtt = new MqttConfigEntity();
 
@@ -94,6 +98,10 @@ public class HiveMQConfigEntity {
         return mqttsnListeners;
     }
 
+    public @NotNull ListenerTransportEntity getListenerTransportConfig() {
+        return listenerTransport;
+    }
+
     public @NotNull MqttConfigEntity getMqttConfig() {
         return mqtt;
     }
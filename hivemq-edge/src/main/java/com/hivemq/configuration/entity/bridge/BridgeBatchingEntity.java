@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.entity.bridge;
+
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"FieldMayBeFinal", "FieldCanBeLocal"})
+@XmlRootElement(name = "batching")
+@XmlAccessorType(XmlAccessType.NONE)
+public class BridgeBatchingEntity {
+
+    @XmlElement(name = "enabled", defaultValue = "false")
+    private boolean enabled = false;
+
+    @XmlElement(name = "topic")
+    private @NotNull String topic = BridgeBatching.DEFAULT_TOPIC;
+
+    @XmlElement(name = "max-messages")
+    private int maxMessages = BridgeBatching.DEFAULT_MAX_MESSAGES;
+
+    @XmlElement(name = "max-size-bytes")
+    private int maxSizeBytes = BridgeBatching.DEFAULT_MAX_SIZE_BYTES;
+
+    @XmlElement(name = "linger-millis")
+    private long lingerMillis = BridgeBatching.DEFAULT_LINGER_MILLIS;
+
+    @XmlElement(name = "compression", defaultValue = "NONE")
+    private @NotNull String compression = BridgeBatching.Compression.NONE.name();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public @NotNull String getTopic() {
+        return topic;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public int getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public @NotNull String getCompression() {
+        return compression;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setTopic(final @NotNull String topic) {
+        this.topic = topic;
+    }
+
+    public void setMaxMessages(final int maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    public void setMaxSizeBytes(final int maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public void setLingerMillis(final long lingerMillis) {
+        this.lingerMillis = lingerMillis;
+    }
+
+    public void setCompression(final @NotNull String compression) {
+        this.compression = compression;
+    }
+}
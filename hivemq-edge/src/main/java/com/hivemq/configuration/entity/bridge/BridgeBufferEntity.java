@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.entity.bridge;
+
+import com.hivemq.bridge.config.BridgeBuffer;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@SuppressWarnings({"FieldMayBeFinal", "FieldCanBeLocal"})
+@XmlRootElement(name = "buffer")
+@XmlAccessorType(XmlAccessType.NONE)
+public class BridgeBufferEntity {
+
+    @XmlElement(name = "enabled", defaultValue = "false")
+    private boolean enabled = false;
+
+    @XmlElement(name = "max-size-bytes")
+    private long maxSizeBytes = BridgeBuffer.DEFAULT_MAX_SIZE_BYTES;
+
+    @XmlElement(name = "max-age-seconds")
+    private long maxAgeSeconds = BridgeBuffer.DEFAULT_MAX_AGE_SECONDS;
+
+    @XmlElement(name = "segment-size-bytes")
+    private int segmentSizeBytes = BridgeBuffer.DEFAULT_SEGMENT_SIZE_BYTES;
+
+    @XmlElement(name = "overflow-policy", defaultValue = "DROP_OLDEST")
+    private @NotNull String overflowPolicy = BridgeBuffer.OverflowPolicy.DROP_OLDEST.name();
+
+    @XmlElement(name = "force-interval-millis")
+    private long forceIntervalMillis = BridgeBuffer.DEFAULT_FORCE_INTERVAL_MILLIS;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public int getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public @NotNull String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getForceIntervalMillis() {
+        return forceIntervalMillis;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxSizeBytes(final long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public void setMaxAgeSeconds(final long maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public void setSegmentSizeBytes(final int segmentSizeBytes) {
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    public void setOverflowPolicy(final @NotNull String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setForceIntervalMillis(final long forceIntervalMillis) {
+        this.forceIntervalMillis = forceIntervalMillis;
+    }
+}
@@ -39,6 +39,9 @@ public class BridgeMqttEntity {
     @XmlElement(name = "keep-alive", defaultValue = "60")
     private int keepAlive = 60;
 
+    @XmlElement(name = "connection-count", defaultValue = "1")
+    private int connectionCount = 1;
+
     public @Nullable String getClientId() {
         return clientId;
     }
@@ -55,6 +58,10 @@ public class BridgeMqttEntity {
         return keepAlive;
     }
 
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
     public void setClientId(final String clientId) {
         this.clientId = clientId;
     }
@@ -70,4 +77,8 @@ public class BridgeMqttEntity {
     public void setKeepAlive(final int keepAlive) {
         this.keepAlive = keepAlive;
     }
+
+    public void setConnectionCount(final int connectionCount) {
+        this.connectionCount = connectionCount;
+    }
 }
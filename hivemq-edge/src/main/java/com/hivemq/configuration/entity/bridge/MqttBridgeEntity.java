@@ -50,6 +50,12 @@ public class MqttBridgeEntity {
     @XmlElementRef
     private @NotNull LoopPreventionEntity loopPrevention = new LoopPreventionEntity();
 
+    @XmlElementRef(required = false)
+    private @NotNull BridgeBufferEntity buffer = new BridgeBufferEntity();
+
+    @XmlElementRef(required = false)
+    private @NotNull BridgeBatchingEntity batching = new BridgeBatchingEntity();
+
     public @NotNull RemoteBrokerEntity getRemoteBroker() {
         return remoteBroker;
     }
@@ -70,6 +76,14 @@ public class MqttBridgeEntity {
         return loopPrevention;
     }
 
+    public @NotNull BridgeBufferEntity getBuffer() {
+        return buffer;
+    }
+
+    public @NotNull BridgeBatchingEntity getBatching() {
+        return batching;
+    }
+
     public void setId(final String id) {
         this.id = id;
     }
@@ -89,4 +103,12 @@ public class MqttBridgeEntity {
     public void setLoopPrevention(final LoopPreventionEntity loopPrevention) {
         this.loopPrevention = loopPrevention;
     }
+
+    public void setBuffer(final BridgeBufferEntity buffer) {
+        this.buffer = buffer;
+    }
+
+    public void setBatching(final BridgeBatchingEntity batching) {
+        this.batching = batching;
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.entity.listener;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "listener-transport")
+@XmlAccessorType(XmlAccessType.NONE)
+@SuppressWarnings({"FieldMayBeFinal", "FieldCanBeLocal"})
+public class ListenerTransportEntity {
+
+    @XmlElement(name = "type", defaultValue = "auto")
+    private @NotNull String type = "auto";
+
+    @XmlElement(name = "tcp-quickack", defaultValue = "false")
+    private boolean tcpQuickAck = false;
+
+    @XmlElement(name = "edge-triggered", defaultValue = "true")
+    private boolean edgeTriggered = true;
+
+    @XmlElement(name = "reuse-port", defaultValue = "false")
+    private boolean reusePort = false;
+
+    @XmlElement(name = "acceptor-threads", defaultValue = "1")
+    private int acceptorThreads = 1;
+
+    public @NotNull String getType() {
+        return type;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+}
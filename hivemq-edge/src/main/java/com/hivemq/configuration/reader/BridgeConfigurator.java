@@ -16,12 +16,17 @@
 package com.hivemq.configuration.reader;
 
 import com.google.common.collect.ImmutableList;
+import com.hivemq.bridge.BridgeConstants;
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.bridge.config.BridgeBuffer;
 import com.hivemq.bridge.config.BridgeTls;
 import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.LocalSubscription;
 import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.config.RemoteSubscription;
 import com.hivemq.configuration.entity.bridge.BridgeAuthenticationEntity;
+import com.hivemq.configuration.entity.bridge.BridgeBatchingEntity;
+import com.hivemq.configuration.entity.bridge.BridgeBufferEntity;
 import com.hivemq.configuration.entity.bridge.BridgeMqttEntity;
 import com.hivemq.configuration.entity.bridge.BridgeTlsEntity;
 import com.hivemq.configuration.entity.bridge.CustomUserPropertyEntity;
@@ -93,6 +98,16 @@ public class BridgeConfigurator {
 
             builder.withId(bridgeConfig.getId());
 
+            final int connectionCount = remoteBroker.getMqtt().getConnectionCount();
+            if (connectionCount < 1 || connectionCount > BridgeConstants.MAX_CONNECTION_COUNT) {
+                log.error("Connection count for bridge '{}' must be between 1 and {}, found {}",
+                        bridgeConfig.getId(),
+                        BridgeConstants.MAX_CONNECTION_COUNT,
+                        connectionCount);
+                throw new UnrecoverableException(false);
+            }
+            builder.withConnectionCount(connectionCount);
+
             if (bridgeConfig.getRemoteSubscriptions().isEmpty() && bridgeConfig.getForwardedTopics().isEmpty()) {
                 log.warn(
                         "No remote subscriptions or forwarded topics configured for bridge '{}', no messages will be processed by this bridge.",
@@ -113,6 +128,9 @@ public class BridgeConfigurator {
                 builder.withBridgeTls(bridgeTls);
             }
 
+            builder.withBridgeBuffer(convertBuffer(bridgeConfig.getId(), bridgeConfig.getBuffer()));
+            builder.withBridgeBatching(convertBatching(bridgeConfig.getId(), bridgeConfig.getBatching()));
+
             if (remoteBroker.getAuthentication() != null &&
                     remoteBroker.getAuthentication().getMqttSimpleAuthenticationEntity() != null) {
                 builder.withUsername(remoteBroker.getAuthentication().getMqttSimpleAuthenticationEntity().getUser())
@@ -217,6 +235,88 @@ public class BridgeConfigurator {
         return builder.build();
     }
 
+    private static @NotNull BridgeBuffer convertBuffer(
+            final @NotNull String name, final @NotNull BridgeBufferEntity buffer) {
+        final BridgeBuffer.Builder builder = new BridgeBuffer.Builder().withEnabled(buffer.isEnabled());
+        if (!buffer.isEnabled()) {
+            return builder.build();
+        }
+        if (buffer.getMaxSizeBytes() <= 0) {
+            log.error("Buffer max-size-bytes for bridge '{}' must be greater than 0", name);
+            throw new UnrecoverableException(false);
+        }
+        if (buffer.getSegmentSizeBytes() <= 0 || buffer.getSegmentSizeBytes() > buffer.getMaxSizeBytes()) {
+            log.error("Buffer segment-size-bytes for bridge '{}' must be greater than 0 and not exceed max-size-bytes",
+                    name);
+            throw new UnrecoverableException(false);
+        }
+        if (buffer.getMaxAgeSeconds() <= 0) {
+            log.error("Buffer max-age-seconds for bridge '{}' must be greater than 0", name);
+            throw new UnrecoverableException(false);
+        }
+        if (buffer.getForceIntervalMillis() < 0) {
+            log.error("Buffer force-interval-millis for bridge '{}' must not be negative", name);
+            throw new UnrecoverableException(false);
+        }
+        final BridgeBuffer.OverflowPolicy overflowPolicy;
+        try {
+            overflowPolicy = BridgeBuffer.OverflowPolicy.valueOf(buffer.getOverflowPolicy().trim().toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            log.error("Buffer overflow-policy '{}' for bridge '{}' is not valid, allowed values are {}",
+                    buffer.getOverflowPolicy(),
+                    name,
+                    BridgeBuffer.OverflowPolicy.values());
+            throw new UnrecoverableException(false);
+        }
+        return builder.withMaxSizeBytes(buffer.getMaxSizeBytes())
+                .withMaxAgeSeconds(buffer.getMaxAgeSeconds())
+                .withSegmentSizeBytes(buffer.getSegmentSizeBytes())
+                .withOverflowPolicy(overflowPolicy)
+                .withForceIntervalMillis(buffer.getForceIntervalMillis())
+                .build();
+    }
+
+    private static @NotNull BridgeBatching convertBatching(
+            final @NotNull String name, final @NotNull BridgeBatchingEntity batching) {
+        final BridgeBatching.Builder builder = new BridgeBatching.Builder().withEnabled(batching.isEnabled());
+        if (!batching.isEnabled()) {
+            return builder.build();
+        }
+        final String topic = batching.getTopic().trim();
+        if (topic.isEmpty() || topic.contains("+") || topic.contains("#")) {
+            log.error("Batching topic '{}' for bridge '{}' must not be empty or contain wildcards", topic, name);
+            throw new UnrecoverableException(false);
+        }
+        if (batching.getMaxMessages() <= 0) {
+            log.error("Batching max-messages for bridge '{}' must be greater than 0", name);
+            throw new UnrecoverableException(false);
+        }
+        if (batching.getMaxSizeBytes() <= 0) {
+            log.error("Batching max-size-bytes for bridge '{}' must be greater than 0", name);
+            throw new UnrecoverableException(false);
+        }
+        if (batching.getLingerMillis() <= 0) {
+            log.error("Batching linger-millis for bridge '{}' must be greater than 0", name);
+            throw new UnrecoverableException(false);
+        }
+        final BridgeBatching.Compression compression;
+        try {
+            compression = BridgeBatching.Compression.valueOf(batching.getCompression().trim().toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            log.error("Batching compression '{}' for bridge '{}' is not valid, allowed values are {}",
+                    batching.getCompression(),
+                    name,
+                    BridgeBatching.Compression.values());
+            throw new UnrecoverableException(false);
+        }
+        return builder.withTopic(topic)
+                .withMaxMessages(batching.getMaxMessages())
+                .withMaxSizeBytes(batching.getMaxSizeBytes())
+                .withLingerMillis(batching.getLingerMillis())
+                .withCompression(compression)
+                .build();
+    }
+
     private @Nullable BridgeTls convertTls(final @Nullable BridgeTlsEntity tls) {
         if (tls == null || !tls.isEnabled()) {
             return null;
@@ -281,6 +381,28 @@ public class BridgeConfigurator {
         loopPreventionEntity.setEnabled(from.isLoopPreventionEnabled());
         loopPreventionEntity.setHopCountLimit(from.getLoopPreventionHopCount());
 
+        //-- BridgeBufferEntity
+        final BridgeBuffer bridgeBuffer = from.getBridgeBuffer();
+        final BridgeBufferEntity bridgeBufferEntity = new BridgeBufferEntity();
+        bridgeBufferEntity.setEnabled(bridgeBuffer.isEnabled());
+        bridgeBufferEntity.setMaxSizeBytes(bridgeBuffer.getMaxSizeBytes());
+        bridgeBufferEntity.setMaxAgeSeconds(bridgeBuffer.getMaxAgeSeconds());
+        bridgeBufferEntity.setSegmentSizeBytes(bridgeBuffer.getSegmentSizeBytes());
+        bridgeBufferEntity.setOverflowPolicy(bridgeBuffer.getOverflowPolicy().name());
+        bridgeBufferEntity.setForceIntervalMillis(bridgeBuffer.getForceIntervalMillis());
+        entity.setBuffer(bridgeBufferEntity);
+
+        //-- BridgeBatchingEntity
+        final BridgeBatching bridgeBatching = from.getBridgeBatching();
+        final BridgeBatchingEntity bridgeBatchingEntity = new BridgeBatchingEntity();
+        bridgeBatchingEntity.setEnabled(bridgeBatching.isEnabled());
+        bridgeBatchingEntity.setTopic(bridgeBatching.getTopic());
+        bridgeBatchingEntity.setMaxMessages(bridgeBatching.getMaxMessages());
+        bridgeBatchingEntity.setMaxSizeBytes(bridgeBatching.getMaxSizeBytes());
+        bridgeBatchingEntity.setLingerMillis(bridgeBatching.getLingerMillis());
+        bridgeBatchingEntity.setCompression(bridgeBatching.getCompression().name());
+        entity.setBatching(bridgeBatchingEntity);
+
         //-- ForwardedTopicEntity*
         if (from.getLocalSubscriptions() != null) {
             entity.setForwardedTopics(unconvertLocalSubscriptions(from.getLocalSubscriptions()));
@@ -360,6 +482,7 @@ public class BridgeConfigurator {
         bridgeMqttEntity.setClientId(from.getClientId());
         bridgeMqttEntity.setKeepAlive(from.getKeepAlive());
         bridgeMqttEntity.setSessionExpiry(from.getSessionExpiry());
+        bridgeMqttEntity.setConnectionCount(from.getConnectionCount());
         remoteBrokerEntity.setMqtt(bridgeMqttEntity);
 
         //Authentication
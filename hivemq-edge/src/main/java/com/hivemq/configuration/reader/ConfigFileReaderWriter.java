@@ -320,6 +320,7 @@ public class ConfigFileReaderWriter {
 
     void setConfiguration(@NotNull final HiveMQConfigEntity config) {
         listenerConfigurator.setListenerConfig(config.getMqttListenerConfig(), config.getMqttsnListenerConfig());
+        listenerConfigurator.setListenerTransportConfig(config.getListenerTransportConfig());
         mqttConfigurator.setMqttConfig(config.getMqttConfig());
         restrictionConfigurator.setRestrictionsConfig(config.getRestrictionsConfig());
         securityConfigurator.setSecurityConfig(config.getSecurityConfig());
@@ -19,6 +19,7 @@ package com.hivemq.configuration.reader;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.configuration.entity.listener.ListenerEntity;
+import com.hivemq.configuration.entity.listener.ListenerTransportEntity;
 import com.hivemq.configuration.entity.listener.TCPListenerEntity;
 import com.hivemq.configuration.entity.listener.TLSEntity;
 import com.hivemq.configuration.entity.listener.TlsTCPListenerEntity;
@@ -28,6 +29,7 @@ import com.hivemq.configuration.entity.listener.WebsocketListenerEntity;
 import com.hivemq.configuration.entity.listener.tls.ClientAuthenticationModeEntity;
 import com.hivemq.configuration.info.SystemInformation;
 import com.hivemq.configuration.service.entity.Listener;
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.configuration.service.entity.MqttTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsWebsocketListener;
@@ -35,6 +37,7 @@ import com.hivemq.configuration.service.entity.MqttWebsocketListener;
 import com.hivemq.configuration.service.entity.MqttsnUdpListener;
 import com.hivemq.configuration.service.entity.Tls;
 import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
+import com.hivemq.exceptions.UnrecoverableException;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import org.slf4j.Logger;
@@ -43,6 +46,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class ListenerConfigurator {
 
@@ -75,6 +79,30 @@ public class ListenerConfigurator {
         }
     }
 
+    void setListenerTransportConfig(final @NotNull ListenerTransportEntity entity) {
+        listenerConfigurationService.setTransport(convertListenerTransport(entity));
+    }
+
+    @NotNull ListenerTransport convertListenerTransport(final @NotNull ListenerTransportEntity entity) {
+        final ListenerTransport.Type type;
+        try {
+            type = ListenerTransport.Type.valueOf(entity.getType().trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            log.error("Unknown listener transport type '{}'. Supported types are auto, epoll and nio.",
+                    entity.getType());
+            throw new UnrecoverableException(false);
+        }
+        if (entity.getAcceptorThreads() < 1) {
+            log.error("Listener transport acceptor-threads must be at least 1, was {}.", entity.getAcceptorThreads());
+            throw new UnrecoverableException(false);
+        }
+        return new ListenerTransport(type,
+                entity.isTcpQuickAck(),
+                entity.isEdgeTriggered(),
+                entity.isReusePort(),
+                entity.getAcceptorThreads());
+    }
+
     private @NotNull ImmutableList<Listener> convertListenerEntities(final @NotNull List<ListenerEntity> entities) {
         final ImmutableList.Builder<Listener> builder = ImmutableList.builder();
 
@@ -17,6 +17,7 @@ package com.hivemq.configuration.service;
 
 import com.hivemq.migration.meta.PersistenceType;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -25,6 +26,7 @@ public class InternalConfigurations {
 
     private static final int AVAILABLE_PROCESSORS = Runtime.getRuntime().availableProcessors();
     private static final int AVAILABLE_PROCESSORS_TIMES_TWO = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int MAX_PERSISTENCE_BUCKET_COUNT = 256;
 
     /* ***************
      *  Persistences *
@@ -41,7 +43,14 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger PERSISTENCE_SHUTDOWN_TIMEOUT_SEC = new AtomicInteger(300);
 
-    public static final AtomicInteger PERSISTENCE_BUCKET_COUNT = new AtomicInteger(1);
+    /**
+     * The amount of buckets the in-memory persistences are sharded into. Every bucket is accessed single-threaded, so
+     * the bucket count limits how many cores can work on the persistences concurrently. It defaults to the next power
+     * of two of four times the available processors, which always leaves enough buckets to spread them evenly across
+     * {@link #SINGLE_WRITER_THREAD_POOL_SIZE} queues.
+     */
+    public static final AtomicInteger PERSISTENCE_BUCKET_COUNT =
+            new AtomicInteger(persistenceBucketCount(AVAILABLE_PROCESSORS));
     public static final AtomicInteger SINGLE_WRITER_THREAD_POOL_SIZE = new AtomicInteger(AVAILABLE_PROCESSORS);
     public static final AtomicInteger SINGLE_WRITER_CREDITS_PER_EXECUTION = new AtomicInteger(65);
     public static final AtomicInteger SINGLE_WRITER_INTERVAL_TO_CHECK_PENDING_TASKS_AND_SCHEDULE_MSEC = new AtomicInteger(500);
@@ -49,6 +58,26 @@ public class InternalConfigurations {
     public static final AtomicInteger PERSISTENCE_CLOSE_RETRIES = new AtomicInteger(500);
     public static final AtomicInteger PERSISTENCE_CLOSE_RETRY_INTERVAL_MSEC = new AtomicInteger(100);
 
+    /**
+     * The size of a segment file of the client queue file persistence journals.
+     */
+    public static final AtomicInteger CLIENT_QUEUE_FILE_PERSISTENCE_SEGMENT_SIZE_BYTES =
+            new AtomicInteger(8 * 1024 * 1024);
+
+    /**
+     * The minimum size of a client queue file persistence journal before it is compacted.
+     */
+    public static final AtomicInteger CLIENT_QUEUE_FILE_PERSISTENCE_COMPACTION_MIN_SIZE_BYTES =
+            new AtomicInteger(16 * 1024 * 1024);
+
+    /**
+     * The interval in which the client queue file persistence forces its journals to disk. The default 0 forces every
+     * change before it is acknowledged, so no acknowledged message is lost on a power loss. Larger values trade the
+     * changes of at most the last interval on a power loss for throughput, the changes of an idle bucket are forced by
+     * a scheduled single writer task once the interval has passed.
+     */
+    public static final AtomicInteger CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC = new AtomicInteger(0);
+
     /**
      * max amount of subscriptions to pull from the peristence for extension iterate chunk
      */
@@ -59,6 +88,12 @@ public class InternalConfigurations {
      */
     public static final int PERSISTENCE_CLIENT_SESSIONS_MAX_CHUNK_SIZE = 2000;
 
+    /**
+     * max amount of topics matching a wildcard subscription to pull from a retained message bucket per single writer
+     * task when sending retained messages
+     */
+    public static final int RETAINED_MESSAGES_WILDCARD_MATCHES_PAGE_SIZE = 1000;
+
     /**
      * max amount of memory for retained messages to pull from the peristence for extension iterate chunk
      */
@@ -69,6 +104,19 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger TOPIC_TREE_MAP_CREATION_THRESHOLD = new AtomicInteger(16);
 
+    /**
+     * The max. amount of published topics for which the topic tree caches the resolved subscribers. 0 disables the
+     * cache.
+     */
+    public static final AtomicInteger TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE = new AtomicInteger(10_000);
+
+    /**
+     * Lets subscriber lookups for published topics read immutable copies of the topic tree segments without locking.
+     * Every subscription change copies the changed segment once on the next lookup, so this pays off when subscriptions
+     * change rarely compared to publishes.
+     */
+    public static final AtomicBoolean TOPIC_TREE_LOCK_FREE_READS_ENABLED = new AtomicBoolean(false);
+
     /**
      * The configuration for qos 0 memory hard limit divisor, must be greater than 0.
      */
@@ -133,6 +181,25 @@ public class InternalConfigurations {
      */
     public static final AtomicBoolean JMX_REPORTER_ENABLED = new AtomicBoolean(true);
 
+    /**
+     * sample the metrics into the in memory time series store, which backs the metric series of the HTTP API
+     */
+    public static final AtomicBoolean METRIC_TIME_SERIES_ENABLED = new AtomicBoolean(true);
+
+    public static final AtomicInteger METRIC_TIME_SERIES_SAMPLE_INTERVAL_MSEC = new AtomicInteger(5000);
+
+    /**
+     * Only the metrics whose name starts with one of these prefixes are sampled into the time series store, an empty
+     * list samples all metrics
+     */
+    public static final AtomicReference<List<String>> METRIC_TIME_SERIES_METRIC_PREFIXES =
+            new AtomicReference<>(List.of("com.hivemq.edge.", "com.hivemq.jvm.memory."));
+
+    /**
+     * The max. amount of metrics with a time series, further metrics are not sampled until sampled metrics are removed
+     */
+    public static final AtomicInteger METRIC_TIME_SERIES_MAX_SERIES = new AtomicInteger(1000);
+
     /* *****************
      *      MQTT 5     *
      *******************/
@@ -207,6 +274,19 @@ public class InternalConfigurations {
 
     public static final AtomicInteger COUNT_OF_PUBLISHES_WRITTEN_TO_CHANNEL_TO_TRIGGER_FLUSH = new AtomicInteger(128);
 
+    /**
+     * The max. amount of bytes of encoded topics and properties that are kept to encode a message only once for all of
+     * its subscribers. 0 disables the cache.
+     * <p>
+     * Disabled by default: every encoded message pays a lookup, a miss and an insert, which only pays off if most
+     * messages are delivered to many subscribers. Such deployments have to opt in explicitly to save the CPU time of
+     * encoding a message for every subscriber, 16 MB is a reasonable size. See PublishEncodingCacheBenchmark for both
+     * sides.
+     */
+    public static final AtomicInteger PUBLISH_ENCODING_CACHE_MAX_SIZE_BYTES = new AtomicInteger(0);
+
+    public static final AtomicInteger PUBLISH_ENCODING_CACHE_EXPIRY_MSEC = new AtomicInteger(10_000);
+
     public static final long SHARED_SUBSCRIBER_CACHE_TIME_TO_LIVE_MSEC = 1000;
 
     public static final int SHARED_SUBSCRIBER_CACHE_MAX_SIZE_SUBSCRIBERS = 10000;
@@ -246,9 +326,30 @@ public class InternalConfigurations {
     public static boolean EXPIRE_INFLIGHT_PUBRELS_ENABLED = false;
 
     /**
-     * When this amount of in-flight messages is reached, the forwarder stops message polling.
+     * The max. amount of rewritten topics the unified namespace data governance policy caches per configuration.
+     */
+    public static final AtomicInteger DATA_GOVERNANCE_TOPIC_CACHE_MAX_SIZE = new AtomicInteger(10_000);
+
+    /**
+     * The in-flight window a bridge starts with. When the window is reached, the forwarders stop message polling. The
+     * window widens while the remote broker acknowledges quickly and shrinks on rising latency or errors.
+     */
+    public static final AtomicInteger BRIDGE_INFLIGHT_WINDOW_INITIAL_MESSAGES = new AtomicInteger(100);
+
+    public static final AtomicInteger BRIDGE_INFLIGHT_WINDOW_MIN_MESSAGES = new AtomicInteger(10);
+
+    public static final AtomicInteger BRIDGE_INFLIGHT_WINDOW_MAX_MESSAGES = new AtomicInteger(10_000);
+
+    /**
+     * The amount of buffered messages a forwarder keeps in-flight to the remote broker while draining its
+     * store-and-forward buffer after a reconnect.
+     */
+    public static final AtomicInteger BRIDGE_BUFFER_DRAIN_INFLIGHT_MESSAGES = new AtomicInteger(1000);
+
+    /**
+     * The max. amount of rewritten destination topics every local and remote subscription of a bridge caches.
      */
-    public static final int FORWARDER_POLL_THRESHOLD_MESSAGES = 100;
+    public static final AtomicInteger BRIDGE_DESTINATION_TOPIC_CACHE_MAX_SIZE = new AtomicInteger(1000);
 
     /* ********************
      *       HTTP API     *
@@ -257,4 +358,30 @@ public class InternalConfigurations {
     public static final AtomicInteger HTTP_API_THREAD_COUNT = new AtomicInteger(2);
     public static final AtomicInteger HTTP_API_SHUTDOWN_TIME_SECONDS = new AtomicInteger(2);
 
+    /**
+     * The amount of time a discovery request of the HTTP API waits for an adapter to browse its device.
+     */
+    public static final AtomicInteger HTTP_API_ADAPTER_DISCOVERY_TIMEOUT_SEC = new AtomicInteger(60);
+
+    /* ********************
+     *  Protocol Adapters *
+     **********************/
+
+    /**
+     * The maximum amount of threads that run blocking polls of protocol adapters. Idle threads are released again.
+     * Polls that do not block are started on the scheduler thread of the polling service.
+     */
+    public static final AtomicInteger PROTOCOL_ADAPTER_POLLING_THREAD_COUNT =
+            new AtomicInteger(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * The time a poll of a protocol adapter may take before it is failed and counted as an error of its polling job.
+     */
+    public static final AtomicInteger PROTOCOL_ADAPTER_POLL_TIMEOUT_MILLIS = new AtomicInteger(30_000);
+
+    static int persistenceBucketCount(final int availableProcessors) {
+        final int buckets = Math.max(1, availableProcessors) * 4;
+        final int powerOfTwo = Integer.highestOneBit(buckets) == buckets ? buckets : Integer.highestOneBit(buckets) << 1;
+        return Math.min(powerOfTwo, MAX_PERSISTENCE_BUCKET_COUNT);
+    }
 }
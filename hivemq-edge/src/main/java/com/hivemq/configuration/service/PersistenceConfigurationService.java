@@ -26,7 +26,12 @@ public interface PersistenceConfigurationService {
         /**
          * All persistent data like queued messages, retained messages subscriptions and so on, will be stored in RAM.
          */
-        IN_MEMORY;
+        IN_MEMORY,
+        /**
+         * Like {@link #IN_MEMORY}, but queued QoS 1 and 2 messages are additionally journaled to disk, so they survive a
+         * restart or a power loss.
+         */
+        FILE;
     }
 
     /**
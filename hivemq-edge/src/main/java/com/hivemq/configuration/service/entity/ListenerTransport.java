@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.service.entity;
+
+import com.hivemq.extension.sdk.api.annotations.Immutable;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * The network transport that is used by all MQTT and MQTT-SN listeners.
+ */
+@Immutable
+public class ListenerTransport {
+
+    public static final @NotNull ListenerTransport DEFAULT = new ListenerTransport(Type.AUTO, false, true, false, 1);
+
+    public enum Type {
+        /**
+         * Use the native epoll transport if it is available on this platform, otherwise fall back to NIO.
+         */
+        AUTO,
+        /**
+         * Use the native epoll transport. Falls back to NIO with a warning if it can not be loaded.
+         */
+        EPOLL,
+        /**
+         * Always use the Java NIO transport.
+         */
+        NIO
+    }
+
+    private final @NotNull Type type;
+    private final boolean tcpQuickAck;
+    private final boolean edgeTriggered;
+    private final boolean reusePort;
+    private final int acceptorThreads;
+
+    /**
+     * @param type            the transport to use
+     * @param tcpQuickAck     if {@code TCP_QUICKACK} is set on accepted connections (epoll only)
+     * @param edgeTriggered   if epoll runs in edge-triggered instead of level-triggered mode (epoll only)
+     * @param reusePort       if {@code SO_REUSEPORT} is set, so several sockets can share a listener port (epoll only)
+     * @param acceptorThreads the amount of sockets bound per listener port when {@code reusePort} is set
+     */
+    public ListenerTransport(
+            final @NotNull Type type,
+            final boolean tcpQuickAck,
+            final boolean edgeTriggered,
+            final boolean reusePort,
+            final int acceptorThreads) {
+        this.type = type;
+        this.tcpQuickAck = tcpQuickAck;
+        this.edgeTriggered = edgeTriggered;
+        this.reusePort = reusePort;
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    public @NotNull Type getType() {
+        return type;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerTransport{" +
+                "type=" +
+                type +
+                ", tcpQuickAck=" +
+                tcpQuickAck +
+                ", edgeTriggered=" +
+                edgeTriggered +
+                ", reusePort=" +
+                reusePort +
+                ", acceptorThreads=" +
+                acceptorThreads +
+                '}';
+    }
+}
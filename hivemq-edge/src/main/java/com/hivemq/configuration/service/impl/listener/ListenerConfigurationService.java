@@ -17,6 +17,7 @@ package com.hivemq.configuration.service.impl.listener;
 
 import com.hivemq.annotations.ReadOnly;
 import com.hivemq.configuration.service.entity.Listener;
+import com.hivemq.configuration.service.entity.ListenerTransport;
 import com.hivemq.configuration.service.entity.MqttTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsTcpListener;
 import com.hivemq.configuration.service.entity.MqttTlsWebsocketListener;
@@ -76,4 +77,15 @@ public interface ListenerConfigurationService {
     @ReadOnly
     @NotNull List<MqttsnUdpListener> getUdpListeners();
 
+    /**
+     * @return the network transport used by all listeners
+     */
+    @NotNull ListenerTransport getTransport();
+
+    /**
+     * Sets the network transport used by all listeners. Changes are ignored once the listeners are bound.
+     *
+     * @param transport the transport
+     */
+    void setTransport(@NotNull ListenerTransport transport);
 }
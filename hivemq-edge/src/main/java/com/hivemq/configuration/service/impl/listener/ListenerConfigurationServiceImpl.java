@@ -40,6 +40,8 @@ public class ListenerConfigurationServiceImpl implements ListenerConfigurationSe
      */
     private final List<Listener> listeners = new CopyOnWriteArrayList<>();
 
+    private volatile @NotNull ListenerTransport transport = ListenerTransport.DEFAULT;
+
     @Override
     public <T extends Listener> void addListener(final @NotNull T listener) {
         if (listener.getClass().equals(MqttTcpListener.class) || listener.getClass().equals(MqttTlsTcpListener.class) ||
@@ -93,6 +95,15 @@ public class ListenerConfigurationServiceImpl implements ListenerConfigurationSe
         return filterListeners(MqttsnUdpListener.class);
     }
 
+    @Override
+    public @NotNull ListenerTransport getTransport() {
+        return transport;
+    }
+
+    @Override
+    public void setTransport(final @NotNull ListenerTransport transport) {
+        this.transport = transport;
+    }
 
     public void clear() {
         listeners.clear();
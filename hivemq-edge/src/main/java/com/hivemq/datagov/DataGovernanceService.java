@@ -20,12 +20,23 @@ import com.hivemq.datagov.model.DataGovernanceResult;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 
+import java.util.List;
+
 public interface DataGovernanceService {
 
     @NotNull ListenableFuture<DataGovernanceResult> apply(@NotNull DataGovernanceContext governanceContext);
 
     @NotNull ListenableFuture<PublishReturnCode> applyAndPublish(@NotNull DataGovernanceContext governanceContext);
 
+    /**
+     * Applies the policies to every context and publishes the results of the same sender together, so the
+     * subscribers of all their topics are looked up at once.
+     *
+     * @return the result of every context, in the order of the contexts
+     */
+    @NotNull List<ListenableFuture<PublishReturnCode>> applyAndPublish(
+            @NotNull List<DataGovernanceContext> governanceContexts);
+
 }
 
 
@@ -20,7 +20,6 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.JdkFutureAdapters;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -32,16 +31,19 @@ import com.hivemq.datagov.model.impl.DataGoveranceResultImpl;
 import com.hivemq.datagov.model.impl.DataGovernanceDataImpl;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.services.InternalPublishService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 /**
  *
@@ -54,7 +56,7 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
     private final @NotNull Counter governatedMessagesCounter;
     private final @NotNull InternalPublishService internalPublishService;
     private final @NotNull ListeningExecutorService executorService;
-    private final @NotNull UnifiedNamespaceDataGovernancePolicy namespaceDataGovernancePolicy;
+    private final @NotNull List<DataGovernancePolicy> policies;
 
     @Inject
     public DataGovernanceServiceImpl(final @NotNull MetricRegistry metricRegistry,
@@ -64,7 +66,7 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
         this.internalPublishService = internalPublishService;
         this.executorService = MoreExecutors.listeningDecorator(executorService);
         this.governatedMessagesCounter = metricRegistry.counter("com.hivemq.messages.governance.count");
-        this.namespaceDataGovernancePolicy = namespaceDataGovernancePolicy;
+        this.policies = List.of(namespaceDataGovernancePolicy);
     }
 
     @Override
@@ -73,17 +75,24 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
         Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
 
+        //-- The policies only transform in memory data, so they are run serially on the calling thread. Handing
+        //-- them to another thread would cost more than the policies themselves.
+        try {
+            return Futures.immediateFuture(applyPolicies(context));
+        } catch (final Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private @NotNull DataGovernanceResult applyPolicies(@NotNull final DataGovernanceContext context) {
+
         //-- Create the initial result object initd to the value of the input
         DataGovernanceResult result = new DataGoveranceResultImpl(
                 new DataGovernanceDataImpl.Builder(context.getInput()).build());
         result.setStatus(DataGovernanceResult.STATUS.SUCCESS);
         context.setResult(result);
 
-        //-- If More Than 1 Policy Is Matched, Ensure All Are Run Serially On The Same Thread
-        PolicyExecution policyExecution = new PolicyExecution(context, List.of(namespaceDataGovernancePolicy));
-        final ExecutorService executorForContext = getExecutorForContext(context);
-        final Future<DataGovernanceResult> resultFuture = executorForContext.submit(policyExecution);
-        return JdkFutureAdapters.listenInPoolThread(resultFuture, executorForContext);
+        return new PolicyExecution(context, policies).call();
     }
 
     @Override
@@ -92,7 +101,46 @@ public class DataGovernanceServiceImpl implements DataGovernanceService {
         Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
         ListenableFuture<DataGovernanceResult> policyFuture = apply(context);
         AsyncFunction<DataGovernanceResult, PublishReturnCode> async = result -> publish(context);
-        return Futures.transformAsync(policyFuture, async, getExecutorForContext(context));
+        return Futures.transformAsync(policyFuture, async, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public @NotNull List<ListenableFuture<PublishReturnCode>> applyAndPublish(
+            @NotNull final List<DataGovernanceContext> contexts) {
+        Preconditions.checkNotNull(contexts);
+        final List<ListenableFuture<PublishReturnCode>> results = new ArrayList<>(contexts.size());
+        //-- The policies may change the sender, the contexts are published together per sender
+        final Map<String, List<Integer>> contextsPerSender = new LinkedHashMap<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            final DataGovernanceContext context = contexts.get(i);
+            try {
+                Preconditions.checkNotNull(context.getInput(), "Data Governance Input Cannot Be <null>");
+                final DataGovernanceResult result = applyPolicies(context);
+                Preconditions.checkArgument(result.getStatus() == DataGovernanceResult.STATUS.SUCCESS,
+                        "Can Only Apply Publish On Successful Execution");
+                contextsPerSender.computeIfAbsent(result.getOutput().getClientId(), sender -> new ArrayList<>())
+                        .add(i);
+                results.add(null);
+            } catch (final Exception e) {
+                results.add(Futures.immediateFailedFuture(e));
+            }
+        }
+
+        for (final Map.Entry<String, List<Integer>> senderContexts : contextsPerSender.entrySet()) {
+            final List<Integer> indexes = senderContexts.getValue();
+            final List<PUBLISH> publishes = new ArrayList<>(indexes.size());
+            for (final int index : indexes) {
+                publishes.add(contexts.get(index).getResult().getOutput().getPublish());
+            }
+            final List<ListenableFuture<PublishReturnCode>> published =
+                    internalPublishService.publish(publishes,
+                            getExecutorForContext(contexts.get(indexes.get(0))),
+                            senderContexts.getKey());
+            for (int i = 0; i < indexes.size(); i++) {
+                results.set(indexes.get(i), published.get(i));
+            }
+        }
+        return results;
     }
 
     protected @NotNull ListenableFuture<PublishReturnCode> publish(@NotNull final DataGovernanceContext context) {
@@ -15,13 +15,13 @@
  */
 package com.hivemq.datagov.impl;
 
-import com.google.common.collect.ImmutableMap;
-import com.hivemq.client.mqtt.datatypes.MqttTopic;
-import com.hivemq.common.topic.TopicFilterProcessor;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.datagov.DataGovernanceContext;
 import com.hivemq.datagov.model.DataGovernanceData;
 import com.hivemq.datagov.model.DataGovernancePolicy;
 import com.hivemq.datagov.model.impl.DataGovernancePolicyImpl;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.uns.UnifiedNamespaceService;
 import com.hivemq.uns.config.ISA95;
@@ -38,6 +38,7 @@ public class UnifiedNamespaceDataGovernancePolicy extends DataGovernancePolicyIm
     static final String NAME = "Unified Namespace Policy";
 
     private final UnifiedNamespaceService unifiedNamespaceService;
+    private volatile @Nullable CompiledRewriter compiledRewriter;
 
     @Inject
     public UnifiedNamespaceDataGovernancePolicy(
@@ -48,32 +49,51 @@ public class UnifiedNamespaceDataGovernancePolicy extends DataGovernancePolicyIm
 
     public void execute(final DataGovernanceContext context, final DataGovernanceData input){
 
-        ImmutableMap.Builder builder = ImmutableMap.<String, String>builder();
-        Map<String, String> tokens = context.getTokenProvider().getTokenReplacements(context);
-        if(tokens != null){
-            builder.putAll(tokens);
+        final String topic = input.getPublish().getTopic();
+        final String rewrittenTopic =
+                getRewriter().rewrite(topic, context.getTokenProvider().getTokenReplacements(context));
+
+        //-- Update the Resulting Object If Aspects Have Changed
+        if(!topic.equals(rewrittenTopic)){
+            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
+                    context.getResult().getOutput().getPublish()).withTopic(rewrittenTopic).build());
+        }
+    }
+
+    /**
+     * The ISA95 configuration is replaced as a whole when it changes, so the rewriter is compiled again whenever a
+     * different configuration instance is returned.
+     */
+    private @NotNull UnifiedNamespaceTopicRewriter getRewriter() {
+        final ISA95 isa95 = unifiedNamespaceService.getISA95();
+        final CompiledRewriter compiled = compiledRewriter;
+        if (compiled != null && compiled.isa95 == isa95) {
+            return compiled.rewriter;
         }
 
-        MqttTopic mqttTopic = MqttTopic.of(input.getPublish().getTopic());
-        //-- Topic modifications
-        ISA95 isa95 = unifiedNamespaceService.getISA95();
-        if(isa95.isEnabled()){
-            builder.putAll(unifiedNamespaceService.getTopicReplacements(isa95));
-            if(isa95.isPrefixAllTopics()){
-                //-- Add a topic prefix regardless of the templates being used
-                mqttTopic = unifiedNamespaceService.prefixISA95(mqttTopic);
-            }
+        final UnifiedNamespaceTopicRewriter rewriter;
+        if (isa95 != null && isa95.isEnabled()) {
+            rewriter = new UnifiedNamespaceTopicRewriter(
+                    isa95.isPrefixAllTopics() ? unifiedNamespaceService.getTopicPrefix(isa95) : "",
+                    unifiedNamespaceService.getTopicReplacements(isa95),
+                    InternalConfigurations.DATA_GOVERNANCE_TOPIC_CACHE_MAX_SIZE.get());
+        } else {
+            rewriter = new UnifiedNamespaceTopicRewriter("",
+                    Map.of(),
+                    InternalConfigurations.DATA_GOVERNANCE_TOPIC_CACHE_MAX_SIZE.get());
         }
+        compiledRewriter = new CompiledRewriter(isa95, rewriter);
+        return rewriter;
+    }
 
-        //-- Apply topic transformations from the context
-        mqttTopic = TopicFilterProcessor.applyDestinationModifier(mqttTopic,
-                mqttTopic.toString(),
-                builder.build());
+    private static class CompiledRewriter {
 
-        //-- Update the Resulting Object If Aspects Have Changed
-        if(!MqttTopic.of(input.getPublish().getTopic()).equals(mqttTopic)){
-            context.getResult().getOutput().setPublish(new PUBLISHFactory.Mqtt5Builder().fromPublish(
-                    context.getResult().getOutput().getPublish()).withTopic(mqttTopic.toString()).build());
+        private final @Nullable ISA95 isa95;
+        private final @NotNull UnifiedNamespaceTopicRewriter rewriter;
+
+        CompiledRewriter(final @Nullable ISA95 isa95, final @NotNull UnifiedNamespaceTopicRewriter rewriter) {
+            this.isa95 = isa95;
+            this.rewriter = rewriter;
         }
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.common.topic.TopicFilterProcessor;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The topic rewriting of the {@link UnifiedNamespaceDataGovernancePolicy}, compiled for one ISA95 configuration.
+ * <p>
+ * The ISA95 prefix and replacements are resolved once when the rewriter is created. Topics without any template are
+ * only prefixed, templated topics are resolved with the {@link TopicFilterProcessor} once and the result is cached
+ * per topic and context tokens.
+ */
+class UnifiedNamespaceTopicRewriter {
+
+    private final @NotNull String prefix;
+    private final @NotNull Map<String, String> replacements;
+    private final @NotNull Cache<CacheKey, String> rewrittenTopics;
+
+    /**
+     * @param prefix       the levels to prefix every topic with, joined by '/', or an empty String for no prefix
+     * @param replacements the token replacements of the configuration, these take precedence over context tokens
+     */
+    UnifiedNamespaceTopicRewriter(
+            final @NotNull String prefix, final @NotNull Map<String, String> replacements, final long cacheSize) {
+        this.prefix = prefix;
+        this.replacements = replacements;
+        this.rewrittenTopics = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * @return the rewritten topic, the same instance is returned if the topic is not modified
+     */
+    @NotNull String rewrite(final @NotNull String topic, final @Nullable Map<String, String> contextTokens) {
+        final String prefixed = prefix.isEmpty() ? topic : prefix + "/" + topic;
+        if (prefixed.indexOf('{') < 0) {
+            return prefixed;
+        }
+
+        final Map<String, String> tokens = contextTokens != null ? contextTokens : Map.of();
+        final CacheKey key = new CacheKey(topic, tokens);
+        final String cached = rewrittenTopics.getIfPresent(key);
+        if (cached != null) {
+            return cached.equals(topic) ? topic : cached;
+        }
+
+        final Map<String, String> allTokens = new HashMap<>(tokens);
+        allTokens.putAll(replacements);
+        final String rewritten =
+                TopicFilterProcessor.applyDestinationModifier(MqttTopic.of(prefixed), prefixed, allTokens).toString();
+        rewrittenTopics.put(key, rewritten);
+        return rewritten.equals(topic) ? topic : rewritten;
+    }
+
+    private static class CacheKey {
+
+        private final @NotNull String topic;
+        private final @NotNull Map<String, String> tokens;
+        private final int hashCode;
+
+        CacheKey(final @NotNull String topic, final @NotNull Map<String, String> tokens) {
+            this.topic = topic;
+            this.tokens = tokens;
+            this.hashCode = Objects.hash(topic, tokens);
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final CacheKey cacheKey = (CacheKey) o;
+            return topic.equals(cacheKey.topic) && tokens.equals(cacheKey.tokens);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
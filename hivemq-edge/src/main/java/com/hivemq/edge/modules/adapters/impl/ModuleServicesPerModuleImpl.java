@@ -18,6 +18,7 @@ package com.hivemq.edge.modules.adapters.impl;
 import com.hivemq.edge.modules.api.adapters.ModuleServices;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPollingService;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -69,6 +70,13 @@ public class ModuleServicesPerModuleImpl implements ModuleServices {
             final ProtocolAdapterPublishBuilderImpl builder = (ProtocolAdapterPublishBuilderImpl) delegate.publish();
             return builder.withAdapter(adapter);
         }
+
+        @Override
+        public @NotNull ProtocolAdapterPublishBatchBuilder publishBatch() {
+            final ProtocolAdapterPublishBatchBuilderImpl builder =
+                    (ProtocolAdapterPublishBatchBuilderImpl) delegate.publishBatch();
+            return builder.withAdapter(adapter);
+        }
     }
 }
 
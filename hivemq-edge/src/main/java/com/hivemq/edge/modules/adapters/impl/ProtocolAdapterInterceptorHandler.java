@@ -16,7 +16,9 @@
 package com.hivemq.edge.modules.adapters.impl;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.configuration.service.ConfigurationService;
 import com.hivemq.datagov.DataGovernanceContext;
@@ -56,7 +58,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -105,14 +111,108 @@ public class ProtocolAdapterInterceptorHandler {
             return processPublish(publish, protocolAdapter);
         }
 
-        final SettableFuture<PublishReturnCode> resultFuture = SettableFuture.create();
+        final ProtocolAdapterInformationImpl bridgeInfo = new ProtocolAdapterInformationImpl(protocolAdapter.getId(),
+                protocolAdapter.getProtocolAdapterInformation().getProtocolId());
+        final ListenableFuture<PUBLISH> interceptedFuture = intercept(publish,
+                executorService,
+                protocolAdapter,
+                bridgeInfo,
+                new ProtocolAdapterDynamicContextImpl(dynamicContext),
+                createInterceptorTasks(providerMap, bridgeInfo),
+                providerMap.size());
+
+        return Futures.transformAsync(interceptedFuture,
+                interceptedPublish -> interceptedPublish == null ?
+                        Futures.immediateFuture(PublishReturnCode.FAILED) :
+                        processPublish(interceptedPublish, protocolAdapter),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Publishes a batch of messages of the adapter. The context of the adapter and the interceptors are resolved once
+     * for the whole batch, the intercepted messages are handed to the data governance together.
+     *
+     * @return the return code of every message, in the order of the messages. A message that could not be published
+     *         is reported as {@link PublishReturnCode#FAILED}.
+     */
+    public @NotNull ListenableFuture<List<PublishReturnCode>> interceptOrDelegateInbound(
+            final @NotNull List<PUBLISH> publishes,
+            final @NotNull ExecutorService executorService,
+            final @NotNull ProtocolAdapter protocolAdapter,
+            final @NotNull ImmutableMap<String, String> dynamicContext) {
+
+        final Map<String, String> tokenReplacements = populateAdapterContextReplacements(protocolAdapter);
+        final ImmutableMap<String, ProtocolAdapterPublishInboundInterceptorProvider> providerMap =
+                interceptors.protocolAdapterOutboundInterceptorProviders();
+        if (providerMap.isEmpty()) {
+            return processPublishes(publishes, protocolAdapter, tokenReplacements);
+        }
 
-        final PublishPacketImpl packet = new PublishPacketImpl(publish);
         final ProtocolAdapterInformationImpl bridgeInfo = new ProtocolAdapterInformationImpl(protocolAdapter.getId(),
                 protocolAdapter.getProtocolAdapterInformation().getProtocolId());
-        final ProtocolAdapterPublishInboundInputImpl input = new ProtocolAdapterPublishInboundInputImpl(bridgeInfo,
-                packet,
-                new ProtocolAdapterDynamicContextImpl(dynamicContext));
+        final ProtocolAdapterDynamicContextImpl adapterDynamicContext =
+                new ProtocolAdapterDynamicContextImpl(dynamicContext);
+        final List<ProtocolAdapterInboundInterceptorTask> tasks = createInterceptorTasks(providerMap, bridgeInfo);
+
+        final List<ListenableFuture<PUBLISH>> interceptedFutures = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            interceptedFutures.add(intercept(publish,
+                    executorService,
+                    protocolAdapter,
+                    bridgeInfo,
+                    adapterDynamicContext,
+                    tasks,
+                    providerMap.size()));
+        }
+
+        //-- a prevented or failed message is null in the list
+        return Futures.transformAsync(Futures.successfulAsList(interceptedFutures),
+                interceptedPublishes -> processPublishes(interceptedPublishes, protocolAdapter, tokenReplacements),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @return the tasks of the interceptors of all enabled extensions
+     */
+    private @NotNull List<ProtocolAdapterInboundInterceptorTask> createInterceptorTasks(
+            final @NotNull ImmutableMap<String, ProtocolAdapterPublishInboundInterceptorProvider> providerMap,
+            final @NotNull ProtocolAdapterInformationImpl bridgeInfo) {
+
+        final List<ProtocolAdapterInboundInterceptorTask> tasks = new ArrayList<>(providerMap.size());
+        for (final ProtocolAdapterPublishInboundInterceptorProvider interceptorProvider : providerMap.values()) {
+
+            final HiveMQExtension extension =
+                    hiveMQExtensions.getExtensionForClassloader(interceptorProvider.getClass().getClassLoader());
+            if (extension == null) { // disabled extension would be null
+                continue;
+            }
+
+            final ProtocolAdapterInboundProviderInput providerInput =
+                    new ProtocolAdapterInboundProviderInputImpl(serverInformation, bridgeInfo);
+
+            tasks.add(new ProtocolAdapterInboundInterceptorTask(interceptorProvider, providerInput, extension.getId()));
+        }
+        return tasks;
+    }
+
+    /**
+     * @return the future of the intercepted message, it is completed with <code>null</code> if an interceptor
+     *         prevented the delivery
+     */
+    private @NotNull ListenableFuture<PUBLISH> intercept(
+            final @NotNull PUBLISH publish,
+            final @NotNull ExecutorService executorService,
+            final @NotNull ProtocolAdapter protocolAdapter,
+            final @NotNull ProtocolAdapterInformationImpl bridgeInfo,
+            final @NotNull ProtocolAdapterDynamicContextImpl dynamicContext,
+            final @NotNull List<ProtocolAdapterInboundInterceptorTask> tasks,
+            final int interceptorCount) {
+
+        final SettableFuture<PUBLISH> interceptedFuture = SettableFuture.create();
+
+        final PublishPacketImpl packet = new PublishPacketImpl(publish);
+        final ProtocolAdapterPublishInboundInputImpl input =
+                new ProtocolAdapterPublishInboundInputImpl(bridgeInfo, packet, dynamicContext);
         final ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder =
                 new ExtensionParameterHolder<>(input);
 
@@ -125,36 +225,24 @@ public class ProtocolAdapterInterceptorHandler {
 
         final ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext context =
                 new ProtocolAdapterInterceptorHandler.PublishInboundInterceptorContext(protocolAdapter,
-                        providerMap.size(),
+                        interceptorCount,
                         publish,
                         inputHolder,
                         outputHolder,
-                        resultFuture,
+                        interceptedFuture,
                         executorService);
 
-        for (final ProtocolAdapterPublishInboundInterceptorProvider interceptorProvider : providerMap.values()) {
-
-            final HiveMQExtension extension =
-                    hiveMQExtensions.getExtensionForClassloader(interceptorProvider.getClass().getClassLoader());
-            if (extension == null) { // disabled extension would be null
-                context.finishInterceptor();
-                continue;
-            }
-
-            final ProtocolAdapterInboundProviderInput providerInput =
-                    new ProtocolAdapterInboundProviderInputImpl(serverInformation, bridgeInfo);
-
-            final ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask task =
-                    new ProtocolAdapterInterceptorHandler.ProtocolAdapterInboundInterceptorTask(interceptorProvider,
-                            providerInput,
-                            extension.getId());
+        //-- the interceptors of disabled extensions are finished right away
+        for (int i = tasks.size(); i < interceptorCount; i++) {
+            context.finishInterceptor();
+        }
+        for (final ProtocolAdapterInboundInterceptorTask task : tasks) {
             pluginTaskExecutorService.handlePluginInOutTaskExecution(context, inputHolder, outputHolder, task);
         }
 
-        return resultFuture;
+        return interceptedFuture;
     }
 
-
     private @NotNull ListenableFuture<PublishReturnCode> processPublish(
             final @NotNull PUBLISH publish, final @NotNull ProtocolAdapter protocolAdapter) {
         DataGovernanceData data =
@@ -163,12 +251,59 @@ public class ProtocolAdapterInterceptorHandler {
         return dataGovernanceService.applyAndPublish(context);
     }
 
+    private @NotNull ListenableFuture<List<PublishReturnCode>> processPublishes(
+            final @NotNull List<PUBLISH> publishes,
+            final @NotNull ProtocolAdapter protocolAdapter,
+            final @NotNull Map<String, String> tokenReplacements) {
+
+        final List<DataGovernanceContext> contexts = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            if (publish != null) {
+                final DataGovernanceData data = new DataGovernanceDataImpl.Builder()
+                        .withClientId(protocolAdapter.getId())
+                        .withPublish(publish)
+                        .build();
+                contexts.add(new ProtocolAdapterContext(data, protocolAdapter, tokenReplacements));
+            }
+        }
+        final Iterator<ListenableFuture<PublishReturnCode>> published =
+                dataGovernanceService.applyAndPublish(contexts).iterator();
+
+        final List<ListenableFuture<PublishReturnCode>> returnCodeFutures = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            returnCodeFutures.add(publish != null ?
+                    published.next() :
+                    Futures.immediateFuture(PublishReturnCode.FAILED));
+        }
+        return Futures.whenAllComplete(returnCodeFutures).call(() -> {
+            final List<PublishReturnCode> returnCodes = new ArrayList<>(returnCodeFutures.size());
+            for (final ListenableFuture<PublishReturnCode> returnCodeFuture : returnCodeFutures) {
+                try {
+                    returnCodes.add(Futures.getDone(returnCodeFuture));
+                } catch (final ExecutionException e) {
+                    log.warn("Error publishing a message of protocol adapter '{}'",
+                            protocolAdapter.getId(),
+                            e.getCause());
+                    returnCodes.add(PublishReturnCode.FAILED);
+                }
+            }
+            return returnCodes;
+        }, MoreExecutors.directExecutor());
+    }
+
     static class ProtocolAdapterContext extends DataGovernanceContextImpl {
 
         final @NotNull ProtocolAdapter adapter;
 
         public ProtocolAdapterContext(final @NotNull DataGovernanceData input, final @NotNull ProtocolAdapter adapter) {
-            super(input, populateAdapterContextReplacements(adapter));
+            this(input, adapter, populateAdapterContextReplacements(adapter));
+        }
+
+        ProtocolAdapterContext(
+                final @NotNull DataGovernanceData input,
+                final @NotNull ProtocolAdapter adapter,
+                final @NotNull Map<String, String> tokenReplacements) {
+            super(input, tokenReplacements);
             this.adapter = adapter;
         }
     }
@@ -193,7 +328,7 @@ public class ProtocolAdapterInterceptorHandler {
         private final @NotNull PUBLISH publish;
         private final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder;
         private final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder;
-        private final @NotNull SettableFuture<PublishReturnCode> resultFuture;
+        private final @NotNull SettableFuture<PUBLISH> interceptedFuture;
         private final @NotNull ExecutorService executorService;
 
         PublishInboundInterceptorContext(
@@ -202,13 +337,13 @@ public class ProtocolAdapterInterceptorHandler {
                 final @NotNull PUBLISH publish,
                 final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundInputImpl> inputHolder,
                 final @NotNull ExtensionParameterHolder<ProtocolAdapterPublishInboundOutputImpl> outputHolder,
-                final @NotNull SettableFuture<PublishReturnCode> resultFuture,
+                final @NotNull SettableFuture<PUBLISH> interceptedFuture,
                 final @NotNull ExecutorService executorService) {
 
             super(protocolAdapter.getId());
             this.protocolAdapter = protocolAdapter;
             this.interceptorCount = interceptorCount;
-            this.resultFuture = resultFuture;
+            this.interceptedFuture = interceptedFuture;
             this.executorService = executorService;
             this.counter = new AtomicInteger(0);
             this.publish = publish;
@@ -246,10 +381,9 @@ public class ProtocolAdapterInterceptorHandler {
             final ProtocolAdapterPublishInboundOutputImpl output = outputHolder.get();
             if (output.isPreventDelivery()) {
                 dropMessage(output);
-                resultFuture.set(PublishReturnCode.FAILED);
+                interceptedFuture.set(null);
             } else {
-                final PUBLISH finalPublish = PUBLISHFactory.merge(inputHolder.get().getPublishPacket(), publish);
-                resultFuture.setFuture(processPublish(finalPublish, protocolAdapter));
+                interceptedFuture.set(PUBLISHFactory.merge(inputHolder.get().getPublishPacket(), publish));
             }
         }
 
@@ -15,50 +15,96 @@
  */
 package com.hivemq.edge.modules.adapters.impl;
 
-import ch.qos.logback.core.joran.conditional.ElseAction;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.hivemq.common.shutdown.HiveMQShutdownHook;
 import com.hivemq.common.shutdown.ShutdownHooks;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPollingService;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterAsyncPollingInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingOutput;
 import com.hivemq.edge.modules.adapters.params.impl.ProtocolAdapterPollingOutputImpl;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.util.ThreadFactoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
+ * Runs the polling jobs of all protocol adapters on threads that are dedicated to polling: a scheduler thread that
+ * starts the polls and a pool of threads for polls that block. So a slow device can neither delay the polls of other
+ * adapters nor the broker.
+ * <ul>
+ *     <li>Every job is polled at a fixed rate. The first polls of jobs with the same period are spread over the
+ *     period, so hundreds of devices are not polled in the same instant.</li>
+ *     <li>A job is never polled concurrently. A poll that is due while the previous poll of the job is still in
+ *     progress is skipped and counted as an overrun. Skipped polls are not caught up.</li>
+ *     <li>The latency of the polls of every job is recorded in a timer.</li>
+ *     <li>A poll that does not complete within the poll timeout of its job is counted as an error. The job is not
+ *     polled again before the poll actually completed.</li>
+ * </ul>
+ *
  * @author Simon L Johnson
  */
+@Singleton
 public class ProtocolAdapterPollingServiceImpl implements ProtocolAdapterPollingService {
 
     private static final Logger log = LoggerFactory.getLogger(ProtocolAdapterPollingServiceImpl.class);
     private static long MAX_BACKOFF_MILLIS = 60000 * 10; //-- 10 Mins
-    private final @NotNull ScheduledExecutorService scheduledExecutorService;
+    //-- the fractional parts of the multiples of the golden ratio spread any number of jobs evenly over a period
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    private final @NotNull ScheduledThreadPoolExecutor scheduler;
+    private final @NotNull ThreadPoolExecutor blockingExecutor;
+    private final @NotNull MetricRegistry metricRegistry;
     private final @NotNull Map<ProtocolAdapterPollingOutput, MonitoredPollingJob> activePollers =
             new ConcurrentHashMap<>();
+    private final @NotNull Map<Long, AtomicInteger> jobsPerPeriod = new ConcurrentHashMap<>();
 
     @Inject
-    public ProtocolAdapterPollingServiceImpl(final @NotNull ScheduledExecutorService scheduledExecutorService,
+    public ProtocolAdapterPollingServiceImpl(final @NotNull MetricRegistry metricRegistry,
                                              final @NotNull ShutdownHooks shutdownHooks) {
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.metricRegistry = metricRegistry;
+        scheduler = new ScheduledThreadPoolExecutor(1,
+                ThreadFactoryUtil.create("protocol-adapter-polling-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        final int threadCount = InternalConfigurations.PROTOCOL_ADAPTER_POLLING_THREAD_COUNT.get();
+        blockingExecutor = new ThreadPoolExecutor(threadCount,
+                threadCount,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                ThreadFactoryUtil.create("protocol-adapter-polling-%d"));
+        blockingExecutor.allowCoreThreadTimeOut(true);
         shutdownHooks.add(new HiveMQShutdownHook() {
             @Override
             public @NotNull String name() {
@@ -67,32 +113,33 @@ public class ProtocolAdapterPollingServiceImpl implements ProtocolAdapterPolling
 
             @Override
             public void run() {
-                if(!scheduledExecutorService.isShutdown()){
-                    try {
-                        scheduledExecutorService.shutdown();
-                        if(!scheduledExecutorService.awaitTermination(10, TimeUnit.SECONDS)){
-                            scheduledExecutorService.shutdownNow();
-                        }
-                    } catch(InterruptedException e){
-                        log.warn("Error Encountered Attempting to Shutdown Adapter Polling Service", e);
-                    }
-                }
+                shutdown(scheduler);
+                shutdown(blockingExecutor);
             }
         });
     }
 
+    private static void shutdown(final @NotNull ExecutorService executorService) {
+        if(!executorService.isShutdown()){
+            try {
+                executorService.shutdown();
+                if(!executorService.awaitTermination(10, TimeUnit.SECONDS)){
+                    executorService.shutdownNow();
+                }
+            } catch(InterruptedException e){
+                log.warn("Error Encountered Attempting to Shutdown Adapter Polling Service", e);
+            }
+        }
+    }
+
     public ProtocolAdapterPollingOutput schedulePolling(final @NotNull ProtocolAdapter adapter,
                                                          final @NotNull ProtocolAdapterPollingInput input){
 
         log.info("Scheduling Polling For Adapter {}", adapter.getProtocolAdapterInformation().getProtocolId());
         ProtocolAdapterPollingOutput output = new ProtocolAdapterPollingOutputImpl(adapter.getId(), input);
-        MonitoredPollingJob internalJob = new MonitoredPollingJob(input, output);
-        ScheduledFuture<?> future = scheduledExecutorService.scheduleAtFixedRate(internalJob,
-                input.getInitialDelay(),
-                input.getPeriod(),
-                input.getUnit());
-        output.setFuture(future);
+        MonitoredPollingJob internalJob = new MonitoredPollingJob(adapter, input, output);
         activePollers.put(output, internalJob);
+        internalJob.start();
         return output;
     }
 
@@ -118,14 +165,11 @@ public class ProtocolAdapterPollingServiceImpl implements ProtocolAdapterPolling
 
     public void stopPolling(final @NotNull ProtocolAdapterPollingOutput pollingJob){
         Preconditions.checkNotNull(pollingJob);
-        if(activePollers.remove(pollingJob) != null){
-            Future<?> future = pollingJob.getFuture();
-            if(!future.isCancelled()){
-                log.info("Stopping Polling Job {}", pollingJob.getId());
-                if(future.cancel(true)){
-                    pollingJob.getInput().close();
-                }
-            }
+        final MonitoredPollingJob internalJob = activePollers.remove(pollingJob);
+        if(internalJob != null){
+            log.info("Stopping Polling Job {}", pollingJob.getId());
+            internalJob.stop();
+            pollingJob.getInput().close();
         }
     }
 
@@ -140,6 +184,11 @@ public class ProtocolAdapterPollingServiceImpl implements ProtocolAdapterPolling
         return activePollers.get(pollingJob).errorCount.get();
     }
 
+    @Override
+    public long currentOverrunCount(final @NotNull ProtocolAdapterPollingOutput pollingJob) {
+        return activePollers.get(pollingJob).overruns.getCount();
+    }
+
     public void stopAllPolling(){
         activePollers.keySet().stream().forEach(this::stopPolling);
     }
@@ -154,51 +203,164 @@ public class ProtocolAdapterPollingServiceImpl implements ProtocolAdapterPolling
         return f;
     }
 
+    /**
+     * @return the offset of the next job with the period from the start of the period
+     */
+    private long spreadPhase(final long periodNanos) {
+        final int index = jobsPerPeriod.computeIfAbsent(periodNanos, period -> new AtomicInteger()).getAndIncrement();
+        return (long) (((index * GOLDEN_RATIO_FRACTION) % 1.0) * periodNanos);
+    }
+
     private class MonitoredPollingJob implements Runnable {
         private final AtomicInteger errorCount = new AtomicInteger(0);
+        private final AtomicBoolean pollInProgress = new AtomicBoolean(false);
         private final ProtocolAdapterPollingInput input;
         private final ProtocolAdapterPollingOutput output;
+        private final long periodNanos;
+        private final long firstPollNanos;
+        private final String metricPrefix;
+        private final Timer latency;
+        private final Counter overruns;
         private volatile long notBefore = 0;
+        private volatile boolean stopped = false;
+        //-- the number of the next poll since the first poll, only accessed by the scheduler thread
+        private long nextPoll = 0;
 
-        public MonitoredPollingJob(final ProtocolAdapterPollingInput input,
+        public MonitoredPollingJob(final ProtocolAdapter adapter,
+                                   final ProtocolAdapterPollingInput input,
                                    final ProtocolAdapterPollingOutput output) {
             this.input = input;
             this.output = output;
+            periodNanos = Math.max(1, input.getUnit().toNanos(input.getPeriod()));
+            firstPollNanos = System.nanoTime() + input.getUnit().toNanos(input.getInitialDelay()) +
+                    spreadPhase(periodNanos);
+            metricPrefix = HiveMQMetrics.PROTOCOL_ADAPTER_PREFIX +
+                    adapter.getProtocolAdapterInformation().getProtocolId() + "." + adapter.getId() + ".polling." +
+                    output.getId() + ".";
+            latency = metricRegistry.timer(metricPrefix + "latency");
+            overruns = metricRegistry.counter(metricPrefix + "overrun.count");
+        }
+
+        void start() {
+            schedule(firstPollNanos - System.nanoTime());
+        }
+
+        void stop() {
+            stopped = true;
+            final ScheduledFuture<?> future = output.getFuture();
+            if(future != null){
+                future.cancel(false);
+            }
+            metricRegistry.remove(metricPrefix + "latency");
+            metricRegistry.remove(metricPrefix + "overrun.count");
+        }
+
+        private void schedule(final long delayNanos) {
+            if(stopped){
+                return;
+            }
+            try {
+                output.setFuture(scheduler.schedule(this, delayNanos, TimeUnit.NANOSECONDS));
+            } catch(RejectedExecutionException e){
+                //-- the polling service is shut down
+            }
         }
 
         @Override
         public void run() {
-            try {
-                if(notBefore > 0){
-                    if(System.currentTimeMillis() < notBefore){
-                        //-- We're backing off atm so as not to harass the network
-                        if(log.isDebugEnabled()){
-                            log.debug("Backing Off Polling Job {} from Adapter {}; Error Count {}",
-                                    output.getId(), output.getAdapterId(), errorCount);
-                        }
-                        return;
+            if(stopped){
+                return;
+            }
+            final long now = System.nanoTime();
+            final long currentPoll = Math.max(nextPoll, (now - firstPollNanos) / periodNanos);
+            if(currentPoll > nextPoll){
+                //-- the scheduler was late, the polls that were due in the meantime are skipped
+                overruns.inc(currentPoll - nextPoll);
+            }
+            nextPoll = currentPoll + 1;
+            schedule(firstPollNanos + nextPoll * periodNanos - now);
+            poll();
+        }
+
+        private void poll() {
+            if(!pollInProgress.compareAndSet(false, true)){
+                overruns.inc();
+                if(log.isDebugEnabled()){
+                    log.debug("Skipping Polling Job {} from Adapter {}, the previous poll is still in progress",
+                            output.getId(), output.getAdapterId());
+                }
+                return;
+            }
+            if(notBefore > 0){
+                if(System.currentTimeMillis() < notBefore){
+                    //-- We're backing off atm so as not to harass the network
+                    if(log.isDebugEnabled()){
+                        log.debug("Backing Off Polling Job {} from Adapter {}; Error Count {}",
+                                output.getId(), output.getAdapterId(), errorCount);
                     }
+                    pollInProgress.set(false);
+                    return;
                 }
-                input.execute();
-                errorCount.set(0);
-                notBefore = 0;
+            }
+            final long start = System.nanoTime();
+            CompletableFuture<Void> started;
+            try {
+                started = start(input).toCompletableFuture();
             } catch(Throwable e){
-                log.info("Polling Job Resulted In Error {} from Adapter {} -> {}",
-                        output.getId(), output.getAdapterId(), e.getMessage());
-                if(log.isDebugEnabled()){
-                    log.debug("Original exception:", e);
-                }
-                if(input.getMaxErrorsBeforeRemoval() <=
-                        errorCount.incrementAndGet()) {
-                    onTerminalError(e, errorCount.get());
-                    //-- rest the error state
-                    notBefore = 0;
+                started = CompletableFuture.failedFuture(e);
+            }
+            final CompletableFuture<Void> poll = started;
+            final long timeoutMillis = input.getPollTimeoutMillis();
+            poll.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((result, throwable) -> {
+                latency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if(throwable == null){
                     errorCount.set(0);
+                    notBefore = 0;
+                } else if(throwable instanceof TimeoutException){
+                    onError(new TimeoutException("Poll did not complete within " + timeoutMillis + " ms"));
+                } else if(throwable instanceof CompletionException && throwable.getCause() != null){
+                    onError(throwable.getCause());
                 } else {
-                    //exp. backoff the network call according to the number of errors
-                    long backoff = getBackoff(errorCount.get(), MAX_BACKOFF_MILLIS,true);
-                    notBefore = System.currentTimeMillis() + backoff;
+                    onError(throwable);
+                }
+            }).whenComplete((result, throwable) -> {
+                //-- the job is only polled again once the poll completed, even if it already timed out
+                poll.whenComplete((pollResult, pollThrowable) -> pollInProgress.set(false));
+            });
+        }
+
+        private CompletionStage<Void> start(final ProtocolAdapterPollingInput input) {
+            if(input instanceof ProtocolAdapterAsyncPollingInput){
+                return ((ProtocolAdapterAsyncPollingInput) input).executeAsync(blockingExecutor);
+            }
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    input.execute();
+                } catch(final Exception e){
+                    throw new CompletionException(e);
                 }
+            }, blockingExecutor);
+        }
+
+        private void onError(final Throwable e) {
+            if(stopped){
+                return;
+            }
+            log.info("Polling Job Resulted In Error {} from Adapter {} -> {}",
+                    output.getId(), output.getAdapterId(), e.getMessage());
+            if(log.isDebugEnabled()){
+                log.debug("Original exception:", e);
+            }
+            if(input.getMaxErrorsBeforeRemoval() <=
+                    errorCount.incrementAndGet()) {
+                onTerminalError(e, errorCount.get());
+                //-- rest the error state
+                notBefore = 0;
+                errorCount.set(0);
+            } else {
+                //exp. backoff the network call according to the number of errors
+                long backoff = getBackoff(errorCount.get(), MAX_BACKOFF_MILLIS,true);
+                notBefore = System.currentTimeMillis() + backoff;
             }
         }
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds the messages of a batch with a single reused {@link PUBLISHFactory.Mqtt5Builder}, all messages of a batch
+ * share the timestamp of the batch.
+ */
+public class ProtocolAdapterPublishBatchBuilderImpl implements ProtocolAdapterPublishBatchBuilder {
+
+    private final @NotNull SendCallback sendCallback;
+
+    private final PUBLISHFactory.Mqtt5Builder builder = new PUBLISHFactory.Mqtt5Builder();
+    private final List<PUBLISH> publishes = new ArrayList<>();
+    private final ImmutableMap.Builder<String, String> dynamicContext = ImmutableMap.builder();
+    private @Nullable ProtocolAdapter adapter;
+
+    public ProtocolAdapterPublishBatchBuilderImpl(
+            final @NotNull String hivemqId, final @NotNull SendCallback sendCallback) {
+        this.sendCallback = sendCallback;
+        builder.withHivemqId(hivemqId);
+    }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBatchBuilder add(
+            final @NotNull String mqttTopic, final @NotNull byte[] payload, final int qos) {
+        return add(mqttTopic, payload, qos, false, PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET, ImmutableMap.of());
+    }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBatchBuilder add(
+            final @NotNull String mqttTopic,
+            final @NotNull byte[] payload,
+            final int qos,
+            final boolean retained,
+            final long messageExpiryInterval,
+            final @NotNull Map<String, String> userProperties) {
+        final QoS qoS = requireNonNull(QoS.valueOf(qos));
+        builder.withTopic(mqttTopic)
+                .withPayload(payload)
+                .withQoS(qoS)
+                .withOnwardQos(qoS)
+                .withRetain(retained)
+                .withMessageExpiryInterval(messageExpiryInterval)
+                .withUserProperties(userProperties(userProperties));
+        publishes.add(builder.build());
+        return this;
+    }
+
+    private static @NotNull Mqtt5UserProperties userProperties(final @NotNull Map<String, String> userProperties) {
+        if (userProperties.isEmpty()) {
+            return Mqtt5UserProperties.NO_USER_PROPERTIES;
+        }
+        final ImmutableList.Builder<MqttUserProperty> properties =
+                ImmutableList.builderWithExpectedSize(userProperties.size());
+        for (final Map.Entry<String, String> userProperty : userProperties.entrySet()) {
+            properties.add(new MqttUserProperty(userProperty.getKey(), userProperty.getValue()));
+        }
+        return Mqtt5UserProperties.of(properties.build());
+    }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBatchBuilder withContextInformation(
+            final @NotNull String key, final @NotNull String value) {
+        dynamicContext.put(key, value);
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return publishes.size();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PublishReturnCode>> send() {
+        if (publishes.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return sendCallback.onBatchSend(ImmutableList.copyOf(publishes),
+                Objects.requireNonNull(adapter),
+                dynamicContext.buildKeepingLast());
+    }
+
+    public @NotNull ProtocolAdapterPublishBatchBuilder withAdapter(final @NotNull ProtocolAdapter adapter) {
+        this.adapter = adapter;
+        return this;
+    }
+
+    public interface SendCallback {
+        @NotNull CompletableFuture<List<PublishReturnCode>> onBatchSend(
+                final @NotNull List<PUBLISH> publishes,
+                final @NotNull ProtocolAdapter protocolAdapter,
+                final @NotNull ImmutableMap<String, String> dynamicContext);
+    }
+}
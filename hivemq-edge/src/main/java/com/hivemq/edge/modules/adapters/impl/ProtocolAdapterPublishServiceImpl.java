@@ -18,6 +18,7 @@ package com.hivemq.edge.modules.adapters.impl;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.configuration.HivemqId;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -26,12 +27,15 @@ import net.javacrumbs.futureconverter.java8guava.FutureConverter;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 @Singleton
 public class ProtocolAdapterPublishServiceImpl implements ProtocolAdapterPublishService {
 
     private final @NotNull HivemqId hiveMqId;
     private final @NotNull ProtocolAdapterInterceptorHandler interceptorHandler;
+    private final @NotNull ExecutorService directExecutorService = MoreExecutors.newDirectExecutorService();
 
     @Inject
     public ProtocolAdapterPublishServiceImpl(
@@ -46,13 +50,28 @@ public class ProtocolAdapterPublishServiceImpl implements ProtocolAdapterPublish
 
             final ListenableFuture<PublishReturnCode> publishFuture = interceptorHandler.interceptOrDelegateInbound(
                     publish,
-                    MoreExecutors.newDirectExecutorService(),
+                    directExecutorService,
                     protocolAdapter,
                     dynamicContext);
 
             return FutureConverter.toCompletableFuture(publishFuture);
         });
     }
+
+    @Override
+    public @NotNull ProtocolAdapterPublishBatchBuilder publishBatch() {
+        return new ProtocolAdapterPublishBatchBuilderImpl(hiveMqId.get(),
+                (publishes, protocolAdapter, dynamicContext) -> {
+
+                    final ListenableFuture<List<PublishReturnCode>> publishFuture =
+                            interceptorHandler.interceptOrDelegateInbound(publishes,
+                                    directExecutorService,
+                                    protocolAdapter,
+                                    dynamicContext);
+
+                    return FutureConverter.toCompletableFuture(publishFuture);
+                });
+    }
 }
 
 
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.google.common.base.Preconditions;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * Decides which samples of a subscription are published, as configured by its
+ * {@link AbstractProtocolAdapterConfig.ReportByException}. A sample consists of a fixed amount of values, for example
+ * all registers of a Modbus subscription, and is published as a whole if any of its values changed.
+ * <p>
+ * The state is kept in primitive arrays that are allocated once, offering a sample does not allocate unless a sliding
+ * window has to grow. A sliding window keeps running sums and monotonic deques of its minimum and maximum, so a sample
+ * costs amortized constant time per value no matter how many samples the window holds.
+ * <p>
+ * The heartbeat of the maximum publish interval and the end of a tumbling window are evaluated when a sample is
+ * offered, a subscription that does not deliver samples does not publish. These options therefore only suit polling
+ * subscriptions, which offer a sample with every poll.
+ * <p>
+ * A filter is not thread safe, it is meant to be owned by a single poller or subscription callback.
+ */
+public class ReportByExceptionFilter {
+
+    private static final int INITIAL_SLIDING_WINDOW_CAPACITY = 16;
+
+    private final @NotNull AbstractProtocolAdapterConfig.ReportByException config;
+    private final int width;
+    private final @NotNull double[] report;
+    private final @NotNull double[] lastPublished;
+    private long lastPublishTimestamp;
+    private boolean hasPublished;
+
+    //-- tumbling window
+    private final @NotNull double[] windowMin;
+    private final @NotNull double[] windowMax;
+    private final @NotNull double[] windowSum;
+    private final @NotNull double[] windowLast;
+    private long windowStart;
+    private long windowCount;
+
+    //-- sliding window, a ring of samples of which every sample takes width slots
+    private @NotNull long[] sampleTimestamps;
+    private @NotNull double[] samples;
+    private int head;
+    private int size;
+    //-- NaN values are only counted, a window that holds one has NaN as minimum, maximum and average
+    private final @NotNull int[] nanCounts;
+    //-- the sums only cover finite values, the infinities are counted so they can leave the window again
+    private final @NotNull double[] sums;
+    private final @NotNull int[] positiveInfinityCounts;
+    private final @NotNull int[] negativeInfinityCounts;
+    private int evictionsSinceResum;
+    //-- a deque of ring slots per value, the values of the slots ascend for MIN and descend for MAX, so the first slot
+    //-- holds the aggregate. Every deque takes as many slots as the ring has samples.
+    private @NotNull int[] deques;
+    private final @NotNull int[] dequeHeads;
+    private final @NotNull int[] dequeSizes;
+
+    public ReportByExceptionFilter(
+            final @NotNull AbstractProtocolAdapterConfig.ReportByException config, final int width) {
+        Preconditions.checkNotNull(config);
+        Preconditions.checkArgument(width > 0, "A sample must have at least one value");
+        this.config = config;
+        this.width = width;
+        this.report = new double[width];
+        this.lastPublished = new double[width];
+        final boolean tumbling = config.getWindowMillis() > 0 &&
+                config.getWindowType() == AbstractProtocolAdapterConfig.WindowType.TUMBLING;
+        final boolean sliding = config.getWindowMillis() > 0 &&
+                config.getWindowType() == AbstractProtocolAdapterConfig.WindowType.SLIDING;
+        this.windowMin = new double[tumbling ? width : 0];
+        this.windowMax = new double[tumbling ? width : 0];
+        this.windowSum = new double[tumbling ? width : 0];
+        this.windowLast = new double[tumbling ? width : 0];
+        this.sampleTimestamps = new long[sliding ? INITIAL_SLIDING_WINDOW_CAPACITY : 0];
+        this.samples = new double[sliding ? INITIAL_SLIDING_WINDOW_CAPACITY * width : 0];
+        final AbstractProtocolAdapterConfig.WindowAggregate aggregate = config.getWindowAggregate();
+        final boolean average = sliding && aggregate == AbstractProtocolAdapterConfig.WindowAggregate.AVG;
+        final boolean extremum = sliding && (aggregate == AbstractProtocolAdapterConfig.WindowAggregate.MIN ||
+                aggregate == AbstractProtocolAdapterConfig.WindowAggregate.MAX);
+        this.nanCounts = new int[average || extremum ? width : 0];
+        this.sums = new double[average ? width : 0];
+        this.positiveInfinityCounts = new int[average ? width : 0];
+        this.negativeInfinityCounts = new int[average ? width : 0];
+        this.deques = new int[extremum ? INITIAL_SLIDING_WINDOW_CAPACITY * width : 0];
+        this.dequeHeads = new int[extremum ? width : 0];
+        this.dequeSizes = new int[extremum ? width : 0];
+    }
+
+    /**
+     * @param sample    the values of the sample, at least {@link #getWidth()} values
+     * @param timestamp the time in milliseconds the sample was taken
+     * @return true if the values of {@link #getReport()} are to be published
+     */
+    public boolean offer(final @NotNull double[] sample, final long timestamp) {
+        if (config.getWindowMillis() <= 0) {
+            System.arraycopy(sample, 0, report, 0, width);
+        } else if (config.getWindowType() == AbstractProtocolAdapterConfig.WindowType.SLIDING) {
+            addToSlidingWindow(sample, timestamp);
+        } else if (!addToTumblingWindow(sample, timestamp)) {
+            return false;
+        }
+        return decide(timestamp);
+    }
+
+    /**
+     * @return the values to publish after {@link #offer(double[], long)} returned true, the array is reused by the next
+     *         offer
+     */
+    public @NotNull double[] getReport() {
+        return report;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private boolean decide(final long timestamp) {
+        if (hasPublished) {
+            final long elapsed = timestamp - lastPublishTimestamp;
+            if (elapsed < config.getMinPublishIntervalMillis()) {
+                return false;
+            }
+            final boolean heartbeat =
+                    config.getMaxPublishIntervalMillis() > 0 && elapsed >= config.getMaxPublishIntervalMillis();
+            if (!heartbeat && !changed()) {
+                return false;
+            }
+        }
+        hasPublished = true;
+        lastPublishTimestamp = timestamp;
+        System.arraycopy(report, 0, lastPublished, 0, width);
+        return true;
+    }
+
+    private boolean changed() {
+        for (int i = 0; i < width; i++) {
+            final double difference = Math.abs(report[i] - lastPublished[i]);
+            if (Double.isNaN(difference)) {
+                //-- a value became or stopped being NaN, or an infinity changed its sign
+                if (Double.compare(report[i], lastPublished[i]) != 0) {
+                    return true;
+                }
+            } else if (difference > config.getAbsoluteDeadband() &&
+                    difference > Math.abs(lastPublished[i]) * config.getPercentDeadband() / 100) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the sample ended the previous window, its aggregate is then in {@link #report}
+     */
+    private boolean addToTumblingWindow(final @NotNull double[] sample, final long timestamp) {
+        boolean ended = false;
+        if (windowCount == 0) {
+            windowStart = timestamp;
+        } else if (timestamp - windowStart >= config.getWindowMillis()) {
+            for (int i = 0; i < width; i++) {
+                report[i] = aggregate(windowMin[i], windowMax[i], windowSum[i], windowLast[i], windowCount);
+            }
+            ended = true;
+            //-- windows stay aligned to the first sample, even if a whole window passed without a sample
+            windowStart = timestamp - (timestamp - windowStart) % config.getWindowMillis();
+            windowCount = 0;
+        }
+        for (int i = 0; i < width; i++) {
+            final double value = sample[i];
+            if (windowCount == 0) {
+                windowMin[i] = value;
+                windowMax[i] = value;
+                windowSum[i] = value;
+            } else {
+                windowMin[i] = Math.min(windowMin[i], value);
+                windowMax[i] = Math.max(windowMax[i], value);
+                windowSum[i] += value;
+            }
+            windowLast[i] = value;
+        }
+        windowCount++;
+        return ended;
+    }
+
+    private void addToSlidingWindow(final @NotNull double[] sample, final long timestamp) {
+        while (size > 0 && timestamp - sampleTimestamps[head] >= config.getWindowMillis()) {
+            evictFromSlidingWindow();
+        }
+        if (size == sampleTimestamps.length) {
+            growSlidingWindow();
+        }
+        final int capacity = sampleTimestamps.length;
+        final int tail = (head + size) % capacity;
+        sampleTimestamps[tail] = timestamp;
+        System.arraycopy(sample, 0, samples, tail * width, width);
+        size++;
+
+        for (int i = 0; i < width; i++) {
+            final double value = sample[i];
+            if (nanCounts.length > 0) {
+                count(i, value, 1);
+            }
+            if (deques.length > 0) {
+                pushToDeque(i, tail, value);
+            }
+            report[i] = slidingAggregate(i, value);
+        }
+    }
+
+    private void evictFromSlidingWindow() {
+        final int capacity = sampleTimestamps.length;
+        for (int i = 0; i < width; i++) {
+            if (nanCounts.length > 0) {
+                count(i, samples[head * width + i], -1);
+            }
+            if (deques.length > 0 && dequeSizes[i] > 0 && deques[i * capacity + dequeHeads[i]] == head) {
+                dequeHeads[i] = (dequeHeads[i] + 1) % capacity;
+                dequeSizes[i]--;
+            }
+        }
+        head = (head + 1) % capacity;
+        size--;
+        if (sums.length > 0 && ++evictionsSinceResum >= capacity) {
+            resum();
+        }
+    }
+
+    private void count(final int index, final double value, final int delta) {
+        if (Double.isNaN(value)) {
+            nanCounts[index] += delta;
+        } else if (sums.length == 0) {
+            return;
+        } else if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinityCounts[index] += delta;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinityCounts[index] += delta;
+        } else {
+            sums[index] += delta * value;
+        }
+    }
+
+    /**
+     * Recomputes the sums from the samples of the window, so the rounding errors of the values that left the window
+     * do not add up. Called once per capacity evictions, which keeps it amortized constant per sample.
+     */
+    private void resum() {
+        evictionsSinceResum = 0;
+        final int capacity = sampleTimestamps.length;
+        for (int i = 0; i < width; i++) {
+            double sum = 0;
+            for (int j = 0; j < size; j++) {
+                final double value = samples[((head + j) % capacity) * width + i];
+                if (Double.isFinite(value)) {
+                    sum += value;
+                }
+            }
+            sums[i] = sum;
+        }
+    }
+
+    private void pushToDeque(final int index, final int slot, final double value) {
+        final int capacity = sampleTimestamps.length;
+        final int offset = index * capacity;
+        final boolean minimum = config.getWindowAggregate() == AbstractProtocolAdapterConfig.WindowAggregate.MIN;
+        //-- values that can no longer become the aggregate before they leave the window are dropped
+        while (dequeSizes[index] > 0) {
+            final int last = deques[offset + (dequeHeads[index] + dequeSizes[index] - 1) % capacity];
+            final int comparison = Double.compare(samples[last * width + index], value);
+            if (minimum ? comparison < 0 : comparison > 0) {
+                break;
+            }
+            dequeSizes[index]--;
+        }
+        deques[offset + (dequeHeads[index] + dequeSizes[index]) % capacity] = slot;
+        dequeSizes[index]++;
+    }
+
+    private double slidingAggregate(final int index, final double last) {
+        switch (config.getWindowAggregate()) {
+            case MIN:
+            case MAX:
+                if (nanCounts[index] > 0) {
+                    return Double.NaN;
+                }
+                return samples[deques[index * sampleTimestamps.length + dequeHeads[index]] * width + index];
+            case COUNT:
+                return size;
+            case LAST:
+                return last;
+            case AVG:
+            default:
+                if (nanCounts[index] > 0 ||
+                        (positiveInfinityCounts[index] > 0 && negativeInfinityCounts[index] > 0)) {
+                    return Double.NaN;
+                } else if (positiveInfinityCounts[index] > 0) {
+                    return Double.POSITIVE_INFINITY;
+                } else if (negativeInfinityCounts[index] > 0) {
+                    return Double.NEGATIVE_INFINITY;
+                }
+                return sums[index] / size;
+        }
+    }
+
+    private void growSlidingWindow() {
+        final int capacity = sampleTimestamps.length;
+        final long[] grownTimestamps = new long[capacity * 2];
+        final double[] grownSamples = new double[capacity * 2 * width];
+        for (int j = 0; j < size; j++) {
+            final int index = (head + j) % capacity;
+            grownTimestamps[j] = sampleTimestamps[index];
+            System.arraycopy(samples, index * width, grownSamples, j * width, width);
+        }
+        if (deques.length > 0) {
+            //-- the slots move with the samples, the oldest sample is at slot 0 afterwards
+            final int[] grownDeques = new int[capacity * 2 * width];
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < dequeSizes[i]; j++) {
+                    final int slot = deques[i * capacity + (dequeHeads[i] + j) % capacity];
+                    grownDeques[i * capacity * 2 + j] = (slot - head + capacity) % capacity;
+                }
+                dequeHeads[i] = 0;
+            }
+            deques = grownDeques;
+        }
+        sampleTimestamps = grownTimestamps;
+        samples = grownSamples;
+        head = 0;
+    }
+
+    private double aggregate(
+            final double min, final double max, final double sum, final double last, final long count) {
+        switch (config.getWindowAggregate()) {
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            case COUNT:
+                return count;
+            case LAST:
+                return last;
+            case AVG:
+            default:
+                return sum / count;
+        }
+    }
+}
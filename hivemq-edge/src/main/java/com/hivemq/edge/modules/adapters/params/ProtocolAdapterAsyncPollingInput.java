@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.params;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * A polling job that does not block. The polling service starts it on its scheduler thread instead of a thread that
+ * is reserved for blocking polls, the job completes the returned stage once the poll finished.
+ */
+public interface ProtocolAdapterAsyncPollingInput extends ProtocolAdapterPollingInput {
+
+    /**
+     * Start the work associated with this polling job without blocking the calling thread. The next poll is not
+     * started before the returned stage completed, a stage that completes exceptionally is backed off like an exception
+     * of {@link #execute()}.
+     *
+     * @param blockingExecutor the executor of the polling service for work that blocks, like connecting to a device
+     * @return the stage that completes when the poll finished
+     */
+    @NotNull CompletionStage<Void> executeAsync(@NotNull Executor blockingExecutor);
+
+    /**
+     * Runs a poll and waits until it finished.
+     */
+    @Override
+    default void execute() throws Exception {
+        executeAsync(Runnable::run).toCompletableFuture().get();
+    }
+}
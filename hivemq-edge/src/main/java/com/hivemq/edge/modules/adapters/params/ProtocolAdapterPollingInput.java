@@ -15,6 +15,8 @@
  */
 package com.hivemq.edge.modules.adapters.params;
 
+import com.hivemq.configuration.service.InternalConfigurations;
+
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,11 +33,21 @@ public interface ProtocolAdapterPollingInput {
     /**
      * Do the work associated with this polling job. It is acceptable to throw exceptions from this method,
      * they will be caught and the process will be backed off accordingly
+     * <p>
+     * This method may block, it is called on a thread of the polling service that is reserved for blocking polls.
+     * Polling jobs that do not block implement {@link ProtocolAdapterAsyncPollingInput} instead.
      *
      * @throws Exception
      */
     void execute() throws Exception;
 
+    /**
+     * @return the time a poll may take before it is failed and counted as an error
+     */
+    default long getPollTimeoutMillis() {
+        return InternalConfigurations.PROTOCOL_ADAPTER_POLL_TIMEOUT_MILLIS.get();
+    }
+
     /**
      * Called when the job is remove from the pool
      */
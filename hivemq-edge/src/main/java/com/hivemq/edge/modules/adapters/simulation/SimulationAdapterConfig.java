@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.hivemq.edge.modules.adapters.annotations.ModuleConfigField;
 import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +40,11 @@ public class SimulationAdapterConfig extends AbstractProtocolAdapterConfig {
                        required = true)
     private @NotNull List<Subscription> subscriptions = new ArrayList<>();
 
+    @JsonProperty("loadGenerator")
+    @ModuleConfigField(title = "Load generator",
+                       description = "Publishes generated messages at a target rate below the destination of every subscription, instead of one random value per polling interval. The QoS of the subscriptions is not used, the load generator has its own QoS mix.")
+    private @Nullable LoadGenerator loadGenerator = null;
+
     public SimulationAdapterConfig() {
     }
 
@@ -65,4 +71,171 @@ public class SimulationAdapterConfig extends AbstractProtocolAdapterConfig {
         return subscriptions;
     }
 
+    public @Nullable LoadGenerator getLoadGenerator() {
+        return loadGenerator;
+    }
+
+    public void setLoadGenerator(final @Nullable LoadGenerator loadGenerator) {
+        this.loadGenerator = loadGenerator;
+    }
+
+    public static class LoadGenerator {
+
+        @JsonProperty("messagesPerSecond")
+        @ModuleConfigField(title = "Messages per second",
+                           description = "Target rate of published messages",
+                           defaultValue = "1000",
+                           numberMin = 1,
+                           numberMax = 1000000)
+        private int messagesPerSecond = 1000;
+
+        @JsonProperty("topicCount")
+        @ModuleConfigField(title = "Topics",
+                           description = "Amount of topics below the destination of every subscription, messages are published to them in turn",
+                           defaultValue = "100",
+                           numberMin = 1,
+                           numberMax = 1000000)
+        private int topicCount = 100;
+
+        @JsonProperty("topicLevels")
+        @ModuleConfigField(title = "Topic levels",
+                           description = "Amount of topic levels the topics are spread over below the destination",
+                           defaultValue = "3",
+                           numberMin = 1,
+                           numberMax = 16)
+        private int topicLevels = 3;
+
+        @JsonProperty("minPayloadSize")
+        @ModuleConfigField(title = "Minimum payload size [bytes]",
+                           description = "Smallest payload of a generated message",
+                           defaultValue = "64",
+                           numberMin = 0,
+                           numberMax = 268435455)
+        private int minPayloadSize = 64;
+
+        @JsonProperty("maxPayloadSize")
+        @ModuleConfigField(title = "Maximum payload size [bytes]",
+                           description = "Largest payload of a generated message",
+                           defaultValue = "64",
+                           numberMin = 0,
+                           numberMax = 268435455)
+        private int maxPayloadSize = 64;
+
+        @JsonProperty("payloadSizeDistribution")
+        @ModuleConfigField(title = "Payload size distribution",
+                           description = "How the payload sizes are distributed between the minimum and the maximum size",
+                           defaultValue = "UNIFORM")
+        private @NotNull PayloadSizeDistribution payloadSizeDistribution = PayloadSizeDistribution.UNIFORM;
+
+        @JsonProperty("qos1Percentage")
+        @ModuleConfigField(title = "QoS 1 [%]",
+                           description = "Share of messages that are published with QoS 1",
+                           defaultValue = "0",
+                           numberMin = 0,
+                           numberMax = 100)
+        private int qos1Percentage = 0;
+
+        @JsonProperty("qos2Percentage")
+        @ModuleConfigField(title = "QoS 2 [%]",
+                           description = "Share of messages that are published with QoS 2, all other messages use QoS 0",
+                           defaultValue = "0",
+                           numberMin = 0,
+                           numberMax = 100)
+        private int qos2Percentage = 0;
+
+        @JsonProperty("retainedPercentage")
+        @ModuleConfigField(title = "Retained [%]",
+                           description = "Share of messages that are published as retained messages",
+                           defaultValue = "0",
+                           numberMin = 0,
+                           numberMax = 100)
+        private int retainedPercentage = 0;
+
+        @JsonProperty("burstMessagesPerSecond")
+        @ModuleConfigField(title = "Burst messages per second",
+                           description = "Rate of published messages during a burst, 0 disables bursts",
+                           defaultValue = "0",
+                           numberMin = 0,
+                           numberMax = 1000000)
+        private int burstMessagesPerSecond = 0;
+
+        @JsonProperty("burstDurationMillis")
+        @ModuleConfigField(title = "Burst duration [ms]",
+                           description = "How long a burst lasts",
+                           defaultValue = "1000",
+                           numberMin = 0,
+                           numberMax = 86400000)
+        private int burstDurationMillis = 1000;
+
+        @JsonProperty("burstIntervalMillis")
+        @ModuleConfigField(title = "Burst interval [ms]",
+                           description = "Time from the start of one burst to the start of the next burst",
+                           defaultValue = "60000",
+                           numberMin = 1,
+                           numberMax = 86400000)
+        private int burstIntervalMillis = 60000;
+
+        public LoadGenerator() {
+        }
+
+        public int getMessagesPerSecond() {
+            return messagesPerSecond;
+        }
+
+        public int getTopicCount() {
+            return topicCount;
+        }
+
+        public int getTopicLevels() {
+            return topicLevels;
+        }
+
+        public int getMinPayloadSize() {
+            return minPayloadSize;
+        }
+
+        public int getMaxPayloadSize() {
+            return maxPayloadSize;
+        }
+
+        public @NotNull PayloadSizeDistribution getPayloadSizeDistribution() {
+            return payloadSizeDistribution;
+        }
+
+        public int getQos1Percentage() {
+            return qos1Percentage;
+        }
+
+        public int getQos2Percentage() {
+            return qos2Percentage;
+        }
+
+        public int getRetainedPercentage() {
+            return retainedPercentage;
+        }
+
+        public int getBurstMessagesPerSecond() {
+            return burstMessagesPerSecond;
+        }
+
+        public int getBurstDurationMillis() {
+            return burstDurationMillis;
+        }
+
+        public int getBurstIntervalMillis() {
+            return burstIntervalMillis;
+        }
+    }
+
+    public enum PayloadSizeDistribution {
+        /**
+         * Every size between the minimum and the maximum is equally likely.
+         */
+        UNIFORM,
+        /**
+         * Sizes are normally distributed around the middle of the minimum and the maximum, the minimum and the maximum
+         * are three standard deviations away from it.
+         */
+        NORMAL
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.simulation;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the messages of the load generator mode of the {@link SimulationProtocolAdapter}.
+ * <p>
+ * The rate is controlled by integrating the target rate over the time that passed since the previous call of
+ * {@link #due(long)}, so the achieved rate does not depend on how precisely the calls are scheduled. Messages that are
+ * due for longer than {@link #MAX_CATCH_UP_NANOS} are not published anymore but counted as missed, a gateway that
+ * can not keep up with the target rate is not flooded with a backlog when it catches up.
+ * <p>
+ * Not thread safe, the polling service does not run two polls of the same job at the same time.
+ */
+public class SimulationLoadGenerator {
+
+    static final long MAX_CATCH_UP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    static final int MAX_PAYLOAD_POOL_SIZE = 64 * 1024;
+
+    private final @NotNull SimulationAdapterConfig.LoadGenerator config;
+    private final @NotNull ImmutableList<String> topics;
+    private final @NotNull Random random;
+    private final @NotNull byte[] payloadPool;
+
+    private long startNanos;
+    private long lastNanos;
+    private boolean started;
+    private double credit;
+    private int topicCursor;
+    private volatile long missed;
+
+    public SimulationLoadGenerator(
+            final @NotNull SimulationAdapterConfig.LoadGenerator config,
+            final @NotNull List<String> destinations,
+            final @NotNull Random random) {
+        Preconditions.checkArgument(!destinations.isEmpty(), "The load generator needs at least one subscription");
+        Preconditions.checkArgument(config.getTopicLevels() >= 1 && config.getTopicCount() >= 1,
+                "The load generator needs at least one topic level and at least one topic");
+        Preconditions.checkArgument(config.getMinPayloadSize() <= config.getMaxPayloadSize(),
+                "The minimum payload size of the load generator must not be larger than the maximum payload size");
+        Preconditions.checkArgument(config.getQos1Percentage() + config.getQos2Percentage() <= 100,
+                "The QoS 1 and QoS 2 percentages of the load generator must not add up to more than 100");
+        Preconditions.checkArgument(config.getBurstMessagesPerSecond() == 0 ||
+                        config.getBurstDurationMillis() < config.getBurstIntervalMillis(),
+                "The burst duration of the load generator must be shorter than the burst interval");
+        this.config = config;
+        this.topics = topics(destinations, config.getTopicCount(), config.getTopicLevels());
+        this.random = random;
+        // payloads are copied from random offsets of the pool, so they differ without generating random bytes each time
+        this.payloadPool = new byte[(int) Math.max(1,
+                Math.min((long) config.getMaxPayloadSize() * 2, MAX_PAYLOAD_POOL_SIZE))];
+        for (int i = 0; i < payloadPool.length; i++) {
+            payloadPool[i] = (byte) ('a' + random.nextInt(26));
+        }
+    }
+
+    /**
+     * Spreads the topics over the topic levels as a tree that has the same amount of children on every level, for
+     * example 100 topics on 2 levels are <code>destination/0/0</code> to <code>destination/9/9</code>.
+     */
+    static @NotNull ImmutableList<String> topics(
+            final @NotNull List<String> destinations, final int topicCount, final int topicLevels) {
+        int children = 1;
+        while (Math.pow(children, topicLevels) < topicCount) {
+            children++;
+        }
+        final ImmutableList.Builder<String> topics =
+                ImmutableList.builderWithExpectedSize(destinations.size() * topicCount);
+        final StringBuilder topic = new StringBuilder();
+        for (final String destination : destinations) {
+            for (int i = 0; i < topicCount; i++) {
+                topic.setLength(0);
+                topic.append(destination);
+                int remaining = i;
+                final int[] path = new int[topicLevels];
+                for (int level = topicLevels - 1; level >= 0; level--) {
+                    path[level] = remaining % children;
+                    remaining /= children;
+                }
+                for (final int child : path) {
+                    topic.append('/').append(child);
+                }
+                topics.add(topic.toString());
+            }
+        }
+        return topics.build();
+    }
+
+    /**
+     * @param nanoTime the current {@link System#nanoTime()}
+     * @return the amount of messages that are due since the previous call
+     */
+    public int due(final long nanoTime) {
+        if (!started) {
+            started = true;
+            startNanos = nanoTime;
+            lastNanos = nanoTime;
+            return 0;
+        }
+        final long messagesPerSecond = messagesPerSecond(TimeUnit.NANOSECONDS.toMillis(lastNanos - startNanos));
+        credit += messagesPerSecond * (double) (nanoTime - lastNanos) / TimeUnit.SECONDS.toNanos(1);
+        lastNanos = nanoTime;
+
+        final double maxCredit = messagesPerSecond * (double) MAX_CATCH_UP_NANOS / TimeUnit.SECONDS.toNanos(1);
+        if (credit > Math.max(maxCredit, 1)) {
+            final long dropped = (long) (credit - Math.max(maxCredit, 1));
+            missed += dropped;
+            credit -= dropped;
+        }
+        final int due = (int) credit;
+        credit -= due;
+        return due;
+    }
+
+    long messagesPerSecond(final long elapsedMillis) {
+        if (config.getBurstMessagesPerSecond() > 0 &&
+                elapsedMillis % config.getBurstIntervalMillis() < config.getBurstDurationMillis()) {
+            return config.getBurstMessagesPerSecond();
+        }
+        return config.getMessagesPerSecond();
+    }
+
+    /**
+     * Adds the given amount of generated messages to the batch.
+     */
+    public void generate(final @NotNull ProtocolAdapterPublishBatchBuilder batch, final int count) {
+        for (int i = 0; i < count; i++) {
+            final String topic = topics.get(topicCursor);
+            topicCursor = (topicCursor + 1) % topics.size();
+            batch.add(topic,
+                    payload(),
+                    qos(),
+                    random.nextInt(100) < config.getRetainedPercentage(),
+                    PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET,
+                    ImmutableMap.of());
+        }
+    }
+
+    private @NotNull byte[] payload() {
+        final int min = config.getMinPayloadSize();
+        final int max = config.getMaxPayloadSize();
+        final int size;
+        switch (config.getPayloadSizeDistribution()) {
+            case NORMAL:
+                final double gaussian = (min + max) / 2.0 + random.nextGaussian() * (max - min) / 6.0;
+                size = (int) Math.max(min, Math.min(max, Math.round(gaussian)));
+                break;
+            case UNIFORM:
+            default:
+                size = min + random.nextInt(max - min + 1);
+        }
+        final int offset = random.nextInt(payloadPool.length);
+        if (offset + size <= payloadPool.length) {
+            return Arrays.copyOfRange(payloadPool, offset, offset + size);
+        }
+        //-- the pool is smaller than large payloads, they repeat the pool from the offset on
+        final byte[] payload = new byte[size];
+        int written = 0;
+        int poolOffset = offset;
+        while (written < size) {
+            final int length = Math.min(size - written, payloadPool.length - poolOffset);
+            System.arraycopy(payloadPool, poolOffset, payload, written, length);
+            written += length;
+            poolOffset = 0;
+        }
+        return payload;
+    }
+
+    private int qos() {
+        final int percentile = random.nextInt(100);
+        if (percentile < config.getQos2Percentage()) {
+            return 2;
+        }
+        if (percentile < config.getQos2Percentage() + config.getQos1Percentage()) {
+            return 1;
+        }
+        return 0;
+    }
+
+    public @NotNull ImmutableList<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * @return the amount of messages that were due but not published because the gateway could not keep up
+     */
+    public long getMissed() {
+        return missed;
+    }
+}
@@ -15,13 +15,21 @@
  */
 package com.hivemq.edge.modules.adapters.simulation;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterInformation;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.adapters.impl.AbstractProtocolAdapter;
+import com.hivemq.edge.modules.adapters.impl.ReportByExceptionFilter;
 import com.hivemq.edge.modules.adapters.params.NodeTree;
 import com.hivemq.edge.modules.adapters.params.NodeType;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterAsyncPollingInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryOutput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingOutput;
@@ -30,6 +38,7 @@ import com.hivemq.edge.modules.adapters.params.ProtocolAdapterStartOutput;
 import com.hivemq.edge.modules.adapters.params.impl.ProtocolAdapterPollingInputImpl;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import com.hivemq.mqtt.message.QoS;
 import org.slf4j.Logger;
@@ -37,12 +46,21 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class SimulationProtocolAdapter extends AbstractProtocolAdapter {
     private static final Logger log = LoggerFactory.getLogger(SimulationProtocolAdapter.class);
+    /**
+     * The load generator publishes the messages that are due every tick, the rate does not depend on the tick.
+     */
+    private static final long LOAD_GENERATOR_TICK_MILLIS = 10;
+    private static final int LOAD_GENERATOR_MAX_ERRORS_BEFORE_REMOVAL = 25;
     private final @NotNull SimulationAdapterConfig adapterConfig;
     private @NotNull Status status = Status.DISCONNECTED;
     private volatile @Nullable List<ProtocolAdapterPollingOutput> active = new ArrayList<>();
@@ -66,7 +84,14 @@ public class SimulationProtocolAdapter extends AbstractProtocolAdapter {
         try {
             bindServices(input.moduleServices());
             initStartAttempt();
-            if (adapterConfig.getSubscriptions() != null) {
+            if (adapterConfig.getLoadGenerator() != null) {
+                startPolling(new LoadGeneratorPoller(new SimulationLoadGenerator(adapterConfig.getLoadGenerator(),
+                        adapterConfig.getSubscriptions()
+                                .stream()
+                                .map(SimulationAdapterConfig.Subscription::getDestination)
+                                .collect(Collectors.toList()),
+                        new Random())));
+            } else if (adapterConfig.getSubscriptions() != null) {
                 for (SimulationAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
                     subscribeInternal(subscription);
                 }
@@ -86,12 +111,13 @@ public class SimulationProtocolAdapter extends AbstractProtocolAdapter {
         protocolAdapterPollingService.getPollingJobsForAdapter(getId())
                 .stream()
                 .forEach(protocolAdapterPollingService::stopPolling);
+        metricRegistry.removeMatching(MetricFilter.startsWith(loadGeneratorMetricPrefix()));
         //-- Disconnect client
         status = Status.DISCONNECTED;
         return CompletableFuture.completedFuture(null);
     }
 
-    private void startPolling(final @NotNull SimulationPoller poller) {
+    private void startPolling(final @NotNull ProtocolAdapterPollingInputImpl poller) {
         protocolAdapterPollingService.schedulePolling(this, poller);
     }
 
@@ -145,9 +171,82 @@ public class SimulationProtocolAdapter extends AbstractProtocolAdapter {
         });
     }
 
-    class SimulationPoller extends ProtocolAdapterPollingInputImpl {
+    private @NotNull String loadGeneratorMetricPrefix() {
+        return HiveMQMetrics.PROTOCOL_ADAPTER_PREFIX +
+                getProtocolAdapterInformation().getProtocolId() +
+                "." +
+                getId() +
+                ".load-generator.";
+    }
+
+    /**
+     * Publishes the messages of the load generator through the publish path of the adapters, one batch per tick.
+     * The achieved rate, the messages that could not be published, the messages the gateway could not keep up with and
+     * the time until a batch is published are reported as metrics.
+     * <p>
+     * The messages are generated and handed to the publish service on the blocking threads of the polling service, the
+     * scheduler thread that starts the polls of all adapters is not held up by large batches. Messages that can not be
+     * published are counted but do not stop the load generator.
+     */
+    class LoadGeneratorPoller extends ProtocolAdapterPollingInputImpl implements ProtocolAdapterAsyncPollingInput {
+
+        private final @NotNull SimulationLoadGenerator loadGenerator;
+        private final @NotNull Meter published;
+        private final @NotNull Counter failed;
+        private final @NotNull Timer latency;
+
+        LoadGeneratorPoller(final @NotNull SimulationLoadGenerator loadGenerator) {
+            super(LOAD_GENERATOR_TICK_MILLIS,
+                    LOAD_GENERATOR_TICK_MILLIS,
+                    TimeUnit.MILLISECONDS,
+                    LOAD_GENERATOR_MAX_ERRORS_BEFORE_REMOVAL);
+            this.loadGenerator = loadGenerator;
+            final String metricPrefix = loadGeneratorMetricPrefix();
+            published = metricRegistry.meter(metricPrefix + "published");
+            failed = metricRegistry.counter(metricPrefix + "failed.count");
+            latency = metricRegistry.timer(metricPrefix + "batch.latency");
+            metricRegistry.remove(metricPrefix + "missed.count");
+            metricRegistry.register(metricPrefix + "missed.count", (Gauge<Long>) loadGenerator::getMissed);
+        }
+
+        @Override
+        public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+            return CompletableFuture.supplyAsync(this::publishDue, blockingExecutor).thenCompose(sent -> sent);
+        }
+
+        private @NotNull CompletionStage<Void> publishDue() {
+            final int due = loadGenerator.due(System.nanoTime());
+            if (due == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final ProtocolAdapterPublishBatchBuilder batch = adapterPublishService.publishBatch();
+            loadGenerator.generate(batch, due);
+            final Timer.Context batchLatency = latency.time();
+            return batch.send().handle((publishReturnCodes, throwable) -> {
+                batchLatency.stop();
+                if (throwable != null) {
+                    failed.inc(due);
+                    log.debug("Load generator of adapter '{}' was not able to publish a batch", getId(), throwable);
+                    return null;
+                }
+                int failedCount = 0;
+                for (final PublishReturnCode publishReturnCode : publishReturnCodes) {
+                    if (publishReturnCode == PublishReturnCode.FAILED) {
+                        failedCount++;
+                    }
+                }
+                published.mark(publishReturnCodes.size() - failedCount);
+                failed.inc(failedCount);
+                return null;
+            });
+        }
+    }
+
+    class SimulationPoller extends ProtocolAdapterPollingInputImpl implements ProtocolAdapterAsyncPollingInput {
 
         private final SimulationAdapterConfig.Subscription subscription;
+        private final @Nullable ReportByExceptionFilter filter;
+        private final @NotNull double[] sample = new double[1];
 
         public SimulationPoller(SimulationAdapterConfig.Subscription subscription) {
             super(adapterConfig.getPollingIntervalMillis(),
@@ -155,15 +254,38 @@ public class SimulationProtocolAdapter extends AbstractProtocolAdapter {
                     TimeUnit.MILLISECONDS,
                     1);
             this.subscription = subscription;
+            this.filter = subscription.getReportByException() != null ?
+                    new ReportByExceptionFilter(subscription.getReportByException(), 1) :
+                    null;
         }
 
         @Override
         public void execute() throws Exception {
             SimulationData data = createData();
-            data.setData(ThreadLocalRandom.current().nextDouble());
+            final double value = ThreadLocalRandom.current().nextDouble();
+            if (filter == null) {
+                data.setData(value);
+            } else {
+                sample[0] = value;
+                if (!filter.offer(sample, data.getSystemTime())) {
+                    return;
+                }
+                data.setData(filter.getReport()[0]);
+            }
             captured(data);
         }
 
+        @Override
+        public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+            //-- creating the data and handing it to the publish service does not block, no need for another thread
+            try {
+                execute();
+                return CompletableFuture.completedFuture(null);
+            } catch (final Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
         protected SimulationData createData() {
             SimulationData data = new SimulationData(SimulationData.TYPE.RANDOM,
                     subscription.getDestination(),
@@ -41,6 +41,12 @@ public interface ProtocolAdapterPollingService {
 
     int currentErrorCount(@NotNull ProtocolAdapterPollingOutput pollingJob);
 
+    /**
+     * @return the number of polls of the job that were skipped because the previous poll was still in progress or
+     *         the scheduler was late
+     */
+    long currentOverrunCount(@NotNull ProtocolAdapterPollingOutput pollingJob);
+
     void stopPolling(@NotNull ProtocolAdapterPollingOutput pollingJob);
 
     void stopPollingForAdapterInstance(@NotNull ProtocolAdapter adapter);
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.api.adapters;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes many messages of a protocol adapter at once, for example all values that were read in one poll. The
+ * context of the adapter and the interceptors are resolved once for the whole batch and the subscribers of all topics
+ * are looked up together.
+ */
+public interface ProtocolAdapterPublishBatchBuilder {
+
+    @NotNull ProtocolAdapterPublishBatchBuilder add(@NotNull String mqttTopic, @NotNull byte[] payload, int qos);
+
+    @NotNull ProtocolAdapterPublishBatchBuilder add(
+            @NotNull String mqttTopic,
+            @NotNull byte[] payload,
+            int qos,
+            boolean retained,
+            long messageExpiryInterval,
+            @NotNull Map<String, String> userProperties);
+
+    /**
+     * The context information applies to all messages of the batch.
+     */
+    @NotNull ProtocolAdapterPublishBatchBuilder withContextInformation(@NotNull String key, @NotNull String value);
+
+    int size();
+
+    /**
+     * @return a future that completes when all messages of the batch are published, with the return code of every
+     *         message in the order the messages were added. A message that could not be published is reported as
+     *         {@link PublishReturnCode#FAILED}.
+     */
+    @NotNull CompletableFuture<List<PublishReturnCode>> send();
+
+}
@@ -18,4 +18,6 @@ package com.hivemq.edge.modules.api.adapters;
 public interface ProtocolAdapterPublishService {
 
     ProtocolAdapterPublishBuilder publish();
+
+    ProtocolAdapterPublishBatchBuilder publishBatch();
 }
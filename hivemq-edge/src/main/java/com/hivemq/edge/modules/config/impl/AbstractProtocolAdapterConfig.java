@@ -49,6 +49,11 @@ public class AbstractProtocolAdapterConfig implements CustomConfig {
                            defaultValue = "0")
         private int qos = 0;
 
+        @JsonProperty("reportByException")
+        @ModuleConfigField(title = "Report by exception",
+                           description = "Publishes only the samples that changed by more than a deadband, optionally aggregated over a window")
+        private @Nullable ReportByException reportByException = null;
+
         public Subscription() {
         }
 
@@ -67,6 +72,110 @@ public class AbstractProtocolAdapterConfig implements CustomConfig {
         public int getQos() {
             return qos;
         }
+
+        public @Nullable ReportByException getReportByException() {
+            return reportByException;
+        }
+    }
+
+    /**
+     * Configures which samples of a subscription are published. Without a window every sample is a candidate, with a
+     * window the aggregate of the window is. A candidate is published if it changed by more than all deadbands since
+     * the last published value, unless the minimum publish interval has not passed yet. After the maximum publish
+     * interval a candidate is published even if it did not change.
+     */
+    public static class ReportByException {
+
+        @JsonProperty("absoluteDeadband")
+        @ModuleConfigField(title = "Absolute deadband",
+                           description = "Change of a value since it was last published that is not published",
+                           defaultValue = "0",
+                           numberMin = 0)
+        private double absoluteDeadband = 0;
+
+        @JsonProperty("percentDeadband")
+        @ModuleConfigField(title = "Percent deadband [%]",
+                           description = "Change of a value in percent of the last published value that is not published",
+                           defaultValue = "0",
+                           numberMin = 0)
+        private double percentDeadband = 0;
+
+        @JsonProperty("minPublishIntervalMillis")
+        @ModuleConfigField(title = "Minimum publish interval [ms]",
+                           description = "Time that must pass after a publish before the next changed value is published",
+                           defaultValue = "0",
+                           numberMin = 0)
+        private long minPublishIntervalMillis = 0;
+
+        @JsonProperty("maxPublishIntervalMillis")
+        @ModuleConfigField(title = "Maximum publish interval [ms]",
+                           description = "Time after which a value is published even if it did not change, 0 disables the heartbeat",
+                           defaultValue = "0",
+                           numberMin = 0)
+        private long maxPublishIntervalMillis = 0;
+
+        @JsonProperty("windowMillis")
+        @ModuleConfigField(title = "Window [ms]",
+                           description = "Length of the window the samples are aggregated over, 0 publishes the samples themselves",
+                           defaultValue = "0",
+                           numberMin = 0)
+        private long windowMillis = 0;
+
+        @JsonProperty("windowType")
+        @ModuleConfigField(title = "Window type",
+                           description = "A tumbling window is aggregated once it ended, a sliding window with every sample",
+                           defaultValue = "TUMBLING")
+        private @NotNull WindowType windowType = WindowType.TUMBLING;
+
+        @JsonProperty("windowAggregate")
+        @ModuleConfigField(title = "Window aggregate",
+                           description = "How the samples of a window are aggregated",
+                           defaultValue = "AVG")
+        private @NotNull WindowAggregate windowAggregate = WindowAggregate.AVG;
+
+        public ReportByException() {
+        }
+
+        public double getAbsoluteDeadband() {
+            return absoluteDeadband;
+        }
+
+        public double getPercentDeadband() {
+            return percentDeadband;
+        }
+
+        public long getMinPublishIntervalMillis() {
+            return minPublishIntervalMillis;
+        }
+
+        public long getMaxPublishIntervalMillis() {
+            return maxPublishIntervalMillis;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public @NotNull WindowType getWindowType() {
+            return windowType;
+        }
+
+        public @NotNull WindowAggregate getWindowAggregate() {
+            return windowAggregate;
+        }
+    }
+
+    public enum WindowType {
+        TUMBLING,
+        SLIDING
+    }
+
+    public enum WindowAggregate {
+        MIN,
+        MAX,
+        AVG,
+        COUNT,
+        LAST
     }
 
 }
@@ -51,9 +51,15 @@ public class Chunker {
             checkNotNull(singleWriterCall, "Single writer call must not be null");
 
 
+            final int openBuckets = bucketCount - cursor.getFinishedBuckets().size();
+            if (openBuckets <= 0) {
+                return Futures.immediateFuture(finishedResult(cursor));
+            }
+
             final ImmutableList.Builder<ListenableFuture<@NotNull BucketChunkResult<Map<String, T>>>> builder = ImmutableList.builder();
 
-            final int maxResults = maxChunkSize / (bucketCount - cursor.getFinishedBuckets().size());
+            // with many buckets the share of a single bucket can drop below one, but every bucket has to make progress
+            final int maxResults = Math.max(1, maxChunkSize / openBuckets);
             for (int i = 0; i < bucketCount; i++) {
                 //skip already finished buckets
                 if (!cursor.getFinishedBuckets().contains(i)) {
@@ -84,6 +90,14 @@ public class Chunker {
         }
     }
 
+    private static <T> @NotNull MultipleChunkResult<Map<String, @NotNull T>> finishedResult(final @NotNull ChunkCursor cursor) {
+        final ImmutableMap.Builder<Integer, BucketChunkResult<Map<String, T>>> resultBuilder = ImmutableMap.builder();
+        for (final Integer finishedBucketId : cursor.getFinishedBuckets()) {
+            resultBuilder.put(finishedBucketId, new BucketChunkResult<>(Map.of(), true, cursor.getLastKeys().get(finishedBucketId), finishedBucketId));
+        }
+        return new MultipleChunkResult<>(resultBuilder.build());
+    }
+
     public interface SingleWriterCall<T> {
         ListenableFuture<@NotNull BucketChunkResult<Map<String, T>>> call(final int bucket, final @NotNull String lastKey, final int maxResults);
     }
@@ -24,6 +24,7 @@ import com.hivemq.extension.sdk.api.packets.publish.PayloadFormatIndicator;
 import com.hivemq.extension.sdk.api.packets.publish.PublishPacket;
 import com.hivemq.extensions.packets.general.UserPropertiesImpl;
 import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.util.Bytes;
 
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -109,6 +110,22 @@ public class PublishPacketImpl implements PublishPacket {
                 publish.getTimestamp());
     }
 
+    /**
+     * @param origin the payload of the PUBLISH this packet was created from
+     * @return the payload bytes, the origin array itself if the payload was not replaced
+     */
+    public @Nullable byte[] getPayloadBytes(final @Nullable byte[] origin) {
+        return Bytes.fromBufferReusing(payload, origin);
+    }
+
+    /**
+     * @param origin the correlation data of the PUBLISH this packet was created from
+     * @return the correlation data bytes, the origin array itself if the correlation data was not replaced
+     */
+    public @Nullable byte[] getCorrelationDataBytes(final @Nullable byte[] origin) {
+        return Bytes.fromBufferReusing(correlationData, origin);
+    }
+
     @Override
     public @NotNull String getTopic() {
         return topic;
@@ -157,6 +157,13 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE =
             HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.queued-messages.in-memory.total-size");
 
+    /**
+     * represents a {@link Gauge}, which measures the disk usage of the queued message journals if the file
+     * persistence is used.
+     */
+    public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "persistence.queued-messages.file.total-size");
+
     /**
      * represents a {@link Counter} for the number of MQTT client channels which are currently not writable.
      */
@@ -180,6 +187,35 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Counter> WILL_MESSAGE_PUBLISHED_COUNT_TOTAL =
             HiveMQMetric.valueOf(HIVEMQ_PREFIX + "messages.will.published.count.total", Counter.class);
 
+    /**
+     * represents a {@link Counter}, which counts outgoing PUBLISH messages that reused the shared encoding of their
+     * topic and properties
+     */
+    public static final HiveMQMetric<Counter> PUBLISH_ENCODING_CACHE_HIT_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "messages.outgoing.publish.encoding-cache.hit.count", Counter.class);
 
-}
+    /**
+     * represents a {@link Counter}, which counts outgoing PUBLISH messages whose topic and properties had to be encoded
+     */
+    public static final HiveMQMetric<Counter> PUBLISH_ENCODING_CACHE_MISS_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "messages.outgoing.publish.encoding-cache.miss.count", Counter.class);
 
+    /**
+     * represents a {@link Gauge}, which measures the bytes held by the encoding cache of outgoing PUBLISH messages
+     */
+    public static final HiveMQMetric<Gauge<Number>> PUBLISH_ENCODING_CACHE_TOTAL_SIZE =
+            HiveMQMetric.gaugeValue(HIVEMQ_PREFIX + "messages.outgoing.publish.encoding-cache.total-size");
+
+    /**
+     * represents a {@link Counter}, which counts the subscriber lookups of published topics served by the topic tree
+     * cache
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_SUBSCRIBER_CACHE_HIT_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.hit.count", Counter.class);
+
+    /**
+     * represents a {@link Counter}, which counts the subscriber lookups of published topics that walked the topic tree
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_SUBSCRIBER_CACHE_MISS_COUNT =
+            HiveMQMetric.valueOf(HIVEMQ_PREFIX + "subscriptions.topic-tree.cache.miss.count", Counter.class);
+}
@@ -19,6 +19,7 @@ import com.hivemq.common.shutdown.HiveMQShutdownHook;
 import com.hivemq.common.shutdown.ShutdownHooks;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.metrics.jmx.JmxReporterBootstrap;
+import com.hivemq.metrics.timeseries.MetricTimeSeriesStore;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -31,12 +32,16 @@ public class MetricsShutdownHook implements HiveMQShutdownHook {
 
     private final @NotNull ShutdownHooks shutdownHooks;
     private final @NotNull JmxReporterBootstrap jmxReporterBootstrap;
+    private final @NotNull MetricTimeSeriesStore metricTimeSeriesStore;
 
     @Inject
     public MetricsShutdownHook(
-            final @NotNull ShutdownHooks shutdownHooks, final @NotNull JmxReporterBootstrap jmxReporterBootstrap) {
+            final @NotNull ShutdownHooks shutdownHooks,
+            final @NotNull JmxReporterBootstrap jmxReporterBootstrap,
+            final @NotNull MetricTimeSeriesStore metricTimeSeriesStore) {
         this.shutdownHooks = shutdownHooks;
         this.jmxReporterBootstrap = jmxReporterBootstrap;
+        this.metricTimeSeriesStore = metricTimeSeriesStore;
     }
 
     @Inject //method injection, this gets called once after instantiation
@@ -47,6 +52,7 @@ public class MetricsShutdownHook implements HiveMQShutdownHook {
     @Override
     public void run() {
         jmxReporterBootstrap.stop();
+        metricTimeSeriesStore.stop();
     }
 
     @Override
@@ -24,6 +24,7 @@ import com.hivemq.metrics.gauges.OpenConnectionsGauge;
 import com.hivemq.metrics.gauges.RetainedMessagesGauge;
 import com.hivemq.metrics.gauges.SessionsGauge;
 import com.hivemq.metrics.jmx.JmxReporterBootstrap;
+import com.hivemq.metrics.timeseries.MetricTimeSeriesStore;
 import com.hivemq.persistence.local.ClientSessionLocalPersistence;
 import com.hivemq.persistence.retained.RetainedMessagePersistence;
 import dagger.Module;
@@ -79,6 +80,7 @@ public class MetricsModule {
             final @NotNull OpenConnectionsGauge openConnectionsGauge,
             final @NotNull RetainedMessagesGauge retainedMessagesGauge,
             final @NotNull JmxReporterBootstrap jmxReporterBootstrap,
+            final @NotNull MetricTimeSeriesStore metricTimeSeriesStore,
             final @NotNull MetricsShutdownHook metricsShutdownHook) {
         // this is used to instantiate all the params, similar to guice's asEagerSingleton and returns nothing
         return Boolean.TRUE;
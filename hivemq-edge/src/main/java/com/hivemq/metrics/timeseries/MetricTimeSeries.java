@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.timeseries;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The sampled history of a single metric, kept in fixed size ring buffers of decreasing resolution.
+ * <p>
+ * Every sample is written to all tiers. A tier aggregates all samples of one of its buckets, monotonic counts keep the
+ * last sample of the bucket and gauges keep the mean. The ring buffers of a tier grow with its history up to the
+ * capacity of the tier, so a new series only takes the memory of the buckets it already filled. Once a tier wrapped
+ * around, its oldest buckets are overwritten, so the memory of a series never grows beyond its capacity.
+ * <p>
+ * A series is written by the single sampling thread and read by API threads, all access is synchronized.
+ */
+public class MetricTimeSeries {
+
+    private final boolean gauge;
+    private final @NotNull Tier[] tiers;
+
+    /**
+     * @param resolutionsMillis the bucket size of every tier, from the finest to the coarsest
+     * @param capacities        the amount of buckets of every tier
+     */
+    public MetricTimeSeries(
+            final boolean gauge, final @NotNull long[] resolutionsMillis, final @NotNull int[] capacities) {
+        if (resolutionsMillis.length == 0 || resolutionsMillis.length != capacities.length) {
+            throw new IllegalArgumentException("Every tier needs a resolution and a capacity");
+        }
+        this.gauge = gauge;
+        this.tiers = new Tier[resolutionsMillis.length];
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = new Tier(resolutionsMillis[i], capacities[i]);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the series is a gauge, <code>false</code> if it is a monotonic count
+     */
+    public boolean isGauge() {
+        return gauge;
+    }
+
+    public synchronized void add(final long timestamp, final double value) {
+        for (final Tier tier : tiers) {
+            tier.add(timestamp, value, gauge);
+        }
+    }
+
+    /**
+     * Reads the buckets between the given times, both inclusive. The finest tier that still holds the start time is
+     * used, if no tier reaches back that far the coarsest tier is used.
+     *
+     * @return the samples ordered by time
+     */
+    public synchronized @NotNull List<Sample> read(final long from, final long to, final long now) {
+        return selectTier(from, now).read(from, to);
+    }
+
+    /**
+     * @return the resolution of the tier a read with the given start time uses
+     */
+    public long resolutionFor(final long from, final long now) {
+        return selectTier(from, now).resolutionMillis;
+    }
+
+    private @NotNull Tier selectTier(final long from, final long now) {
+        for (final Tier tier : tiers) {
+            if (now - tier.retentionMillis() <= from) {
+                return tier;
+            }
+        }
+        return tiers[tiers.length - 1];
+    }
+
+    public static class Sample {
+
+        private final long timestamp;
+        private final double value;
+
+        Sample(final long timestamp, final double value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        /**
+         * @return the start of the bucket of this sample
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
+    private static class Tier {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+        private static final long[] NO_BUCKET_STARTS = new long[0];
+        private static final double[] NO_VALUES = new double[0];
+
+        private final long resolutionMillis;
+        private final int capacity;
+        private long[] bucketStarts = NO_BUCKET_STARTS;
+        private double[] values = NO_VALUES;
+        //-- the slots are counted from the first bucket, so the buffers only grow with the filled buckets
+        private long firstBucket = EMPTY;
+        private long currentBucket = EMPTY;
+        private double currentSum;
+        private int currentCount;
+
+        Tier(final long resolutionMillis, final int capacity) {
+            if (resolutionMillis <= 0 || capacity <= 0) {
+                throw new IllegalArgumentException("Resolution and capacity of a tier must be positive");
+            }
+            this.resolutionMillis = resolutionMillis;
+            this.capacity = capacity;
+        }
+
+        long retentionMillis() {
+            return resolutionMillis * capacity;
+        }
+
+        void add(final long timestamp, final double value, final boolean gauge) {
+            final long bucket = timestamp - Math.floorMod(timestamp, resolutionMillis);
+            if (firstBucket == EMPTY) {
+                firstBucket = bucket;
+            }
+            if (bucket != currentBucket) {
+                currentBucket = bucket;
+                currentSum = 0;
+                currentCount = 0;
+            }
+            currentSum += value;
+            currentCount++;
+
+            //-- the current bucket is always visible, it is refined with every sample until the next bucket starts
+            final int slot = slot(bucket);
+            if (slot >= bucketStarts.length) {
+                grow(slot + 1);
+            }
+            bucketStarts[slot] = bucket;
+            values[slot] = gauge ? currentSum / currentCount : value;
+        }
+
+        @NotNull List<Sample> read(final long from, final long to) {
+            final List<Sample> samples = new ArrayList<>();
+            if (from > to || currentBucket == EMPTY) {
+                return samples;
+            }
+            //-- only the buckets that can still be in the ring are visited
+            final long fromBucket = Math.max(from - Math.floorMod(from, resolutionMillis),
+                    currentBucket - retentionMillis() + resolutionMillis);
+            final long lastBucket = Math.min(to, currentBucket);
+            for (long bucket = fromBucket; bucket <= lastBucket; bucket += resolutionMillis) {
+                final int slot = slot(bucket);
+                if (slot < bucketStarts.length && bucketStarts[slot] == bucket) {
+                    samples.add(new Sample(bucket, values[slot]));
+                }
+            }
+            return samples;
+        }
+
+        private void grow(final int minLength) {
+            final int length = Math.min(capacity, Math.max(minLength, Math.max(8, bucketStarts.length * 2)));
+            final int oldLength = bucketStarts.length;
+            bucketStarts = Arrays.copyOf(bucketStarts, length);
+            values = Arrays.copyOf(values, length);
+            Arrays.fill(bucketStarts, oldLength, length, EMPTY);
+        }
+
+        private int slot(final long bucket) {
+            return (int) Math.floorMod((bucket - firstBucket) / resolutionMillis, (long) capacity);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.timeseries;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.util.ThreadFactoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the counts and numeric gauges of the {@link MetricRegistry} in a fixed interval and keeps their history in
+ * memory. Only the metrics matching one of the configured name prefixes are sampled.
+ * <p>
+ * Every series keeps three tiers: the sample interval, 12 times the sample interval and 120 times the sample interval
+ * (with the default of 5 seconds: 30 minutes at 5 seconds, 6 hours at 1 minute and 3 days at 10 minutes). The tiers of
+ * a series grow with its history. The amount of series is limited, so the store has a fixed upper memory bound. Once
+ * the limit is reached, further metrics are sampled as soon as sampled metrics are removed from the registry.
+ */
+@Singleton
+public class MetricTimeSeriesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricTimeSeriesStore.class);
+
+    private static final int[] TIER_INTERVAL_MULTIPLIERS = {1, 12, 120};
+    private static final int[] TIER_CAPACITIES = {360, 360, 432};
+
+    private final @NotNull MetricRegistry metricRegistry;
+    private final @NotNull Map<String, MetricTimeSeries> series = new ConcurrentHashMap<>();
+    private final @NotNull long[] tierResolutions;
+    private final @NotNull List<String> metricPrefixes;
+    private final int maxSeries;
+    private boolean maxSeriesReported;
+    private @Nullable ScheduledExecutorService executorService;
+
+    @Inject
+    public MetricTimeSeriesStore(final @NotNull MetricRegistry metricRegistry) {
+        this(metricRegistry,
+                InternalConfigurations.METRIC_TIME_SERIES_SAMPLE_INTERVAL_MSEC.get(),
+                InternalConfigurations.METRIC_TIME_SERIES_METRIC_PREFIXES.get(),
+                InternalConfigurations.METRIC_TIME_SERIES_MAX_SERIES.get());
+    }
+
+    @VisibleForTesting
+    MetricTimeSeriesStore(
+            final @NotNull MetricRegistry metricRegistry,
+            final long sampleIntervalMillis,
+            final @NotNull List<String> metricPrefixes,
+            final int maxSeries) {
+        this.metricRegistry = metricRegistry;
+        this.metricPrefixes = List.copyOf(metricPrefixes);
+        this.maxSeries = maxSeries;
+        this.tierResolutions = new long[TIER_INTERVAL_MULTIPLIERS.length];
+        for (int i = 0; i < tierResolutions.length; i++) {
+            tierResolutions[i] = sampleIntervalMillis * TIER_INTERVAL_MULTIPLIERS[i];
+        }
+    }
+
+    @Inject //method injection, this gets called once after instantiation
+    public void postConstruct() {
+        if (!InternalConfigurations.METRIC_TIME_SERIES_ENABLED.get()) {
+            return;
+        }
+        executorService = Executors.newSingleThreadScheduledExecutor(ThreadFactoryUtil.create("metric-sampler"));
+        executorService.scheduleAtFixedRate(this::sampleSafely,
+                tierResolutions[0],
+                tierResolutions[0],
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the series of the metric, or <code>null</code> if the metric was not sampled (yet)
+     */
+    public @Nullable MetricTimeSeries getSeries(final @NotNull String metricName) {
+        return series.get(metricName);
+    }
+
+    private void sampleSafely() {
+        try {
+            sample(System.currentTimeMillis());
+        } catch (final Exception e) {
+            //-- an exception would cancel the scheduled sampling
+            log.debug("Not able to sample the metrics", e);
+        }
+    }
+
+    @VisibleForTesting
+    void sample(final long now) {
+        final Map<String, Metric> metrics = metricRegistry.getMetrics();
+        series.keySet().retainAll(metrics.keySet());
+        for (final Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            if (!isSelected(entry.getKey())) {
+                continue;
+            }
+            final Metric metric = entry.getValue();
+            final Double value = valueOf(metric);
+            if (value == null) {
+                continue;
+            }
+            MetricTimeSeries metricSeries = series.get(entry.getKey());
+            if (metricSeries == null) {
+                if (series.size() >= maxSeries) {
+                    if (!maxSeriesReported) {
+                        maxSeriesReported = true;
+                        log.warn("The metric time series store is limited to {} metrics, further metrics like '{}' " +
+                                "are not sampled.", maxSeries, entry.getKey());
+                    }
+                    continue;
+                }
+                metricSeries = new MetricTimeSeries(metric instanceof Gauge, tierResolutions, TIER_CAPACITIES);
+                series.put(entry.getKey(), metricSeries);
+            }
+            metricSeries.add(now, value);
+        }
+    }
+
+    private boolean isSelected(final @NotNull String metricName) {
+        if (metricPrefixes.isEmpty()) {
+            return true;
+        }
+        for (final String metricPrefix : metricPrefixes) {
+            if (metricName.startsWith(metricPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable Double valueOf(final @NotNull Metric metric) {
+        if (metric instanceof Counting) {
+            return (double) ((Counting) metric).getCount();
+        }
+        if (metric instanceof Gauge) {
+            final Object value = ((Gauge<?>) metric).getValue();
+            if (value instanceof Number) {
+                final double doubleValue = ((Number) value).doubleValue();
+                //-- e.g. the usage ratios of unbounded memory pools are NaN
+                return Double.isFinite(doubleValue) ? doubleValue : null;
+            }
+        }
+        return null;
+    }
+}
@@ -20,6 +20,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.pool.exception.NoMessageIdAvailableException;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.util.Exceptions;
@@ -46,6 +47,7 @@ public class SendRetainedMessageListenerAndScheduleNext implements FutureCallbac
     private final @NotNull Channel channel;
     private final @NotNull RetainedMessagesSender retainedMessagesSender;
     private final int batchSizeMax;
+    private final @Nullable Runnable onDrained;
 
     SendRetainedMessageListenerAndScheduleNext(
             final @NotNull Topic subscription,
@@ -53,6 +55,20 @@ public class SendRetainedMessageListenerAndScheduleNext implements FutureCallbac
             final @NotNull Channel channel,
             final @NotNull RetainedMessagesSender retainedMessagesSender,
             final int batchSizeMax) {
+        this(subscription, topics, channel, retainedMessagesSender, batchSizeMax, null);
+    }
+
+    /**
+     * @param onDrained called on the event loop of the channel when all topics of the queue are sent, so more topics
+     *                  can be handed over by starting a new chain.
+     */
+    SendRetainedMessageListenerAndScheduleNext(
+            final @NotNull Topic subscription,
+            final @NotNull Queue<String> topics,
+            final @NotNull Channel channel,
+            final @NotNull RetainedMessagesSender retainedMessagesSender,
+            final int batchSizeMax,
+            final @Nullable Runnable onDrained) {
 
         checkNotNull(subscription, "Subscription must not be null");
         checkNotNull(topics, "Topics must not be null");
@@ -64,6 +80,7 @@ public class SendRetainedMessageListenerAndScheduleNext implements FutureCallbac
         this.channel = channel;
         this.retainedMessagesSender = retainedMessagesSender;
         this.batchSizeMax = batchSizeMax;
+        this.onDrained = onDrained;
     }
 
     @Override
@@ -74,9 +91,12 @@ public class SendRetainedMessageListenerAndScheduleNext implements FutureCallbac
         send();
     }
 
-    private void send() {
+    void send() {
         final int remainingTopics = topics.size();
         if (remainingTopics == 0) {
+            if (onDrained != null) {
+                onDrained.run();
+            }
             return;
         }
         final int batchSize = Math.min(remainingTopics, batchSizeMax);
@@ -90,7 +110,8 @@ public class SendRetainedMessageListenerAndScheduleNext implements FutureCallbac
 
         final ListenableFuture<Void> sentFuture = retainedMessagesSender.writeRetainedMessages(channel, topicBatch);
 
-        Futures.addCallback(sentFuture, new SendRetainedMessageListenerAndScheduleNext(subscription, topics, channel, retainedMessagesSender, batchSizeMax), channel.eventLoop());
+        Futures.addCallback(sentFuture, new SendRetainedMessageListenerAndScheduleNext(subscription, topics, channel,
+                retainedMessagesSender, batchSizeMax, onDrained), channel.eventLoop());
     }
 
     @Override
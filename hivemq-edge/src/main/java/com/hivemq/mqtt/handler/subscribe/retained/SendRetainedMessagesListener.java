@@ -24,11 +24,13 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.persistence.clientsession.callback.SubscriptionResult;
 import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import com.hivemq.persistence.retained.RetainedMessageTopicsPage;
 import com.hivemq.util.Exceptions;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
@@ -141,9 +143,9 @@ public class SendRetainedMessagesListener implements ChannelFutureListener {
     /**
      * Sends out matching wildcard subscriptions for the given topics to the given Channel
      * <p>
-     * This method is rather expensive but needed for wildcard matching. If you can, try to reduce the input as much as
-     * possible, especially if there aren't any wildcards so we don't have to process the rather expensive wildcard
-     * matching
+     * The matching topics are looked up in all persistence buckets in parallel. Each bucket result is handed over to
+     * the delivery of the subscription as soon as it is available, so sending starts with the first bucket and the
+     * matching topics are never collected into a single set. The topics of a bucket are looked up page by page.
      *
      * @param topicsWithWildcards a List of String which represents the topics with wildcards
      * @param channel             the {@link Channel} to write the matching retained messages to
@@ -153,22 +155,38 @@ public class SendRetainedMessagesListener implements ChannelFutureListener {
 
         for (final Topic subscribedTopic : topicsWithWildcards) {
 
-            final ListenableFuture<Set<String>> future =
-                    retainedMessagePersistence.getWithWildcards(subscribedTopic.getTopic());
-            Futures.addCallback(
-                    future,
-                    new RetainedMessagesHandleWildcardsCallback(subscribedTopic, channel, retainedMessagesSender),
-                    channel.eventLoop());
+            final List<ListenableFuture<RetainedMessageTopicsPage>> futures =
+                    retainedMessagePersistence.getWithWildcardsPerBucket(subscribedTopic.getTopic());
+            final RetainedMessagesHandleWildcardsCallback callback =
+                    new RetainedMessagesHandleWildcardsCallback(subscribedTopic, channel, retainedMessagesSender);
+            for (final ListenableFuture<RetainedMessageTopicsPage> future : futures) {
+                Futures.addCallback(future, callback, channel.eventLoop());
+            }
         }
     }
 
-    static class RetainedMessagesHandleWildcardsCallback implements FutureCallback<Set<String>> {
+    /**
+     * Receives the pages of matching topics of all persistence buckets for a wildcard subscription and feeds them into
+     * a single chain of {@link SendRetainedMessageListenerAndScheduleNext}, so the amount of in-flight retained
+     * messages stays limited by {@link #CONCURRENT_MESSAGES} and the client receive maximum, regardless of the number
+     * of buckets.
+     * <p>
+     * The next page of a bucket is only requested after the topics received so far are sent, so no more than one page
+     * per bucket is held in memory and the single writer is not blocked by a large amount of matching topics.
+     * <p>
+     * All callbacks are executed on the event loop of the channel.
+     */
+    static class RetainedMessagesHandleWildcardsCallback implements FutureCallback<RetainedMessageTopicsPage> {
 
         static final int CONCURRENT_MESSAGES = 25;
         private final @NotNull Topic subscription;
         private final @NotNull Channel channel;
 
         private final @NotNull RetainedMessagesSender retainedMessagesSender;
+        private final @NotNull Queue<String> topics = new ConcurrentLinkedQueue<>();
+        private final @NotNull Queue<RetainedMessageTopicsPage> pagesWithNextPage = new ArrayDeque<>();
+        private boolean sending;
+        private boolean failed;
 
         RetainedMessagesHandleWildcardsCallback(
                 final @NotNull Topic subscription,
@@ -180,39 +198,57 @@ public class SendRetainedMessagesListener implements ChannelFutureListener {
         }
 
         @Override
-        public void onSuccess(final @Nullable Set<String> retainedMessageTopics) {
-            if (retainedMessageTopics == null || retainedMessageTopics.size() == 0) {
+        public void onSuccess(final @Nullable RetainedMessageTopicsPage page) {
+            if (page == null || failed) {
                 //Do nothing, we don't have retained messages
                 return;
             }
 
-            //Attention, this set is immutable, so we need a fresh mutable collection
-            final Queue<String> topics = new ConcurrentLinkedQueue<>(retainedMessageTopics);
+            if (page.hasNextPage()) {
+                pagesWithNextPage.add(page);
+            }
+            topics.addAll(page.getTopics());
+            if (sending) {
+                // the running chain picks up the added topics and requests the next pages when it is drained
+                return;
+            }
+            if (topics.isEmpty()) {
+                requestNextPages();
+                return;
+            }
 
             final Integer clientReceiveMaximum = channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().getClientReceiveMaximum();
 
-            int concurrentMessages = clientReceiveMaximum == null ? CONCURRENT_MESSAGES :
+            final int concurrentMessages = clientReceiveMaximum == null ? CONCURRENT_MESSAGES :
                     Math.min(clientReceiveMaximum, CONCURRENT_MESSAGES);
-            concurrentMessages = Math.min(concurrentMessages, retainedMessageTopics.size());
-
-            final Topic[] topicBatch = new Topic[concurrentMessages];
-            for (int i = 0; i < concurrentMessages; i++) {
-                final String nextTopic = topics.poll();
-                topicBatch[i] = new Topic(nextTopic, subscription.getQoS(), subscription.isNoLocal(),
-                        subscription.isRetainAsPublished(), subscription.getRetainHandling(),
-                        subscription.getSubscriptionIdentifier());
-            }
 
+            sending = true;
+            new SendRetainedMessageListenerAndScheduleNext(subscription, topics, channel, retainedMessagesSender,
+                    concurrentMessages, this::onDrained).send();
+        }
 
-            final ListenableFuture<Void> sentFuture = retainedMessagesSender.writeRetainedMessages(channel, topicBatch);
+        private void onDrained() {
+            sending = false;
+            requestNextPages();
+        }
 
-            Futures.addCallback(
-                    sentFuture, new SendRetainedMessageListenerAndScheduleNext(subscription, topics, channel,
-                            retainedMessagesSender, concurrentMessages), channel.eventLoop());
+        private void requestNextPages() {
+            if (!channel.isActive()) {
+                pagesWithNextPage.clear();
+                return;
+            }
+            RetainedMessageTopicsPage page;
+            while ((page = pagesWithNextPage.poll()) != null) {
+                Futures.addCallback(page.nextPage(), this, channel.eventLoop());
+            }
         }
 
         @Override
         public void onFailure(final @NotNull Throwable throwable) {
+            if (failed) {
+                return;
+            }
+            failed = true;
             final ClientConnection clientConnection = channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get();
             Exceptions.rethrowError("Unable to send retained messages on topic " + subscription.getTopic() +
                     " to client " + clientConnection.getClientId() + ".", throwable);
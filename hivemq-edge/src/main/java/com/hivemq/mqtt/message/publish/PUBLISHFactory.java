@@ -24,7 +24,6 @@ import com.hivemq.extensions.packets.publish.PublishPacketImpl;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
-import com.hivemq.util.Bytes;
 
 import static com.hivemq.mqtt.message.publish.PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET;
 
@@ -312,7 +311,7 @@ public class PUBLISHFactory {
                 .withTopic(packet.getTopic())
                 .withQoS(QoS.from(packet.getQos()))
                 .withOnwardQos(QoS.from(packet.getOnwardQos()))
-                .withPayload(Bytes.getBytesFromReadOnlyBuffer(packet.getPayload()))
+                .withPayload(packet.getPayloadBytes(origin.getPayload()))
                 .withRetain(packet.getRetain())
                 .withMessageExpiryInterval(packet.getMessageExpiryInterval().orElse(MESSAGE_EXPIRY_INTERVAL_NOT_SET))
                 .withDuplicateDelivery(packet.getDupFlag())
@@ -321,7 +320,7 @@ public class PUBLISHFactory {
                 .withPayloadFormatIndicator(payloadFormatIndicator)
                 .withContentType(packet.getContentType().orElse(null))
                 .withResponseTopic(packet.getResponseTopic().orElse(null))
-                .withCorrelationData(Bytes.getBytesFromReadOnlyBuffer(packet.getCorrelationData()))
+                .withCorrelationData(packet.getCorrelationDataBytes(origin.getCorrelationData()))
                 .withNewTopicAlias(origin.isNewTopicAlias())
                 .withSubscriptionIdentifiers(ImmutableIntArray.copyOf(packet.getSubscriptionIdentifiers()))
                 .withUserProperties(Mqtt5UserProperties.of(packet.getUserProperties().asInternalList()))
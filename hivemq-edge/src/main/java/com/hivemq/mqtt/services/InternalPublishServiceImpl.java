@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,12 +79,45 @@ public class InternalPublishServiceImpl implements InternalPublishService {
         Preconditions.checkNotNull(publish, "PUBLISH can not be null");
         Preconditions.checkNotNull(executorService, "executorService can not be null");
 
+        return publish(publish, topicTree.findTopicSubscribers(publish.getTopic()), executorService, sender);
+    }
+
+    @Override
+    public @NotNull List<ListenableFuture<PublishReturnCode>> publish(
+            final @NotNull List<PUBLISH> publishes,
+            final @NotNull ExecutorService executorService,
+            final @Nullable String sender) {
+        Preconditions.checkNotNull(publishes, "PUBLISHes can not be null");
+        Preconditions.checkNotNull(executorService, "executorService can not be null");
+
+        final List<String> topics = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            topics.add(publish.getTopic());
+        }
+        final Map<String, TopicSubscribers> topicSubscribers = topicTree.findTopicSubscribers(topics);
+
+        final List<ListenableFuture<PublishReturnCode>> publishReturnCodeFutures = new ArrayList<>(publishes.size());
+        for (final PUBLISH publish : publishes) {
+            publishReturnCodeFutures.add(publish(publish,
+                    topicSubscribers.get(publish.getTopic()),
+                    executorService,
+                    sender));
+        }
+        return publishReturnCodeFutures;
+    }
+
+    private @NotNull ListenableFuture<PublishReturnCode> publish(
+            final @NotNull PUBLISH publish,
+            final @NotNull TopicSubscribers topicSubscribers,
+            final @NotNull ExecutorService executorService,
+            final @Nullable String sender) {
+
         //reset dup-flag
         publish.setDuplicateDelivery(false);
 
         final ListenableFuture<Void> persistFuture = persistRetainedMessage(publish, executorService);
         final ListenableFuture<PublishReturnCode> publishReturnCodeFuture =
-                handlePublish(publish, executorService, sender);
+                handlePublish(publish, topicSubscribers, executorService, sender);
 
         return Futures.whenAllComplete(publishReturnCodeFuture, persistFuture)
                 .call(() -> publishReturnCodeFuture.get(), executorService);
@@ -141,10 +175,10 @@ public class InternalPublishServiceImpl implements InternalPublishService {
     @NotNull
     private ListenableFuture<PublishReturnCode> handlePublish(
             final @NotNull PUBLISH publish,
+            final @NotNull TopicSubscribers topicSubscribers,
             final @NotNull ExecutorService executorService,
             final @Nullable String sender) {
 
-        final TopicSubscribers topicSubscribers = topicTree.findTopicSubscribers(publish.getTopic());
         final ImmutableSet<SubscriberWithIdentifiers> subscribers = topicSubscribers.getSubscribers();
         final ImmutableSet<String> sharedSubscriptions = topicSubscribers.getSharedSubscriptions();
 
@@ -15,13 +15,17 @@
  */
 package com.hivemq.mqtt.topic.tree;
 
+import com.codahale.metrics.Counter;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.ImmutableIntArray;
 import com.google.common.util.concurrent.Striped;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
@@ -35,17 +39,24 @@ import javax.inject.Singleton;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_LOCK_FREE_READS_ENABLED;
 import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE;
 
 /**
  * A topic tree implementation which works with a standard read write lock with fairness guarantees. Either the whole
  * tree is locked or unlocked.
+ * <p>
+ * If lock-free reads are enabled, subscriber lookups for published topics read immutable copies of the first level
+ * segments instead. A change of a segment only drops its copy under the write lock, the next lookup copies the segment
+ * once under the read lock and all following lookups read that copy without locking until the segment changes again.
  */
 @Singleton
 public class LocalTopicTree {
@@ -64,11 +75,39 @@ public class LocalTopicTree {
 
     private final int mapCreationThreshold;
 
+    private final boolean lockFreeReads;
+
+    /**
+     * Immutable copies of the first level segments that are read without locking. A copy is only added while holding
+     * the read lock of its segment and removed while holding the write lock, so it never misses a change.
+     */
+    @VisibleForTesting
+    final ConcurrentHashMap<String, TopicTreeNode> segmentSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * The resolved subscribers of recently published topics. An entry is only valid for the generation it was resolved
+     * in, every change of a subscription starts a new generation. Once the cache is full, the least recently used
+     * topics are evicted, so topics that are published later are cached as well.
+     */
+    @VisibleForTesting
+    final @NotNull Cache<String, CachedTopicSubscribers> subscriberCache;
+    private final @NotNull AtomicLong subscriberCacheGeneration = new AtomicLong();
+    private final int subscriberCacheMaxSize;
+    private final @NotNull Counter subscriberCacheHitCounter;
+    private final @NotNull Counter subscriberCacheMissCounter;
+
     @Inject
     public LocalTopicTree(final @NotNull MetricsHolder metricsHolder) {
 
         counters = new SubscriptionCounters(metricsHolder.getSubscriptionCounter());
         mapCreationThreshold = TOPIC_TREE_MAP_CREATION_THRESHOLD.get();
+        lockFreeReads = TOPIC_TREE_LOCK_FREE_READS_ENABLED.get();
+        subscriberCacheMaxSize = TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.get();
+        subscriberCache = CacheBuilder.newBuilder().maximumSize(Math.max(0, subscriberCacheMaxSize)).build();
+        subscriberCacheHitCounter = metricsHolder.getMetricRegistry()
+                .counter(HiveMQMetrics.TOPIC_TREE_SUBSCRIBER_CACHE_HIT_COUNT.name());
+        subscriberCacheMissCounter = metricsHolder.getMetricRegistry()
+                .counter(HiveMQMetrics.TOPIC_TREE_SUBSCRIBER_CACHE_MISS_COUNT.name());
 
         segmentLocks = Striped.readWriteLock(64);
     }
@@ -104,6 +143,7 @@ public class LocalTopicTree {
                 final boolean removed = removeRootWildcardSubscriber(subscriber, sharedName);
                 rootWildcardSubscribers.add(entry);
                 counters.getSubscriptionCounter().inc();
+                invalidateSubscriberCache();
 
                 return removed;
             }
@@ -129,7 +169,9 @@ public class LocalTopicTree {
                 return addNode(entry, topic.getTopic(), contents, node, 1);
             }
         } finally {
+            segmentSnapshots.remove(segmentKey);
             lock.unlock();
+            invalidateSubscriberCache();
         }
     }
 
@@ -162,7 +204,47 @@ public class LocalTopicTree {
      * @return the subscribers interested in this topic with all their identifiers
      */
     public @NotNull TopicSubscribers findTopicSubscribers(final @NotNull String topic) {
-        return findTopicSubscribers(topic, false);
+        if (subscriberCacheMaxSize <= 0) {
+            return findTopicSubscribers(topic, false);
+        }
+
+        // the generation must be read before the tree, so a concurrent subscription change invalidates the result
+        return findCachedTopicSubscribers(topic, subscriberCacheGeneration.get());
+    }
+
+    /**
+     * All subscribers for many topics at once (PUBLISH batch). Every distinct topic is only resolved once.
+     *
+     * @param topics the topics to publish to (no wildcards), may contain the same topic more than once
+     * @return the subscribers interested in each of the distinct topics with all their identifiers
+     */
+    public @NotNull Map<String, TopicSubscribers> findTopicSubscribers(final @NotNull Collection<String> topics) {
+        final Map<String, TopicSubscribers> topicSubscribers = new HashMap<>();
+        // one generation for the whole batch, a subscription change during the lookups only invalidates the cached
+        // results earlier than necessary
+        final long generation = subscriberCacheGeneration.get();
+        for (final String topic : topics) {
+            if (!topicSubscribers.containsKey(topic)) {
+                topicSubscribers.put(topic,
+                        subscriberCacheMaxSize <= 0 ?
+                                findTopicSubscribers(topic, false) :
+                                findCachedTopicSubscribers(topic, generation));
+            }
+        }
+        return topicSubscribers;
+    }
+
+    private @NotNull TopicSubscribers findCachedTopicSubscribers(final @NotNull String topic, final long generation) {
+        final CachedTopicSubscribers cached = subscriberCache.getIfPresent(topic);
+        if (cached != null && cached.generation == generation) {
+            subscriberCacheHitCounter.inc();
+            return cached.topicSubscribers;
+        }
+        subscriberCacheMissCounter.inc();
+
+        final TopicSubscribers topicSubscribers = findTopicSubscribers(topic, false);
+        subscriberCache.put(topic, new CachedTopicSubscribers(generation, topicSubscribers));
+        return topicSubscribers;
     }
 
     public @NotNull TopicSubscribers findTopicSubscribers(
@@ -199,7 +281,27 @@ public class LocalTopicTree {
         }
 
         final String[] topicPart = StringUtils.splitPreserveAllTokens(topic, '/');
-        final String segmentKey = topicPart[0];
+
+        traverseSegment(topicPart[0], subscriberAndTopicConsumer, topicPart);
+
+        //We now have to traverse the wildcard node if something matches here
+        if (!excludeRootLevelWildcard) {
+            traverseSegment("+", subscriberAndTopicConsumer, topicPart);
+        }
+    }
+
+    private void traverseSegment(
+            final @NotNull String segmentKey,
+            final @NotNull SubscriptionsConsumer subscriberAndTopicConsumer,
+            final @NotNull String[] topicPart) {
+
+        if (lockFreeReads) {
+            final TopicTreeNode snapshot = getSegmentSnapshot(segmentKey);
+            if (snapshot != null) {
+                traverseTree(snapshot, subscriberAndTopicConsumer, topicPart, 0);
+            }
+            return;
+        }
 
         final Lock lock = segmentLocks.get(segmentKey).readLock();
         lock.lock();
@@ -212,21 +314,30 @@ public class LocalTopicTree {
         } finally {
             lock.unlock();
         }
+    }
 
-        //We now have to traverse the wildcard node if something matches here
-        if (!excludeRootLevelWildcard) {
-
-            final Lock wildcardLock = segmentLocks.get("+").readLock();
-            wildcardLock.lock();
+    private @Nullable TopicTreeNode getSegmentSnapshot(final @NotNull String segmentKey) {
+        final TopicTreeNode snapshot = segmentSnapshots.get(segmentKey);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        //A missing segment has no subscribers, there is nothing to copy
+        if (!segments.containsKey(segmentKey)) {
+            return null;
+        }
 
-            try {
-                final TopicTreeNode firstSegmentNode = segments.get("+");
-                if (firstSegmentNode != null) {
-                    traverseTree(firstSegmentNode, subscriberAndTopicConsumer, topicPart, 0);
-                }
-            } finally {
-                wildcardLock.unlock();
+        final Lock lock = segmentLocks.get(segmentKey).readLock();
+        lock.lock();
+        try {
+            final TopicTreeNode segmentNode = segments.get(segmentKey);
+            if (segmentNode == null) {
+                return null;
             }
+            final TopicTreeNode copy = segmentNode.copy();
+            segmentSnapshots.put(segmentKey, copy);
+            return copy;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -392,6 +503,7 @@ public class LocalTopicTree {
         if (!foundSubscriberList.isEmpty()) {
             rootWildcardSubscribers.removeAll(foundSubscriberList);
             counters.getSubscriptionCounter().dec(foundSubscriberList.size());
+            invalidateSubscriberCache();
         }
         return !foundSubscriberList.isEmpty();
     }
@@ -488,10 +600,21 @@ public class LocalTopicTree {
             }
 
         } finally {
+            segmentSnapshots.remove(segmentKey);
             lock.unlock();
+            invalidateSubscriberCache();
         }
     }
 
+    /**
+     * Starts a new generation of the subscriber cache. Lookups that resolved their subscribers in an older generation
+     * are never served from the cache again.
+     */
+    private void invalidateSubscriberCache() {
+        subscriberCacheGeneration.incrementAndGet();
+        subscriberCache.invalidateAll();
+    }
+
     private static @Nullable TopicTreeNode getLastNode(final @NotNull TopicTreeNode[] nodes) {
         //Search for the last node which is not null
         for (int i = nodes.length - 1; i >= 0; i--) {
@@ -959,4 +1082,15 @@ public class LocalTopicTree {
         }
     }
 
+    @VisibleForTesting
+    static final class CachedTopicSubscribers {
+
+        private final long generation;
+        private final @NotNull TopicSubscribers topicSubscribers;
+
+        private CachedTopicSubscribers(final long generation, final @NotNull TopicSubscribers topicSubscribers) {
+            this.generation = generation;
+            this.topicSubscribers = topicSubscribers;
+        }
+    }
 }
@@ -53,6 +53,35 @@ class TopicTreeNode {
         exactSubscriptions = new MatchingNodeSubscriptions();
     }
 
+    private TopicTreeNode(final @NotNull TopicTreeNode node) {
+        topicPart = node.topicPart;
+        wildcardSubscriptions = node.wildcardSubscriptions.copy();
+        exactSubscriptions = node.exactSubscriptions.copy();
+        if (node.children != null) {
+            children = new TopicTreeNode[node.children.length];
+            for (int i = 0; i < children.length; i++) {
+                final TopicTreeNode child = node.children[i];
+                children[i] = (child == null) ? null : new TopicTreeNode(child);
+            }
+        }
+        if (node.childrenMap != null) {
+            childrenMap = new HashMap<>(node.childrenMap.size());
+            for (final TopicTreeNode child : node.childrenMap.values()) {
+                childrenMap.put(child.getTopicPart(), new TopicTreeNode(child));
+            }
+        }
+    }
+
+    /**
+     * Creates a deep copy of this node and all of its children. The copy shares no mutable state with this node, so it
+     * can be read without locking as long as it is never modified.
+     *
+     * @return the copy of this node
+     */
+    @NotNull TopicTreeNode copy() {
+        return new TopicTreeNode(this);
+    }
+
     public @NotNull TopicTreeNode addChildNodeIfAbsent(
             final @NotNull String childNodeTopicPart,
             final int indexMapCreationThreshold) {
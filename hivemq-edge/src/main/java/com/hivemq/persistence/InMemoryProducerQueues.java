@@ -33,6 +33,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.hivemq.persistence.SingleWriterService.Task;
 
 
@@ -64,6 +65,8 @@ public class InMemoryProducerQueues implements ProducerQueues {
     private long shutdownStartTime = Long.MAX_VALUE; // Initialized as long max value, to ensure that the grace period condition is not met, when shutdown is true but the start time is not yet set.
 
     public InMemoryProducerQueues(final int persistenceBucketCount, final int amountOfQueues) {
+        checkArgument(amountOfQueues > 0 && persistenceBucketCount % amountOfQueues == 0,
+                "Bucket count %s must be a multiple of the amount of queues %s", persistenceBucketCount, amountOfQueues);
 
         this.persistenceBucketCount = persistenceBucketCount;
         this.amountOfQueues = amountOfQueues;
@@ -55,6 +55,8 @@ public class InMemorySingleWriter implements SingleWriterService {
         persistenceBucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
         final int threadPoolSize = InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.get();
         final int amountOfQueues = validAmountOfQueues(threadPoolSize, persistenceBucketCount);
+        log.debug("Using {} persistence buckets spread across {} single writer queues.", persistenceBucketCount,
+                amountOfQueues);
 
         for (int i = 0; i < producers.length; i++) {
             producers[i] = new InMemoryProducerQueues(persistenceBucketCount, amountOfQueues);
@@ -66,12 +68,12 @@ public class InMemorySingleWriter implements SingleWriterService {
 
     @VisibleForTesting
     int validAmountOfQueues(final int processorCount, final int bucketCount) {
-        for (int i = processorCount; i < bucketCount; i++) {
+        for (int i = Math.max(1, processorCount); i < bucketCount; i++) {
             if (bucketCount % i == 0) {
                 return i;
             }
         }
-        return persistenceBucketCount;
+        return bucketCount;
     }
 
     public @NotNull ProducerQueues getRetainedMessageQueue() {
@@ -89,7 +89,7 @@ public class ScheduledCleanUpService {
     private int bucketIndex = 0;
     private int persistenceIndex = 0;
     private final int persistenceBucketCount;
-    private final int cleanUpJobSchedule;
+    private final long cleanUpJobScheduleMillis;
     private final int cleanUpTaskTimeoutSec;
 
     @Inject
@@ -105,7 +105,10 @@ public class ScheduledCleanUpService {
         this.retainedMessagePersistence = retainedMessagePersistence;
         this.clientQueuePersistence = clientQueuePersistence;
         this.persistenceBucketCount = PERSISTENCE_BUCKET_COUNT.get();
-        this.cleanUpJobSchedule = INTERVAL_BETWEEN_CLEANUP_JOBS_SEC.get();
+        // A clean up job only covers a single bucket. The interval is split across the buckets so that a full sweep
+        // over a persistence takes the same time no matter how many buckets the persistences are sharded into.
+        this.cleanUpJobScheduleMillis =
+                Math.max(1, TimeUnit.SECONDS.toMillis(INTERVAL_BETWEEN_CLEANUP_JOBS_SEC.get()) / persistenceBucketCount);
         this.cleanUpTaskTimeoutSec = CLEANUP_JOB_TASK_TIMEOUT_SEC;
     }
 
@@ -128,8 +131,8 @@ public class ScheduledCleanUpService {
                         cleanUpTaskTimeoutSec,
                         bucketIndex,
                         persistenceIndex),
-                cleanUpJobSchedule,
-                TimeUnit.SECONDS);
+                cleanUpJobScheduleMillis,
+                TimeUnit.MILLISECONDS);
         persistenceIndex = (persistenceIndex + 1) % NUMBER_OF_PERSISTENCES;
         if (persistenceIndex == 0) {
             bucketIndex = (bucketIndex + 1) % persistenceBucketCount;
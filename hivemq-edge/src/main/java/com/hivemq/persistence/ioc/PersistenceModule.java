@@ -18,6 +18,8 @@ package com.hivemq.persistence.ioc;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.hivemq.common.shutdown.ShutdownHooks;
+import com.hivemq.configuration.service.ConfigurationService;
+import com.hivemq.configuration.service.PersistenceConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.logging.EventLog;
 import com.hivemq.metrics.MetricsHolder;
@@ -41,6 +43,7 @@ import com.hivemq.persistence.local.ClientSessionLocalPersistence;
 import com.hivemq.persistence.local.ClientSessionSubscriptionLocalPersistence;
 import com.hivemq.persistence.local.IncomingMessageFlowInMemoryLocalPersistence;
 import com.hivemq.persistence.local.IncomingMessageFlowLocalPersistence;
+import com.hivemq.persistence.local.file.ClientQueueFileLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientSessionMemoryLocalPersistence;
 import com.hivemq.persistence.local.memory.ClientSessionSubscriptionMemoryLocalPersistence;
@@ -57,6 +60,7 @@ import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.IntoSet;
 
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -81,9 +85,6 @@ public abstract class PersistenceModule {
     @Binds
     abstract @NotNull ClientSessionLocalPersistence clientSessionLocalPersistence(@NotNull ClientSessionMemoryLocalPersistence clientSessionMemoryLocalPersistence);
 
-    @Binds
-    abstract @NotNull ClientQueueLocalPersistence clientQueueLocalPersistence(@NotNull ClientQueueMemoryLocalPersistence clientQueueMemoryLocalPersistence);
-
     @Binds
     abstract @NotNull PublishPayloadPersistence publishPayloadPersistence(@NotNull PublishPayloadNoopPersistenceImpl publishPayloadNoopPersistence);
 
@@ -112,6 +113,19 @@ public abstract class PersistenceModule {
     @Binds
     abstract @NotNull ClientQueuePersistence clientQueuePersistence(@NotNull ClientQueuePersistenceImpl clientQueuePersistence);
 
+    @Provides
+    @Singleton
+    static @NotNull ClientQueueLocalPersistence clientQueueLocalPersistence(
+            final @NotNull ConfigurationService configurationService,
+            final @NotNull Provider<ClientQueueMemoryLocalPersistence> clientQueueMemoryLocalPersistence,
+            final @NotNull Provider<ClientQueueFileLocalPersistence> clientQueueFileLocalPersistence) {
+        if (configurationService.persistenceConfigurationService().getMode() ==
+                PersistenceConfigurationService.PersistenceMode.FILE) {
+            return clientQueueFileLocalPersistence.get();
+        }
+        return clientQueueMemoryLocalPersistence.get();
+    }
+
     @Provides
     @Singleton
     static @NotNull MessageDroppedService messageDroppedService(
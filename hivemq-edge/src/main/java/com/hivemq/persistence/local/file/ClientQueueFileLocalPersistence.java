@@ -0,0 +1,749 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.annotations.ExecuteInSingleWriter;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.ProducerQueues;
+import com.hivemq.persistence.SingleWriterService;
+import com.hivemq.persistence.clientqueue.ClientQueueLocalPersistence;
+import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.util.LocalPersistenceFileUtil;
+import com.hivemq.util.ThreadFactoryUtil;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.ADD;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.CLEAR;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.INFLIGHT;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.PUBLISH_EXPIRED;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.REMOVE;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.REMOVE_SHARED;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.REPLACE;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.RESTORE_PUBREL;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.getNullableLong;
+import static com.hivemq.persistence.local.file.ClientQueueRecordSerializer.getString;
+
+/**
+ * A {@link ClientQueueLocalPersistence} that keeps the queues in a {@link ClientQueueMemoryLocalPersistence} and
+ * journals every change of the QoS 1 and 2 messages to a {@link SegmentLog} per bucket, so the queues survive a
+ * restart or a power loss.
+ * <p>
+ * The journal of a bucket is only written by the single writer of the bucket. On startup all journals are replayed
+ * into the memory persistence, in parallel. A journal is compacted into a snapshot of the queues of its bucket once it
+ * grew to twice the size of the last snapshot. The single writer only collects the records of the snapshot, writing
+ * and forcing the snapshot file happens on a background thread.
+ * <p>
+ * With a force interval, a journal is forced by the next change of its bucket once the interval has passed. If the
+ * bucket stays idle, a single writer task is scheduled that forces it when the interval has passed, so no change stays
+ * unforced for longer than the interval.
+ * <p>
+ * QoS 0 messages are not journaled. The in-flight markers of shared subscription queues are not journaled either,
+ * because the clients that had those messages in-flight are gone after a restart.
+ */
+@Singleton
+public class ClientQueueFileLocalPersistence implements ClientQueueLocalPersistence {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ClientQueueFileLocalPersistence.class);
+
+    public static final String PERSISTENCE_NAME = "client_queue";
+    public static final String PERSISTENCE_VERSION = "1";
+
+    static final String BUCKETS_FOLDER_PREFIX = "buckets-";
+    static final String BUCKET_FOLDER_PREFIX = "bucket-";
+    static final String READY_FILE_NAME = "ready";
+
+    private final @NotNull ClientQueueMemoryLocalPersistence delegate;
+    private final @NotNull ClientQueueRecordSerializer serializer = new ClientQueueRecordSerializer();
+    private final @NotNull File folder;
+    private final int bucketCount;
+    private final int segmentSizeBytes;
+    private final int forceIntervalMillis;
+    private final long compactionMinSizeBytes;
+    private final @NotNull SegmentLog @NotNull [] logs;
+    private final long @NotNull [] lastForce;
+    private final boolean @NotNull [] forceScheduled;
+    private final @Nullable SegmentLog.Snapshot @NotNull [] snapshots;
+    private final @Nullable Future<?> @NotNull [] compactions;
+    private final @NotNull ExecutorService compactionExecutor;
+    private final @NotNull ScheduledExecutorService forceExecutor;
+    private final @NotNull ProducerQueues singleWriter;
+    private final @NotNull AtomicInteger openBuckets;
+    private final @NotNull AtomicLong maxPublishId = new AtomicLong();
+
+    @Inject
+    ClientQueueFileLocalPersistence(
+            final @NotNull ClientQueueMemoryLocalPersistence delegate,
+            final @NotNull LocalPersistenceFileUtil localPersistenceFileUtil,
+            final @NotNull SingleWriterService singleWriterService,
+            final @NotNull MetricRegistry metricRegistry) {
+        this(delegate,
+                localPersistenceFileUtil.getVersionedLocalPersistenceFolder(PERSISTENCE_NAME, PERSISTENCE_VERSION),
+                singleWriterService.getQueuedMessagesQueue(),
+                metricRegistry);
+    }
+
+    @VisibleForTesting
+    ClientQueueFileLocalPersistence(
+            final @NotNull ClientQueueMemoryLocalPersistence delegate,
+            final @NotNull File folder,
+            final @NotNull ProducerQueues singleWriter,
+            final @NotNull MetricRegistry metricRegistry) {
+
+        this.delegate = delegate;
+        this.folder = folder;
+        this.singleWriter = singleWriter;
+        bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        segmentSizeBytes = InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_SEGMENT_SIZE_BYTES.get();
+        forceIntervalMillis = InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC.get();
+        compactionMinSizeBytes = InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_COMPACTION_MIN_SIZE_BYTES.get();
+        logs = new SegmentLog[bucketCount];
+        lastForce = new long[bucketCount];
+        forceScheduled = new boolean[bucketCount];
+        snapshots = new SegmentLog.Snapshot[bucketCount];
+        compactions = new Future[bucketCount];
+        openBuckets = new AtomicInteger(bucketCount);
+
+        final long start = System.currentTimeMillis();
+        // replaying the journals drops the same messages again, the drops were already reported before the restart
+        delegate.setMessageDroppedNotificationsSuppressed(true);
+        try {
+            open();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to recover the queued messages from " + folder.getAbsolutePath(),
+                    e);
+        } finally {
+            delegate.setMessageDroppedNotificationsSuppressed(false);
+        }
+        compactionExecutor = Executors.newSingleThreadExecutor(ThreadFactoryUtil.create("client-queue-compaction-%d"));
+        forceExecutor = Executors.newSingleThreadScheduledExecutor(ThreadFactoryUtil.create("client-queue-force-%d"));
+        // publish IDs restart at 1, make sure new PUBLISHes never get the unique ID of a recovered one
+        PUBLISH.PUBLISH_COUNTER.accumulateAndGet(maxPublishId.get() + 1, Math::max);
+        log.debug("Recovered queued messages from {} in {} ms",
+                folder.getAbsolutePath(),
+                System.currentTimeMillis() - start);
+
+        delegate.setExpiredMessageListener(new JournalingExpiredMessageListener());
+        metricRegistry.register(HiveMQMetrics.QUEUED_MESSAGES_FILE_PERSISTENCE_TOTAL_SIZE.name(),
+                (Gauge<Long>) this::getSizeBytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void add(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull PUBLISH publish,
+            final long max,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final int bucketIndex) {
+
+        add(queueId, shared, List.of(publish), max, strategy, retained, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void add(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull List<PUBLISH> publishes,
+            final long max,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final int bucketIndex) {
+
+        delegate.add(queueId, shared, publishes, max, strategy, retained, bucketIndex);
+        for (final PUBLISH publish : publishes) {
+            if (publish.getQoS() != QoS.AT_MOST_ONCE) {
+                append(bucketIndex, serializer.serializeAdd(queueId, shared, retained, max, strategy, publish));
+            }
+        }
+        commit(bucketIndex, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableList<PUBLISH> readNew(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull ImmutableIntArray packetIds,
+            final long bytesLimit,
+            final int bucketIndex) {
+
+        final ImmutableList<PUBLISH> publishes = delegate.readNew(queueId, shared, packetIds, bytesLimit, bucketIndex);
+        if (!shared) {
+            List<PUBLISH> inflight = null;
+            for (final PUBLISH publish : publishes) {
+                if (publish.getQoS() != QoS.AT_MOST_ONCE) {
+                    if (inflight == null) {
+                        inflight = new ArrayList<>(publishes.size());
+                    }
+                    inflight.add(publish);
+                }
+            }
+            if (inflight != null) {
+                append(bucketIndex, serializer.serializeInflight(queueId, false, inflight));
+            }
+        }
+        commit(bucketIndex, false);
+        return publishes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableList<MessageWithID> readInflight(
+            final @NotNull String client,
+            final boolean shared,
+            final int batchSize,
+            final long bytesLimit,
+            final int bucketIndex) {
+        return delegate.readInflight(client, shared, batchSize, bytesLimit, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String replace(final @NotNull String client, final @NotNull PUBREL pubrel, final int bucketIndex) {
+        final String replacedId = delegate.replace(client, pubrel, bucketIndex);
+        append(bucketIndex,
+                serializer.serializeReplace(client,
+                        pubrel.getPacketIdentifier(),
+                        pubrel.getPublishTimestamp(),
+                        pubrel.getMessageExpiryInterval()));
+        commit(bucketIndex, false);
+        return replacedId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String remove(final @NotNull String client, final int packetId, final int bucketIndex) {
+        return remove(client, packetId, null, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @Nullable String remove(
+            final @NotNull String client, final int packetId, final @Nullable String uniqueId, final int bucketIndex) {
+        final String removedId = delegate.remove(client, packetId, uniqueId, bucketIndex);
+        append(bucketIndex, serializer.serializeRemove(client, packetId, uniqueId));
+        commit(bucketIndex, false);
+        return removedId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public int size(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        return delegate.size(queueId, shared, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public int qos0Size(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        return delegate.qos0Size(queueId, shared, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void clear(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        delegate.clear(queueId, shared, bucketIndex);
+        append(bucketIndex, serializer.serializeClear(queueId, shared));
+        commit(bucketIndex, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeAllQos0Messages(final @NotNull String queueId, final boolean shared, final int bucketIndex) {
+        delegate.removeAllQos0Messages(queueId, shared, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public @NotNull ImmutableSet<String> cleanUp(final int bucketIndex) {
+        final ImmutableSet<String> sharedQueues = delegate.cleanUp(bucketIndex);
+        commit(bucketIndex, true);
+        return sharedQueues;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeShared(
+            final @NotNull String sharedSubscription, final @NotNull String uniqueId, final int bucketIndex) {
+        delegate.removeShared(sharedSubscription, uniqueId, bucketIndex);
+        append(bucketIndex, serializer.serializeRemoveShared(sharedSubscription, uniqueId));
+        commit(bucketIndex, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void removeInFlightMarker(
+            final @NotNull String sharedSubscription, final @NotNull String uniqueId, final int bucketIndex) {
+        // in-flight markers of shared subscription queues are not journaled
+        delegate.removeInFlightMarker(sharedSubscription, uniqueId, bucketIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void closeDB(final int bucketIndex) {
+        delegate.closeDB(bucketIndex);
+        if (compactions[bucketIndex] != null) {
+            completeCompaction(bucketIndex);
+        }
+        logs[bucketIndex].close();
+        if (openBuckets.decrementAndGet() == 0) {
+            compactionExecutor.shutdown();
+            forceExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the amount of bytes the journals of all buckets use
+     */
+    public long getSizeBytes() {
+        long sizeBytes = 0;
+        for (final SegmentLog segmentLog : logs) {
+            sizeBytes += segmentLog.getSizeBytes();
+        }
+        return sizeBytes;
+    }
+
+    /**
+     * Compacts the journal of the bucket on the calling thread.
+     *
+     * @return true if the journal of the bucket was replaced by a snapshot
+     */
+    @VisibleForTesting
+    boolean compact(final int bucketIndex) {
+        final SegmentLog.Snapshot snapshot = snapshot(bucketIndex);
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            snapshot.write();
+            logs[bucketIndex].completeSnapshot(snapshot);
+            return true;
+        } catch (final IOException e) {
+            compactionFailed(bucketIndex, snapshot, e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for a compaction of the journal of the bucket that is in progress.
+     *
+     * @return true if the journal of the bucket was replaced by a snapshot
+     */
+    @VisibleForTesting
+    @ExecuteInSingleWriter
+    boolean completeCompaction(final int bucketIndex) {
+        final SegmentLog.Snapshot snapshot = snapshots[bucketIndex];
+        final Future<?> compaction = compactions[bucketIndex];
+        if (snapshot == null || compaction == null) {
+            return false;
+        }
+        snapshots[bucketIndex] = null;
+        compactions[bucketIndex] = null;
+        try {
+            compaction.get();
+            logs[bucketIndex].completeSnapshot(snapshot);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            compactionFailed(bucketIndex, snapshot, e);
+            return false;
+        } catch (final ExecutionException e) {
+            compactionFailed(bucketIndex, snapshot, e.getCause());
+            return false;
+        } catch (final IOException e) {
+            compactionFailed(bucketIndex, snapshot, e);
+            return false;
+        }
+    }
+
+    private void startCompaction(final int bucketIndex) {
+        final SegmentLog.Snapshot snapshot = snapshot(bucketIndex);
+        if (snapshot == null) {
+            return;
+        }
+        snapshots[bucketIndex] = snapshot;
+        compactions[bucketIndex] = compactionExecutor.submit(() -> {
+            snapshot.write();
+            return null;
+        });
+    }
+
+    /**
+     * Collects the live state of the bucket into a snapshot, which has to be written afterwards.
+     *
+     * @return the snapshot or null if it could not be started
+     */
+    private @Nullable SegmentLog.Snapshot snapshot(final int bucketIndex) {
+        final SegmentLog.Snapshot snapshot;
+        try {
+            snapshot = logs[bucketIndex].beginSnapshot();
+        } catch (final IOException e) {
+            logCompactionFailed(bucketIndex, e);
+            return null;
+        }
+        delegate.forEachQueuedMessage(bucketIndex, (queueId, shared, message, retained) -> {
+            if (message instanceof PUBLISH) {
+                final PUBLISH publish = (PUBLISH) message;
+                snapshot.append(serializer.serializeAdd(queueId,
+                        shared,
+                        retained,
+                        Long.MAX_VALUE,
+                        QueuedMessagesStrategy.DISCARD,
+                        publish));
+                if (!shared && publish.getPacketIdentifier() != 0) {
+                    snapshot.append(serializer.serializeInflight(queueId, false, List.of(publish)));
+                }
+            } else if (message instanceof PUBREL) {
+                final PUBREL pubrel = (PUBREL) message;
+                snapshot.append(serializer.serializeRestorePubrel(queueId,
+                        pubrel.getPacketIdentifier(),
+                        pubrel.getPublishTimestamp(),
+                        pubrel.getMessageExpiryInterval()));
+            }
+        });
+        return snapshot;
+    }
+
+    private void compactionFailed(
+            final int bucketIndex, final @NotNull SegmentLog.Snapshot snapshot, final @NotNull Throwable cause) {
+        logs[bucketIndex].abortSnapshot(snapshot);
+        logCompactionFailed(bucketIndex, cause);
+    }
+
+    private void logCompactionFailed(final int bucketIndex, final @NotNull Throwable cause) {
+        log.warn("Unable to compact the queued messages of bucket {} in {}, continuing with the uncompacted " +
+                "journal", bucketIndex, folder.getAbsolutePath());
+        log.debug("Original exception", cause);
+    }
+
+    private void append(final int bucketIndex, final @NotNull byte[] record) {
+        try {
+            logs[bucketIndex].append(record);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to journal queued messages of bucket " + bucketIndex, e);
+        }
+    }
+
+    private void commit(final int bucketIndex, final boolean force) {
+        final SegmentLog segmentLog = logs[bucketIndex];
+        if (forceIntervalMillis <= 0 || force) {
+            segmentLog.force();
+        } else {
+            final long now = System.currentTimeMillis();
+            final long sinceLastForce = now - lastForce[bucketIndex];
+            if (sinceLastForce >= forceIntervalMillis) {
+                segmentLog.force();
+                lastForce[bucketIndex] = now;
+            } else if (segmentLog.isDirty()) {
+                scheduleForce(bucketIndex, forceIntervalMillis - sinceLastForce);
+            }
+        }
+        final Future<?> compaction = compactions[bucketIndex];
+        if (compaction != null) {
+            if (compaction.isDone()) {
+                completeCompaction(bucketIndex);
+            }
+        } else if (segmentLog.getSizeBytes() >=
+                Math.max(compactionMinSizeBytes, segmentLog.getSnapshotSizeBytes() * 2)) {
+            startCompaction(bucketIndex);
+        }
+    }
+
+    /**
+     * Makes sure the journal of a bucket is forced once the delay has passed, even if no further change of the bucket
+     * comes in. At most one force is scheduled per bucket.
+     */
+    private void scheduleForce(final int bucketIndex, final long delayMillis) {
+        if (forceScheduled[bucketIndex] || forceExecutor.isShutdown()) {
+            return;
+        }
+        forceScheduled[bucketIndex] = true;
+        forceExecutor.schedule(() -> singleWriter.submit(bucketIndex, (bucketIndex1) -> {
+            forceScheduled[bucketIndex1] = false;
+            final SegmentLog segmentLog = logs[bucketIndex1];
+            if (segmentLog.isDirty() && !segmentLog.isClosed()) {
+                segmentLog.force();
+                lastForce[bucketIndex1] = System.currentTimeMillis();
+            }
+            return null;
+        }), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return <code>true</code> if the journal of the bucket has changes that are not forced yet.
+     */
+    @VisibleForTesting
+    @ExecuteInSingleWriter
+    boolean hasUnforcedChanges(final int bucketIndex) {
+        return logs[bucketIndex].isDirty();
+    }
+
+    private void open() throws IOException {
+        final File bucketsFolder = new File(folder, BUCKETS_FOLDER_PREFIX + bucketCount);
+        final File[] otherBucketsFolders = folder.listFiles(file -> file.isDirectory() &&
+                file.getName().startsWith(BUCKETS_FOLDER_PREFIX) &&
+                !file.equals(bucketsFolder));
+
+        if (new File(bucketsFolder, READY_FILE_NAME).exists()) {
+            recover(bucketsFolder);
+        } else {
+            // either the first start or the bucket count changed: the journals of the previous bucket count are
+            // replayed and a snapshot is written for the new bucket count, which only becomes the one to recover
+            // from once it is complete
+            FileUtils.deleteDirectory(bucketsFolder);
+            File previousBucketsFolder = null;
+            if (otherBucketsFolders != null) {
+                for (final File otherBucketsFolder : otherBucketsFolders) {
+                    if (new File(otherBucketsFolder, READY_FILE_NAME).exists()) {
+                        previousBucketsFolder = otherBucketsFolder;
+                        break;
+                    }
+                }
+            }
+            if (previousBucketsFolder != null) {
+                log.info("The persistence bucket count changed, migrating queued messages from {}",
+                        previousBucketsFolder.getAbsolutePath());
+                final File[] bucketFolders = previousBucketsFolder.listFiles(file -> file.isDirectory() &&
+                        file.getName().startsWith(BUCKET_FOLDER_PREFIX));
+                if (bucketFolders != null) {
+                    for (final File bucketFolder : bucketFolders) {
+                        SegmentLog.open(bucketFolder, segmentSizeBytes, this::replay).close();
+                    }
+                }
+            }
+            for (int i = 0; i < bucketCount; i++) {
+                logs[i] = SegmentLog.open(bucketFolder(bucketsFolder, i), segmentSizeBytes, record -> {
+                });
+                if (previousBucketsFolder != null && !compact(i)) {
+                    throw new IOException(
+                            "Unable to migrate the queued messages to " + bucketsFolder.getAbsolutePath());
+                }
+            }
+            if (!new File(bucketsFolder, READY_FILE_NAME).createNewFile()) {
+                throw new IOException("Unable to mark " + bucketsFolder.getAbsolutePath() + " as ready");
+            }
+        }
+
+        if (otherBucketsFolders != null) {
+            for (final File otherBucketsFolder : otherBucketsFolders) {
+                FileUtils.deleteQuietly(otherBucketsFolder);
+            }
+        }
+    }
+
+    private void recover(final @NotNull File bucketsFolder) throws IOException {
+        final ExecutorService executorService =
+                Executors.newFixedThreadPool(Math.min(bucketCount, Runtime.getRuntime().availableProcessors()),
+                        ThreadFactoryUtil.create("client-queue-recovery-%d"));
+        try {
+            final List<Future<SegmentLog>> futures = new ArrayList<>(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                final File bucketFolder = bucketFolder(bucketsFolder, i);
+                final Callable<SegmentLog> task = () -> SegmentLog.open(bucketFolder, segmentSizeBytes, this::replay);
+                futures.add(executorService.submit(task));
+            }
+            for (int i = 0; i < bucketCount; i++) {
+                logs[i] = futures.get(i).get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering queued messages", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to recover queued messages", e.getCause());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void replay(final @NotNull ByteBuffer record) {
+        final byte operation = record.get();
+        final String queueId = getString(record);
+        if (queueId == null) {
+            log.warn("Ignoring queued message record without queue ID");
+            return;
+        }
+        final int bucketIndex = BucketUtils.getBucket(queueId, bucketCount);
+        switch (operation) {
+            case ADD: {
+                final boolean shared = record.get() == 1;
+                final boolean retained = record.get() == 1;
+                final long max = record.getLong();
+                final QueuedMessagesStrategy strategy = QueuedMessagesStrategy.values()[record.get()];
+                final PUBLISH publish = serializer.deserializePublish(record);
+                maxPublishId.accumulateAndGet(publish.getPublishId(), Math::max);
+                delegate.add(queueId, shared, publish, max, strategy, retained, bucketIndex);
+                break;
+            }
+            case INFLIGHT: {
+                final boolean shared = record.get() == 1;
+                final int count = record.getInt();
+                for (int i = 0; i < count; i++) {
+                    final String uniqueId = getString(record);
+                    final int packetId = record.getInt();
+                    if (uniqueId != null) {
+                        delegate.markInflight(queueId, shared, uniqueId, packetId, bucketIndex);
+                    }
+                }
+                break;
+            }
+            case REPLACE:
+            case RESTORE_PUBREL: {
+                final int packetId = record.getInt();
+                final Long publishTimestamp = getNullableLong(record);
+                final Long messageExpiryInterval = getNullableLong(record);
+                if (operation == RESTORE_PUBREL) {
+                    // the queue of a client that only has PUBRELs left has to exist to restore them from a snapshot
+                    delegate.add(queueId, false, List.of(), 0, QueuedMessagesStrategy.DISCARD, false, bucketIndex);
+                }
+                delegate.replace(queueId, new PUBREL(packetId, publishTimestamp, messageExpiryInterval), bucketIndex);
+                break;
+            }
+            case REMOVE: {
+                final int packetId = record.getInt();
+                final String uniqueId = getString(record);
+                delegate.remove(queueId, packetId, uniqueId, bucketIndex);
+                break;
+            }
+            case CLEAR: {
+                delegate.clear(queueId, record.get() == 1, bucketIndex);
+                break;
+            }
+            case REMOVE_SHARED: {
+                final String uniqueId = getString(record);
+                if (uniqueId != null) {
+                    delegate.removeShared(queueId, uniqueId, bucketIndex);
+                }
+                break;
+            }
+            case PUBLISH_EXPIRED: {
+                final boolean shared = record.get() == 1;
+                final String uniqueId = getString(record);
+                if (uniqueId != null) {
+                    delegate.removePublish(queueId, shared, uniqueId, bucketIndex);
+                }
+                break;
+            }
+            default:
+                log.warn("Ignoring queued message record with unknown operation {}", operation);
+        }
+    }
+
+    private static @NotNull File bucketFolder(final @NotNull File bucketsFolder, final int bucketIndex) {
+        return new File(bucketsFolder, BUCKET_FOLDER_PREFIX + bucketIndex);
+    }
+
+    private class JournalingExpiredMessageListener implements ClientQueueMemoryLocalPersistence.ExpiredMessageListener {
+
+        @Override
+        public void publishExpired(
+                final @NotNull String queueId,
+                final boolean shared,
+                final @NotNull String uniqueId,
+                final int bucketIndex) {
+            append(bucketIndex, serializer.serializePublishExpired(queueId, shared, uniqueId));
+        }
+
+        @Override
+        public void pubrelExpired(final @NotNull String clientId, final int packetId, final int bucketIndex) {
+            append(bucketIndex, serializer.serializeRemove(clientId, packetId, null));
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.configuration.service.MqttConfigurationService;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes the operations on the client queues into the records of the {@link ClientQueueFileLocalPersistence}
+ * journal. Every record starts with the operation, followed by the queue ID and the arguments of the operation.
+ */
+public class ClientQueueRecordSerializer {
+
+    static final byte ADD = 1;
+    static final byte INFLIGHT = 2;
+    static final byte REPLACE = 3;
+    static final byte REMOVE = 4;
+    static final byte CLEAR = 5;
+    static final byte REMOVE_SHARED = 6;
+    static final byte PUBLISH_EXPIRED = 7;
+    static final byte RESTORE_PUBREL = 8;
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte NO_PAYLOAD_FORMAT_INDICATOR = -1;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    public @NotNull byte[] serializeAdd(
+            final @NotNull String queueId,
+            final boolean shared,
+            final boolean retained,
+            final long max,
+            final @NotNull MqttConfigurationService.QueuedMessagesStrategy strategy,
+            final @NotNull PUBLISH publish) {
+
+        final byte[] queueIdBytes = queueId.getBytes(UTF_8);
+        final byte[] hivemqId = publish.getHivemqId().getBytes(UTF_8);
+        final byte[] topic = publish.getTopic().getBytes(UTF_8);
+        final byte[] payload = publish.getPayload();
+        final byte[] contentType = toBytes(publish.getContentType());
+        final byte[] responseTopic = toBytes(publish.getResponseTopic());
+        final byte[] correlationData = publish.getCorrelationData();
+        final ImmutableList<MqttUserProperty> userProperties = publish.getUserProperties().asList();
+        final ImmutableIntArray subscriptionIdentifiers = publish.getSubscriptionIdentifiers();
+
+        int size = 1 + // operation
+                lengthOf(queueIdBytes) +
+                1 + // shared
+                1 + // retained
+                8 + // max
+                1 + // strategy
+                lengthOf(hivemqId) +
+                8 + // publish id
+                8 + // timestamp
+                1 + // qos
+                1 + // onward qos
+                1 + // retain
+                1 + // duplicate delivery
+                1 + // payload format indicator
+                8 + // message expiry interval
+                lengthOf(topic) +
+                lengthOf(payload) +
+                lengthOf(contentType) +
+                lengthOf(responseTopic) +
+                lengthOf(correlationData) +
+                4 + // user property count
+                4 + (subscriptionIdentifiers != null ? subscriptionIdentifiers.length() * 4 : 0);
+        final byte[][] userPropertyBytes = new byte[userProperties.size() * 2][];
+        for (int i = 0; i < userProperties.size(); i++) {
+            final MqttUserProperty userProperty = userProperties.get(i);
+            userPropertyBytes[i * 2] = userProperty.getName().getBytes(UTF_8);
+            userPropertyBytes[i * 2 + 1] = userProperty.getValue().getBytes(UTF_8);
+            size += 8 + userPropertyBytes[i * 2].length + userPropertyBytes[i * 2 + 1].length;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        byteBuffer.put(ADD);
+        putBytes(queueIdBytes, byteBuffer);
+        byteBuffer.put((byte) (shared ? 1 : 0));
+        byteBuffer.put((byte) (retained ? 1 : 0));
+        byteBuffer.putLong(max);
+        byteBuffer.put((byte) strategy.ordinal());
+        putBytes(hivemqId, byteBuffer);
+        byteBuffer.putLong(publish.getPublishId());
+        byteBuffer.putLong(publish.getTimestamp());
+        byteBuffer.put((byte) publish.getQoS().getQosNumber());
+        byteBuffer.put((byte) publish.getOnwardQoS().getQosNumber());
+        byteBuffer.put((byte) (publish.isRetain() ? 1 : 0));
+        byteBuffer.put((byte) (publish.isDuplicateDelivery() ? 1 : 0));
+        final Mqtt5PayloadFormatIndicator payloadFormatIndicator = publish.getPayloadFormatIndicator();
+        byteBuffer.put(payloadFormatIndicator != null ?
+                (byte) payloadFormatIndicator.getCode() :
+                NO_PAYLOAD_FORMAT_INDICATOR);
+        byteBuffer.putLong(publish.getMessageExpiryInterval());
+        putBytes(topic, byteBuffer);
+        putBytes(payload, byteBuffer);
+        putBytes(contentType, byteBuffer);
+        putBytes(responseTopic, byteBuffer);
+        putBytes(correlationData, byteBuffer);
+        byteBuffer.putInt(userProperties.size());
+        for (final byte[] userPropertyByte : userPropertyBytes) {
+            putBytes(userPropertyByte, byteBuffer);
+        }
+        if (subscriptionIdentifiers == null) {
+            byteBuffer.putInt(NULL_LENGTH);
+        } else {
+            byteBuffer.putInt(subscriptionIdentifiers.length());
+            for (int i = 0; i < subscriptionIdentifiers.length(); i++) {
+                byteBuffer.putInt(subscriptionIdentifiers.get(i));
+            }
+        }
+        return byteBuffer.array();
+    }
+
+    /**
+     * @param publishes the PUBLISHes that were marked in-flight, with their packet identifier
+     */
+    public @NotNull byte[] serializeInflight(
+            final @NotNull String queueId, final boolean shared, final @NotNull List<PUBLISH> publishes) {
+
+        final byte[] queueIdBytes = queueId.getBytes(UTF_8);
+        final byte[][] uniqueIds = new byte[publishes.size()][];
+        int size = 1 + lengthOf(queueIdBytes) + 1 + 4;
+        for (int i = 0; i < uniqueIds.length; i++) {
+            uniqueIds[i] = publishes.get(i).getUniqueId().getBytes(UTF_8);
+            size += lengthOf(uniqueIds[i]) + 4;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        byteBuffer.put(INFLIGHT);
+        putBytes(queueIdBytes, byteBuffer);
+        byteBuffer.put((byte) (shared ? 1 : 0));
+        byteBuffer.putInt(uniqueIds.length);
+        for (int i = 0; i < uniqueIds.length; i++) {
+            putBytes(uniqueIds[i], byteBuffer);
+            byteBuffer.putInt(publishes.get(i).getPacketIdentifier());
+        }
+        return byteBuffer.array();
+    }
+
+    public @NotNull byte[] serializeReplace(
+            final @NotNull String client,
+            final int packetId,
+            final @Nullable Long publishTimestamp,
+            final @Nullable Long messageExpiryInterval) {
+        return serializePubrel(REPLACE, client, packetId, publishTimestamp, messageExpiryInterval);
+    }
+
+    /**
+     * Unlike {@link #serializeReplace}, the PUBREL is also restored if the queue of the client does not exist yet.
+     */
+    public @NotNull byte[] serializeRestorePubrel(
+            final @NotNull String client,
+            final int packetId,
+            final @Nullable Long publishTimestamp,
+            final @Nullable Long messageExpiryInterval) {
+        return serializePubrel(RESTORE_PUBREL, client, packetId, publishTimestamp, messageExpiryInterval);
+    }
+
+    private @NotNull byte[] serializePubrel(
+            final byte operation,
+            final @NotNull String client,
+            final int packetId,
+            final @Nullable Long publishTimestamp,
+            final @Nullable Long messageExpiryInterval) {
+
+        final byte[] clientBytes = client.getBytes(UTF_8);
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(1 + lengthOf(clientBytes) + 4 + 8 + 8);
+        byteBuffer.put(operation);
+        putBytes(clientBytes, byteBuffer);
+        byteBuffer.putInt(packetId);
+        byteBuffer.putLong(publishTimestamp != null ? publishTimestamp : NULL_LONG);
+        byteBuffer.putLong(messageExpiryInterval != null ? messageExpiryInterval : NULL_LONG);
+        return byteBuffer.array();
+    }
+
+    public @NotNull byte[] serializeRemove(
+            final @NotNull String client, final int packetId, final @Nullable String uniqueId) {
+
+        final byte[] clientBytes = client.getBytes(UTF_8);
+        final byte[] uniqueIdBytes = toBytes(uniqueId);
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(1 + lengthOf(clientBytes) + 4 + lengthOf(uniqueIdBytes));
+        byteBuffer.put(REMOVE);
+        putBytes(clientBytes, byteBuffer);
+        byteBuffer.putInt(packetId);
+        putBytes(uniqueIdBytes, byteBuffer);
+        return byteBuffer.array();
+    }
+
+    public @NotNull byte[] serializeClear(final @NotNull String queueId, final boolean shared) {
+        final byte[] queueIdBytes = queueId.getBytes(UTF_8);
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(1 + lengthOf(queueIdBytes) + 1);
+        byteBuffer.put(CLEAR);
+        putBytes(queueIdBytes, byteBuffer);
+        byteBuffer.put((byte) (shared ? 1 : 0));
+        return byteBuffer.array();
+    }
+
+    public @NotNull byte[] serializeRemoveShared(
+            final @NotNull String sharedSubscription, final @NotNull String uniqueId) {
+
+        final byte[] queueIdBytes = sharedSubscription.getBytes(UTF_8);
+        final byte[] uniqueIdBytes = uniqueId.getBytes(UTF_8);
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(1 + lengthOf(queueIdBytes) + lengthOf(uniqueIdBytes));
+        byteBuffer.put(REMOVE_SHARED);
+        putBytes(queueIdBytes, byteBuffer);
+        putBytes(uniqueIdBytes, byteBuffer);
+        return byteBuffer.array();
+    }
+
+    public @NotNull byte[] serializePublishExpired(
+            final @NotNull String queueId, final boolean shared, final @NotNull String uniqueId) {
+
+        final byte[] queueIdBytes = queueId.getBytes(UTF_8);
+        final byte[] uniqueIdBytes = uniqueId.getBytes(UTF_8);
+        final ByteBuffer byteBuffer =
+                ByteBuffer.allocate(1 + lengthOf(queueIdBytes) + 1 + lengthOf(uniqueIdBytes));
+        byteBuffer.put(PUBLISH_EXPIRED);
+        putBytes(queueIdBytes, byteBuffer);
+        byteBuffer.put((byte) (shared ? 1 : 0));
+        putBytes(uniqueIdBytes, byteBuffer);
+        return byteBuffer.array();
+    }
+
+    /**
+     * Reads the PUBLISH of an {@link #ADD} record, the buffer has to be positioned after the strategy.
+     */
+    public @NotNull PUBLISH deserializePublish(final @NotNull ByteBuffer byteBuffer) {
+        final String hivemqId = Objects.requireNonNull(getString(byteBuffer));
+        final long publishId = byteBuffer.getLong();
+        final long timestamp = byteBuffer.getLong();
+        final QoS qos = Objects.requireNonNullElse(QoS.valueOf(byteBuffer.get()), QoS.AT_LEAST_ONCE);
+        final QoS onwardQos = Objects.requireNonNullElse(QoS.valueOf(byteBuffer.get()), qos);
+        final boolean retain = byteBuffer.get() == 1;
+        final boolean duplicateDelivery = byteBuffer.get() == 1;
+        final byte payloadFormatIndicator = byteBuffer.get();
+        final long messageExpiryInterval = byteBuffer.getLong();
+        final String topic = Objects.requireNonNull(getString(byteBuffer));
+        final byte[] payload = getBytes(byteBuffer);
+        final String contentType = getString(byteBuffer);
+        final String responseTopic = getString(byteBuffer);
+        final byte[] correlationData = getBytes(byteBuffer);
+        final int userPropertyCount = byteBuffer.getInt();
+        final ImmutableList.Builder<MqttUserProperty> userProperties = ImmutableList.builder();
+        for (int i = 0; i < userPropertyCount; i++) {
+            userProperties.add(MqttUserProperty.of(Objects.requireNonNull(getString(byteBuffer)),
+                    Objects.requireNonNull(getString(byteBuffer))));
+        }
+        final int subscriptionIdentifierCount = byteBuffer.getInt();
+        ImmutableIntArray subscriptionIdentifiers = null;
+        if (subscriptionIdentifierCount != NULL_LENGTH) {
+            final ImmutableIntArray.Builder builder = ImmutableIntArray.builder(subscriptionIdentifierCount);
+            for (int i = 0; i < subscriptionIdentifierCount; i++) {
+                builder.add(byteBuffer.getInt());
+            }
+            subscriptionIdentifiers = builder.build();
+        }
+
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId(hivemqId)
+                .withPublishId(publishId)
+                .withTimestamp(timestamp)
+                .withTopic(topic)
+                .withPayload(payload)
+                .withQoS(qos)
+                .withOnwardQos(onwardQos)
+                .withRetain(retain)
+                .withDuplicateDelivery(duplicateDelivery)
+                .withMessageExpiryInterval(messageExpiryInterval)
+                .withPayloadFormatIndicator(payloadFormatIndicator != NO_PAYLOAD_FORMAT_INDICATOR ?
+                        Mqtt5PayloadFormatIndicator.fromCode(payloadFormatIndicator) :
+                        null)
+                .withContentType(contentType)
+                .withResponseTopic(responseTopic)
+                .withCorrelationData(correlationData)
+                .withUserProperties(Mqtt5UserProperties.build(userProperties))
+                .withSubscriptionIdentifiers(subscriptionIdentifiers)
+                .build();
+    }
+
+    static @Nullable Long getNullableLong(final @NotNull ByteBuffer source) {
+        final long value = source.getLong();
+        return value != NULL_LONG ? value : null;
+    }
+
+    static @Nullable byte[] getBytes(final @NotNull ByteBuffer source) {
+        final int length = source.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        source.get(bytes);
+        return bytes;
+    }
+
+    static @Nullable String getString(final @NotNull ByteBuffer source) {
+        final byte[] bytes = getBytes(source);
+        return bytes != null ? new String(bytes, UTF_8) : null;
+    }
+
+    private static int lengthOf(final @Nullable byte[] bytes) {
+        return 4 + (bytes != null ? bytes.length : 0);
+    }
+
+    private static @Nullable byte[] toBytes(final @Nullable String string) {
+        return string != null ? string.getBytes(UTF_8) : null;
+    }
+
+    private static void putBytes(final @Nullable byte[] source, final @NotNull ByteBuffer destination) {
+        if (source == null) {
+            destination.putInt(NULL_LENGTH);
+            return;
+        }
+        destination.putInt(source.length);
+        destination.put(source);
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of opaque records, stored in memory-mapped segment files of a fixed size.
+ * <p>
+ * Every record carries a CRC32 checksum, so a record that was only partially written before a power loss is detected
+ * and cut off on recovery. Records are durable once {@link #force()} returned.
+ * <p>
+ * The log is compacted by writing a {@link Snapshot} of the live state into a separate snapshot file. Starting a
+ * snapshot rolls the log to a new segment, the snapshot replaces all segments before that one. The snapshot file is
+ * written under a temporary name and only renamed once it is durable, so a crash during compaction always leaves one
+ * complete generation behind. Writing the snapshot file does not touch the log, so it can happen on another thread
+ * while records are still appended.
+ * <p>
+ * This class is not thread safe, callers have to synchronize access. Only {@link Snapshot#write()} may be called
+ * concurrently to the other methods.
+ */
+public class SegmentLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentLog.class);
+
+    static final String SEGMENT_FILE_SUFFIX = ".segment";
+    static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+    static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    // length (int) + crc (int), the length covers the kind and the body
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte KIND_DATA = 0;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final @NotNull File folder;
+    private final int segmentSizeBytes;
+    private final @NotNull TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final @NotNull CRC32 crc = new CRC32();
+
+    private @Nullable Segment writeSegment;
+    private @Nullable MappedByteBuffer writeBuffer;
+    private long sizeBytes;
+    private long snapshotSizeBytes;
+    private long snapshotFileSizeBytes;
+    private long snapshotSequence = -1;
+    private boolean dirty;
+    private boolean closed;
+
+    private @Nullable Snapshot snapshot;
+
+    private SegmentLog(final @NotNull File folder, final int segmentSizeBytes) {
+        this.folder = folder;
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    /**
+     * Opens the log in the given folder and hands all records of the latest complete generation to the consumer, in
+     * append order.
+     */
+    public static @NotNull SegmentLog open(
+            final @NotNull File folder, final int segmentSizeBytes, final @NotNull RecordConsumer consumer)
+            throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create persistence folder " + folder.getAbsolutePath());
+        }
+        final SegmentLog segmentLog = new SegmentLog(folder, segmentSizeBytes);
+        segmentLog.recover(consumer);
+        return segmentLog;
+    }
+
+    /**
+     * Appends a record. The record is not durable before {@link #force()} is called.
+     */
+    public void append(final @NotNull byte[] record) throws IOException {
+        checkNotClosed();
+        final int recordSize = RECORD_HEADER_SIZE + 1 + record.length;
+        if (writeSegment == null || writeBuffer == null || writeBuffer.remaining() < recordSize) {
+            rollSegment(recordSize);
+        }
+        final Segment segment = writeSegment;
+        final MappedByteBuffer buffer = writeBuffer;
+        putRecord(buffer, crc, record);
+        segment.size += recordSize;
+        sizeBytes += recordSize;
+        dirty = true;
+    }
+
+    /**
+     * @return <code>true</code> if records were appended since the last {@link #force()}, else <code>false</code>.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Makes all appended records durable.
+     */
+    public void force() {
+        if (dirty && writeBuffer != null) {
+            writeBuffer.force();
+        }
+        dirty = false;
+    }
+
+    /**
+     * Starts a snapshot of the live state. The records added to the snapshot replace all records that were appended
+     * to the log before, the records appended to the log from now on follow the snapshot.
+     */
+    public @NotNull Snapshot beginSnapshot() throws IOException {
+        checkNotClosed();
+        if (snapshot != null) {
+            throw new IllegalStateException("Snapshot of " + folder.getAbsolutePath() + " is already in progress");
+        }
+        rollSegment(0);
+        final Snapshot started = new Snapshot(writeSegment.sequence);
+        snapshot = started;
+        return started;
+    }
+
+    /**
+     * Deletes all segments and snapshots the written snapshot replaces.
+     */
+    public void completeSnapshot(final @NotNull Snapshot completed) throws IOException {
+        checkNotClosed();
+        checkSnapshot(completed);
+        if (!completed.written) {
+            throw new IllegalStateException("Snapshot of " + folder.getAbsolutePath() + " was not written");
+        }
+        snapshot = null;
+
+        for (final Segment segment : new ArrayList<>(segments.headMap(completed.startSequence).values())) {
+            deleteSegment(segment);
+        }
+        deleteSnapshotsBefore(completed.startSequence);
+        sizeBytes += completed.sizeBytes - snapshotFileSizeBytes;
+        snapshotFileSizeBytes = completed.sizeBytes;
+        snapshotSequence = completed.startSequence;
+        snapshotSizeBytes = sizeBytes;
+    }
+
+    /**
+     * Discards a snapshot that could not be written, the log continues with the records that were appended before
+     * and after the snapshot was started.
+     */
+    public void abortSnapshot(final @NotNull Snapshot aborted) {
+        if (snapshot != aborted) {
+            return;
+        }
+        snapshot = null;
+        deleteFile(aborted.temporaryFile());
+        deleteFile(snapshotFile(aborted.startSequence));
+    }
+
+    /**
+     * @return the amount of bytes used by the records of all segments and the snapshot
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * @return the amount of bytes the log used when the last snapshot was completed
+     */
+    public long getSnapshotSizeBytes() {
+        return snapshotSizeBytes;
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (snapshot != null) {
+            abortSnapshot(snapshot);
+        }
+        force();
+        closed = true;
+        for (final Segment segment : segments.values()) {
+            unmap(segment);
+        }
+        segments.clear();
+        writeSegment = null;
+        writeBuffer = null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void rollSegment(final int minimumSize) throws IOException {
+        force();
+        if (writeSegment != null) {
+            // only the segment that is written to stays mapped
+            unmap(writeSegment);
+        }
+        final long sequence = nextSequence();
+        final Segment segment =
+                new Segment(sequence, new File(folder, String.format("%020d", sequence) + SEGMENT_FILE_SUFFIX));
+        try (final FileChannel channel = FileChannel.open(segment.file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSizeBytes, minimumSize));
+        }
+        forceFolder();
+        segments.put(sequence, segment);
+        writeSegment = segment;
+        writeBuffer = segment.buffer;
+    }
+
+    private void recover(final @NotNull RecordConsumer consumer) throws IOException {
+        final File[] files = folder.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files != null) {
+            for (final File file : files) {
+                final Long sequence = parseSequence(file, SEGMENT_FILE_SUFFIX);
+                if (sequence != null) {
+                    segments.put(sequence, new Segment(sequence, file));
+                }
+            }
+        }
+        final File[] temporaryFiles = folder.listFiles((dir, name) -> name.endsWith(TEMPORARY_FILE_SUFFIX));
+        if (temporaryFiles != null) {
+            for (final File temporaryFile : temporaryFiles) {
+                log.warn("Discarding incomplete snapshot {}", temporaryFile.getAbsolutePath());
+                deleteFile(temporaryFile);
+            }
+        }
+
+        // the latest snapshot replaces all segments before the one it was started at
+        long generationStart = segments.isEmpty() ? 0 : segments.firstKey();
+        final File[] snapshotFiles = folder.listFiles((dir, name) -> name.endsWith(SNAPSHOT_FILE_SUFFIX));
+        if (snapshotFiles != null) {
+            for (final File snapshotFile : snapshotFiles) {
+                final Long sequence = parseSequence(snapshotFile, SNAPSHOT_FILE_SUFFIX);
+                if (sequence != null && sequence > snapshotSequence) {
+                    snapshotSequence = sequence;
+                }
+            }
+        }
+        if (snapshotSequence >= 0) {
+            generationStart = snapshotSequence;
+            for (final Segment segment : new ArrayList<>(segments.headMap(generationStart).values())) {
+                deleteSegment(segment);
+            }
+            deleteSnapshotsBefore(generationStart);
+
+            final File snapshotFile = snapshotFile(snapshotSequence);
+            try (final FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                try {
+                    final int end = replay(snapshotFile, buffer, consumer);
+                    snapshotFileSizeBytes = end;
+                    sizeBytes += end;
+                } finally {
+                    PlatformDependent.freeDirectBuffer(buffer);
+                }
+            }
+        }
+
+        for (final Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            final Segment segment = entry.getValue();
+            final boolean last = entry.getKey().equals(segments.lastKey());
+            final MappedByteBuffer buffer;
+            try (final FileChannel channel = FileChannel.open(segment.file.toPath(),
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                buffer = channel.map(last ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        0,
+                        channel.size());
+            }
+            final int end;
+            try {
+                end = replay(segment.file, buffer, consumer);
+            } catch (final RuntimeException e) {
+                PlatformDependent.freeDirectBuffer(buffer);
+                throw e;
+            }
+            segment.size = end;
+            sizeBytes += end;
+            if (last) {
+                if (end + 4 <= buffer.limit() && buffer.getInt(end) != 0) {
+                    // zero the remainder of a torn record, so it can not be mistaken for a valid record later on
+                    buffer.position(end);
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                    buffer.force();
+                }
+                buffer.position(end);
+                segment.buffer = buffer;
+                writeSegment = segment;
+                writeBuffer = buffer;
+            } else {
+                PlatformDependent.freeDirectBuffer(buffer);
+            }
+        }
+        snapshotSizeBytes = sizeBytes;
+    }
+
+    private int replay(
+            final @NotNull File file,
+            final @NotNull ByteBuffer buffer,
+            final @NotNull RecordConsumer consumer) {
+        int position = 0;
+        final int limit = buffer.limit();
+        while (position + RECORD_HEADER_SIZE < limit) {
+            final int length = buffer.getInt(position);
+            if (length == 0) {
+                // end of the written part of the segment
+                return position;
+            }
+            final int checksum = buffer.getInt(position + 4);
+            final int start = position + RECORD_HEADER_SIZE;
+            if (length < 0 || length > limit - start) {
+                break;
+            }
+            final ByteBuffer record = buffer.duplicate();
+            record.limit(start + length).position(start);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (buffer.get(start) == KIND_DATA) {
+                record.limit(start + length).position(start + 1);
+                consumer.accept(record.slice());
+            }
+            position = start + length;
+        }
+        if (position + RECORD_HEADER_SIZE < limit) {
+            log.warn("Persistence file {} contains an incomplete or corrupt record at byte {}, discarding the " +
+                    "rest of the file", file.getAbsolutePath(), position);
+        }
+        return position;
+    }
+
+    private long nextSequence() {
+        final long next = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        // a snapshot may have replaced all segments, sequences must not be reused for the segments after it
+        return Math.max(next, snapshotSequence + 1);
+    }
+
+    private void deleteSegment(final @NotNull Segment segment) {
+        segments.remove(segment.sequence);
+        if (segment == writeSegment) {
+            writeSegment = null;
+            writeBuffer = null;
+        }
+        unmap(segment);
+        if (!segment.file.delete() && segment.file.exists()) {
+            log.warn("Unable to delete persistence segment {}", segment.file.getAbsolutePath());
+        }
+        sizeBytes -= segment.size;
+    }
+
+    private void deleteSnapshotsBefore(final long sequence) {
+        final File[] snapshotFiles = folder.listFiles((dir, name) -> name.endsWith(SNAPSHOT_FILE_SUFFIX));
+        if (snapshotFiles == null) {
+            return;
+        }
+        for (final File snapshotFile : snapshotFiles) {
+            final Long snapshotFileSequence = parseSequence(snapshotFile, SNAPSHOT_FILE_SUFFIX);
+            if (snapshotFileSequence != null && snapshotFileSequence < sequence) {
+                deleteFile(snapshotFile);
+            }
+        }
+    }
+
+    private @NotNull File snapshotFile(final long sequence) {
+        return new File(folder, String.format("%020d", sequence) + SNAPSHOT_FILE_SUFFIX);
+    }
+
+    private void forceFolder() {
+        // makes created and renamed files durable on file systems which require it, not supported on every platform
+        try (final FileChannel channel = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (final IOException e) {
+            log.trace("Unable to force persistence folder {}", folder.getAbsolutePath(), e);
+        }
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Persistence segment log " + folder.getAbsolutePath() + " is closed");
+        }
+    }
+
+    private void checkSnapshot(final @NotNull Snapshot checked) {
+        if (snapshot != checked) {
+            throw new IllegalStateException("Snapshot of " + folder.getAbsolutePath() + " is not in progress");
+        }
+    }
+
+    private static void putRecord(
+            final @NotNull ByteBuffer buffer, final @NotNull CRC32 crc, final @NotNull byte[] record) {
+        crc.reset();
+        crc.update(KIND_DATA);
+        crc.update(record);
+        buffer.putInt(1 + record.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(KIND_DATA);
+        buffer.put(record);
+    }
+
+    private static void unmap(final @NotNull Segment segment) {
+        final MappedByteBuffer buffer = segment.buffer;
+        if (buffer != null) {
+            segment.buffer = null;
+            // releases the mapping right away instead of whenever the buffer is garbage collected
+            PlatformDependent.freeDirectBuffer(buffer);
+        }
+    }
+
+    private static void deleteFile(final @NotNull File file) {
+        if (!file.delete() && file.exists()) {
+            log.warn("Unable to delete persistence file {}", file.getAbsolutePath());
+        }
+    }
+
+    private static @Nullable Long parseSequence(final @NotNull File file, final @NotNull String suffix) {
+        final String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - suffix.length()));
+        } catch (final NumberFormatException e) {
+            log.warn("Ignoring unexpected file {} in persistence folder", file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    public interface RecordConsumer {
+
+        /**
+         * @param record the body of the record, only valid for the duration of the call
+         */
+        void accept(@NotNull ByteBuffer record);
+    }
+
+    /**
+     * A snapshot of the live state. The records are collected with {@link #append(byte[])} while the state is
+     * consistent, {@link #write()} then makes them durable and may be called from any thread.
+     */
+    public class Snapshot {
+
+        private final long startSequence;
+        private final @NotNull List<byte[]> records = new ArrayList<>();
+        private long sizeBytes;
+        private volatile boolean written;
+
+        private Snapshot(final long startSequence) {
+            this.startSequence = startSequence;
+        }
+
+        public void append(final @NotNull byte[] record) {
+            if (written) {
+                throw new IllegalStateException("Snapshot of " + folder.getAbsolutePath() + " was already written");
+            }
+            records.add(record);
+            sizeBytes += RECORD_HEADER_SIZE + 1 + record.length;
+        }
+
+        /**
+         * Writes the records to the snapshot file and makes it durable. The snapshot replaces the previous records
+         * of the log from now on, even if {@link SegmentLog#completeSnapshot(Snapshot)} is never called.
+         */
+        public void write() throws IOException {
+            final File temporaryFile = temporaryFile();
+            final CRC32 snapshotCrc = new CRC32();
+            final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            try (final FileChannel channel = FileChannel.open(temporaryFile.toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                for (final byte[] record : records) {
+                    final int recordSize = RECORD_HEADER_SIZE + 1 + record.length;
+                    if (buffer.remaining() < recordSize) {
+                        writeFully(channel, buffer);
+                    }
+                    if (buffer.remaining() < recordSize) {
+                        final ByteBuffer large = ByteBuffer.allocate(recordSize);
+                        putRecord(large, snapshotCrc, record);
+                        writeFully(channel, large);
+                    } else {
+                        putRecord(buffer, snapshotCrc, record);
+                    }
+                }
+                writeFully(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temporaryFile.toPath(),
+                    snapshotFile(startSequence).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+            forceFolder();
+            records.clear();
+            written = true;
+        }
+
+        private @NotNull File temporaryFile() {
+            return new File(folder, String.format("%020d", startSequence) + SNAPSHOT_FILE_SUFFIX +
+                    TEMPORARY_FILE_SUFFIX);
+        }
+
+        private void writeFully(final @NotNull FileChannel channel, final @NotNull ByteBuffer buffer)
+                throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static class Segment {
+
+        private final long sequence;
+        private final @NotNull File file;
+        private int size;
+        private @Nullable MappedByteBuffer buffer;
+
+        private Segment(final long sequence, final @NotNull File file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+    }
+}
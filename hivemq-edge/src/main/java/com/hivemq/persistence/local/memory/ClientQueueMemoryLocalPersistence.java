@@ -51,6 +51,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.hivemq.configuration.service.InternalConfigurations.QOS_0_MEMORY_HARD_LIMIT_DIVISOR;
+import static com.hivemq.persistence.local.memory.IndexedMessageQueue.NO_POSITION;
 import static com.hivemq.util.ThreadPreConditions.SINGLE_WRITER_THREAD_PREFIX;
 
 /**
@@ -68,10 +69,15 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     private final @NotNull Map<String, Messages> @NotNull [] sharedBuckets;
 
     private static class Messages {
-        final @NotNull LinkedList<MessageWithID> qos1Or2Messages = new LinkedList<>();
+        final @NotNull IndexedMessageQueue qos1Or2Messages;
         final @NotNull LinkedList<PublishWithRetained> qos0Messages = new LinkedList<>();
         int retainedQos1Or2Messages = 0;
         long qos0Memory = 0;
+
+        Messages(final boolean shared) {
+            // the in-flight markers of shared subscription queues are not unique
+            qos1Or2Messages = new IndexedMessageQueue(!shared);
+        }
     }
 
     private final @NotNull PublishPayloadPersistence payloadPersistence;
@@ -84,8 +90,11 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     private final @NotNull AtomicLong qos0MessagesMemory;
     private final @NotNull AtomicLong totalMemorySize;
 
+    private @Nullable ExpiredMessageListener expiredMessageListener;
+    private volatile boolean messageDroppedNotificationsSuppressed;
+
     @Inject
-    ClientQueueMemoryLocalPersistence(
+    public ClientQueueMemoryLocalPersistence(
             final @NotNull PublishPayloadPersistence payloadPersistence,
             final @NotNull MessageDroppedService messageDroppedService,
             final @NotNull MetricRegistry metricRegistry) {
@@ -174,7 +183,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
-        final Messages messages = bucket.computeIfAbsent(queueId, s -> new Messages());
+        final Messages messages = bucket.computeIfAbsent(queueId, s -> new Messages(shared));
 
         for (final PUBLISH publish : publishes) {
             final PublishWithRetained publishWithRetained = new PublishWithRetained(publish, retained);
@@ -213,7 +222,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 }
 
                 publishWithRetained.setPacketIdentifier(NO_PACKET_ID);
-                messages.qos1Or2Messages.add(publishWithRetained);
+                messages.qos1Or2Messages.addLast(publishWithRetained);
                 increaseMessagesMemory(publishWithRetained.getEstimatedSize());
             }
         }
@@ -249,7 +258,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         messages.qos0Messages.add(publishWithRetained);
         increaseQos0MessagesMemory(publishWithRetained.getEstimatedSize());
         increaseClientQos0MessagesMemory(messages, publishWithRetained.getEstimatedSize());
-        increaseMessagesMemory(publishWithRetained.getEstimatedSize());
+        increaseQos0TotalMessagesMemory(publishWithRetained.getEstimatedSize());
     }
 
     /**
@@ -285,30 +294,28 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        // the cursor of the queue skips the messages that are already inflight
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.firstUnsent(); position != NO_POSITION; position = queue.nextUnsent(position)) {
+            final MessageWithID messageWithID = queue.get(position);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
             final PublishWithRetained publishWithRetained = (PublishWithRetained) messageWithID;
-            if (publishWithRetained.getPacketIdentifier() != NO_PACKET_ID) {
-                //already inflight
-                continue;
-            }
 
             if (publishWithRetained.hasExpired()) {
-                iterator.remove();
+                queue.remove(position);
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
                 if (publishWithRetained.retained) {
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
+                notifyPublishExpired(queueId, shared, publishWithRetained, bucketIndex);
                 //do not return here, because we could have a QoS 0 message left
             } else {
 
                 final int packetId = packetIds.get(packetIdIndex);
-                publishWithRetained.setPacketIdentifier(packetId);
+                queue.setPacketIdentifier(position, packetId);
                 publishes.add(publishWithRetained);
                 packetIdIndex++;
                 messageCount++;
@@ -361,7 +368,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         final int estimatedSize = publishWithRetained.getEstimatedSize();
         increaseQos0MessagesMemory(-estimatedSize);
         increaseClientQos0MessagesMemory(messages, -estimatedSize);
-        increaseMessagesMemory(-estimatedSize);
+        increaseQos0TotalMessagesMemory(-estimatedSize);
         payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
         return publishWithRetained;
     }
@@ -388,7 +395,9 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<MessageWithID> publishes = ImmutableList.builder();
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            final MessageWithID messageWithID = queue.get(position);
             // Stop at first non inflight message
             // This works because in-flight messages are always first in the queue
             if (messageWithID.getPacketIdentifier() == NO_PACKET_ID) {
@@ -428,40 +437,29 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        boolean packetIdFound = false;
         String replacedId = null;
         boolean retained = false;
 
-        int messageIndexInQueue = -1;
-
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
-            messageIndexInQueue++;
-            final int packetId = messageWithID.getPacketIdentifier();
-            if (packetId == NO_PACKET_ID) {
-                break;
-            }
-            if (packetId == pubrel.getPacketIdentifier()) {
-                packetIdFound = true;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    retained = publish.retained;
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    increaseMessagesMemory(-publish.getEstimatedSize());
-                    pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(publish.getTimestamp());
-                    replacedId = publish.getUniqueId();
-                } else if (messageWithID instanceof PubrelWithRetained) {
-                    final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
-                    pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
-                    retained = pubrelWithRetained.retained;
-                }
-                break;
-            }
+        final long position = messages.qos1Or2Messages.positionOf(pubrel.getPacketIdentifier());
+        final MessageWithID messageWithID = messages.qos1Or2Messages.get(position);
+        if (messageWithID instanceof PublishWithRetained) {
+            final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+            retained = publish.retained;
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            increaseMessagesMemory(-publish.getEstimatedSize());
+            pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
+            pubrel.setPublishTimestamp(publish.getTimestamp());
+            replacedId = publish.getUniqueId();
+        } else if (messageWithID instanceof PubrelWithRetained) {
+            final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
+            pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
+            pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
+            retained = pubrelWithRetained.retained;
+            increaseMessagesMemory(-pubrelWithRetained.getEstimatedSize());
         }
         final PubrelWithRetained pubrelWithRetained = new PubrelWithRetained(pubrel, retained);
-        if (packetIdFound) {
-            messages.qos1Or2Messages.set(messageIndexInQueue, pubrelWithRetained);
+        if (messageWithID != null) {
+            messages.qos1Or2Messages.set(position, pubrelWithRetained);
         } else {
             // Ensure unknown PUBRELs are always first in queue
             messages.qos1Or2Messages.addFirst(pubrelWithRetained);
@@ -496,28 +494,26 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
-            if (messageWithID.getPacketIdentifier() == packetId) {
-                String removedId = null;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
-                        break;
-                    }
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    removedId = publish.getUniqueId();
-                }
-                if (isRetained(messageWithID)) {
-                    messages.retainedQos1Or2Messages--;
-                }
-                increaseMessagesMemory(-getMessageSize(messageWithID));
-                iterator.remove();
-                return removedId;
+        final long position = messages.qos1Or2Messages.positionOf(packetId);
+        final MessageWithID messageWithID = messages.qos1Or2Messages.get(position);
+        if (messageWithID == null) {
+            return null;
+        }
+        String removedId = null;
+        if (messageWithID instanceof PublishWithRetained) {
+            final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+            if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
+                return null;
             }
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            removedId = publish.getUniqueId();
         }
-        return null;
+        if (isRetained(messageWithID)) {
+            messages.retainedQos1Or2Messages--;
+        }
+        increaseMessagesMemory(-getMessageSize(messageWithID));
+        messages.qos1Or2Messages.remove(position);
+        return removedId;
     }
 
 
@@ -564,10 +560,13 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            final MessageWithID messageWithID = queue.get(position);
             if (messageWithID instanceof PublishWithRetained) {
                 payloadPersistence.decrementReferenceCounter(((PublishWithRetained) messageWithID).getPublishId());
             }
+            //noinspection ConstantConditions
             increaseMessagesMemory(-getMessageSize(messageWithID));
         }
 
@@ -576,7 +575,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             final int estimatedSize = qos0Message.getEstimatedSize();
             increaseQos0MessagesMemory(-estimatedSize);
             // increaseClientQos0MessagesMemory not necessary as messages are removed completely
-            increaseMessagesMemory(-estimatedSize);
+            increaseQos0TotalMessagesMemory(-estimatedSize);
         }
     }
 
@@ -599,7 +598,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
             increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
             // increaseClientQos0MessagesMemory not necessary as messages.qos0Memory = 0 below
-            increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
+            increaseQos0TotalMessagesMemory(-publishWithRetained.getEstimatedSize());
         }
         messages.qos0Messages.clear();
         messages.qos0Memory = 0;
@@ -616,8 +615,8 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         final Map<String, Messages> bucket = buckets[bucketIndex];
         final Map<String, Messages> sharedBucket = sharedBuckets[bucketIndex];
 
-        bucket.forEach((queueId, messages) -> cleanExpiredMessages(messages));
-        sharedBucket.forEach((queueId, messages) -> cleanExpiredMessages(messages));
+        bucket.forEach((queueId, messages) -> cleanExpiredMessages(queueId, false, messages, bucketIndex));
+        sharedBucket.forEach((queueId, messages) -> cleanExpiredMessages(queueId, true, messages, bucketIndex));
 
         return ImmutableSet.copyOf(sharedBucket.keySet());
     }
@@ -640,22 +639,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
-            if (messageWithID instanceof PublishWithRetained) {
-                final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                if (!uniqueId.equals(publish.getUniqueId())) {
-                    continue;
-                }
-                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                if (publish.retained) {
-                    messages.retainedQos1Or2Messages--;
-                }
-                increaseMessagesMemory(-publish.getEstimatedSize());
-                iterator.remove();
-            }
-        }
+        removePublish(messages, uniqueId);
     }
 
     /**
@@ -676,18 +660,139 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
-            if (messageWithID instanceof PublishWithRetained) {
-                final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                if (!uniqueId.equals(publish.getUniqueId())) {
-                    continue;
-                }
-                publish.setPacketIdentifier(NO_PACKET_ID);
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            final MessageWithID messageWithID = queue.get(position);
+            if (messageWithID instanceof PublishWithRetained &&
+                    uniqueId.equals(((PublishWithRetained) messageWithID).getUniqueId())) {
+                queue.setPacketIdentifier(position, NO_PACKET_ID);
                 break;
             }
         }
     }
 
+    /**
+     * Marks a queued PUBLISH as in-flight by setting the given packet identifier, as {@link #readNew} does.
+     * <p>
+     * This is used to restore the state of the queues from a journal.
+     *
+     * @param queueId     of the queue
+     * @param shared      is true if the queueId is actually a shared subscription false if it is a client ID
+     * @param uniqueId    of the PUBLISH
+     * @param packetId    to set for the PUBLISH
+     * @param bucketIndex provided by the single writer
+     */
+    @ExecuteInSingleWriter
+    public void markInflight(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull String uniqueId,
+            final int packetId,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "Queue ID must not be null");
+        checkNotNull(uniqueId, "Unique id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return;
+        }
+
+        // the PUBLISH was not in-flight yet, so it is queued after the cursor
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.firstUnsent(); position != NO_POSITION; position = queue.nextUnsent(position)) {
+            final MessageWithID messageWithID = queue.get(position);
+            if (messageWithID instanceof PublishWithRetained &&
+                    uniqueId.equals(((PublishWithRetained) messageWithID).getUniqueId())) {
+                queue.setPacketIdentifier(position, packetId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes a queued QoS 1 or 2 PUBLISH with a given unique ID, regardless of its packet identifier.
+     * <p>
+     * This is used to restore the state of the queues from a journal.
+     *
+     * @param queueId     of the queue
+     * @param shared      is true if the queueId is actually a shared subscription false if it is a client ID
+     * @param uniqueId    of the PUBLISH to remove
+     * @param bucketIndex provided by the single writer
+     */
+    @ExecuteInSingleWriter
+    public void removePublish(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull String uniqueId,
+            final int bucketIndex) {
+
+        checkNotNull(queueId, "Queue ID must not be null");
+        checkNotNull(uniqueId, "Unique id must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
+        final Messages messages = bucket.get(queueId);
+        if (messages == null) {
+            return;
+        }
+
+        removePublish(messages, uniqueId);
+    }
+
+    /**
+     * Visits all queued QoS 1 and 2 PUBLISHes and PUBRELs of a bucket, every queue in queue order. QoS 0 messages are
+     * not visited.
+     *
+     * @param bucketIndex provided by the single writer
+     * @param visitor     to call for every message
+     */
+    @ExecuteInSingleWriter
+    public void forEachQueuedMessage(final int bucketIndex, final @NotNull QueuedMessageVisitor visitor) {
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        forEachQueuedMessage(buckets[bucketIndex], false, visitor);
+        forEachQueuedMessage(sharedBuckets[bucketIndex], true, visitor);
+    }
+
+    private void forEachQueuedMessage(
+            final @NotNull Map<String, Messages> bucket,
+            final boolean shared,
+            final @NotNull QueuedMessageVisitor visitor) {
+
+        for (final Map.Entry<String, Messages> entry : bucket.entrySet()) {
+            final IndexedMessageQueue queue = entry.getValue().qos1Or2Messages;
+            for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+                final MessageWithID messageWithID = queue.get(position);
+                //noinspection ConstantConditions
+                visitor.visit(entry.getKey(), shared, messageWithID, isRetained(messageWithID));
+            }
+        }
+    }
+
+    /**
+     * Sets the listener that is notified about QoS 1 and 2 messages which are removed because their message expiry
+     * interval passed. These removals depend on the time they happen at, so a journal of the queues has to record them
+     * to restore the queues exactly.
+     *
+     * @param expiredMessageListener the listener or null to remove it
+     */
+    public void setExpiredMessageListener(final @Nullable ExpiredMessageListener expiredMessageListener) {
+        this.expiredMessageListener = expiredMessageListener;
+    }
+
+    /**
+     * Suppresses the notifications of the {@link MessageDroppedService} while changes that already happened once are
+     * applied again, for example while a journal of the queues is replayed. The messages are still dropped.
+     *
+     * @param suppressed true to suppress the notifications, false to send them again
+     */
+    public void setMessageDroppedNotificationsSuppressed(final boolean suppressed) {
+        this.messageDroppedNotificationsSuppressed = suppressed;
+    }
+
     @Override
     @ExecuteInSingleWriter
     public void closeDB(final int bucketIndex) {
@@ -698,6 +803,26 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         qos0MessagesMemory.set(0L);
     }
 
+    private void removePublish(final @NotNull Messages messages, final @NotNull String uniqueId) {
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            final MessageWithID messageWithID = queue.get(position);
+            if (messageWithID instanceof PublishWithRetained) {
+                final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+                if (!uniqueId.equals(publish.getUniqueId())) {
+                    continue;
+                }
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                if (publish.retained) {
+                    messages.retainedQos1Or2Messages--;
+                }
+                increaseMessagesMemory(-publish.getEstimatedSize());
+                queue.remove(position);
+                return;
+            }
+        }
+    }
+
     private int getMessageSize(final @NotNull MessageWithID messageWithID) {
         if (messageWithID instanceof PublishWithRetained) {
             return ((PublishWithRetained) messageWithID).getEstimatedSize();
@@ -718,9 +843,23 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         return false;
     }
 
+    private void notifyPublishExpired(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull PUBLISH publish,
+            final int bucketIndex) {
+
+        if (expiredMessageListener != null) {
+            expiredMessageListener.publishExpired(queueId, shared, publish.getUniqueId(), bucketIndex);
+        }
+    }
+
     private void logMessageDropped(
             final @NotNull PUBLISH publish, final boolean shared, final @NotNull String queueId) {
 
+        if (messageDroppedNotificationsSuppressed) {
+            return;
+        }
         if (shared) {
             messageDroppedService.queueFullShared(queueId, publish.getTopic(), publish.getQoS().getQosNumber());
         } else {
@@ -740,9 +879,21 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     }
 
     /**
-     * @param size the amount of bytes the currently used memory will be increased by. May be negative.
+     * @param size the amount of bytes the currently used memory will be increased by a QoS 1 or 2 message. May be
+     *             negative.
      */
     private void increaseMessagesMemory(final int size) {
+        if (size < 0) {
+            totalMemorySize.addAndGet(size - IndexedMessageQueue.SLOT_OVERHEAD);
+        } else {
+            totalMemorySize.addAndGet(size + IndexedMessageQueue.SLOT_OVERHEAD);
+        }
+    }
+
+    /**
+     * @param size the amount of bytes the currently used memory will be increased by a QoS 0 message. May be negative.
+     */
+    private void increaseQos0TotalMessagesMemory(final int size) {
         if (size < 0) {
             totalMemorySize.addAndGet(size - MemoryEstimator.LINKED_LIST_NODE_OVERHEAD);
         } else {
@@ -773,24 +924,22 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             final @NotNull Messages messages,
             final boolean retainedOnly) {
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        // we must no discard inflight messages, the cursor of the queue skips them
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.firstUnsent(); position != NO_POSITION; position = queue.nextUnsent(position)) {
+            final MessageWithID messageWithID = queue.get(position);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
             final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-            // we must no discard inflight messages
-            if (publish.getPacketIdentifier() != NO_PACKET_ID) {
-                continue;
-            }
             // Messages that are queued as retained messages are not discarded,
             // otherwise a client could only receive a limited amount of retained messages per subscription.
             if ((retainedOnly && !publish.retained) || (!retainedOnly && publish.retained)) {
                 continue;
             }
             logAndDecrementPayloadReference(publish, shared, queueId);
-            iterator.remove();
+            increaseMessagesMemory(-publish.getEstimatedSize());
+            queue.remove(position);
             return true;
         }
         return false;
@@ -804,7 +953,11 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         payloadPersistence.decrementReferenceCounter(publish.getPublishId());
     }
 
-    private void cleanExpiredMessages(final @NotNull Messages messages) {
+    private void cleanExpiredMessages(
+            final @NotNull String queueId,
+            final boolean shared,
+            final @NotNull Messages messages,
+            final int bucketIndex) {
 
         final Iterator<PublishWithRetained> iterator = messages.qos0Messages.iterator();
         while (iterator.hasNext()) {
@@ -812,15 +965,15 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             if (publishWithRetained.hasExpired()) {
                 increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
                 increaseClientQos0MessagesMemory(messages, -publishWithRetained.getEstimatedSize());
-                increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
+                increaseQos0TotalMessagesMemory(-publishWithRetained.getEstimatedSize());
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
                 iterator.remove();
             }
         }
 
-        final Iterator<MessageWithID> qos12iterator = messages.qos1Or2Messages.iterator();
-        while (qos12iterator.hasNext()) {
-            final MessageWithID messageWithID = qos12iterator.next();
+        final IndexedMessageQueue queue = messages.qos1Or2Messages;
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            final MessageWithID messageWithID = queue.get(position);
             if (messageWithID instanceof PubrelWithRetained) {
                 final PubrelWithRetained pubrel = (PubrelWithRetained) messageWithID;
                 if (!InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
@@ -836,7 +989,10 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-pubrel.getEstimatedSize());
-                qos12iterator.remove();
+                queue.remove(position);
+                if (expiredMessageListener != null) {
+                    expiredMessageListener.pubrelExpired(queueId, pubrel.getPacketIdentifier(), bucketIndex);
+                }
 
             } else if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
@@ -849,12 +1005,31 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                         messages.retainedQos1Or2Messages--;
                     }
                     increaseMessagesMemory(-publish.getEstimatedSize());
-                    qos12iterator.remove();
+                    queue.remove(position);
+                    notifyPublishExpired(queueId, shared, publish, bucketIndex);
                 }
             }
         }
     }
 
+    public interface QueuedMessageVisitor {
+
+        /**
+         * @param queueId  of the queue the message is queued in
+         * @param shared   is true if the queueId is actually a shared subscription false if it is a client ID
+         * @param message  the queued PUBLISH or PUBREL, the PUBLISH is in-flight if it has a packet identifier
+         * @param retained true if the message was queued in response to a subscribe
+         */
+        void visit(@NotNull String queueId, boolean shared, @NotNull MessageWithID message, boolean retained);
+    }
+
+    public interface ExpiredMessageListener {
+
+        void publishExpired(@NotNull String queueId, boolean shared, @NotNull String uniqueId, int bucketIndex);
+
+        void pubrelExpired(@NotNull String clientId, int packetId, int bucketIndex);
+    }
+
     @VisibleForTesting
     static class PublishWithRetained extends PUBLISH {
 
@@ -96,7 +96,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
     }
 
     private @NotNull Map<String, PersistenceEntry<ClientSession>> getBucket(final int bucketIndex) {
-        checkArgument(bucketIndex <= bucketCount, "Bucket must be less or equal than bucketCount");
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
         return buckets[bucketIndex];
     }
 
@@ -0,0 +1,464 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.util.MemoryEstimator;
+
+import java.util.Arrays;
+
+/**
+ * The QoS 1 and 2 messages of a client or shared subscription queue in FIFO order.
+ * <p>
+ * The messages are stored in a ring of fixed size chunks and addressed by a position. A removed message leaves an
+ * empty slot behind. Empty slots at the head and the tail are released right away, empty slots in between are
+ * compacted when they outnumber the messages, which only happens while a message is added. So positions stay valid
+ * while the queue is iterated and messages are removed, but not across adding a message.
+ * <p>
+ * Besides the order the queue keeps
+ * <ul>
+ *     <li>a cursor before which no message without packet identifier (not yet sent) is queued, so reading new
+ *     messages does not have to skip all in-flight messages first, and</li>
+ *     <li>optionally an index of the packet identifiers of the in-flight messages, so acknowledgements do not have to
+ *     scan the queue.</li>
+ * </ul>
+ * The packet identifiers of queued messages must therefore only be changed via {@link #setPacketIdentifier}.
+ * <p>
+ * The queue is not thread safe, it is only accessed by the single writer of its bucket.
+ */
+final class IndexedMessageQueue {
+
+    /**
+     * The memory a queued message occupies in the queue besides the message itself: its slot in a chunk. The chunk
+     * headers and the index of the in-flight messages are negligible in comparison.
+     */
+    static final int SLOT_OVERHEAD = MemoryEstimator.OBJECT_REF_SIZE;
+
+    static final long NO_POSITION = Long.MIN_VALUE;
+
+    private static final int NO_PACKET_ID = 0;
+
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private @Nullable MessageWithID @NotNull [] @Nullable [] chunks = new MessageWithID[2][];
+    private int firstChunk;
+    private int chunkCount;
+    // position of the first slot of the first chunk
+    private long chunksPosition;
+    // a released chunk that is reused for the next chunk, so a queue that is drained as fast as it is filled does not
+    // allocate a new chunk every CHUNK_SIZE messages
+    private @Nullable MessageWithID @Nullable [] spareChunk;
+
+    private long head;
+    private long tail;
+    private long cursor;
+    private int size;
+
+    private final @Nullable PacketIdIndex packetIdIndex;
+
+    /**
+     * @param indexed true if the packet identifiers of the in-flight messages are unique and should be indexed for
+     *                {@link #positionOf(int)}, false for shared subscription queues
+     */
+    IndexedMessageQueue(final boolean indexed) {
+        packetIdIndex = indexed ? new PacketIdIndex() : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void addLast(final @NotNull MessageWithID message) {
+        final long gaps = (tail - head) - size;
+        if (gaps >= CHUNK_SIZE && gaps > size) {
+            compact();
+        }
+        if (tail == chunksPosition + ((long) chunkCount << CHUNK_SHIFT)) {
+            if (chunkCount == chunks.length) {
+                growChunks();
+            }
+            chunks[(firstChunk + chunkCount) & (chunks.length - 1)] = newChunk();
+            chunkCount++;
+        }
+        final long position = tail;
+        tail++;
+        size++;
+        setSlot(position, message);
+        index(message.getPacketIdentifier(), position);
+    }
+
+    void addFirst(final @NotNull MessageWithID message) {
+        if (head == chunksPosition) {
+            if (chunkCount == chunks.length) {
+                growChunks();
+            }
+            firstChunk = (firstChunk - 1) & (chunks.length - 1);
+            chunks[firstChunk] = newChunk();
+            chunkCount++;
+            chunksPosition -= CHUNK_SIZE;
+        }
+        head--;
+        size++;
+        setSlot(head, message);
+        index(message.getPacketIdentifier(), head);
+        if (message.getPacketIdentifier() == NO_PACKET_ID) {
+            cursor = head;
+        }
+    }
+
+    /**
+     * @return the message at the position or null if the position is empty or out of the queue
+     */
+    @Nullable MessageWithID get(final long position) {
+        if (position < head || position >= tail) {
+            return null;
+        }
+        final long offset = position - chunksPosition;
+        //noinspection ConstantConditions
+        return chunks[(firstChunk + (int) (offset >>> CHUNK_SHIFT)) & (chunks.length - 1)][(int) (offset & CHUNK_MASK)];
+    }
+
+    /**
+     * Replaces the message at an occupied position, for example a PUBLISH with its PUBREL.
+     */
+    void set(final long position, final @NotNull MessageWithID message) {
+        final MessageWithID previous = get(position);
+        if (previous == null) {
+            throw new IllegalArgumentException("No message at position " + position);
+        }
+        unindex(previous.getPacketIdentifier(), position);
+        setSlot(position, message);
+        index(message.getPacketIdentifier(), position);
+        if (message.getPacketIdentifier() == NO_PACKET_ID && position < cursor) {
+            cursor = position;
+        }
+    }
+
+    void setPacketIdentifier(final long position, final int packetId) {
+        final MessageWithID message = get(position);
+        if (message == null) {
+            throw new IllegalArgumentException("No message at position " + position);
+        }
+        unindex(message.getPacketIdentifier(), position);
+        message.setPacketIdentifier(packetId);
+        index(packetId, position);
+        if (packetId == NO_PACKET_ID && position < cursor) {
+            cursor = position;
+        }
+    }
+
+    /**
+     * @return the removed message or null if the position was empty
+     */
+    @Nullable MessageWithID remove(final long position) {
+        final MessageWithID message = get(position);
+        if (message == null) {
+            return null;
+        }
+        setSlot(position, null);
+        unindex(message.getPacketIdentifier(), position);
+        size--;
+        if (size == 0) {
+            releaseAll();
+            return message;
+        }
+        while (get(head) == null) {
+            head++;
+        }
+        while (get(tail - 1) == null) {
+            tail--;
+        }
+        while (head - chunksPosition >= CHUNK_SIZE) {
+            releaseChunk(firstChunk);
+            firstChunk = (firstChunk + 1) & (chunks.length - 1);
+            chunkCount--;
+            chunksPosition += CHUNK_SIZE;
+        }
+        while (chunksPosition + ((long) (chunkCount - 1) << CHUNK_SHIFT) >= tail) {
+            chunkCount--;
+            releaseChunk((firstChunk + chunkCount) & (chunks.length - 1));
+        }
+        cursor = Math.min(Math.max(cursor, head), tail);
+        return message;
+    }
+
+    /**
+     * @return the position of the first message or {@link #NO_POSITION} if the queue is empty
+     */
+    long first() {
+        return (size == 0) ? NO_POSITION : head;
+    }
+
+    /**
+     * @return the position of the next message after the position or {@link #NO_POSITION} if there is none
+     */
+    long next(final long position) {
+        for (long next = Math.max(position + 1, head); next < tail; next++) {
+            if (get(next) != null) {
+                return next;
+            }
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * @return the position of the first message without packet identifier or {@link #NO_POSITION} if there is none
+     */
+    long firstUnsent() {
+        while (cursor < tail) {
+            final MessageWithID message = get(cursor);
+            if (message != null && message.getPacketIdentifier() == NO_PACKET_ID) {
+                return cursor;
+            }
+            cursor++;
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * @return the position of the next message without packet identifier after the position or {@link #NO_POSITION}
+     *         if there is none
+     */
+    long nextUnsent(final long position) {
+        for (long next = Math.max(position + 1, head); next < tail; next++) {
+            final MessageWithID message = get(next);
+            if (message != null && message.getPacketIdentifier() == NO_PACKET_ID) {
+                return next;
+            }
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * @return the position of the message with the packet identifier or {@link #NO_POSITION} if there is none
+     */
+    long positionOf(final int packetId) {
+        if (packetIdIndex == null) {
+            throw new IllegalStateException("Packet identifiers are not indexed");
+        }
+        return packetIdIndex.get(packetId);
+    }
+
+    private void setSlot(final long position, final @Nullable MessageWithID message) {
+        final long offset = position - chunksPosition;
+        //noinspection ConstantConditions
+        chunks[(firstChunk + (int) (offset >>> CHUNK_SHIFT)) & (chunks.length - 1)][(int) (offset & CHUNK_MASK)] =
+                message;
+    }
+
+    private void index(final int packetId, final long position) {
+        if (packetIdIndex != null && packetId != NO_PACKET_ID) {
+            packetIdIndex.put(packetId, position);
+        }
+    }
+
+    private void unindex(final int packetId, final long position) {
+        if (packetIdIndex != null && packetId != NO_PACKET_ID) {
+            packetIdIndex.remove(packetId, position);
+        }
+    }
+
+    private @Nullable MessageWithID @NotNull [] newChunk() {
+        final MessageWithID[] chunk = spareChunk;
+        if (chunk != null) {
+            spareChunk = null;
+            return chunk;
+        }
+        return new MessageWithID[CHUNK_SIZE];
+    }
+
+    private void releaseChunk(final int chunkIndex) {
+        final MessageWithID[] chunk = chunks[chunkIndex];
+        chunks[chunkIndex] = null;
+        if (chunk != null && spareChunk == null) {
+            // all slots of a released chunk are already empty
+            spareChunk = chunk;
+        }
+    }
+
+    private void releaseAll() {
+        for (int i = 0; i < chunkCount; i++) {
+            releaseChunk((firstChunk + i) & (chunks.length - 1));
+        }
+        firstChunk = 0;
+        chunkCount = 0;
+        chunksPosition = 0;
+        head = 0;
+        tail = 0;
+        cursor = 0;
+        if (chunks.length > 2) {
+            chunks = new MessageWithID[2][];
+        }
+        if (packetIdIndex != null) {
+            packetIdIndex.clear();
+        }
+    }
+
+    private void growChunks() {
+        final MessageWithID[][] grown = new MessageWithID[chunks.length * 2][];
+        for (int i = 0; i < chunkCount; i++) {
+            grown[i] = chunks[(firstChunk + i) & (chunks.length - 1)];
+        }
+        chunks = grown;
+        firstChunk = 0;
+    }
+
+    /**
+     * Moves all messages to the front of a new ring of chunks, so the gaps between them are released. The positions of
+     * the messages change, so the cursor and the index are rebuilt.
+     */
+    private void compact() {
+        final int newChunkCount = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+        final MessageWithID[][] compacted =
+                new MessageWithID[Math.max(2, Integer.highestOneBit(newChunkCount) << 1)][];
+        long newCursor = size;
+        int newPosition = 0;
+        for (long position = head; position < tail; position++) {
+            final MessageWithID message = get(position);
+            if (message == null) {
+                continue;
+            }
+            if (position >= cursor && newCursor == size) {
+                newCursor = newPosition;
+            }
+            final int chunkIndex = newPosition >>> CHUNK_SHIFT;
+            if (compacted[chunkIndex] == null) {
+                compacted[chunkIndex] = new MessageWithID[CHUNK_SIZE];
+            }
+            compacted[chunkIndex][newPosition & CHUNK_MASK] = message;
+            newPosition++;
+        }
+        chunks = compacted;
+        firstChunk = 0;
+        chunkCount = newChunkCount;
+        chunksPosition = 0;
+        head = 0;
+        tail = size;
+        cursor = newCursor;
+        if (packetIdIndex != null) {
+            packetIdIndex.clear();
+            for (long position = 0; position < size; position++) {
+                //noinspection ConstantConditions
+                index(get(position).getPacketIdentifier(), position);
+            }
+        }
+    }
+
+    /**
+     * Open addressing hash map from packet identifiers to positions with linear probing. Packet identifiers are never
+     * 0, so 0 marks a free slot.
+     */
+    private static final class PacketIdIndex {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int @NotNull [] packetIds = new int[INITIAL_CAPACITY];
+        private long @NotNull [] positions = new long[INITIAL_CAPACITY];
+        private int count;
+
+        long get(final int packetId) {
+            final int mask = packetIds.length - 1;
+            for (int i = slot(packetId, mask); packetIds[i] != NO_PACKET_ID; i = (i + 1) & mask) {
+                if (packetIds[i] == packetId) {
+                    return positions[i];
+                }
+            }
+            return NO_POSITION;
+        }
+
+        void put(final int packetId, final long position) {
+            if ((count + 1) * 2 > packetIds.length) {
+                resize(packetIds.length * 2);
+            }
+            final int mask = packetIds.length - 1;
+            int i = slot(packetId, mask);
+            while (packetIds[i] != NO_PACKET_ID) {
+                if (packetIds[i] == packetId) {
+                    positions[i] = position;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            packetIds[i] = packetId;
+            positions[i] = position;
+            count++;
+        }
+
+        /**
+         * Removes the packet identifier only if it is mapped to the position.
+         */
+        void remove(final int packetId, final long position) {
+            final int mask = packetIds.length - 1;
+            for (int i = slot(packetId, mask); packetIds[i] != NO_PACKET_ID; i = (i + 1) & mask) {
+                if (packetIds[i] == packetId) {
+                    if (positions[i] == position) {
+                        removeAt(i, mask);
+                    }
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            if (packetIds.length > INITIAL_CAPACITY) {
+                packetIds = new int[INITIAL_CAPACITY];
+                positions = new long[INITIAL_CAPACITY];
+            } else {
+                Arrays.fill(packetIds, NO_PACKET_ID);
+            }
+            count = 0;
+        }
+
+        /**
+         * Shifts the following entries of the probe sequence back instead of leaving a tombstone.
+         */
+        private void removeAt(final int index, final int mask) {
+            int gap = index;
+            for (int i = (index + 1) & mask; packetIds[i] != NO_PACKET_ID; i = (i + 1) & mask) {
+                final int slot = slot(packetIds[i], mask);
+                if (((i - slot) & mask) >= ((i - gap) & mask)) {
+                    packetIds[gap] = packetIds[i];
+                    positions[gap] = positions[i];
+                    gap = i;
+                }
+            }
+            packetIds[gap] = NO_PACKET_ID;
+            count--;
+        }
+
+        private void resize(final int capacity) {
+            final int[] oldPacketIds = packetIds;
+            final long[] oldPositions = positions;
+            packetIds = new int[capacity];
+            positions = new long[capacity];
+            count = 0;
+            for (int i = 0; i < oldPacketIds.length; i++) {
+                if (oldPacketIds[i] != NO_PACKET_ID) {
+                    put(oldPacketIds[i], oldPositions[i]);
+                }
+            }
+        }
+
+        private static int slot(final int packetId, final int mask) {
+            final int hash = packetId * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.hivemq.annotations.ExecuteInSingleWriter;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -26,7 +27,6 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.persistence.RetainedMessage;
-import com.hivemq.persistence.local.xodus.PublishTopicTree;
 import com.hivemq.persistence.retained.RetainedMessageLocalPersistence;
 import com.hivemq.util.ThreadPreConditions;
 import org.slf4j.Logger;
@@ -54,7 +54,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
 
     @VisibleForTesting
     @NotNull
-    final PublishTopicTree[] topicTrees;
+    final RetainedMessageTopicIndex[] topicIndices;
 
     final private @NotNull Map<String, RetainedMessage>[] buckets;
 
@@ -69,9 +69,9 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         for (int i = 0; i < bucketCount; i++) {
             buckets[i] = new HashMap<>();
         }
-        topicTrees = new PublishTopicTree[bucketCount];
+        topicIndices = new RetainedMessageTopicIndex[bucketCount];
         for (int i = 0; i < bucketCount; i++) {
-            topicTrees[i] = new PublishTopicTree();
+            topicIndices[i] = new RetainedMessageTopicIndex();
         }
 
         metricRegistry.register(
@@ -92,7 +92,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
     @Override
     public void clear(final int bucketIndex) {
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
-        topicTrees[bucketIndex] = new PublishTopicTree();
+        topicIndices[bucketIndex].clear();
 
         final Map<String, RetainedMessage> bucket = buckets[bucketIndex];
         for (final RetainedMessage retainedMessage : bucket.values()) {
@@ -107,7 +107,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         checkNotNull(topic, "Topic must not be null");
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
-        topicTrees[bucketIndex].remove(topic);
+        topicIndices[bucketIndex].remove(topic);
         final Map<String, RetainedMessage> bucket = buckets[bucketIndex];
         final RetainedMessage retainedMessage = bucket.remove(topic);
         if (retainedMessage != null) {
@@ -130,7 +130,6 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         if (retainedMessage.hasExpired()) {
             return null;
         }
-        final RetainedMessage copy = retainedMessage.copyWithoutPayload();
         return retainedMessage;
     }
 
@@ -148,7 +147,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
             currentMemorySize.addAndGet(-previousMessage.getEstimatedSizeInMemory());
         }
         currentMemorySize.addAndGet(retainedMessage.getEstimatedSizeInMemory());
-        topicTrees[bucketIndex].add(topic);
+        topicIndices[bucketIndex].put(topic, retainedMessage);
     }
 
     @NotNull
@@ -158,7 +157,17 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
         checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
-        return topicTrees[bucketIndex].get(subscription);
+        return ImmutableSet.copyOf(topicIndices[bucketIndex].matchingTopics(subscription));
+    }
+
+    @NotNull
+    @ExecuteInSingleWriter
+    @Override
+    public Iterator<String> getMatchingTopics(@NotNull final String subscription, final int bucketIndex) {
+        checkArgument(bucketIndex >= 0 && bucketIndex < bucketCount, "Bucket index out of range");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        return topicIndices[bucketIndex].matchingTopics(subscription);
     }
 
     @ExecuteInSingleWriter
@@ -176,7 +185,7 @@ public class RetainedMessageMemoryLocalPersistence implements RetainedMessageLoc
             final String topic = entry.getKey();
             if (retainedMessage.hasExpired()) {
                 currentMemorySize.addAndGet(-retainedMessage.getEstimatedSizeInMemory());
-                topicTrees[bucketIndex].remove(topic);
+                topicIndices[bucketIndex].remove(topic);
                 return true;
             }
             return false;
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.persistence.RetainedMessage;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Topic index for the retained messages of a single persistence bucket.
+ * <p>
+ * Every topic level is a node of a tree. Level strings are interned, so the many topics sharing the same prefixes
+ * (e.g. <code>plant/line-1/...</code>) share the same level instances. The node of a topic holds the topic string and
+ * a reference to its {@link RetainedMessage}, so wildcard matches are resolved and checked for expiry in the tree
+ * without a second lookup.
+ * <p>
+ * Matches are streamed by an iterator walking the tree with an explicit stack. No intermediate sets are built and no
+ * topic strings are concatenated while matching.
+ * <p>
+ * Like the bucket it belongs to, the index is not thread safe. It must only be accessed, and its iterators only be
+ * consumed, by the single writer thread of the bucket. An iterator may be consumed across several single writer
+ * tasks, as the index is allowed to be modified between two calls of the iterator.
+ */
+public class RetainedMessageTopicIndex {
+
+    private static final @NotNull Interner<String> LEVEL_INTERNER = Interners.newWeakInterner();
+
+    private final @NotNull Node root = new Node(null, "", 0);
+
+    /**
+     * Adds or replaces the retained message for a topic.
+     *
+     * @param topic           the topic of the retained message.
+     * @param retainedMessage the retained message.
+     */
+    public void put(final @NotNull String topic, final @NotNull RetainedMessage retainedMessage) {
+        Node node = root;
+        int start = 0;
+        while (true) {
+            final int end = levelEnd(topic, start);
+            final String level = topic.substring(start, end);
+            Node child = node.getChild(level);
+            if (child == null) {
+                child = new Node(node, LEVEL_INTERNER.intern(level), node.depth + 1);
+                node.addChild(child);
+            }
+            node = child;
+            if (end == topic.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+        node.topic = topic;
+        node.retainedMessage = retainedMessage;
+    }
+
+    /**
+     * @param topic the topic of the retained message.
+     * @return the retained message for the topic or <code>null</code> if none is stored.
+     */
+    public @Nullable RetainedMessage get(final @NotNull String topic) {
+        final Node node = find(topic);
+        return node == null ? null : node.retainedMessage;
+    }
+
+    /**
+     * Removes the retained message for a topic and prunes the nodes that are no longer needed.
+     *
+     * @param topic the topic of the retained message.
+     */
+    public void remove(final @NotNull String topic) {
+        Node node = find(topic);
+        if (node == null || node.retainedMessage == null) {
+            return;
+        }
+        node.topic = null;
+        node.retainedMessage = null;
+        while (node.parent != null && node.retainedMessage == null && !node.hasChildren()) {
+            node.parent.removeChild(node.level);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Removes all retained messages from the index.
+     */
+    public void clear() {
+        root.child = null;
+        root.children = null;
+    }
+
+    /**
+     * Iterates the topics of all retained messages matching a subscription. Expired retained messages are skipped.
+     *
+     * @param subscription the topic filter, which may contain wildcards.
+     * @return an iterator over the matching topics, in no particular order.
+     */
+    public @NotNull Iterator<String> matchingTopics(final @NotNull String subscription) {
+        return new MatchingTopicsIterator(root, splitLevels(subscription));
+    }
+
+    private @Nullable Node find(final @NotNull String topic) {
+        Node node = root;
+        int start = 0;
+        while (node != null) {
+            final int end = levelEnd(topic, start);
+            node = node.getChild(topic.substring(start, end));
+            if (end == topic.length()) {
+                return node;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static int levelEnd(final @NotNull String topic, final int start) {
+        final int end = topic.indexOf('/', start);
+        return end == -1 ? topic.length() : end;
+    }
+
+    private static @NotNull String @NotNull [] splitLevels(final @NotNull String topic) {
+        int levels = 1;
+        for (int i = 0; i < topic.length(); i++) {
+            if (topic.charAt(i) == '/') {
+                levels++;
+            }
+        }
+        final String[] result = new String[levels];
+        int start = 0;
+        for (int i = 0; i < levels; i++) {
+            final int end = levelEnd(topic, start);
+            result[i] = topic.substring(start, end);
+            start = end + 1;
+        }
+        return result;
+    }
+
+    private static class MatchingTopicsIterator implements Iterator<String> {
+
+        private final @NotNull String @NotNull [] filterLevels;
+        /**
+         * Depth from which on every node matches, as the filter ends with a multi level wildcard, or -1.
+         */
+        private final int multiLevelWildcardDepth;
+        private final @NotNull ArrayDeque<Node> stack = new ArrayDeque<>();
+        private @Nullable String next;
+
+        MatchingTopicsIterator(final @NotNull Node root, final @NotNull String @NotNull [] filterLevels) {
+            this.filterLevels = filterLevels;
+            final int lastLevel = filterLevels.length - 1;
+            multiLevelWildcardDepth = "#".equals(filterLevels[lastLevel]) ? lastLevel : -1;
+            stack.push(root);
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public @NotNull String next() {
+            final String current = next;
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            next = advance();
+            return current;
+        }
+
+        private @Nullable String advance() {
+            Node node;
+            while ((node = stack.poll()) != null) {
+                final boolean matches;
+                if (multiLevelWildcardDepth != -1 && node.depth >= multiLevelWildcardDepth) {
+                    // x/y matches x/y/#, as do all topics below it
+                    node.pushChildren(stack);
+                    matches = true;
+                } else if (node.depth == filterLevels.length) {
+                    matches = true;
+                } else {
+                    final String filterLevel = filterLevels[node.depth];
+                    if ("+".equals(filterLevel)) {
+                        node.pushChildren(stack);
+                    } else {
+                        final Node child = node.getChild(filterLevel);
+                        if (child != null) {
+                            stack.push(child);
+                        }
+                    }
+                    matches = false;
+                }
+                final RetainedMessage retainedMessage = node.retainedMessage;
+                if (matches && retainedMessage != null && !retainedMessage.hasExpired()) {
+                    return node.topic;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Node {
+
+        private final @Nullable Node parent;
+        private final @NotNull String level;
+        private final int depth;
+
+        // child is only used if there is no more than one child node.
+        private @Nullable Node child;
+        private @Nullable Map<String, Node> children;
+
+        private @Nullable String topic;
+        private @Nullable RetainedMessage retainedMessage;
+
+        Node(final @Nullable Node parent, final @NotNull String level, final int depth) {
+            this.parent = parent;
+            this.level = level;
+            this.depth = depth;
+        }
+
+        @Nullable Node getChild(final @NotNull String level) {
+            if (children != null) {
+                return children.get(level);
+            }
+            final Node child = this.child;
+            return child != null && child.level.equals(level) ? child : null;
+        }
+
+        void addChild(final @NotNull Node node) {
+            if (children != null) {
+                children.put(node.level, node);
+            } else if (child == null) {
+                child = node;
+            } else {
+                children = new HashMap<>(4);
+                children.put(child.level, child);
+                children.put(node.level, node);
+                child = null;
+            }
+        }
+
+        void removeChild(final @NotNull String level) {
+            if (children != null) {
+                children.remove(level);
+                if (children.size() == 1) {
+                    child = children.values().iterator().next();
+                    children = null;
+                }
+            } else if (child != null && child.level.equals(level)) {
+                child = null;
+            }
+        }
+
+        boolean hasChildren() {
+            return child != null || children != null;
+        }
+
+        void pushChildren(final @NotNull ArrayDeque<Node> stack) {
+            if (children != null) {
+                for (final Node node : children.values()) {
+                    stack.push(node);
+                }
+            } else if (child != null) {
+                stack.push(child);
+            }
+        }
+    }
+}
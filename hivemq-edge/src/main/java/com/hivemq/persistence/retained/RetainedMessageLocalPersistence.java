@@ -23,6 +23,7 @@ import com.hivemq.extensions.iteration.BucketChunkResult;
 import com.hivemq.persistence.LocalPersistence;
 import com.hivemq.persistence.RetainedMessage;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -81,6 +82,21 @@ public interface RetainedMessageLocalPersistence extends LocalPersistence {
     @ReadOnly
     Set<String> getAllTopics(@NotNull String subscription, int bucket);
 
+    /**
+     * Iterate the topics of all retained messages for a subscription in a persistence bucket, without collecting them
+     * first. Retained messages which have passed their message expiry interval are ignored.
+     * <p>
+     * The iterator must only be consumed by the single writer of the bucket, but it may be consumed in pages by
+     * several single writer tasks. Retained messages which are added in between may be missed and topics of retained
+     * messages which are removed in between may still be returned.
+     *
+     * @param subscription The filter to receive retained messages for.
+     * @param bucket       The index of the bucket in which the retained messages are stored.
+     * @return an iterator over the matching topic strings.
+     */
+    @NotNull
+    Iterator<String> getMatchingTopics(@NotNull String subscription, int bucket);
+
     /**
      * Trigger a cleanup for a specific bucket.
      *
@@ -22,6 +22,7 @@ import com.hivemq.extensions.iteration.ChunkCursor;
 import com.hivemq.extensions.iteration.MultipleChunkResult;
 import com.hivemq.persistence.RetainedMessage;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -68,6 +69,19 @@ public interface RetainedMessagePersistence {
     @ReadOnly
     ListenableFuture<Set<String>> getWithWildcards(@NotNull String topicWithWildcards);
 
+    /**
+     * Looks up the retained messages matching a wildcard topic in all persistence buckets in parallel. The result of
+     * every bucket can be processed as soon as it is available, without waiting for the other buckets.
+     * <p>
+     * The matching topics of a bucket are returned in pages of limited size. Further pages of a bucket are only looked
+     * up when they are requested via {@link RetainedMessageTopicsPage#nextPage()}.
+     *
+     * @param topicWithWildcards for the retained messages
+     * @return one future per persistence bucket, each completing with the first page of matching topics of that bucket
+     */
+    @NotNull
+    List<ListenableFuture<RetainedMessageTopicsPage>> getWithWildcardsPerBucket(@NotNull String topicWithWildcards);
+
     /**
      * Close the file persistence.
      *
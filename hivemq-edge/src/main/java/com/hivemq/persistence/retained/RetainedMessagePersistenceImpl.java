@@ -33,11 +33,12 @@ import com.hivemq.persistence.util.FutureUtils;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -134,6 +135,42 @@ public class RetainedMessagePersistenceImpl extends AbstractPersistence implemen
     @NotNull
     @Override
     public ListenableFuture<Set<String>> getWithWildcards(@NotNull final String subscription) {
+        try {
+            final List<ListenableFuture<RetainedMessageTopicsPage>> firstPages =
+                    getWithWildcardsPerBucket(subscription);
+            final List<ListenableFuture<Set<String>>> futures = new ArrayList<>(firstPages.size());
+            for (final ListenableFuture<RetainedMessageTopicsPage> firstPage : firstPages) {
+                futures.add(collectPages(firstPage, new HashSet<>()));
+            }
+            return Futures.transform(Futures.allAsList(futures), bucketTopics -> {
+                        final Set<String> topics = new HashSet<>();
+                        for (final Set<String> topicsOfBucket : bucketTopics) {
+                            topics.addAll(topicsOfBucket);
+                        }
+                        return topics;
+                    },
+                    MoreExecutors.directExecutor());
+        } catch (final Throwable throwable) {
+            return Futures.immediateFailedFuture(throwable);
+        }
+    }
+
+    @NotNull
+    private static ListenableFuture<Set<String>> collectPages(
+            @NotNull final ListenableFuture<RetainedMessageTopicsPage> pageFuture, @NotNull final Set<String> topics) {
+        return Futures.transformAsync(pageFuture, page -> {
+            topics.addAll(page.getTopics());
+            if (page.hasNextPage()) {
+                return collectPages(page.nextPage(), topics);
+            }
+            return Futures.immediateFuture(topics);
+        }, MoreExecutors.directExecutor());
+    }
+
+    @NotNull
+    @Override
+    public List<ListenableFuture<RetainedMessageTopicsPage>> getWithWildcardsPerBucket(
+            @NotNull final String subscription) {
         try {
             checkNotNull(subscription, "Topic must not be null");
             if (!subscription.contains("+") && !subscription.contains("#")) {
@@ -141,18 +178,30 @@ public class RetainedMessagePersistenceImpl extends AbstractPersistence implemen
                         "Topic does not contain wildcard characters. Call get method instead.");
             }
 
-            final List<ListenableFuture<Set<String>>> futures =
-                    singleWriter.submitToAllBucketsParallel((bucketIndex) -> new HashSet<>(localPersistence.getAllTopics(
-                            subscription,
-                            bucketIndex)));
-            return Futures.transform(Futures.allAsList(futures), listOfSets -> listOfSets
-                            .stream()
-                            .flatMap(Set::stream)
-                            .collect(Collectors.toSet()),
-                    MoreExecutors.directExecutor());
+            return singleWriter.submitToAllBucketsParallel((bucketIndex) -> nextPage(
+                    localPersistence.getMatchingTopics(subscription, bucketIndex),
+                    bucketIndex));
         } catch (final Throwable throwable) {
-            return Futures.immediateFailedFuture(throwable);
+            return ImmutableList.of(Futures.immediateFailedFuture(throwable));
+        }
+    }
+
+    /**
+     * Collects the next page of matching topics. Must be called by the single writer of the bucket.
+     */
+    @NotNull
+    private RetainedMessageTopicsPage nextPage(
+            @NotNull final Iterator<String> matchingTopics, final int bucketIndex) {
+        final int pageSize = InternalConfigurations.RETAINED_MESSAGES_WILDCARD_MATCHES_PAGE_SIZE;
+        final List<String> topics = new ArrayList<>(pageSize);
+        while (topics.size() < pageSize && matchingTopics.hasNext()) {
+            topics.add(matchingTopics.next());
+        }
+        if (!matchingTopics.hasNext()) {
+            return new RetainedMessageTopicsPage(topics, null);
         }
+        return new RetainedMessageTopicsPage(topics,
+                () -> singleWriter.submit(bucketIndex, (bucketIndex1) -> nextPage(matchingTopics, bucketIndex1)));
     }
 
     @NotNull
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.retained;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A page of the topics of a persistence bucket that have retained messages matching a wildcard subscription.
+ * <p>
+ * The topics of a bucket are looked up page by page, so a single writer task never collects more than one page. The
+ * next page is only looked up when it is requested via {@link #nextPage()}.
+ */
+public class RetainedMessageTopicsPage {
+
+    private final @NotNull List<String> topics;
+    private final @Nullable Supplier<ListenableFuture<RetainedMessageTopicsPage>> nextPage;
+
+    public RetainedMessageTopicsPage(
+            final @NotNull List<String> topics,
+            final @Nullable Supplier<ListenableFuture<RetainedMessageTopicsPage>> nextPage) {
+        this.topics = topics;
+        this.nextPage = nextPage;
+    }
+
+    /**
+     * @return the matching topics of this page.
+     */
+    public @NotNull List<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * @return <code>true</code> if the bucket may contain further matching topics, else <code>false</code>.
+     */
+    public boolean hasNextPage() {
+        return nextPage != null;
+    }
+
+    /**
+     * Looks up the next page of matching topics. Must only be called once per page.
+     *
+     * @return a future completing with the next page.
+     * @throws IllegalStateException if this is the last page.
+     */
+    public @NotNull ListenableFuture<RetainedMessageTopicsPage> nextPage() {
+        if (nextPage == null) {
+            throw new IllegalStateException("There is no next page of matching topics.");
+        }
+        return nextPage.get();
+    }
+}
@@ -28,13 +28,17 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Adapters may add nodes from several threads while they discover their device, so adding is synchronized. The tree
+ * must only be read once the discovery is complete.
+ */
 public class NodeTreeImpl implements NodeTree {
 
     private final Map<String, ObjectNode> nodes = new HashMap<>();
     private final ObjectNode root = new ObjectNode("ROOT", "ROOT", "ROOT", NodeType.FOLDER, false);
 
     @Override
-    public void addNode(
+    public synchronized void addNode(
             @NotNull final String id,
             @NotNull final String name,
             @NotNull final String description,
@@ -34,4 +34,9 @@ public interface UnifiedNamespaceService {
 
     MqttTopic prefixISA95(MqttTopic topic);
 
+    /**
+     * @return the configured ISA95 levels joined by '/', or an empty String if no level is configured
+     */
+    @NotNull String getTopicPrefix(@NotNull ISA95 isa95);
+
 }
@@ -72,8 +72,21 @@ public class UnifiedNamespaceServiceImpl implements UnifiedNamespaceService {
     @Override
     public MqttTopic prefixISA95(final @NotNull MqttTopic topic) {
         Preconditions.checkNotNull(topic);
+        List<String> parts = ImmutableList.<String>builder()
+                .addAll(prefixLevels(getISA95()))
+                .addAll(topic.getLevels())
+                .build();
+        return MqttTopic.of(String.join("/", parts));
+    }
+
+    @Override
+    public @NotNull String getTopicPrefix(final @NotNull ISA95 isa95) {
+        Preconditions.checkNotNull(isa95);
+        return String.join("/", prefixLevels(isa95));
+    }
+
+    private static @NotNull List<String> prefixLevels(final @NotNull ISA95 isa95) {
         ImmutableList.Builder<String> builder = ImmutableList.builder();
-        ISA95 isa95 = getISA95();
         if(!Strings.isNullOrEmpty(isa95.getEnterprise())){
             builder.add(isa95.getEnterprise());
         }
@@ -89,7 +102,6 @@ public class UnifiedNamespaceServiceImpl implements UnifiedNamespaceService {
         if(!Strings.isNullOrEmpty(isa95.getWorkCell())){
             builder.add(isa95.getWorkCell());
         }
-        List<String> parts = builder.addAll(topic.getLevels()).build();
-        return MqttTopic.of(String.join("/", parts));
+        return builder.build();
     }
 }
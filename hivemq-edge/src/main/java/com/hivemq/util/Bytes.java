@@ -259,6 +259,53 @@ public class Bytes {
         return optional.map(Bytes::fromReadOnlyBuffer).orElse(null);
     }
 
+    /**
+     * Returns the bytes of the buffer without copying when the buffer still wraps the whole origin array, which is the
+     * case for payloads that an interceptor did not replace.
+     *
+     * @param byteBuffer the buffer to read
+     * @param origin     the array the buffer was originally created from
+     * @return the origin array if the buffer wraps it unchanged, otherwise a copy of the buffer's bytes
+     */
+    @Nullable
+    public static byte[] fromBufferReusing(final @Nullable ByteBuffer byteBuffer, final @Nullable byte[] origin) {
+        if (byteBuffer == null) {
+            return null;
+        }
+        if (origin != null &&
+                byteBuffer.hasArray() &&
+                byteBuffer.array() == origin &&
+                byteBuffer.arrayOffset() == 0 &&
+                byteBuffer.position() == 0 &&
+                byteBuffer.limit() == origin.length) {
+            return origin;
+        }
+        return fromReadOnlyBuffer(byteBuffer);
+    }
+
+    /**
+     * Returns the bytes of a buffer that is owned by the caller without copying when the buffer is a heap buffer that
+     * exactly covers its backing array, which is how the MQTT client allocates the payload of a received PUBLISH.
+     * <p>
+     * The backing array is handed out as is, so the buffer must not be written to afterwards.
+     *
+     * @param byteBuffer the buffer to read
+     * @return the backing array of the buffer if it covers it exactly, otherwise a copy of the buffer's bytes
+     */
+    @Nullable
+    public static byte[] fromOwnedBuffer(final @Nullable ByteBuffer byteBuffer) {
+        if (byteBuffer == null) {
+            return null;
+        }
+        if (byteBuffer.hasArray() &&
+                byteBuffer.arrayOffset() == 0 &&
+                byteBuffer.position() == 0 &&
+                byteBuffer.limit() == byteBuffer.array().length) {
+            return byteBuffer.array();
+        }
+        return fromReadOnlyBuffer(byteBuffer);
+    }
+
     @Nullable
     public static byte[] fromReadOnlyBuffer(final @Nullable ByteBuffer byteBuffer){
         if(byteBuffer == null){
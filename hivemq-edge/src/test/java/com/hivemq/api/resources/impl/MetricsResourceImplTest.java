@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.api.resources.impl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.api.model.metrics.DataPoint;
+import com.hivemq.api.model.metrics.MetricSeries;
+import com.hivemq.api.model.metrics.MetricSeriesList;
+import com.hivemq.metrics.timeseries.MetricTimeSeriesStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsResourceImplTest {
+
+    private static final long SAMPLE_INTERVAL = 1_000;
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private MetricTimeSeriesStore store;
+    private MetricsResourceImpl resource;
+
+    @BeforeEach
+    void setUp() {
+        store = new MetricTimeSeriesStore(registry, SAMPLE_INTERVAL, List.of(), 10);
+        resource = new MetricsResourceImpl(registry, store);
+    }
+
+    @Test
+    void whenNoMetricRequested_thenBadRequest() {
+        assertEquals(400, resource.getSeries(null, null, null).getStatus());
+        assertEquals(400, resource.getSeries(List.of(), null, null).getStatus());
+    }
+
+    @Test
+    void whenTooManyMetricsRequested_thenBadRequest() {
+        final List<String> metricNames = new ArrayList<>();
+        for (int i = 0; i <= MetricsResourceImpl.MAX_SERIES_PER_REQUEST; i++) {
+            metricNames.add("metric" + i);
+        }
+
+        assertEquals(400, resource.getSeries(metricNames, null, null).getStatus());
+    }
+
+    @Test
+    void whenSinceAfterUntil_thenBadRequest() {
+        assertEquals(400, resource.getSeries(List.of("counter"), 2_000L, 1_000L).getStatus());
+    }
+
+    @Test
+    void whenUnknownMetricRequested_thenItIsOmitted() {
+        final Response response = resource.getSeries(List.of("unknown"), null, null);
+
+        assertEquals(200, response.getStatus());
+        assertTrue(((MetricSeriesList) response.getEntity()).getItems().isEmpty());
+    }
+
+    @Test
+    void whenRecentRangeRequested_thenFinestTierIsUsed() {
+        final Counter counter = registry.counter("counter");
+        final long now = System.currentTimeMillis();
+        counter.inc(3);
+        store.sample(now - 2 * SAMPLE_INTERVAL);
+        counter.inc(2);
+        store.sample(now - SAMPLE_INTERVAL);
+
+        final MetricSeries series = single(resource.getSeries(List.of("counter"), now - 10 * SAMPLE_INTERVAL, null));
+
+        assertEquals("counter", series.getName());
+        assertEquals(SAMPLE_INTERVAL, series.getResolution());
+        final List<DataPoint> dataPoints = series.getDataPoints();
+        assertEquals(2, dataPoints.size());
+        assertEquals(3L, dataPoints.get(0).getValue());
+        assertEquals(5L, dataPoints.get(1).getValue());
+    }
+
+    @Test
+    void whenOlderRangeRequested_thenCoarserTierIsUsed() {
+        registry.register("ratio", (Gauge<Double>) () -> 0.5);
+        final long now = System.currentTimeMillis();
+        store.sample(now - SAMPLE_INTERVAL);
+
+        //-- the finest tier keeps 360 samples, the default range of an hour needs the second tier
+        final MetricSeries series = single(resource.getSeries(List.of("ratio"), null, null));
+
+        assertEquals(12 * SAMPLE_INTERVAL, series.getResolution());
+        assertEquals(1, series.getDataPoints().size());
+        assertEquals(0.5, series.getDataPoints().get(0).getValue());
+    }
+
+    private static MetricSeries single(final Response response) {
+        assertEquals(200, response.getStatus());
+        final List<MetricSeries> items = ((MetricSeriesList) response.getEntity()).getItems();
+        assertEquals(1, items.size());
+        return items.get(0);
+    }
+}
@@ -16,6 +16,11 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyTcpConfiguration;
+import com.hivemq.configuration.service.entity.ListenerTransport;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationServiceImpl;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.junit.After;
@@ -24,6 +29,7 @@ import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 public class NettyTcpConfigurationProviderTest {
 
@@ -32,8 +38,7 @@ public class NettyTcpConfigurationProviderTest {
     @Before
     public void setUp() throws Exception {
 
-        final NettyTcpConfigurationProvider provider = new NettyTcpConfigurationProvider();
-        nettyConfiguration = provider.get();
+        nettyConfiguration = createConfiguration(ListenerTransport.Type.NIO);
     }
 
     @After
@@ -60,4 +65,45 @@ public class NettyTcpConfigurationProviderTest {
         final String parentThreadName = nettyConfiguration.getParentEventLoopGroup().submit(() -> Thread.currentThread().getName()).get();
         assertTrue(parentThreadName.startsWith("hivemq-eventloop-parent-"));
     }
+
+    @Test
+    public void test_epoll_is_used_when_available() {
+        assumeTrue(Epoll.isAvailable());
+
+        final NettyTcpConfiguration configuration = createConfiguration(ListenerTransport.Type.AUTO);
+        try {
+            assertThat(configuration.getChildEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+            assertEquals(EpollServerSocketChannel.class, configuration.getServerSocketChannelClass());
+            assertTrue(configuration.isNativeTransport());
+        } finally {
+            configuration.getChildEventLoopGroup().shutdownGracefully();
+            configuration.getParentEventLoopGroup().shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void test_epoll_falls_back_to_nio_when_unavailable() {
+        assertFalse(AbstractNettyConfigurationProvider.useNativeTransport(transport(ListenerTransport.Type.EPOLL),
+                false,
+                new UnsupportedOperationException()));
+        assertFalse(AbstractNettyConfigurationProvider.useNativeTransport(transport(ListenerTransport.Type.AUTO),
+                false,
+                new UnsupportedOperationException()));
+        assertFalse(AbstractNettyConfigurationProvider.useNativeTransport(transport(ListenerTransport.Type.NIO),
+                true,
+                null));
+        assertTrue(AbstractNettyConfigurationProvider.useNativeTransport(transport(ListenerTransport.Type.AUTO),
+                true,
+                null));
+    }
+
+    private static NettyTcpConfiguration createConfiguration(final ListenerTransport.Type type) {
+        final ListenerConfigurationServiceImpl listenerConfigurationService = new ListenerConfigurationServiceImpl();
+        listenerConfigurationService.setTransport(transport(type));
+        return new NettyTcpConfigurationProvider(listenerConfigurationService).get();
+    }
+
+    private static ListenerTransport transport(final ListenerTransport.Type type) {
+        return new ListenerTransport(type, false, true, false, 1);
+    }
 }
@@ -16,6 +16,11 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyUdpConfiguration;
+import com.hivemq.configuration.service.entity.ListenerTransport;
+import com.hivemq.configuration.service.impl.listener.ListenerConfigurationServiceImpl;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import org.junit.After;
@@ -24,6 +29,7 @@ import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 public class NettyUdpConfigurationProviderTest {
 
@@ -32,8 +38,7 @@ public class NettyUdpConfigurationProviderTest {
     @Before
     public void setUp() throws Exception {
 
-        final NettyUdpConfigurationProvider provider = new NettyUdpConfigurationProvider();
-        nettyConfiguration = provider.get();
+        nettyConfiguration = createConfiguration(ListenerTransport.Type.NIO);
     }
 
     @After
@@ -56,4 +61,29 @@ public class NettyUdpConfigurationProviderTest {
         assertTrue(childThreadName.startsWith("hivemq-eventloop-child-"));
 
     }
+
+    @Test
+    public void test_epoll_is_used_when_available() {
+        assumeTrue(Epoll.isAvailable());
+
+        final NettyUdpConfiguration configuration = createConfiguration(ListenerTransport.Type.AUTO);
+        try {
+            assertThat(configuration.getChildEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+            assertEquals(EpollDatagramChannel.class, configuration.getServerSocketChannelClass());
+            assertTrue(configuration.isNativeTransport());
+        } finally {
+            configuration.getChildEventLoopGroup().shutdownGracefully();
+            configuration.getParentEventLoopGroup().shutdownGracefully();
+        }
+    }
+
+    private static NettyUdpConfiguration createConfiguration(final ListenerTransport.Type type) {
+        final ListenerConfigurationServiceImpl listenerConfigurationService = new ListenerConfigurationServiceImpl();
+        listenerConfigurationService.setTransport(transport(type));
+        return new NettyUdpConfigurationProvider(listenerConfigurationService).get();
+    }
+
+    private static ListenerTransport transport(final ListenerTransport.Type type) {
+        return new ListenerTransport(type, false, true, false, 1);
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveInflightWindowTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void whenAcknowledgedQuickly_thenWindowDoublesPerRoundTrip() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(100, 10, 10_000, 0);
+        long now = 0;
+        for (int round = 0; round < 3; round++) {
+            now += RTT;
+            fillAndAcknowledge(window, RTT, now);
+        }
+        assertEquals(800, window.getLimit());
+        assertEquals(0, window.getInflight());
+    }
+
+    @Test
+    void whenWindowNotUsed_thenItDoesNotGrow() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(100, 10, 10_000, 0);
+        for (int i = 0; i < 1000; i++) {
+            window.onSent();
+            window.onAcknowledged(RTT, i * RTT);
+        }
+        assertEquals(100, window.getLimit());
+    }
+
+    @Test
+    void whenWindowReachesMax_thenItStops() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(100, 10, 150, 0);
+        fillAndAcknowledge(window, RTT, RTT);
+        assertEquals(150, window.getLimit());
+    }
+
+    @Test
+    void whenFailed_thenWindowHalvesOncePerRoundTripAndGrowsLinearlyAfterwards() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(100, 10, 10_000, 0);
+        fillAndAcknowledge(window, RTT, RTT);
+        assertEquals(200, window.getLimit());
+
+        window.onSent();
+        window.onSent();
+        window.onFailed(2 * RTT);
+        window.onFailed(2 * RTT + 1);
+        assertEquals(100, window.getLimit());
+
+        //-- congestion avoidance, one message per round trip
+        fillAndAcknowledge(window, RTT, 3 * RTT);
+        assertEquals(101, window.getLimit());
+    }
+
+    @Test
+    void whenLatencyRises_thenWindowShrinks() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(100, 10, 10_000, 0);
+        fillAndAcknowledge(window, RTT, RTT);
+        final int limit = window.getLimit();
+
+        long now = 2 * RTT;
+        for (int round = 0; round < 5; round++) {
+            now += 10 * RTT;
+            fillAndAcknowledge(window, 10 * RTT, now);
+        }
+        assertTrue(window.getLimit() < limit, "window " + window.getLimit() + " not below " + limit);
+    }
+
+    @Test
+    void whenWindowShrinks_thenNotBelowMin() {
+        final AdaptiveInflightWindow window = new AdaptiveInflightWindow(20, 10, 10_000, 0);
+        for (int i = 0; i < 10; i++) {
+            window.onSent();
+            window.onFailed(i * RTT * 10);
+        }
+        assertEquals(10, window.getLimit());
+    }
+
+    private static void fillAndAcknowledge(
+            final @NotNull AdaptiveInflightWindow window,
+            final long rtt,
+            final long now) {
+        final int sent = window.getLimit();
+        for (int i = 0; i < sent; i++) {
+            window.onSent();
+        }
+        for (int i = 0; i < sent; i++) {
+            window.onAcknowledged(rtt, now);
+        }
+    }
+}
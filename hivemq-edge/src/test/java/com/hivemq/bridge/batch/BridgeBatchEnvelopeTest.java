@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.batch;
+
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.junit.jupiter.api.Test;
+import util.TestMessageUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BridgeBatchEnvelopeTest {
+
+    private final BufferedPublishSerializer serializer = new BufferedPublishSerializer("hivemqId");
+
+    @Test
+    void whenEncoded_thenDecodedWithAllFields() throws IOException {
+        final PUBLISH full = TestMessageUtil.createFullMqtt5Publish();
+        final PUBLISH simple = TestMessageUtil.createMqtt5Publish("topic2");
+
+        final List<PUBLISH> decoded =
+                BridgeBatchEnvelope.decode(encode(BridgeBatching.Compression.NONE, full, simple), serializer);
+
+        assertEquals(2, decoded.size());
+        final PUBLISH read = decoded.get(0);
+        assertEquals("topic", read.getTopic());
+        assertArrayEquals(full.getPayload(), read.getPayload());
+        assertEquals(full.getQoS(), read.getQoS());
+        assertEquals(full.isRetain(), read.isRetain());
+        assertEquals(full.getContentType(), read.getContentType());
+        assertEquals(full.getResponseTopic(), read.getResponseTopic());
+        assertArrayEquals(full.getCorrelationData(), read.getCorrelationData());
+        assertEquals(full.getUserProperties().asList(), read.getUserProperties().asList());
+        assertEquals("topic2", decoded.get(1).getTopic());
+    }
+
+    @Test
+    void whenCompressed_thenSmallerAndDecodedInOrder() throws IOException {
+        final PUBLISH[] publishes = new PUBLISH[100];
+        for (int i = 0; i < publishes.length; i++) {
+            publishes[i] = TestMessageUtil.createMqtt5Publish("plant/line/" + i);
+        }
+
+        final byte[] uncompressed = encode(BridgeBatching.Compression.NONE, publishes);
+        final byte[] compressed = encode(BridgeBatching.Compression.GZIP, publishes);
+        assertTrue(compressed.length < uncompressed.length);
+
+        final List<PUBLISH> decoded = BridgeBatchEnvelope.decode(compressed, serializer);
+        assertEquals(publishes.length, decoded.size());
+        for (int i = 0; i < publishes.length; i++) {
+            assertEquals("plant/line/" + i, decoded.get(i).getTopic());
+        }
+    }
+
+    @Test
+    void whenEntryWaitedInEnvelope_thenExpiryIsReducedOrEntryDropped() throws IOException {
+        final PUBLISH expiring = TestMessageUtil.createMqtt5Publish("expiring");
+        expiring.setMessageExpiryInterval(10);
+        final PUBLISH expired = TestMessageUtil.createMqtt5Publish("expired");
+        expired.setMessageExpiryInterval(2);
+
+        final byte[] first = serializer.serialize(expiring);
+        final byte[] second = serializer.serialize(expired);
+        final byte[] envelope = BridgeBatchEnvelope.encode(List.of(first, second),
+                new long[]{1_000, 1_000},
+                first.length + second.length,
+                BridgeBatching.Compression.NONE,
+                4_000);
+
+        final List<PUBLISH> decoded = BridgeBatchEnvelope.decode(envelope, serializer);
+        assertEquals(1, decoded.size());
+        assertEquals("expiring", decoded.get(0).getTopic());
+        assertEquals(7, decoded.get(0).getMessageExpiryInterval());
+    }
+
+    @Test
+    void whenTruncated_thenIOException() throws IOException {
+        final byte[] envelope = encode(BridgeBatching.Compression.NONE, TestMessageUtil.createMqtt5Publish("topic"));
+        assertThrows(IOException.class,
+                () -> BridgeBatchEnvelope.decode(Arrays.copyOf(envelope, envelope.length - 3), serializer));
+    }
+
+    @Test
+    void whenUnknownVersion_thenIOException() throws IOException {
+        final byte[] envelope = encode(BridgeBatching.Compression.NONE, TestMessageUtil.createMqtt5Publish("topic"));
+        envelope[0] = 42;
+        assertThrows(IOException.class, () -> BridgeBatchEnvelope.decode(envelope, serializer));
+    }
+
+    private byte[] encode(final BridgeBatching.Compression compression, final PUBLISH... publishes)
+            throws IOException {
+        final List<byte[]> entries = new ArrayList<>();
+        int size = 0;
+        for (final PUBLISH publish : publishes) {
+            final byte[] entry = serializer.serialize(publish);
+            entries.add(entry);
+            size += entry.length;
+        }
+        final long[] timestamps = new long[publishes.length];
+        Arrays.fill(timestamps, System.currentTimeMillis());
+        return BridgeBatchEnvelope.encode(entries, timestamps, size, compression, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.batch;
+
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBatching;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.TestMessageUtil;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BridgeBatcherTest {
+
+    private final BufferedPublishSerializer serializer = new BufferedPublishSerializer("hivemqId");
+    private final BlockingQueue<BridgeBatcher.Batch<String>> batches = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void whenMaxMessagesReached_thenFlushedImmediately() throws Exception {
+        final BridgeBatcher<String> batcher =
+                create(new BridgeBatching.Builder().withMaxMessages(3).withLingerMillis(60_000).build());
+
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic0", QoS.AT_MOST_ONCE), "0");
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic1", QoS.AT_LEAST_ONCE), "1");
+        assertTrue(batches.isEmpty());
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic2", QoS.AT_MOST_ONCE), "2");
+
+        final BridgeBatcher.Batch<String> batch = Objects.requireNonNull(batches.poll());
+        assertEquals(List.of("0", "1", "2"), batch.getContexts());
+        assertEquals(QoS.AT_LEAST_ONCE, batch.getQos());
+        final List<PUBLISH> decoded =
+                BridgeBatchEnvelope.decode(Objects.requireNonNull(batch.getPayload()), serializer);
+        assertEquals("topic0", decoded.get(0).getTopic());
+        assertEquals("topic2", decoded.get(2).getTopic());
+    }
+
+    @Test
+    void whenMaxSizeExceeded_thenPreviousMessagesAreFlushed() {
+        final int entrySize = serializer.serialize(TestMessageUtil.createMqtt5Publish("topic0")).length;
+        final BridgeBatcher<String> batcher = create(new BridgeBatching.Builder().withMaxSizeBytes(entrySize * 2 + 1)
+                .withLingerMillis(60_000)
+                .build());
+
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic0"), "0");
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic1"), "1");
+        assertTrue(batches.isEmpty());
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic2"), "2");
+
+        assertEquals(List.of("0", "1"), Objects.requireNonNull(batches.poll()).getContexts());
+        assertNull(batches.poll());
+    }
+
+    @Test
+    void whenLingerTimeElapsed_thenFlushed() throws Exception {
+        final BridgeBatcher<String> batcher = create(new BridgeBatching.Builder().withLingerMillis(10).build());
+
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic0"), "0");
+
+        final BridgeBatcher.Batch<String> batch = batches.poll(10, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(List.of("0"), batch.getContexts());
+    }
+
+    @Test
+    void whenClosed_thenPendingMessagesAreDiscarded() throws Exception {
+        final BridgeBatcher<String> batcher = create(new BridgeBatching.Builder().withLingerMillis(10).build());
+        batcher.add(TestMessageUtil.createMqtt5Publish("topic0"), "0");
+
+        assertEquals(List.of("0"), batcher.close());
+        assertFalse(batcher.add(TestMessageUtil.createMqtt5Publish("topic1"), "1"));
+        assertNull(batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void whenFlushHandlerBlocks_thenAddIsNotBlockedAndOrderIsKept() throws Exception {
+        final CountDownLatch handlerEntered = new CountDownLatch(1);
+        final CountDownLatch releaseHandler = new CountDownLatch(1);
+        final BridgeBatcher<String> batcher =
+                new BridgeBatcher<>(new BridgeBatching.Builder().withMaxMessages(1).build(),
+                        serializer,
+                        scheduler,
+                        batch -> {
+                            handlerEntered.countDown();
+                            try {
+                                releaseHandler.await();
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            batches.add(batch);
+                        });
+        final Thread sender = new Thread(() -> batcher.add(TestMessageUtil.createMqtt5Publish("topic0"), "0"));
+        sender.start();
+        assertTrue(handlerEntered.await(10, TimeUnit.SECONDS));
+
+        //the handler is still blocked by the first envelope, the second is handed over by the same thread afterwards
+        assertTrue(batcher.add(TestMessageUtil.createMqtt5Publish("topic1"), "1"));
+        releaseHandler.countDown();
+        sender.join(10_000);
+
+        assertEquals(List.of("0"), Objects.requireNonNull(batches.poll(10, TimeUnit.SECONDS)).getContexts());
+        assertEquals(List.of("1"), Objects.requireNonNull(batches.poll(10, TimeUnit.SECONDS)).getContexts());
+    }
+
+    private BridgeBatcher<String> create(final BridgeBatching config) {
+        return new BridgeBatcher<>(config, serializer, scheduler, batches::add);
+    }
+}
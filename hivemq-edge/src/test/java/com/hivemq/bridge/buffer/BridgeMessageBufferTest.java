@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.buffer;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.bridge.config.BridgeBuffer;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.TestMessageUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BridgeMessageBufferTest {
+
+    @TempDir
+    @NotNull File folder;
+
+    private @NotNull MetricRegistry metricRegistry;
+    private @NotNull PerBridgeMetrics perBridgeMetrics;
+    private @NotNull BufferedPublishSerializer serializer;
+    private BridgeMessageBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        metricRegistry = new MetricRegistry();
+        perBridgeMetrics = new PerBridgeMetrics("testbridge", metricRegistry);
+        serializer = new BufferedPublishSerializer("hivemqId");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void whenAppended_thenReadInOrderWithAllFields() throws IOException {
+        buffer = open(defaultConfig().build());
+        final PUBLISH full = TestMessageUtil.createFullMqtt5Publish();
+        assertTrue(buffer.append(full));
+        assertTrue(buffer.append(TestMessageUtil.createMqtt5Publish("topic2")));
+
+        final BridgeMessageBuffer.BufferedMessage first = buffer.read();
+        assertNotNull(first);
+        final PUBLISH read = first.getPublish();
+        assertEquals("topic", read.getTopic());
+        assertArrayEquals(full.getPayload(), read.getPayload());
+        assertEquals(full.getQoS(), read.getQoS());
+        assertEquals(full.isRetain(), read.isRetain());
+        assertEquals(full.getMessageExpiryInterval(), read.getMessageExpiryInterval());
+        assertEquals(full.getPayloadFormatIndicator(), read.getPayloadFormatIndicator());
+        assertEquals(full.getContentType(), read.getContentType());
+        assertEquals(full.getResponseTopic(), read.getResponseTopic());
+        assertArrayEquals(full.getCorrelationData(), read.getCorrelationData());
+        assertEquals(full.getUserProperties().asList(), read.getUserProperties().asList());
+
+        final BridgeMessageBuffer.BufferedMessage second = buffer.read();
+        assertNotNull(second);
+        assertEquals("topic2", second.getPublish().getTopic());
+        assertNull(buffer.read());
+        assertFalse(buffer.isEmpty());
+
+        buffer.commit(second);
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, metricRegistry.counter("com.hivemq.edge.bridge.testbridge.forward.publish.buffered.count")
+                .getCount());
+    }
+
+    @Test
+    void whenRewind_thenUncommittedMessagesAreReadAgain() throws IOException {
+        buffer = open(defaultConfig().build());
+        for (int i = 0; i < 3; i++) {
+            buffer.append(TestMessageUtil.createMqtt5Publish("topic" + i));
+        }
+        buffer.commit(Objects.requireNonNull(buffer.read()));
+        buffer.read();
+        buffer.read();
+
+        buffer.rewind();
+
+        assertEquals("topic1", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertEquals("topic2", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertNull(buffer.read());
+    }
+
+    @Test
+    void whenReopened_thenOnlyUncommittedMessagesAreRecovered() throws IOException {
+        buffer = open(defaultConfig().withSegmentSizeBytes(256).build());
+        for (int i = 0; i < 20; i++) {
+            buffer.append(TestMessageUtil.createMqtt5Publish("topic" + i));
+        }
+        BridgeMessageBuffer.BufferedMessage message = null;
+        for (int i = 0; i < 7; i++) {
+            message = buffer.read();
+        }
+        buffer.commit(Objects.requireNonNull(message));
+        buffer.close();
+
+        buffer = open(defaultConfig().withSegmentSizeBytes(256).build());
+        for (int i = 7; i < 20; i++) {
+            assertEquals("topic" + i, Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        }
+        assertNull(buffer.read());
+    }
+
+    @Test
+    void whenLastRecordIsTorn_thenItIsTruncatedOnRecovery() throws IOException {
+        buffer = open(defaultConfig().build());
+        buffer.append(TestMessageUtil.createMqtt5Publish("topic1"));
+        buffer.append(TestMessageUtil.createMqtt5Publish("topic2"));
+        buffer.close();
+
+        final File[] segments =
+                folder.listFiles((dir, name) -> name.endsWith(BridgeMessageBuffer.SEGMENT_FILE_SUFFIX));
+        assertNotNull(segments);
+        assertEquals(1, segments.length);
+        try (final RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        buffer = open(defaultConfig().build());
+        assertEquals("topic1", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertNull(buffer.read());
+        buffer.append(TestMessageUtil.createMqtt5Publish("topic3"));
+        assertEquals("topic3", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+    }
+
+    @Test
+    void whenRecordIsCorrupt_thenItIsDiscardedOnRecovery() throws IOException {
+        buffer = open(defaultConfig().build());
+        buffer.append(TestMessageUtil.createMqtt5Publish("topic1"));
+        buffer.append(TestMessageUtil.createMqtt5Publish("topic2"));
+        buffer.close();
+
+        final File[] segments =
+                folder.listFiles((dir, name) -> name.endsWith(BridgeMessageBuffer.SEGMENT_FILE_SUFFIX));
+        assertNotNull(segments);
+        try (final RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.seek(file.length() - 1);
+            final byte last = file.readByte();
+            file.seek(file.length() - 1);
+            file.writeByte(last + 1);
+        }
+
+        buffer = open(defaultConfig().build());
+        assertEquals("topic1", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertNull(buffer.read());
+    }
+
+    @Test
+    void whenFullAndDropOldest_thenOldestSegmentIsDiscarded() throws IOException {
+        final int recordSize = BridgeMessageBuffer.RECORD_HEADER_SIZE +
+                serializer.serialize(TestMessageUtil.createMqtt5Publish("topic0")).length;
+        buffer = open(defaultConfig().withSegmentSizeBytes(recordSize * 2)
+                .withMaxSizeBytes(recordSize * 4)
+                .withOverflowPolicy(BridgeBuffer.OverflowPolicy.DROP_OLDEST)
+                .build());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.append(TestMessageUtil.createMqtt5Publish("topic" + i)));
+        }
+
+        assertEquals("topic2", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertEquals(2,
+                metricRegistry.counter("com.hivemq.edge.bridge.testbridge.forward.publish.buffer-overflow.count")
+                        .getCount());
+        assertTrue(buffer.getSizeBytes() <= recordSize * 4);
+    }
+
+    @Test
+    void whenFullAndBlock_thenAppendIsRejectedUntilCommitted() throws IOException {
+        final int recordSize = BridgeMessageBuffer.RECORD_HEADER_SIZE +
+                serializer.serialize(TestMessageUtil.createMqtt5Publish("topic0")).length;
+        buffer = open(defaultConfig().withSegmentSizeBytes(recordSize)
+                .withMaxSizeBytes(recordSize * 2)
+                .withOverflowPolicy(BridgeBuffer.OverflowPolicy.BLOCK)
+                .build());
+        assertTrue(buffer.append(TestMessageUtil.createMqtt5Publish("topic0")));
+        assertTrue(buffer.append(TestMessageUtil.createMqtt5Publish("topic1")));
+        assertFalse(buffer.append(TestMessageUtil.createMqtt5Publish("topic2")));
+
+        buffer.commit(Objects.requireNonNull(buffer.read()));
+
+        assertTrue(buffer.append(TestMessageUtil.createMqtt5Publish("topic2")));
+        assertEquals("topic1", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+        assertEquals("topic2", Objects.requireNonNull(buffer.read()).getPublish().getTopic());
+    }
+
+    @Test
+    void whenManySegments_thenCommittedSegmentsAreDeleted() throws IOException {
+        buffer = open(defaultConfig().withSegmentSizeBytes(128).build());
+        for (int i = 0; i < 50; i++) {
+            buffer.append(TestMessageUtil.createMqtt5Publish("topic" + i, QoS.AT_LEAST_ONCE));
+        }
+        final int segmentsBefore = segmentCount();
+        assertTrue(segmentsBefore > 2);
+
+        BridgeMessageBuffer.BufferedMessage message;
+        BridgeMessageBuffer.BufferedMessage last = null;
+        while ((message = buffer.read()) != null) {
+            last = message;
+        }
+        buffer.commit(Objects.requireNonNull(last));
+
+        assertTrue(buffer.isEmpty());
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void whenForceIntervalIsZero_thenEveryCommitIsPersistedWithoutClose() throws IOException {
+        buffer = open(defaultConfig().withForceIntervalMillis(0).build());
+        for (int i = 0; i < 3; i++) {
+            buffer.append(TestMessageUtil.createMqtt5Publish("topic" + i));
+        }
+        buffer.commit(Objects.requireNonNull(buffer.read()));
+        buffer.commit(Objects.requireNonNull(buffer.read()));
+
+        //the first buffer is not closed, as if the process was killed
+        final BridgeMessageBuffer recovered = open(defaultConfig().build());
+        try {
+            assertEquals("topic2", Objects.requireNonNull(recovered.read()).getPublish().getTopic());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private int segmentCount() {
+        final String[] names = folder.list();
+        assertNotNull(names);
+        return (int) Arrays.stream(names).filter(name -> name.endsWith(BridgeMessageBuffer.SEGMENT_FILE_SUFFIX)).count();
+    }
+
+    private @NotNull BridgeBuffer.Builder defaultConfig() {
+        return new BridgeBuffer.Builder().withEnabled(true);
+    }
+
+    private @NotNull BridgeMessageBuffer open(final @NotNull BridgeBuffer config) throws IOException {
+        return BridgeMessageBuffer.open(folder, config, serializer, perBridgeMetrics);
+    }
+}
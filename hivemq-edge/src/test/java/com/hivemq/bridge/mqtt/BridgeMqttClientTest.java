@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bridge.mqtt;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.bridge.config.MqttBridge;
+import com.hivemq.bridge.metrics.PerBridgeMetrics;
+import com.hivemq.configuration.HivemqId;
+import com.hivemq.configuration.info.SystemInformation;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class BridgeMqttClientTest {
+
+    @Test
+    void whenSameTopic_thenSameConnection() {
+        for (int i = 0; i < 100; i++) {
+            final String topic = "plant/line" + i + "/temperature";
+            assertEquals(BridgeMqttClient.connectionIndex(topic, 4), BridgeMqttClient.connectionIndex(topic, 4));
+        }
+    }
+
+    @Test
+    void whenManyTopics_thenAllConnectionsAreUsed() {
+        final Set<Integer> indexes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final int index = BridgeMqttClient.connectionIndex("plant/line" + i + "/temperature", 4);
+            assertTrue(index >= 0 && index < 4);
+            indexes.add(index);
+        }
+        assertEquals(4, indexes.size());
+    }
+
+    @Test
+    void whenSingleConnection_thenAlwaysFirstConnection() {
+        assertEquals(0, BridgeMqttClient.connectionIndex("topic", 1));
+        assertEquals(0, BridgeMqttClient.connectionIndex("", 1));
+    }
+
+    @Test
+    void whenFilter_thenSharedWithClientIdAsShareName() {
+        assertEquals("$share/edge-bridge/topic/#", BridgeMqttClient.toSharedFilter("edge-bridge", "topic/#"));
+    }
+
+    @Test
+    void whenClientIdContainsTopicCharacters_thenReplacedInShareName() {
+        assertEquals("$share/edge_bridge__/topic", BridgeMqttClient.toSharedFilter("edge/bridge+#", "topic"));
+    }
+
+    @Test
+    void whenAlreadySharedFilter_thenUnchanged() {
+        assertEquals("$share/group/topic", BridgeMqttClient.toSharedFilter("edge-bridge", "$share/group/topic"));
+    }
+
+    @Test
+    void whenStopped_thenConnectionMetricsAreRemoved() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final BridgeMqttClient client = createClient(3, metricRegistry);
+        assertTrue(metricRegistry.getNames().stream().anyMatch(name -> name.contains("connection-2")));
+
+        client.stop();
+
+        assertTrue(metricRegistry.getNames().stream().noneMatch(name -> name.contains("connection-")));
+        assertTrue(metricRegistry.getNames()
+                .contains(PerBridgeMetrics.BRIDGE_PREFIX + ".testbridge.forward.publish.count"));
+    }
+
+    @Test
+    void whenNoConnectionIsConnected_thenNotConnected() {
+        final BridgeMqttClient client = createClient(3, new MetricRegistry());
+
+        assertEquals(0, client.getConnectedCount());
+        assertFalse(client.isConnected());
+        assertFalse(client.isFullyConnected());
+    }
+
+    private static @NotNull BridgeMqttClient createClient(
+            final int connectionCount, final @NotNull MetricRegistry metricRegistry) {
+        final MqttBridge bridge = new MqttBridge.Builder().withId("testbridge")
+                .withHost("localhost")
+                .withClientId("testcid")
+                .withRemoteSubscriptions(List.of())
+                .withLocalSubscriptions(List.of())
+                .withConnectionCount(connectionCount)
+                .build();
+        return new BridgeMqttClient(mock(SystemInformation.class),
+                bridge,
+                mock(BridgeInterceptorHandler.class),
+                new HivemqId(),
+                metricRegistry);
+    }
+}
@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -344,10 +345,12 @@ class RemoteMqttForwarderTest {
                 .build();
 
         //TODO fixme - we wrapped the client into the forwarder
+        final BridgeMqttClient remoteMqttClient = mock(BridgeMqttClient.class);
+        when(remoteMqttClient.getForwardInflight()).thenReturn(new AtomicInteger());
         final RemoteMqttForwarder forwarder = new RemoteMqttForwarder("testid",
                 bridge,
                 localSubscription,
-                /*mqtt5Client*/ null,
+                remoteMqttClient,
                 new PerBridgeMetrics("testbridge", metricRegistry),
                 new TestInterceptorHandler());
 
@@ -18,6 +18,9 @@ package com.hivemq.bridge.mqtt;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.bridge.batch.BridgeBatchEnvelope;
+import com.hivemq.bridge.buffer.BufferedPublishSerializer;
+import com.hivemq.bridge.config.BridgeBatching;
 import com.hivemq.bridge.config.CustomUserProperty;
 import com.hivemq.bridge.config.MqttBridge;
 import com.hivemq.bridge.config.RemoteSubscription;
@@ -35,7 +38,11 @@ import com.hivemq.mqtt.message.publish.PUBLISH;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import util.TestMessageUtil;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.hivemq.mqtt.message.publish.PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET;
@@ -47,6 +54,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -276,6 +284,64 @@ class RemotePublishConsumerTest {
         assertEquals(1, metricRegistry.counter("com.hivemq.edge.bridge.testbridge.local.publish.failed.count").getCount());
     }
 
+    @Test
+    public void whenEnvelopeOnBridgeWithoutBatching_thenPublishedAsIs() throws Exception {
+        final RemotePublishConsumer consumer = setupConsumer(false, "{#}", List.of(), 2, PublishReturnCode.DELIVERED);
+        consumer.accept(createEnvelope("other/topic"));
+
+        final ArgumentCaptor<PUBLISH> captor = ArgumentCaptor.forClass(PUBLISH.class);
+        verify(bridgeInterceptorHandler).interceptOrDelegateInbound(captor.capture(), any(), any());
+        assertEquals("test/batch", captor.getValue().getTopic());
+        assertEquals(BridgeBatchEnvelope.CONTENT_TYPE, captor.getValue().getContentType());
+    }
+
+    @Test
+    public void whenEnvelopeOnBatchingBridge_thenEntriesArePublished() throws Exception {
+        final RemotePublishConsumer consumer = setupConsumer(List.of("test/#"), true);
+        consumer.accept(createEnvelope("test/one", "test/two"));
+
+        final ArgumentCaptor<PUBLISH> captor = ArgumentCaptor.forClass(PUBLISH.class);
+        verify(bridgeInterceptorHandler, times(2)).interceptOrDelegateInbound(captor.capture(), any(), any());
+        assertEquals("test/one", captor.getAllValues().get(0).getTopic());
+        assertEquals("test/two", captor.getAllValues().get(1).getTopic());
+    }
+
+    @Test
+    public void whenEnvelopeEntryDoesNotMatchSubscription_thenEntryIsDropped() throws Exception {
+        final RemotePublishConsumer consumer = setupConsumer(List.of("$share/group/test/#"), true);
+        consumer.accept(createEnvelope("test/one", "local/admin/command"));
+
+        final ArgumentCaptor<PUBLISH> captor = ArgumentCaptor.forClass(PUBLISH.class);
+        verify(bridgeInterceptorHandler).interceptOrDelegateInbound(captor.capture(), any(), any());
+        assertEquals("test/one", captor.getValue().getTopic());
+        assertEquals(1, metricRegistry.counter("com.hivemq.edge.bridge.testbridge.local.publish.failed.count").getCount());
+    }
+
+    private @NotNull Mqtt5Publish createEnvelope(final @NotNull String... topics) throws IOException {
+        final BufferedPublishSerializer serializer = new BufferedPublishSerializer("remote");
+        final List<byte[]> entries = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        final long[] timestamps = new long[topics.length];
+        Arrays.fill(timestamps, now);
+        int size = 0;
+        for (final String topic : topics) {
+            final byte[] entry = serializer.serialize(TestMessageUtil.createMqtt5Publish(topic));
+            entries.add(entry);
+            size += entry.length;
+        }
+        final byte[] payload = BridgeBatchEnvelope.encode(entries,
+                timestamps,
+                size,
+                BridgeBatching.Compression.NONE,
+                now);
+        return Mqtt5Publish.builder()
+                .topic("test/batch")
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .contentType(BridgeBatchEnvelope.CONTENT_TYPE)
+                .payload(payload)
+                .build();
+    }
+
     private @NotNull RemotePublishConsumer setupConsumer(
             final boolean preserveRetain,
             final @NotNull String destination,
@@ -285,10 +351,22 @@ class RemotePublishConsumerTest {
         when(bridgeInterceptorHandler.interceptOrDelegateInbound(any(), any(), any())).thenReturn(Futures.immediateFuture(publishReturnCode));
         final RemoteSubscription remoteSubscription =
                 new RemoteSubscription(List.of("#"), destination, customProps, preserveRetain, maxQoS);
+        return createConsumer(remoteSubscription, false);
+    }
+
+    private @NotNull RemotePublishConsumer setupConsumer(final @NotNull List<String> filters, final boolean batching) {
+        when(bridgeInterceptorHandler.interceptOrDelegateInbound(any(), any(), any())).thenReturn(Futures.immediateFuture(
+                PublishReturnCode.DELIVERED));
+        return createConsumer(new RemoteSubscription(filters, "{#}", List.of(), false, 2), batching);
+    }
+
+    private @NotNull RemotePublishConsumer createConsumer(
+            final @NotNull RemoteSubscription remoteSubscription, final boolean batching) {
         final MqttBridge bridge = new MqttBridge.Builder().withId("testbridge")
                 .withHost("1")
                 .withClientId("testcid")
                 .withRemoteSubscriptions(List.of(remoteSubscription))
+                .withBridgeBatching(new BridgeBatching.Builder().withEnabled(batching).build())
                 .build();
 
         return new RemotePublishConsumer(remoteSubscription,
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import util.TestMessageUtil;
+import util.encoder.TestMessageEncoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PublishEncodingCacheTest {
+
+    private @NotNull MetricRegistry metricRegistry;
+    private @NotNull PublishEncodingCache cache;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        cache = new PublishEncodingCache(metricRegistry, 1024 * 1024, 10_000);
+    }
+
+    @Test
+    public void test_subscriber_copies_share_encoding() {
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+        final PUBLISH copy = new PUBLISHFactory.Mqtt5Builder().fromPublish(publish)
+                .withQoS(QoS.AT_MOST_ONCE)
+                .withPacketIdentifier(0)
+                .withSubscriptionIdentifiers(ImmutableIntArray.of(7))
+                .build();
+
+        final PublishEncodingCache.EncodedPublish first = cache.get(publish, p -> new byte[]{1, 2, 3});
+        final PublishEncodingCache.EncodedPublish second = cache.get(copy, p -> new byte[]{4, 5, 6});
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertArrayEquals(new byte[]{0, 5, 't', 'o', 'p', 'i', 'c'}, first.getEncodedTopic());
+        assertArrayEquals(new byte[]{1, 2, 3}, first.getProperties());
+        assertEquals(1, metricRegistry.counter(HiveMQMetrics.PUBLISH_ENCODING_CACHE_HIT_COUNT.name()).getCount());
+        assertEquals(1, metricRegistry.counter(HiveMQMetrics.PUBLISH_ENCODING_CACHE_MISS_COUNT.name()).getCount());
+        assertEquals(10, cache.getSizeBytes());
+    }
+
+    @Test
+    public void test_modified_publish_is_encoded_again() {
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+        final PUBLISH modified = new PUBLISHFactory.Mqtt5Builder().fromPublish(publish)
+                .withTopic(new String("topic"))
+                .build();
+
+        final PublishEncodingCache.EncodedPublish first = cache.get(publish, null);
+        final PublishEncodingCache.EncodedPublish second = cache.get(modified, null);
+
+        assertNotSame(first, second);
+        assertEquals(2, metricRegistry.counter(HiveMQMetrics.PUBLISH_ENCODING_CACHE_MISS_COUNT.name()).getCount());
+    }
+
+    @Test
+    public void test_topic_only_entry_is_extended_with_properties() {
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+
+        final PublishEncodingCache.EncodedPublish topicOnly = cache.get(publish, null);
+        assertNotNull(topicOnly);
+        assertNull(topicOnly.getProperties());
+
+        final PublishEncodingCache.EncodedPublish withProperties = cache.get(publish, p -> new byte[]{1});
+        assertNotNull(withProperties);
+        assertArrayEquals(new byte[]{1}, withProperties.getProperties());
+        assertSame(withProperties, cache.get(publish, null));
+    }
+
+    @Test
+    public void test_disabled_cache_returns_null() {
+        cache = new PublishEncodingCache(new MetricRegistry(), 0, 10_000);
+
+        assertNull(cache.get(TestMessageUtil.createFullMqtt5Publish(), null));
+    }
+
+    @Test
+    public void test_mqtt5_cached_encoding_equals_uncached_encoding() {
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+        final PUBLISH copy = new PUBLISHFactory.Mqtt5Builder().fromPublish(publish)
+                .withPacketIdentifier(2)
+                .withDuplicateDelivery(false)
+                .withSubscriptionIdentifiers(ImmutableIntArray.of(300))
+                .build();
+
+        final EmbeddedChannel warmChannel = createChannel(ProtocolVersion.MQTTv5);
+        encode(warmChannel, publish);
+        final byte[] cached = encode(warmChannel, copy);
+
+        final byte[] uncached = encode(createChannel(ProtocolVersion.MQTTv5), copy);
+
+        assertArrayEquals(uncached, cached);
+    }
+
+    @Test
+    public void test_mqtt3_cached_encoding_equals_uncached_encoding() {
+        final PUBLISH publish = TestMessageUtil.createMqtt3Publish();
+        final PUBLISH copy = new PUBLISHFactory.Mqtt3Builder().fromPublish(publish).withPacketIdentifier(2).build();
+
+        final EmbeddedChannel warmChannel = createChannel(ProtocolVersion.MQTTv3_1_1);
+        encode(warmChannel, publish);
+        final byte[] cached = encode(warmChannel, copy);
+
+        final byte[] uncached = encode(createChannel(ProtocolVersion.MQTTv3_1_1), copy);
+
+        assertArrayEquals(uncached, cached);
+    }
+
+    private static @NotNull EmbeddedChannel createChannel(final @NotNull ProtocolVersion protocolVersion) {
+        final TestMessageEncoder encoder = new TestMessageEncoder();
+        encoder.getSecurityConfigurationService().setAllowRequestProblemInformation(true);
+        final EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        channel.config().setAllocator(new UnpooledByteBufAllocator(false));
+        final ClientConnection clientConnection = new ClientConnection(channel, null);
+        clientConnection.setProtocolVersion(protocolVersion);
+        clientConnection.setRequestProblemInformation(true);
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(clientConnection);
+        return channel;
+    }
+
+    private static byte @NotNull [] encode(final @NotNull EmbeddedChannel channel, final @NotNull PUBLISH publish) {
+        channel.writeOutbound(publish);
+        final ByteBuf buf = channel.readOutbound();
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+}
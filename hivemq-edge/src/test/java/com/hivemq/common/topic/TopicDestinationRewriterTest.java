@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopicDestinationRewriterTest {
+
+    private static final Map<String, String> TOKENS = Map.of("bridge.name", "test-bridge");
+
+    @Test
+    void whenCompiled_thenRewritesLikeTheTopicFilterProcessor() {
+        final List<String> destinations = List.of("replacement/of/level",
+                "prefix/{#}",
+                "prefix/{2-#}",
+                "prefix/{5-#}",
+                "prefix/{2-3}/suffix",
+                "prefix/{3-9}",
+                "prefix/{6-7}",
+                "prefix/{1}/x{2}y/{9}",
+                "replacement/\\{2}/of/level",
+                "${bridge.name}/{1}",
+                "replacement/$\\{bridge.name}/of/level",
+                "prefix/{unknown}/suffix",
+                "prefix/");
+        final List<String> topics = List.of("site/cell/department/machine", "a", "a/b", "a//c");
+        for (final String destination : destinations) {
+            final TopicDestinationRewriter rewriter = TopicDestinationRewriter.compile(destination, TOKENS, 10);
+            for (final String topic : topics) {
+                final MqttTopic expected = TopicFilterProcessor.modifyTopic(destination, MqttTopic.of(topic), TOKENS);
+                assertEquals(expected, rewriter.rewrite(topic), destination + " rewriting " + topic);
+                //-- second time from the cache
+                assertEquals(expected, rewriter.rewrite(topic), destination + " rewriting " + topic);
+            }
+        }
+    }
+
+    @Test
+    void whenNoDestination_thenTopicIsKept() {
+        final MqttTopic topic = MqttTopic.of("a/b");
+        assertSame(topic, TopicDestinationRewriter.compile(null, TOKENS, 10).rewrite(topic));
+        assertSame(topic, TopicDestinationRewriter.compile("{#}", TOKENS, 10).rewrite(topic));
+        assertEquals(topic, TopicDestinationRewriter.compile("", TOKENS, 10).rewrite("a/b"));
+    }
+
+    @Test
+    void whenLevelIndexInvalid_thenEveryRewriteFails() {
+        final TopicDestinationRewriter rewriter = TopicDestinationRewriter.compile("prefix/{x-#}", TOKENS, 10);
+        assertThrows(NumberFormatException.class, () -> rewriter.rewrite("a/b"));
+        assertThrows(NumberFormatException.class, () -> rewriter.rewrite("a/b"));
+    }
+}
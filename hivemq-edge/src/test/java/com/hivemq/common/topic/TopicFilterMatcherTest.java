@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.common.topic;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicFilterMatcherTest {
+
+    private static final List<String> TOPICS = List.of("a",
+            "a/b",
+            "a/b/c",
+            "a/c",
+            "b/b/c",
+            "a//c",
+            "a/",
+            "site1/line2/device3/temperature",
+            "site1/line2/device3/status");
+
+    @Test
+    void whenNoFilters_thenNothingMatches() {
+        final TopicFilterMatcher matcher = new TopicFilterMatcher(List.of());
+        assertFalse(matcher.matches("a/b"));
+    }
+
+    @Test
+    void whenWildcardFilters_thenMatchesLikeTopicFilters() {
+        final List<List<String>> filterSets = List.of(List.of("a/b"),
+                List.of("a/+"),
+                List.of("a/#"),
+                List.of("#"),
+                List.of("+/b/c", "a/c"),
+                List.of("+/+/+"),
+                List.of("a/+/c", "site1/+/+/status"),
+                List.of("site1/#", "a/b/c"),
+                List.of("+"),
+                List.of("a/+/#"));
+        for (final List<String> filters : filterSets) {
+            final TopicFilterMatcher matcher = new TopicFilterMatcher(filters);
+            for (final String topic : TOPICS) {
+                final boolean expected = filters.stream()
+                        .anyMatch(filter -> MqttTopicFilter.of(filter).matches(MqttTopicFilter.of(topic)));
+                assertEquals(expected, matcher.matches(topic), filters + " matching " + topic);
+            }
+        }
+    }
+
+    @Test
+    void whenFilterInvalid_thenItIsIgnored() {
+        final TopicFilterMatcher matcher = new TopicFilterMatcher(List.of("a/#/b", "a/b"));
+        assertTrue(matcher.matches("a/b"));
+        assertFalse(matcher.matches("a/c"));
+    }
+}
@@ -288,4 +288,48 @@ public class ListenerConfiguratorTest extends AbstractConfigurationTest {
         assertFalse(websocketListener.getTls().isPreferServerCipherSuites());
     }
 
+    @Test
+    public void test_read_listener_transport() throws Exception {
+
+        final String contents = "" +
+                "<hivemq>" +
+                "    <listener-transport>" +
+                "        <type>epoll</type>" +
+                "        <tcp-quickack>true</tcp-quickack>" +
+                "        <edge-triggered>false</edge-triggered>" +
+                "        <reuse-port>true</reuse-port>" +
+                "        <acceptor-threads>4</acceptor-threads>" +
+                "    </listener-transport>" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        final ListenerTransport transport = listenerConfigurationService.getTransport();
+        assertEquals(ListenerTransport.Type.EPOLL, transport.getType());
+        assertTrue(transport.isTcpQuickAck());
+        assertFalse(transport.isEdgeTriggered());
+        assertTrue(transport.isReusePort());
+        assertEquals(4, transport.getAcceptorThreads());
+    }
+
+    @Test
+    public void test_listener_transport_defaults() throws Exception {
+
+        final String contents = "" +
+                "<hivemq>" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        final ListenerTransport transport = listenerConfigurationService.getTransport();
+        assertEquals(ListenerTransport.Type.AUTO, transport.getType());
+        assertFalse(transport.isTcpQuickAck());
+        assertTrue(transport.isEdgeTriggered());
+        assertFalse(transport.isReusePort());
+        assertEquals(1, transport.getAcceptorThreads());
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class InternalConfigurationsTest {
+
+    @Test
+    public void persistenceBucketCount_scalesWithProcessors() {
+        assertEquals(4, InternalConfigurations.persistenceBucketCount(1));
+        assertEquals(8, InternalConfigurations.persistenceBucketCount(2));
+        assertEquals(32, InternalConfigurations.persistenceBucketCount(6));
+        assertEquals(32, InternalConfigurations.persistenceBucketCount(8));
+        assertEquals(256, InternalConfigurations.persistenceBucketCount(512));
+    }
+
+    @Test
+    public void persistenceBucketCount_whenNoProcessorsReported_thenAtLeastOneBucketPerQueue() {
+        assertEquals(4, InternalConfigurations.persistenceBucketCount(0));
+    }
+}
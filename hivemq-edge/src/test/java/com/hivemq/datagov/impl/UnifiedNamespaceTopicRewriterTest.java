@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.datagov.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UnifiedNamespaceTopicRewriterTest {
+
+    @Test
+    void whenNoTemplateAndNoPrefix_thenTopicIsReturnedUnchanged() {
+        final UnifiedNamespaceTopicRewriter rewriter = new UnifiedNamespaceTopicRewriter("", Map.of(), 10);
+        final String topic = "plant/line/sensor";
+
+        assertSame(topic, rewriter.rewrite(topic, Map.of("adapter", "a1")));
+    }
+
+    @Test
+    void whenPrefix_thenEveryTopicIsPrefixed() {
+        final UnifiedNamespaceTopicRewriter rewriter = new UnifiedNamespaceTopicRewriter("acme/berlin", Map.of(), 10);
+
+        assertEquals("acme/berlin/line/sensor", rewriter.rewrite("line/sensor", null));
+    }
+
+    @Test
+    void whenTemplate_thenTokensAreReplaced() {
+        final UnifiedNamespaceTopicRewriter rewriter =
+                new UnifiedNamespaceTopicRewriter("", Map.of("enterprise", "acme"), 10);
+
+        assertEquals("acme/line/a1", rewriter.rewrite("${enterprise}/line/${adapter}", Map.of("adapter", "a1")));
+        assertEquals("acme/line/a2", rewriter.rewrite("${enterprise}/line/${adapter}", Map.of("adapter", "a2")));
+        assertEquals("acme/line/a1", rewriter.rewrite("${enterprise}/line/${adapter}", Map.of("adapter", "a1")));
+    }
+
+    @Test
+    void whenTokenIsConfiguredAndInContext_thenConfigurationTakesPrecedence() {
+        final UnifiedNamespaceTopicRewriter rewriter =
+                new UnifiedNamespaceTopicRewriter("", Map.of("enterprise", "acme"), 10);
+
+        assertEquals("acme/data", rewriter.rewrite("${enterprise}/data", Map.of("enterprise", "other")));
+    }
+
+    @Test
+    void whenPrefixAndTemplate_thenBothAreApplied() {
+        final UnifiedNamespaceTopicRewriter rewriter =
+                new UnifiedNamespaceTopicRewriter("acme", Map.of("site", "berlin"), 10);
+
+        assertEquals("acme/berlin/data", rewriter.rewrite("${site}/data", Map.of()));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.common.shutdown.HiveMQShutdownHook;
+import com.hivemq.common.shutdown.ShutdownHooks;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterAsyncPollingInput;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingInput;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingOutput;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterInformation;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProtocolAdapterPollingServiceImplTest {
+
+    private final @NotNull ShutdownHooks shutdownHooks = mock(ShutdownHooks.class);
+    private final @NotNull ProtocolAdapter adapter = mock(ProtocolAdapter.class);
+    private final @NotNull MetricRegistry metricRegistry = new MetricRegistry();
+    private @NotNull ProtocolAdapterPollingServiceImpl pollingService;
+
+    @Before
+    public void setUp() {
+        final ProtocolAdapterInformation information = mock(ProtocolAdapterInformation.class);
+        when(information.getProtocolId()).thenReturn("test");
+        when(adapter.getProtocolAdapterInformation()).thenReturn(information);
+        when(adapter.getId()).thenReturn("adapter");
+        pollingService = new ProtocolAdapterPollingServiceImpl(metricRegistry, shutdownHooks);
+    }
+
+    @After
+    public void tearDown() {
+        pollingService.stopAllPolling();
+        final ArgumentCaptor<HiveMQShutdownHook> shutdownHook = ArgumentCaptor.forClass(HiveMQShutdownHook.class);
+        verify(shutdownHooks).add(shutdownHook.capture());
+        shutdownHook.getValue().run();
+    }
+
+    @Test(timeout = 10_000)
+    public void test_poll_in_progress_skips_polls_as_overruns() {
+        final AtomicInteger polls = new AtomicInteger();
+        final CompletableFuture<Void> firstPoll = new CompletableFuture<>();
+        final ProtocolAdapterPollingOutput pollingJob =
+                pollingService.schedulePolling(adapter, new AsyncTestPollingInput(0, 10, 25) {
+                    @Override
+                    public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+                        return polls.getAndIncrement() == 0 ? firstPoll : CompletableFuture.completedFuture(null);
+                    }
+                });
+
+        await().until(() -> pollingService.currentOverrunCount(pollingJob) >= 3);
+        assertEquals(1, polls.get());
+
+        firstPoll.complete(null);
+        await().until(() -> polls.get() > 1);
+        assertEquals(1,
+                metricRegistry.getTimers()
+                        .keySet()
+                        .stream()
+                        .filter(name -> name.endsWith(pollingJob.getId() + ".latency"))
+                        .count());
+    }
+
+    @Test(timeout = 10_000)
+    public void test_blocking_poll_runs_on_polling_thread() {
+        final AtomicReference<String> pollingThread = new AtomicReference<>();
+        pollingService.schedulePolling(adapter, new TestPollingInput(0, 10, 25) {
+            @Override
+            public void execute() {
+                pollingThread.compareAndSet(null, Thread.currentThread().getName());
+            }
+        });
+
+        await().until(() -> pollingThread.get() != null);
+        assertTrue(pollingThread.get().startsWith("protocol-adapter-polling-"));
+        assertFalse(pollingThread.get().startsWith("protocol-adapter-polling-scheduler"));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_failed_async_poll_removes_job_at_error_threshold() {
+        final TestPollingInput input = new AsyncTestPollingInput(0, 10, 1) {
+            @Override
+            public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+                return CompletableFuture.failedFuture(new IllegalStateException("device unreachable"));
+            }
+        };
+        final ProtocolAdapterPollingOutput pollingJob = pollingService.schedulePolling(adapter, input);
+
+        await().until(input::isClosed);
+        assertTrue(pollingService.getPollingJob(pollingJob.getId()).isEmpty());
+        assertTrue(metricRegistry.getMetrics().isEmpty());
+    }
+
+    @Test(timeout = 10_000)
+    public void test_poll_that_times_out_is_counted_as_error() {
+        final AtomicInteger polls = new AtomicInteger();
+        final ProtocolAdapterPollingOutput pollingJob =
+                pollingService.schedulePolling(adapter, new AsyncTestPollingInput(0, 10, 25) {
+                    @Override
+                    public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+                        polls.incrementAndGet();
+                        return new CompletableFuture<>();
+                    }
+
+                    @Override
+                    public long getPollTimeoutMillis() {
+                        return 50;
+                    }
+                });
+
+        await().until(() -> pollingService.currentErrorCount(pollingJob) == 1);
+        // the poll never completes, so the job is not polled again
+        assertEquals(1, polls.get());
+        assertTrue(pollingService.currentOverrunCount(pollingJob) > 0);
+    }
+
+    @Test(timeout = 10_000)
+    public void test_first_polls_of_jobs_with_same_period_are_spread() {
+        final AtomicLong firstPollOfFirstJob = new AtomicLong();
+        final AtomicLong firstPollOfSecondJob = new AtomicLong();
+        pollingService.schedulePolling(adapter, new FirstPollInput(firstPollOfFirstJob));
+        pollingService.schedulePolling(adapter, new FirstPollInput(firstPollOfSecondJob));
+
+        await().until(() -> firstPollOfFirstJob.get() != 0 && firstPollOfSecondJob.get() != 0);
+        // the second job is shifted by the fractional part of the golden ratio of the period
+        final long shiftMillis = TimeUnit.NANOSECONDS.toMillis(firstPollOfSecondJob.get() - firstPollOfFirstJob.get());
+        assertTrue("shift was " + shiftMillis + " ms", shiftMillis > 400 && shiftMillis < 900);
+    }
+
+    private static class FirstPollInput extends AsyncTestPollingInput {
+
+        private final @NotNull AtomicLong firstPoll;
+
+        FirstPollInput(final @NotNull AtomicLong firstPoll) {
+            super(0, 1000, 25);
+            this.firstPoll = firstPoll;
+        }
+
+        @Override
+        public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+            firstPoll.compareAndSet(0, System.nanoTime());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static class AsyncTestPollingInput extends TestPollingInput implements ProtocolAdapterAsyncPollingInput {
+
+        AsyncTestPollingInput(final long initialDelay, final long period, final int maxErrorsBeforeRemoval) {
+            super(initialDelay, period, maxErrorsBeforeRemoval);
+        }
+
+        @Override
+        public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static class TestPollingInput implements ProtocolAdapterPollingInput {
+
+        private final long initialDelay;
+        private final long period;
+        private final int maxErrorsBeforeRemoval;
+        private volatile boolean closed;
+
+        TestPollingInput(final long initialDelay, final long period, final int maxErrorsBeforeRemoval) {
+            this.initialDelay = initialDelay;
+            this.period = period;
+            this.maxErrorsBeforeRemoval = maxErrorsBeforeRemoval;
+        }
+
+        @Override
+        public void execute() throws Exception {
+        }
+
+        @Override
+        public long getInitialDelay() {
+            return initialDelay;
+        }
+
+        @Override
+        public long getPeriod() {
+            return period;
+        }
+
+        @Override
+        public TimeUnit getUnit() {
+            return TimeUnit.MILLISECONDS;
+        }
+
+        @Override
+        public int getMaxErrorsBeforeRemoval() {
+            return maxErrorsBeforeRemoval;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
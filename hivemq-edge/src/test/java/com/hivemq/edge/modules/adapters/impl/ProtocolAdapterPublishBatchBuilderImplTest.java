@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapter;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ProtocolAdapterPublishBatchBuilderImplTest {
+
+    private final @NotNull ProtocolAdapter adapter = mock(ProtocolAdapter.class);
+    private final @NotNull List<PUBLISH> sent = new ArrayList<>();
+    private @NotNull ImmutableMap<String, String> sentContext = ImmutableMap.of();
+    private @NotNull ProtocolAdapter sentAdapter;
+
+    private final @NotNull ProtocolAdapterPublishBatchBuilderImpl batch =
+            new ProtocolAdapterPublishBatchBuilderImpl("hivemqId", (publishes, protocolAdapter, dynamicContext) -> {
+                sent.addAll(publishes);
+                sentAdapter = protocolAdapter;
+                sentContext = dynamicContext;
+                final List<PublishReturnCode> returnCodes = new ArrayList<>();
+                for (int i = 0; i < publishes.size(); i++) {
+                    returnCodes.add(PublishReturnCode.DELIVERED);
+                }
+                return CompletableFuture.completedFuture(returnCodes);
+            });
+
+    @Test
+    public void test_entries_are_sent_in_order() throws Exception {
+        batch.withAdapter(adapter);
+        batch.add("topic/1", new byte[]{1}, 0)
+                .add("topic/2", new byte[]{2}, 2, true, 60, Map.of("name", "value"))
+                .withContextInformation("key", "value");
+
+        assertEquals(2, batch.size());
+        assertEquals(2, batch.send().get().size());
+
+        assertSame(adapter, sentAdapter);
+        assertEquals(Map.of("key", "value"), sentContext);
+        assertEquals(2, sent.size());
+
+        final PUBLISH first = sent.get(0);
+        assertEquals("topic/1", first.getTopic());
+        assertArrayEquals(new byte[]{1}, first.getPayload());
+        assertEquals(QoS.AT_MOST_ONCE, first.getQoS());
+        assertFalse(first.isRetain());
+        assertEquals(PUBLISH.MESSAGE_EXPIRY_INTERVAL_NOT_SET, first.getMessageExpiryInterval());
+        assertTrue(first.getUserProperties().asList().isEmpty());
+        assertEquals("hivemqId", first.getHivemqId());
+
+        final PUBLISH second = sent.get(1);
+        assertEquals("topic/2", second.getTopic());
+        assertEquals(QoS.EXACTLY_ONCE, second.getQoS());
+        assertTrue(second.isRetain());
+        assertEquals(60, second.getMessageExpiryInterval());
+        assertEquals("value", second.getUserProperties().asList().get(0).getValue());
+        assertNotEquals(first.getPublishId(), second.getPublishId());
+    }
+
+    @Test
+    public void test_empty_batch_is_not_sent() throws Exception {
+        assertTrue(batch.send().get().isEmpty());
+        assertTrue(sent.isEmpty());
+    }
+}
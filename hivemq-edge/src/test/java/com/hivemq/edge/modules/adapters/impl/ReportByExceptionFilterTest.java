@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReportByExceptionFilterTest {
+
+    @Test
+    public void test_without_deadband_every_change_is_published() {
+        final ReportByExceptionFilter filter = filter(Map.of(), 1);
+
+        assertTrue(filter.offer(new double[]{1}, 0));
+        assertFalse(filter.offer(new double[]{1}, 1));
+        assertTrue(filter.offer(new double[]{1.001}, 2));
+        assertTrue(filter.offer(new double[]{Double.NaN}, 3));
+        assertFalse(filter.offer(new double[]{Double.NaN}, 4));
+    }
+
+    @Test
+    public void test_absolute_deadband() {
+        final ReportByExceptionFilter filter = filter(Map.of("absoluteDeadband", 0.5), 1);
+
+        assertTrue(filter.offer(new double[]{10}, 0));
+        assertFalse(filter.offer(new double[]{10.4}, 1));
+        assertFalse(filter.offer(new double[]{9.5}, 2));
+        assertTrue(filter.offer(new double[]{10.6}, 3));
+        //-- the change is measured from the last published value, not from the last sample
+        assertFalse(filter.offer(new double[]{10.2}, 4));
+        assertTrue(filter.offer(new double[]{10}, 5));
+    }
+
+    @Test
+    public void test_percent_deadband() {
+        final ReportByExceptionFilter filter = filter(Map.of("percentDeadband", 10), 1);
+
+        assertTrue(filter.offer(new double[]{-200}, 0));
+        assertFalse(filter.offer(new double[]{-181}, 1));
+        assertTrue(filter.offer(new double[]{-179}, 2));
+    }
+
+    @Test
+    public void test_any_value_of_a_sample_publishes_the_sample() {
+        final ReportByExceptionFilter filter = filter(Map.of("absoluteDeadband", 1), 3);
+
+        assertTrue(filter.offer(new double[]{1, 2, 3}, 0));
+        assertFalse(filter.offer(new double[]{1.5, 2.5, 3.5}, 1));
+        assertTrue(filter.offer(new double[]{1, 2, 5}, 2));
+        assertArrayEquals(new double[]{1, 2, 5}, filter.getReport(), 0);
+    }
+
+    @Test
+    public void test_min_and_max_publish_interval() {
+        final ReportByExceptionFilter filter =
+                filter(Map.of("minPublishIntervalMillis", 100, "maxPublishIntervalMillis", 1000), 1);
+
+        assertTrue(filter.offer(new double[]{1}, 0));
+        assertFalse(filter.offer(new double[]{2}, 50));
+        assertTrue(filter.offer(new double[]{2}, 100));
+        assertFalse(filter.offer(new double[]{2}, 1099));
+        //-- heartbeat
+        assertTrue(filter.offer(new double[]{2}, 1100));
+    }
+
+    @Test
+    public void test_tumbling_window() {
+        final ReportByExceptionFilter filter = filter(Map.of("windowMillis", 100, "windowAggregate", "AVG"), 2);
+
+        assertFalse(filter.offer(new double[]{1, 10}, 0));
+        assertFalse(filter.offer(new double[]{3, 10}, 50));
+        assertTrue(filter.offer(new double[]{100, 100}, 100));
+        assertArrayEquals(new double[]{2, 10}, filter.getReport(), 0);
+
+        //-- the next window only holds the last sample, then a window without a sample passes
+        assertTrue(filter.offer(new double[]{0, 0}, 250));
+        assertArrayEquals(new double[]{100, 100}, filter.getReport(), 0);
+        assertFalse(filter.offer(new double[]{0, 0}, 299));
+        assertTrue(filter.offer(new double[]{0, 0}, 300));
+        assertArrayEquals(new double[]{0, 0}, filter.getReport(), 0);
+    }
+
+    @Test
+    public void test_tumbling_window_count() {
+        final ReportByExceptionFilter filter = filter(Map.of("windowMillis", 1000, "windowAggregate", "COUNT"), 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(filter.offer(new double[]{i}, i * 100));
+        }
+        assertTrue(filter.offer(new double[]{0}, 1000));
+        assertArrayEquals(new double[]{10}, filter.getReport(), 0);
+    }
+
+    @Test
+    public void test_sliding_window() {
+        final ReportByExceptionFilter filter = filter(Map.of("windowMillis",
+                100,
+                "windowType",
+                "SLIDING",
+                "windowAggregate",
+                "MAX",
+                "absoluteDeadband",
+                1), 1);
+
+        assertTrue(filter.offer(new double[]{5}, 0));
+        assertFalse(filter.offer(new double[]{1}, 50));
+        //-- the maximum of 5 left the window
+        assertTrue(filter.offer(new double[]{1}, 100));
+        assertArrayEquals(new double[]{1}, filter.getReport(), 0);
+
+        //-- more samples than the initial capacity of the window
+        for (int i = 1; i <= 100; i++) {
+            filter.offer(new double[]{i}, 100 + i);
+        }
+        assertArrayEquals(new double[]{100}, filter.getReport(), 0);
+        assertFalse(filter.offer(new double[]{0}, 250));
+        assertTrue(filter.offer(new double[]{0}, 301));
+        assertArrayEquals(new double[]{0}, filter.getReport(), 0);
+    }
+
+    @Test
+    public void test_sliding_window_aggregates_match_the_samples_in_the_window() {
+        final double[] special = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (final String aggregate : new String[]{"MIN", "MAX", "AVG", "COUNT", "LAST"}) {
+            final ReportByExceptionFilter filter = filter(Map.of("windowMillis",
+                    50,
+                    "windowType",
+                    "SLIDING",
+                    "windowAggregate",
+                    aggregate), 2);
+            final Random random = new Random(42);
+            final List<Long> timestamps = new ArrayList<>();
+            final List<double[]> window = new ArrayList<>();
+            long timestamp = 0;
+            for (int n = 0; n < 2000; n++) {
+                //-- bursts grow the window, pauses empty it
+                timestamp += random.nextInt(10) == 0 ? random.nextInt(60) : random.nextInt(2);
+                final double[] sample = new double[2];
+                for (int i = 0; i < 2; i++) {
+                    sample[i] = random.nextInt(100) == 0 ?
+                            special[random.nextInt(special.length)] :
+                            random.nextInt(1000) / 10.0;
+                }
+                while (!window.isEmpty() && timestamp - timestamps.get(0) >= 50) {
+                    timestamps.remove(0);
+                    window.remove(0);
+                }
+                timestamps.add(timestamp);
+                window.add(sample);
+
+                filter.offer(sample, timestamp);
+
+                for (int i = 0; i < 2; i++) {
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    double sum = 0;
+                    for (final double[] windowSample : window) {
+                        min = Math.min(min, windowSample[i]);
+                        max = Math.max(max, windowSample[i]);
+                        sum += windowSample[i];
+                    }
+                    final double expected;
+                    switch (aggregate) {
+                        case "MIN":
+                            expected = min;
+                            break;
+                        case "MAX":
+                            expected = max;
+                            break;
+                        case "AVG":
+                            expected = sum / window.size();
+                            break;
+                        case "COUNT":
+                            expected = window.size();
+                            break;
+                        default:
+                            expected = sample[i];
+                    }
+                    assertEquals(aggregate + " of sample " + n, expected, filter.getReport()[i], 1e-9);
+                }
+            }
+        }
+    }
+
+    private static @NotNull ReportByExceptionFilter filter(final @NotNull Map<String, Object> config, final int width) {
+        return new ReportByExceptionFilter(new ObjectMapper().convertValue(config,
+                AbstractProtocolAdapterConfig.ReportByException.class), width);
+    }
+}
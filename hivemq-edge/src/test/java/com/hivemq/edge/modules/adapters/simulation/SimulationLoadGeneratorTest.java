@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.modules.adapters.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.handler.publish.PublishReturnCode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationLoadGeneratorTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void test_topics_are_spread_over_the_levels() {
+        final List<String> topics = SimulationLoadGenerator.topics(List.of("a", "b"), 100, 2);
+
+        assertEquals(200, topics.size());
+        assertEquals("a/0/0", topics.get(0));
+        assertEquals("a/0/9", topics.get(9));
+        assertEquals("a/1/0", topics.get(10));
+        assertEquals("a/9/9", topics.get(99));
+        assertEquals("b/0/0", topics.get(100));
+    }
+
+    @Test
+    public void test_due_messages_match_the_rate() {
+        final SimulationLoadGenerator loadGenerator = loadGenerator(Map.of("messagesPerSecond", 1000));
+
+        int due = loadGenerator.due(0);
+        for (long now = 3 * MILLIS; now <= 1000 * MILLIS; now += 3 * MILLIS) {
+            due += loadGenerator.due(now);
+        }
+
+        assertEquals(999, due);
+        assertEquals(0, loadGenerator.getMissed());
+    }
+
+    @Test
+    public void test_bursts_raise_the_rate() {
+        final SimulationLoadGenerator loadGenerator = loadGenerator(Map.of("messagesPerSecond",
+                100,
+                "burstMessagesPerSecond",
+                1000,
+                "burstDurationMillis",
+                100,
+                "burstIntervalMillis",
+                1000));
+
+        int due = loadGenerator.due(0);
+        for (long now = MILLIS; now <= 1000 * MILLIS; now += MILLIS) {
+            due += loadGenerator.due(now);
+        }
+
+        assertEquals(190, due, 1);
+    }
+
+    @Test
+    public void test_catch_up_is_limited() {
+        final SimulationLoadGenerator loadGenerator = loadGenerator(Map.of("messagesPerSecond", 1000));
+
+        loadGenerator.due(0);
+        final int due = loadGenerator.due(5000 * MILLIS);
+
+        assertEquals(100, due);
+        assertEquals(4900, loadGenerator.getMissed());
+    }
+
+    @Test
+    public void test_generated_messages_follow_the_mix() {
+        final SimulationLoadGenerator loadGenerator = loadGenerator(Map.of("topicCount",
+                10,
+                "minPayloadSize",
+                10,
+                "maxPayloadSize",
+                100,
+                "payloadSizeDistribution",
+                "NORMAL",
+                "qos1Percentage",
+                30,
+                "qos2Percentage",
+                20,
+                "retainedPercentage",
+                10));
+        final RecordingBatch batch = new RecordingBatch();
+
+        loadGenerator.generate(batch, 10_000);
+
+        final int[] qosCounts = new int[3];
+        int retainedCount = 0;
+        for (int i = 0; i < batch.topics.size(); i++) {
+            assertEquals(loadGenerator.getTopics().get(i % 10), batch.topics.get(i));
+            assertTrue(batch.payloadSizes.get(i) >= 10 && batch.payloadSizes.get(i) <= 100);
+            qosCounts[batch.qos.get(i)]++;
+            retainedCount += batch.retained.get(i) ? 1 : 0;
+        }
+        assertEquals(5000, qosCounts[0], 300);
+        assertEquals(3000, qosCounts[1], 300);
+        assertEquals(2000, qosCounts[2], 300);
+        assertEquals(1000, retainedCount, 300);
+    }
+
+    @Test
+    public void test_payloads_larger_than_the_pool_are_generated() {
+        final int size = SimulationLoadGenerator.MAX_PAYLOAD_POOL_SIZE * 3 + 7;
+        final SimulationLoadGenerator loadGenerator =
+                loadGenerator(Map.of("minPayloadSize", size, "maxPayloadSize", size));
+        final RecordingBatch batch = new RecordingBatch();
+
+        loadGenerator.generate(batch, 10);
+
+        for (final int payloadSize : batch.payloadSizes) {
+            assertEquals(size, payloadSize);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_qos_percentages_above_100_are_rejected() {
+        loadGenerator(Map.of("qos1Percentage", 60, "qos2Percentage", 60));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_zero_topic_levels_are_rejected() {
+        loadGenerator(Map.of("topicLevels", 0, "topicCount", 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_zero_topics_are_rejected() {
+        loadGenerator(Map.of("topicCount", 0));
+    }
+
+    private static @NotNull SimulationLoadGenerator loadGenerator(final @NotNull Map<String, Object> config) {
+        return new SimulationLoadGenerator(new ObjectMapper().convertValue(config,
+                SimulationAdapterConfig.LoadGenerator.class), List.of("simulation"), new Random(42));
+    }
+
+    private static class RecordingBatch implements ProtocolAdapterPublishBatchBuilder {
+
+        private final @NotNull List<String> topics = new ArrayList<>();
+        private final @NotNull List<Integer> payloadSizes = new ArrayList<>();
+        private final @NotNull List<Integer> qos = new ArrayList<>();
+        private final @NotNull List<Boolean> retained = new ArrayList<>();
+
+        @Override
+        public @NotNull ProtocolAdapterPublishBatchBuilder add(
+                final @NotNull String mqttTopic, final @NotNull byte[] payload, final int qos) {
+            return add(mqttTopic, payload, qos, false, 0, Map.of());
+        }
+
+        @Override
+        public @NotNull ProtocolAdapterPublishBatchBuilder add(
+                final @NotNull String mqttTopic,
+                final @NotNull byte[] payload,
+                final int qos,
+                final boolean retained,
+                final long messageExpiryInterval,
+                final @NotNull Map<String, String> userProperties) {
+            topics.add(mqttTopic);
+            payloadSizes.add(payload.length);
+            this.qos.add(qos);
+            this.retained.add(retained);
+            return this;
+        }
+
+        @Override
+        public @NotNull ProtocolAdapterPublishBatchBuilder withContextInformation(
+                final @NotNull String key, final @NotNull String value) {
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return topics.size();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<List<PublishReturnCode>> send() {
+            return CompletableFuture.completedFuture(List.of());
+        }
+    }
+}
@@ -115,4 +115,39 @@ public class ChunkerTest {
         assertTrue(values.get(3).isFinished());
         assertEquals(2, counter[0]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void maxResultsIsAtLeastOneWithManyBuckets() {
+        final Chunker chunker = new Chunker();
+
+        chunker.getAllLocalChunk(new ChunkCursor(), 2, new Chunker.SingleWriterCall<String>() {
+            @Override
+            public ListenableFuture<@NotNull BucketChunkResult<Map<String, String>>> call(final int bucket, final @NotNull String lastKey, final int maxResults) {
+                assertEquals(1, maxResults);
+                return Futures.immediateFuture(new BucketChunkResult<>(Map.of(), true, "last", bucket));
+            }
+        });
+    }
+
+    @Test
+    public void allBucketsFinished_returnsWithoutCalls() throws Exception {
+        final int[] counter = {0};
+        final Chunker chunker = new Chunker();
+
+        final ChunkCursor cursor = new ChunkCursor(new HashMap<>(), ImmutableSet.of(0, 1, 2, 3));
+        final MultipleChunkResult<Map<String, @NotNull String>> multi = chunker.getAllLocalChunk(cursor, 4, new Chunker.SingleWriterCall<String>() {
+            @Override
+            public ListenableFuture<@NotNull BucketChunkResult<Map<String, String>>> call(final int bucket, final @NotNull String lastKey, final int maxResults) {
+                counter[0]++;
+                return Futures.immediateFuture(new BucketChunkResult<>(Map.of(), false, "last", bucket));
+            }
+        }).get();
+
+        final Map<Integer, BucketChunkResult<Map<String, @NotNull String>>> values = multi.getValues();
+        assertEquals(4, values.size());
+        for (final BucketChunkResult<Map<String, @NotNull String>> value : values.values()) {
+            assertTrue(value.isFinished());
+        }
+        assertEquals(0, counter[0]);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.timeseries;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetricTimeSeriesStoreTest {
+
+    @Test
+    void whenStoreSampled_thenCountsAndNumericGaugesAreRecordedUpToTheLimit() {
+        final MetricRegistry registry = new MetricRegistry();
+        final Counter counter = registry.counter("counter");
+        final AtomicLong gaugeValue = new AtomicLong(7);
+        registry.register("gauge", (Gauge<Long>) gaugeValue::get);
+        registry.register("text", (Gauge<String>) () -> "text");
+        final MetricTimeSeriesStore store = new MetricTimeSeriesStore(registry, 1_000, List.of(), 2);
+
+        counter.inc(3);
+        store.sample(1_000);
+        counter.inc(2);
+        gaugeValue.set(9);
+        store.sample(2_000);
+        registry.counter("another");
+        store.sample(3_000);
+
+        final MetricTimeSeries counterSeries = store.getSeries("counter");
+        assertNotNull(counterSeries);
+        final List<MetricTimeSeries.Sample> counterSamples = counterSeries.read(0, 2_000, 2_000);
+        assertEquals(3, counterSamples.get(0).getValue());
+        assertEquals(5, counterSamples.get(1).getValue());
+        final MetricTimeSeries gaugeSeries = store.getSeries("gauge");
+        assertNotNull(gaugeSeries);
+        assertEquals(9, gaugeSeries.read(2_000, 2_000, 2_000).get(0).getValue());
+        assertNull(store.getSeries("text"));
+        assertNull(store.getSeries("another"));
+
+        registry.remove("gauge");
+        store.sample(4_000);
+        assertNull(store.getSeries("gauge"));
+        store.sample(5_000);
+        assertNotNull(store.getSeries("another"));
+    }
+
+    @Test
+    void whenRatioGaugeSampled_thenFractionIsRecorded() {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.register("com.hivemq.jvm.memory.heap.usage", (Gauge<Double>) () -> 0.25);
+        registry.register("com.hivemq.jvm.memory.pools.Metaspace.usage", (Gauge<Double>) () -> Double.NaN);
+        final MetricTimeSeriesStore store = new MetricTimeSeriesStore(registry, 1_000, List.of(), 10);
+
+        store.sample(1_000);
+
+        final MetricTimeSeries series = store.getSeries("com.hivemq.jvm.memory.heap.usage");
+        assertNotNull(series);
+        assertEquals(0.25, series.read(1_000, 1_000, 1_000).get(0).getValue());
+        assertNull(store.getSeries("com.hivemq.jvm.memory.pools.Metaspace.usage"));
+    }
+
+    @Test
+    void whenPrefixesConfigured_thenOnlyMatchingMetricsAreSampled() {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("com.hivemq.edge.messages.incoming.count");
+        registry.counter("com.hivemq.jvm.threads.count");
+        registry.counter("other");
+        final MetricTimeSeriesStore store =
+                new MetricTimeSeriesStore(registry, 1_000, List.of("com.hivemq.edge.", "other"), 10);
+
+        store.sample(1_000);
+        registry.counter("com.hivemq.edge.protocol-adapters.simulation.sim-1.read.publish.success.count");
+        store.sample(2_000);
+
+        assertNotNull(store.getSeries("com.hivemq.edge.messages.incoming.count"));
+        assertNotNull(store.getSeries("other"));
+        assertNotNull(store.getSeries(
+                "com.hivemq.edge.protocol-adapters.simulation.sim-1.read.publish.success.count"));
+        assertNull(store.getSeries("com.hivemq.jvm.threads.count"));
+    }
+}
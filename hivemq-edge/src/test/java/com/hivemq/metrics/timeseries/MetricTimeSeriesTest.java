@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricTimeSeriesTest {
+
+    private static final long[] RESOLUTIONS = {1_000, 10_000};
+    private static final int[] CAPACITIES = {10, 10};
+
+    @Test
+    void whenGaugeSampledWithinBucket_thenCoarseTierKeepsTheMean() {
+        final MetricTimeSeries series = new MetricTimeSeries(true, RESOLUTIONS, CAPACITIES);
+        for (int i = 0; i < 10; i++) {
+            series.add(i * 1_000L, i);
+        }
+
+        final List<MetricTimeSeries.Sample> fine = series.read(0, 9_000, 9_000);
+        assertEquals(10, fine.size());
+        assertEquals(3_000, fine.get(3).getTimestamp());
+        assertEquals(3, fine.get(3).getValue());
+
+        final List<MetricTimeSeries.Sample> coarse = series.read(-50_000, 9_000, 9_000);
+        assertEquals(1, coarse.size());
+        assertEquals(0, coarse.get(0).getTimestamp());
+        assertEquals(4, coarse.get(0).getValue());
+        assertEquals(10_000, series.resolutionFor(-50_000, 9_000));
+    }
+
+    @Test
+    void whenCounterSampledWithinBucket_thenCoarseTierKeepsTheLastCount() {
+        final MetricTimeSeries series = new MetricTimeSeries(false, RESOLUTIONS, CAPACITIES);
+        for (int i = 0; i < 10; i++) {
+            series.add(i * 1_000L, i * 5L);
+        }
+
+        final List<MetricTimeSeries.Sample> coarse = series.read(-50_000, 9_000, 9_000);
+        assertEquals(1, coarse.size());
+        assertEquals(45, coarse.get(0).getValue());
+    }
+
+    @Test
+    void whenRingWrapped_thenOnlyRetainedBucketsAreRead() {
+        final MetricTimeSeries series = new MetricTimeSeries(true, RESOLUTIONS, CAPACITIES);
+        for (int i = 0; i < 25; i++) {
+            series.add(i * 1_000L, i);
+        }
+
+        final List<MetricTimeSeries.Sample> fine = series.read(15_000, Long.MAX_VALUE, 24_000);
+        assertEquals(10, fine.size());
+        assertEquals(15_000, fine.get(0).getTimestamp());
+        assertEquals(24, fine.get(9).getValue());
+        assertEquals(1_000, series.resolutionFor(15_000, 24_000));
+    }
+
+    @Test
+    void whenBucketsMissing_thenTheyAreSkipped() {
+        final MetricTimeSeries series = new MetricTimeSeries(true, RESOLUTIONS, CAPACITIES);
+        series.add(1_000, 1);
+        series.add(5_000, 5);
+
+        final List<MetricTimeSeries.Sample> fine = series.read(0, 9_000, 9_000);
+        assertEquals(2, fine.size());
+        assertEquals(1_000, fine.get(0).getTimestamp());
+        assertEquals(5_000, fine.get(1).getTimestamp());
+    }
+
+    @Test
+    void whenFractionalGaugeSampled_thenMeanKeepsTheFraction() {
+        final MetricTimeSeries series = new MetricTimeSeries(true, RESOLUTIONS, CAPACITIES);
+        series.add(0, 0.25);
+        series.add(1_000, 0.5);
+
+        final List<MetricTimeSeries.Sample> fine = series.read(0, 1_000, 1_000);
+        assertEquals(0.25, fine.get(0).getValue());
+        assertEquals(0.5, fine.get(1).getValue());
+        assertEquals(0.375, series.read(-50_000, 1_000, 1_000).get(0).getValue());
+    }
+
+    @Test
+    void whenSeriesStartsAtAnyTime_thenRingStillWrapsAtCapacity() {
+        final MetricTimeSeries series = new MetricTimeSeries(true, RESOLUTIONS, CAPACITIES);
+        for (int i = 0; i < 25; i++) {
+            series.add(123_000L + i * 1_000L, i);
+        }
+
+        final List<MetricTimeSeries.Sample> fine = series.read(138_000, Long.MAX_VALUE, 147_000);
+        assertEquals(10, fine.size());
+        assertEquals(138_000, fine.get(0).getTimestamp());
+        assertEquals(15, fine.get(0).getValue());
+        assertEquals(24, fine.get(9).getValue());
+    }
+}
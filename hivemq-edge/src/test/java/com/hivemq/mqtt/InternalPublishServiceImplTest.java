@@ -17,6 +17,7 @@ package com.hivemq.mqtt;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.hivemq.datagov.DataGovernanceService;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
@@ -37,11 +38,13 @@ import org.mockito.MockitoAnnotations;
 import util.TestException;
 import util.TestMessageUtil;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
+import static com.hivemq.mqtt.handler.publish.PublishReturnCode.DELIVERED;
 import static com.hivemq.mqtt.handler.publish.PublishReturnCode.FAILED;
 import static com.hivemq.mqtt.handler.publish.PublishReturnCode.NO_MATCHING_SUBSCRIBERS;
 import static org.junit.Assert.assertEquals;
@@ -50,6 +53,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.anySet;
@@ -57,6 +61,7 @@ import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -231,6 +236,30 @@ public class InternalPublishServiceImplTest {
         assertEquals(FAILED, returnCode);
     }
 
+    @Test(timeout = 20000)
+    public void test_batch_resolves_subscribers_of_all_topics_at_once() throws Exception {
+
+        final SubscriberWithIdentifiers sub1 = new SubscriberWithIdentifiers("sub1", 1, (byte) 0, null);
+
+        when(topicTree.findTopicSubscribers(anyCollection())).thenReturn(Map.of("topic",
+                new TopicSubscribers(ImmutableSet.of(sub1), ImmutableSet.of()),
+                "other",
+                new TopicSubscribers(ImmutableSet.of(), ImmutableSet.of())));
+
+        final List<ListenableFuture<PublishReturnCode>> returnCodes = publishService.publish(List.of(
+                TestMessageUtil.createMqtt5Publish("topic"),
+                TestMessageUtil.createMqtt5Publish("other"),
+                TestMessageUtil.createMqtt5Publish("topic")), executorService, "sender");
+
+        assertEquals(3, returnCodes.size());
+        assertEquals(DELIVERED, returnCodes.get(0).get());
+        assertEquals(NO_MATCHING_SUBSCRIBERS, returnCodes.get(1).get());
+        assertEquals(DELIVERED, returnCodes.get(2).get());
+        verify(topicTree).findTopicSubscribers(anyCollection());
+        verify(topicTree, never()).findTopicSubscribers(anyString());
+        verify(publishDistributor, times(2)).distributeToNonSharedSubscribers(anyMap(), any(), any());
+    }
+
     @Test(timeout = 20000)
     public void test_shared_subs_different_groups() {
 
@@ -15,8 +15,11 @@
  */
 package com.hivemq.mqtt.handler.subscribe.retained;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
@@ -30,6 +33,7 @@ import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
 import com.hivemq.persistence.clientsession.callback.SubscriptionResult;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.persistence.retained.RetainedMessagePersistence;
+import com.hivemq.persistence.retained.RetainedMessageTopicsPage;
 
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -43,6 +47,7 @@ import org.mockito.MockitoAnnotations;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -51,6 +56,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 @SuppressWarnings("NullabilityAnnotations")
@@ -89,7 +95,7 @@ public class SendRetainedMessagesListenerTest {
 
         final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
         final Set<String> set = builder.build();
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         listener.operationComplete(channel.newSucceededFuture());
         channel.runPendingTasks();
@@ -184,7 +190,7 @@ public class SendRetainedMessagesListenerTest {
         final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
         builder.add("topic");
         final Set<String> set = builder.build();
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final Topic topic = new Topic("#", QoS.EXACTLY_ONCE, false, false, Mqtt5RetainHandling.SEND, 1);
         final List<SubscriptionResult> subscriptions = newArrayList(subResult(topic, false));
@@ -216,7 +222,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final Set<String> set = ImmutableSet.of("topic");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final Topic topic = new Topic("#", QoS.EXACTLY_ONCE, false, false, Mqtt5RetainHandling.DO_NOT_SEND, 1);
         final List<SubscriptionResult> subscriptions = newArrayList(subResult(topic, false));
@@ -238,7 +244,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final Set<String> set = ImmutableSet.of("topic");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final Topic topic =
                 new Topic("#", QoS.EXACTLY_ONCE, false, false, Mqtt5RetainHandling.SEND_IF_SUBSCRIPTION_DOES_NOT_EXIST,
@@ -263,7 +269,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final Set<String> set = ImmutableSet.of("topic");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final Topic topic =
                 new Topic("#", QoS.EXACTLY_ONCE, false, false, Mqtt5RetainHandling.SEND_IF_SUBSCRIPTION_DOES_NOT_EXIST,
@@ -300,7 +306,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final ImmutableSet<String> set = ImmutableSet.of("topic", "topic2");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
         final List<SubscriptionResult> subscriptions = newArrayList(
                 subResult(new Topic("topic", QoS.EXACTLY_ONCE), false),
                 subResult(new Topic("topic2", QoS.AT_MOST_ONCE), false));
@@ -341,7 +347,7 @@ public class SendRetainedMessagesListenerTest {
         final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
         builder.add("topic");
         final Set<String> set = builder.build();
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final List<SubscriptionResult> subscriptions = newArrayList(subResult(new Topic("#", QoS.AT_MOST_ONCE), false));
         final SendRetainedMessagesListener listener = createListener(subscriptions, ignoredTopics);
@@ -356,6 +362,115 @@ public class SendRetainedMessagesListenerTest {
         assertEquals(QoS.AT_MOST_ONCE, publish.getQoS());
     }
 
+    @Test
+    public void test_wildcard_subscription_buckets_completing_after_delivery_finished() throws Exception {
+
+        when(retainedMessagePersistence.get(anyString())).thenReturn(Futures.immediateFuture(
+                new RetainedMessage("test".getBytes(UTF_8), QoS.AT_MOST_ONCE, 1L,
+                        MqttConfigurationDefaults.TTL_DISABLED)));
+
+        final SettableFuture<RetainedMessageTopicsPage> lateBucket = SettableFuture.create();
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(ImmutableList.of(
+                lastPage("topic1", "topic2"),
+                lastPage(),
+                lateBucket));
+
+        final List<SubscriptionResult> subscriptions = newArrayList(subResult(new Topic("#", QoS.AT_MOST_ONCE), false));
+        final SendRetainedMessagesListener listener = createListener(subscriptions, ignoredTopics);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+
+        listener.operationComplete(channel.newSucceededFuture());
+        channel.runPendingTasks();
+
+        assertEquals(2, channel.outboundMessages().size());
+
+        lateBucket.set(new RetainedMessageTopicsPage(ImmutableList.of("topic3"), null));
+        channel.runPendingTasks();
+
+        assertEquals(3, channel.outboundMessages().size());
+        final Set<String> sentTopics = new HashSet<>();
+        for (final Object message : channel.outboundMessages()) {
+            sentTopics.add(((PUBLISH) message).getTopic());
+        }
+        assertEquals(ImmutableSet.of("topic1", "topic2", "topic3"), sentTopics);
+    }
+
+    @Test
+    public void test_wildcard_subscription_next_page_requested_after_delivery_drained() throws Exception {
+
+        when(retainedMessagePersistence.get(anyString())).thenReturn(Futures.immediateFuture(
+                new RetainedMessage("test".getBytes(UTF_8), QoS.AT_MOST_ONCE, 1L,
+                        MqttConfigurationDefaults.TTL_DISABLED)));
+
+        final SettableFuture<Void> firstBatchWritten = SettableFuture.create();
+        final RetainedMessagesSender retainedMessagesSender = mock(RetainedMessagesSender.class);
+        when(retainedMessagesSender.writeRetainedMessages(any(), any(Topic[].class)))
+                .thenReturn(firstBatchWritten)
+                .thenReturn(Futures.immediateFuture(null));
+
+        final List<String> requestedPages = new ArrayList<>();
+        final RetainedMessageTopicsPage firstPage = new RetainedMessageTopicsPage(ImmutableList.of("topic1"), () -> {
+            requestedPages.add("second");
+            return lastPage("topic2");
+        });
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#"))
+                .thenReturn(ImmutableList.of(Futures.immediateFuture(firstPage)));
+
+        final SendRetainedMessagesListener listener = new SendRetainedMessagesListener(
+                newArrayList(subResult(new Topic("#", QoS.AT_MOST_ONCE), false)), ignoredTopics,
+                retainedMessagePersistence, retainedMessagesSender);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+
+        listener.operationComplete(channel.newSucceededFuture());
+        channel.runPendingTasks();
+
+        assertTrue(requestedPages.isEmpty());
+
+        firstBatchWritten.set(null);
+        channel.runPendingTasks();
+
+        assertEquals(List.of("second"), requestedPages);
+        verify(retainedMessagesSender, times(2)).writeRetainedMessages(any(), any(Topic[].class));
+    }
+
+    @Test
+    public void test_wildcard_subscription_batches_limited_by_receive_maximum_across_buckets() throws Exception {
+
+        when(retainedMessagePersistence.get(anyString())).thenReturn(Futures.immediateFuture(
+                new RetainedMessage("test".getBytes(UTF_8), QoS.AT_MOST_ONCE, 1L,
+                        MqttConfigurationDefaults.TTL_DISABLED)));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(ImmutableList.of(
+                lastPage("topic1", "topic2", "topic3"),
+                lastPage("topic4", "topic5")));
+
+        final List<Integer> batchSizes = new ArrayList<>();
+        final RetainedMessagesSender retainedMessagesSender = mock(RetainedMessagesSender.class);
+        when(retainedMessagesSender.writeRetainedMessages(any(), any(Topic[].class))).thenAnswer(invocation -> {
+            // the channel is the first argument, the expanded varargs are the topics of the batch
+            batchSizes.add(invocation.getArguments().length - 1);
+            return Futures.immediateFuture(null);
+        });
+        final SendRetainedMessagesListener listener = new SendRetainedMessagesListener(
+                newArrayList(subResult(new Topic("#", QoS.AT_MOST_ONCE), false)), ignoredTopics,
+                retainedMessagePersistence, retainedMessagesSender);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setClientReceiveMaximum(2);
+
+        listener.operationComplete(channel.newSucceededFuture());
+        channel.runPendingTasks();
+
+        assertEquals(3, batchSizes.size());
+        int sent = 0;
+        for (final int batchSize : batchSizes) {
+            assertTrue(batchSize <= 2);
+            sent += batchSize;
+        }
+        assertEquals(5, sent);
+    }
+
     @Test
     public void test_wildcard_subscription_qos_not_upgraded_to_actual_subscription() throws Exception {
 
@@ -366,7 +481,7 @@ public class SendRetainedMessagesListenerTest {
         final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
         builder.add("topic");
         final Set<String> set = builder.build();
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final List<SubscriptionResult> subscriptions = newArrayList(subResult(new Topic("#", QoS.EXACTLY_ONCE), false));
         final SendRetainedMessagesListener listener = createListener(subscriptions, ignoredTopics);
@@ -431,7 +546,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final Set<String> set = ImmutableSet.of("topic");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
 
         final Topic topic = new Topic("#", QoS.EXACTLY_ONCE);
         final List<SubscriptionResult> subscriptions = newArrayList(new SubscriptionResult(topic, false, "shareName"));
@@ -456,7 +571,7 @@ public class SendRetainedMessagesListenerTest {
                         MqttConfigurationDefaults.TTL_DISABLED)));
 
         final ImmutableSet<String> set = ImmutableSet.of("topic", "topic2");
-        when(retainedMessagePersistence.getWithWildcards("#")).thenReturn(Futures.immediateFuture(set));
+        when(retainedMessagePersistence.getWithWildcardsPerBucket("#")).thenReturn(singleBucket(set));
         when(queuePersistence.add(eq("client"), eq(false), anyList(), eq(true), anyLong())).thenReturn(
                 Futures.immediateFuture(null));
         final List<SubscriptionResult> subscriptions = newArrayList(
@@ -512,6 +627,15 @@ public class SendRetainedMessagesListenerTest {
 
     }
 
+    private static List<ListenableFuture<RetainedMessageTopicsPage>> singleBucket(final Set<String> topics) {
+        return ImmutableList.of(Futures.immediateFuture(
+                new RetainedMessageTopicsPage(ImmutableList.copyOf(topics), null)));
+    }
+
+    private static ListenableFuture<RetainedMessageTopicsPage> lastPage(final String... topics) {
+        return Futures.immediateFuture(new RetainedMessageTopicsPage(ImmutableList.copyOf(topics), null));
+    }
+
     private SubscriptionResult subResult(final Topic topic, final boolean subscriptionAlreadyExisted) {
         return new SubscriptionResult(topic, subscriptionAlreadyExisted, null);
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TopicTreeLockFreeReadsTest {
+
+    private LocalTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        InternalConfigurations.TOPIC_TREE_LOCK_FREE_READS_ENABLED.set(true);
+        // the subscriber cache would hide the tree reads this test is about
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(0);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+    }
+
+    @After
+    public void tearDown() {
+        InternalConfigurations.TOPIC_TREE_LOCK_FREE_READS_ENABLED.set(false);
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(10_000);
+    }
+
+    @Test
+    public void test_lookup_reads_segment_copy() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("+/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        final TopicTreeNode snapshot = topicTree.segmentSnapshots.get("a");
+        assertNotNull(snapshot);
+        assertNotSame(topicTree.segments.get("a"), snapshot);
+        assertNotNull(topicTree.segmentSnapshots.get("+"));
+    }
+
+    @Test
+    public void test_changes_drop_segment_copy() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.addTopic("sub2", new Topic("a/#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertNull(topicTree.segmentSnapshots.get("a"));
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub1", "a/b", null);
+        assertNull(topicTree.segmentSnapshots.get("a"));
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub2", "a/#", null);
+        assertTrue(topicTree.findTopicSubscribers("a/b").getSubscribers().isEmpty());
+        assertTrue(topicTree.segmentSnapshots.isEmpty());
+        assertEquals(0, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test
+    public void test_copy_is_not_affected_by_later_changes() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.findTopicSubscribers("a/b/c");
+        final TopicTreeNode snapshot = topicTree.segmentSnapshots.get("a");
+        assertNotNull(snapshot);
+
+        topicTree.addTopic("sub2", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(1, exactSubscriberCount(snapshot));
+        assertEquals(2, exactSubscriberCount(topicTree.segments.get("a")));
+    }
+
+    @Test(timeout = 30_000)
+    public void test_concurrent_changes_and_lookups() throws Exception {
+        topicTree.addTopic("static", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch started = new CountDownLatch(1);
+        try {
+            final Future<?> reader = executor.submit(() -> {
+                started.countDown();
+                while (running.get()) {
+                    assertFalse(topicTree.findTopicSubscribers("a/b").getSubscribers().isEmpty());
+                }
+            });
+            final Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    topicTree.addTopic("sub" + i, new Topic("a/+", QoS.AT_LEAST_ONCE), (byte) 0, null);
+                    topicTree.removeSubscriber("sub" + i, "a/+", null);
+                }
+                topicTree.addTopic("last", new Topic("+/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            writer.get();
+            running.set(false);
+            reader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+        assertEquals(2, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    private static int exactSubscriberCount(final TopicTreeNode segment) {
+        final TopicTreeNode b = segment.getChildren()[0];
+        final TopicTreeNode c = b.getChildren()[0];
+        return c.exactSubscriptions.getSubscriberCount();
+    }
+}
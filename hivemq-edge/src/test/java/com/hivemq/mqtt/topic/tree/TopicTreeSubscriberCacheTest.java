@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TopicTreeSubscriberCacheTest {
+
+    private MetricRegistry metricRegistry;
+    private LocalTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        topicTree = new LocalTopicTree(new MetricsHolder(metricRegistry));
+    }
+
+    @After
+    public void tearDown() {
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(10_000);
+    }
+
+    @Test
+    public void test_repeated_lookup_is_served_from_cache() {
+        topicTree.addTopic("sub1", new Topic("a/+", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final TopicSubscribers first = topicTree.findTopicSubscribers("a/b");
+        final TopicSubscribers second = topicTree.findTopicSubscribers("a/b");
+
+        assertSame(first, second);
+        assertEquals(1, first.getSubscribers().size());
+        assertEquals(1, hitCount());
+        assertEquals(1, missCount());
+    }
+
+    @Test
+    public void test_add_topic_invalidates_cache() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.addTopic("sub2", new Topic("a/#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+        assertEquals(2, missCount());
+    }
+
+    @Test
+    public void test_remove_subscriber_invalidates_cache() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("+/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(2, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub2", "+/b", null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+    }
+
+    @Test
+    public void test_root_wildcard_changes_invalidate_cache() {
+        final TopicSubscribers empty = topicTree.findTopicSubscribers("a/b");
+        assertTrue(empty.getSubscribers().isEmpty());
+
+        topicTree.addTopic("sub1", new Topic("#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub1", "#", null);
+        assertTrue(topicTree.findTopicSubscribers("a/b").getSubscribers().isEmpty());
+    }
+
+    @Test
+    public void test_cache_is_bounded() {
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(2);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        topicTree.findTopicSubscribers("a");
+        topicTree.findTopicSubscribers("b");
+        topicTree.findTopicSubscribers("c");
+
+        assertEquals(2, topicTree.subscriberCache.size());
+    }
+
+    @Test
+    public void test_full_cache_evicts_for_new_topics() {
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(2);
+        metricRegistry = new MetricRegistry();
+        topicTree = new LocalTopicTree(new MetricsHolder(metricRegistry));
+
+        topicTree.findTopicSubscribers("a");
+        topicTree.findTopicSubscribers("b");
+        topicTree.findTopicSubscribers("c");
+        topicTree.findTopicSubscribers("c");
+
+        assertEquals(1, hitCount());
+        assertEquals(3, missCount());
+        assertEquals(2, topicTree.subscriberCache.size());
+    }
+
+    @Test
+    public void test_disabled_cache_resolves_every_lookup() {
+        InternalConfigurations.TOPIC_TREE_SUBSCRIBER_CACHE_MAX_SIZE.set(0);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertNotSame(topicTree.findTopicSubscribers("a/b"), topicTree.findTopicSubscribers("a/b"));
+        assertEquals(0, topicTree.subscriberCache.size());
+    }
+
+    @Test
+    public void test_batch_lookup_resolves_each_topic_once() {
+        topicTree.addTopic("sub1", new Topic("a/+", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final Map<String, TopicSubscribers> topicSubscribers =
+                topicTree.findTopicSubscribers(List.of("a/b", "a/c", "a/b", "x"));
+
+        assertEquals(3, topicSubscribers.size());
+        assertEquals(1, topicSubscribers.get("a/b").getSubscribers().size());
+        assertEquals(1, topicSubscribers.get("a/c").getSubscribers().size());
+        assertTrue(topicSubscribers.get("x").getSubscribers().isEmpty());
+        assertEquals(3, missCount());
+        assertSame(topicSubscribers.get("a/b"), topicTree.findTopicSubscribers("a/b"));
+        assertEquals(1, hitCount());
+    }
+
+    private long hitCount() {
+        return metricRegistry.counter(HiveMQMetrics.TOPIC_TREE_SUBSCRIBER_CACHE_HIT_COUNT.name()).getCount();
+    }
+
+    private long missCount() {
+        return metricRegistry.counter(HiveMQMetrics.TOPIC_TREE_SUBSCRIBER_CACHE_MISS_COUNT.name()).getCount();
+    }
+}
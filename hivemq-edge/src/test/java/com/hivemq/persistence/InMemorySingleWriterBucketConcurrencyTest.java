@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the in-memory single writer never executes two tasks of the same bucket at once, while tasks of different
+ * buckets are executed concurrently by many publishing threads. The throughput is measured by the
+ * InMemorySingleWriterBenchmark of hivemq-edge-benchmarks.
+ */
+public class InMemorySingleWriterBucketConcurrencyTest {
+
+    private static final int SUBSCRIBERS = 1_000;
+    private static final int MESSAGES_PER_PUBLISHER = 20_000;
+
+    private final int processors = Runtime.getRuntime().availableProcessors();
+
+    private int bucketCount;
+    private int threadPoolSize;
+
+    @Before
+    public void setUp() {
+        bucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        threadPoolSize = InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.get();
+    }
+
+    @After
+    public void tearDown() {
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.set(threadPoolSize);
+    }
+
+    @Test(timeout = 120_000)
+    public void test_singleBucket_neverWorksConcurrently() throws Exception {
+        final Result result = run(1, processors, processors);
+
+        assertEquals(1, result.maxConcurrentBuckets);
+        assertEquals((long) processors * MESSAGES_PER_PUBLISHER, result.processed);
+    }
+
+    @Test(timeout = 120_000)
+    public void test_shardedBuckets_processedConcurrently() throws Exception {
+        assumeTrue("needs more than one core to process buckets concurrently", processors > 1);
+
+        final Result sharded = run(processors * 4, processors, processors);
+
+        assertEquals((long) processors * MESSAGES_PER_PUBLISHER, sharded.processed);
+        assertTrue("expected buckets to be processed concurrently, max was " + sharded.maxConcurrentBuckets,
+                sharded.maxConcurrentBuckets > 1);
+    }
+
+    private @NotNull Result run(final int buckets, final int threadPoolSize, final int publishers)
+            throws Exception {
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(buckets);
+        InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.set(threadPoolSize);
+        final InMemorySingleWriter singleWriter = new InMemorySingleWriter();
+        final ProducerQueues queue = singleWriter.getQueuedMessagesQueue();
+
+        // the stores are not thread-safe on purpose, just like the memory persistences
+        //noinspection unchecked
+        final Map<String, ArrayDeque<byte[]>>[] stores = new Map[buckets];
+        final AtomicInteger[] activeInBucket = new AtomicInteger[buckets];
+        for (int i = 0; i < buckets; i++) {
+            stores[i] = new HashMap<>();
+            activeInBucket[i] = new AtomicInteger();
+        }
+        final AtomicInteger activeBuckets = new AtomicInteger();
+        final AtomicInteger maxConcurrentBuckets = new AtomicInteger();
+        final AtomicInteger exclusivityViolations = new AtomicInteger();
+        final AtomicLong processed = new AtomicLong();
+
+        final SingleWriterService.Task<Void> task = bucketIndex -> {
+            if (activeInBucket[bucketIndex].incrementAndGet() != 1) {
+                exclusivityViolations.incrementAndGet();
+            }
+            maxConcurrentBuckets.accumulateAndGet(activeBuckets.incrementAndGet(), Math::max);
+            try {
+                final Map<String, ArrayDeque<byte[]>> store = stores[bucketIndex];
+                final String subscriber = "subscriber-" + (store.size() % SUBSCRIBERS);
+                final ArrayDeque<byte[]> messages = store.computeIfAbsent(subscriber, ignored -> new ArrayDeque<>());
+                final byte[] payload = new byte[256];
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] = (byte) (i * 31 + bucketIndex);
+                }
+                messages.add(payload);
+                if (messages.size() > 10) {
+                    messages.poll();
+                }
+                processed.incrementAndGet();
+                return null;
+            } finally {
+                activeBuckets.decrementAndGet();
+                activeInBucket[bucketIndex].decrementAndGet();
+            }
+        };
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            final int publisher = p;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_PUBLISHER; i++) {
+                    queue.submit("subscriber-" + ((publisher * 7919 + i) % SUBSCRIBERS), task);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        // the in-memory single writer runs the tasks on the submitting threads and a thread only returns from submit
+        // once the queue it entered is drained, so all tasks are done when the publishers are
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        singleWriter.stop();
+
+        assertEquals(0, exclusivityViolations.get());
+        return new Result(processed.get(), maxConcurrentBuckets.get());
+    }
+
+    private static class Result {
+
+        private final long processed;
+        private final int maxConcurrentBuckets;
+
+        private Result(final long processed, final int maxConcurrentBuckets) {
+            this.processed = processed;
+            this.maxConcurrentBuckets = maxConcurrentBuckets;
+        }
+    }
+}
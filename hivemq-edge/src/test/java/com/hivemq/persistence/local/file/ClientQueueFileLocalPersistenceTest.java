@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedService;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.InMemorySingleWriter;
+import com.hivemq.persistence.ProducerQueues;
+import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class ClientQueueFileLocalPersistenceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final PublishPayloadPersistence payloadPersistence = mock(PublishPayloadPersistence.class);
+    private final MessageDroppedService messageDroppedService = mock(MessageDroppedService.class);
+
+    private File folder;
+    private int bucketCount = 4;
+    private ClientQueueFileLocalPersistence persistence;
+    private InMemorySingleWriter singleWriter;
+
+    @Before
+    public void setUp() throws IOException {
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_SEGMENT_SIZE_BYTES.set(4096);
+        folder = temporaryFolder.newFolder();
+        singleWriter = new InMemorySingleWriter();
+        persistence = open();
+    }
+
+    @After
+    public void tearDown() {
+        close();
+        singleWriter.stop();
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_SEGMENT_SIZE_BYTES.set(8 * 1024 * 1024);
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC.set(0);
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_COMPACTION_MIN_SIZE_BYTES.set(16 * 1024 * 1024);
+    }
+
+    @Test
+    public void test_restart_recovers_queued_and_inflight_messages() {
+        final int bucket = bucket("client");
+        final PUBLISH publish1 = createPublish(QoS.AT_LEAST_ONCE, "topic1");
+        persistence.add("client", false, publish1, 100, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.EXACTLY_ONCE, "topic2"), 100, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic3"), 100, DISCARD, false, bucket);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 10000, bucket);
+
+        restart();
+
+        assertEquals(3, persistence.size("client", false, bucket));
+        final ImmutableList<MessageWithID> inflight = persistence.readInflight("client", false, 10, 10000, bucket);
+        assertEquals(1, inflight.size());
+        final PUBLISH recovered = (PUBLISH) inflight.get(0);
+        assertEquals(1, recovered.getPacketIdentifier());
+        assertEquals("topic1", recovered.getTopic());
+        assertEquals(publish1.getUniqueId(), recovered.getUniqueId());
+        assertArrayEquals(publish1.getPayload(), recovered.getPayload());
+        assertEquals(publish1.getUserProperties().asList(), recovered.getUserProperties().asList());
+
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(2, 3), 10000, bucket);
+        assertEquals(2, publishes.size());
+        assertEquals("topic2", publishes.get(0).getTopic());
+        assertEquals(QoS.EXACTLY_ONCE, publishes.get(0).getQoS());
+        assertEquals("topic3", publishes.get(1).getTopic());
+    }
+
+    @Test
+    public void test_restart_does_not_recover_qos0_and_removed_messages() {
+        final int bucket = bucket("client");
+        persistence.add("client", false, createPublish(QoS.AT_MOST_ONCE, "topic0"), 100, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic1"), 100, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic2"), 100, DISCARD, false, bucket);
+        persistence.readNew("client", false, ImmutableIntArray.of(1, 2), 10000, bucket);
+        persistence.remove("client", 1, bucket);
+
+        final int otherBucket = bucket("other");
+        persistence.add("other", false, createPublish(QoS.AT_LEAST_ONCE, "topic"), 100, DISCARD, false, otherBucket);
+        persistence.clear("other", false, otherBucket);
+
+        restart();
+
+        assertEquals(1, persistence.size("client", false, bucket));
+        assertEquals(0, persistence.qos0Size("client", false, bucket));
+        assertEquals(0, persistence.size("other", false, otherBucket));
+    }
+
+    @Test
+    public void test_restart_recovers_pubrel() {
+        final int bucket = bucket("client");
+        persistence.add("client", false, createPublish(QoS.EXACTLY_ONCE, "topic"), 100, DISCARD, false, bucket);
+        persistence.readNew("client", false, ImmutableIntArray.of(1), 10000, bucket);
+        persistence.replace("client", new PUBREL(1), bucket);
+
+        restart();
+
+        final ImmutableList<MessageWithID> inflight = persistence.readInflight("client", false, 10, 10000, bucket);
+        assertEquals(1, inflight.size());
+        assertTrue(inflight.get(0) instanceof PUBREL);
+        assertEquals(1, inflight.get(0).getPacketIdentifier());
+    }
+
+    @Test
+    public void test_restart_recovers_shared_queue_without_inflight_markers() {
+        final int bucket = bucket("group/topic");
+        final PUBLISH publish1 = createPublish(QoS.AT_LEAST_ONCE, "topic1");
+        persistence.add("group/topic", true, publish1, 100, DISCARD, false, bucket);
+        persistence.add("group/topic", true, createPublish(QoS.AT_LEAST_ONCE, "topic2"), 100, DISCARD, false, bucket);
+        persistence.readNew("group/topic", true, ImmutableIntArray.of(1, 2), 10000, bucket);
+        persistence.removeShared("group/topic", publish1.getUniqueId(), bucket);
+
+        restart();
+
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("group/topic", true, ImmutableIntArray.of(1, 2), 10000, bucket);
+        assertEquals(1, publishes.size());
+        assertEquals("topic2", publishes.get(0).getTopic());
+    }
+
+    @Test
+    public void test_restart_does_not_recover_expired_messages() {
+        final int bucket = bucket("client");
+        final PUBLISH expiring = new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic("topic")
+                .withPayload("payload".getBytes())
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withMessageExpiryInterval(1)
+                .withTimestamp(System.currentTimeMillis() - 10_000)
+                .withPersistence(payloadPersistence)
+                .build();
+        persistence.add("client", false, expiring, 100, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic"), 100, DISCARD, false, bucket);
+        persistence.cleanUp(bucket);
+        assertEquals(1, persistence.size("client", false, bucket));
+
+        restart();
+
+        assertEquals(1, persistence.size("client", false, bucket));
+    }
+
+    @Test
+    public void test_compaction_keeps_live_messages() {
+        close();
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_COMPACTION_MIN_SIZE_BYTES.set(8192);
+        persistence = open();
+
+        final int bucket = bucket("client");
+        for (int i = 0; i < 500; i++) {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic" + i), 1000, DISCARD, false,
+                    bucket);
+            persistence.readNew("client", false, ImmutableIntArray.of(1), 10000, bucket);
+            if (i < 499) {
+                persistence.remove("client", 1, bucket);
+            }
+        }
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "last"), 1000, DISCARD, false, bucket);
+        persistence.completeCompaction(bucket);
+        final File bucketFolder = new File(folder, ClientQueueFileLocalPersistence.BUCKETS_FOLDER_PREFIX +
+                bucketCount + File.separator + ClientQueueFileLocalPersistence.BUCKET_FOLDER_PREFIX + bucket);
+        final String[] segments = bucketFolder.list((dir, name) -> name.endsWith(SegmentLog.SEGMENT_FILE_SUFFIX));
+        assertTrue(segments != null && segments.length <= 3);
+
+        restart();
+
+        assertEquals(2, persistence.size("client", false, bucket));
+        final ImmutableList<MessageWithID> inflight = persistence.readInflight("client", false, 10, 10000, bucket);
+        assertEquals(1, inflight.size());
+        assertEquals("topic499", ((PUBLISH) inflight.get(0)).getTopic());
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(2), 10000, bucket);
+        assertEquals("last", publishes.get(0).getTopic());
+    }
+
+    @Test
+    public void test_restart_does_not_report_dropped_messages_again() {
+        final int bucket = bucket("client");
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic1"), 1, DISCARD, false, bucket);
+        persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic2"), 1, DISCARD, false, bucket);
+        verify(messageDroppedService).queueFull("client", "topic2", 1);
+
+        restart();
+
+        assertEquals(1, persistence.size("client", false, bucket));
+        verifyNoMoreInteractions(messageDroppedService);
+    }
+
+    @Test
+    public void test_bucket_count_change_migrates_queues() {
+        for (int i = 0; i < 20; i++) {
+            final String client = "client" + i;
+            persistence.add(client, false, createPublish(QoS.AT_LEAST_ONCE, "topic"), 100, DISCARD, false,
+                    bucket(client));
+        }
+        close();
+
+        bucketCount = 8;
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(bucketCount);
+        persistence = open();
+
+        for (int i = 0; i < 20; i++) {
+            final String client = "client" + i;
+            assertEquals(1, persistence.size(client, false, bucket(client)));
+        }
+        final String[] bucketsFolders = folder.list();
+        assertArrayEquals(new String[]{ClientQueueFileLocalPersistence.BUCKETS_FOLDER_PREFIX + 8}, bucketsFolders);
+    }
+
+    @Test(timeout = 10_000)
+    public void test_force_interval_idle_bucket_forced_within_interval() throws Exception {
+        close();
+        InternalConfigurations.CLIENT_QUEUE_FILE_PERSISTENCE_FORCE_INTERVAL_MSEC.set(500);
+        persistence = open();
+        final int bucket = bucket("client");
+        final ProducerQueues queues = singleWriter.getQueuedMessagesQueue();
+
+        // the first change is forced, as the bucket was never forced before, the second one is within the interval
+        queues.submit(bucket, (bucketIndex) -> {
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic1"), 100, DISCARD, false,
+                    bucketIndex);
+            persistence.add("client", false, createPublish(QoS.AT_LEAST_ONCE, "topic2"), 100, DISCARD, false,
+                    bucketIndex);
+            return null;
+        }).get();
+        assertTrue(queues.submit(bucket, persistence::hasUnforcedChanges).get());
+
+        // no further change comes in, the bucket is forced by the scheduled task once the interval has passed
+        await().atMost(1_000, TimeUnit.MILLISECONDS)
+                .until(() -> !queues.submit(bucket, persistence::hasUnforcedChanges).get());
+    }
+
+    private void restart() {
+        close();
+        persistence = open();
+    }
+
+    private ClientQueueFileLocalPersistence open() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ClientQueueMemoryLocalPersistence memoryPersistence =
+                new ClientQueueMemoryLocalPersistence(payloadPersistence, messageDroppedService, metricRegistry);
+        return new ClientQueueFileLocalPersistence(memoryPersistence,
+                folder,
+                singleWriter.getQueuedMessagesQueue(),
+                metricRegistry);
+    }
+
+    private void close() {
+        for (int i = 0; i < bucketCount; i++) {
+            persistence.closeDB(i);
+        }
+    }
+
+    private int bucket(final String queueId) {
+        return BucketUtils.getBucket(queueId, bucketCount);
+    }
+
+    private PUBLISH createPublish(final QoS qos, final String topic) {
+        return new PUBLISHFactory.Mqtt5Builder().withHivemqId("hivemqId")
+                .withTopic(topic)
+                .withPayload("payload".getBytes())
+                .withQoS(qos)
+                .withOnwardQos(qos)
+                .withPersistence(payloadPersistence)
+                .build();
+    }
+}
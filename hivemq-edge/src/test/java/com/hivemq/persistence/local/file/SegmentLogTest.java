@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> records = new ArrayList<>();
+
+    @Test
+    public void test_reopen_replays_records_in_order() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        SegmentLog segmentLog = open(folder, 64);
+        for (int i = 0; i < 20; i++) {
+            segmentLog.append(("record" + i).getBytes(UTF_8));
+        }
+        segmentLog.close();
+        assertTrue(segmentCount(folder) > 1);
+
+        segmentLog = open(folder, 64);
+
+        assertEquals(20, records.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("record" + i, records.get(i));
+        }
+        segmentLog.close();
+    }
+
+    @Test
+    public void test_torn_record_is_cut_off() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        SegmentLog segmentLog = open(folder, 1024);
+        segmentLog.append("record1".getBytes(UTF_8));
+        segmentLog.append("record2".getBytes(UTF_8));
+        segmentLog.close();
+
+        final File[] segments = segments(folder);
+        assertEquals(1, segments.length);
+        final int secondRecordBodyEnd = 2 * (SegmentLog.RECORD_HEADER_SIZE + 1 + "record1".length());
+        try (final RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.seek(secondRecordBodyEnd - 1);
+            file.writeByte('x');
+        }
+
+        segmentLog = open(folder, 1024);
+        assertEquals(List.of("record1"), records);
+        segmentLog.append("record3".getBytes(UTF_8));
+        segmentLog.close();
+
+        records.clear();
+        open(folder, 1024).close();
+        assertEquals(List.of("record1", "record3"), records);
+    }
+
+    @Test
+    public void test_snapshot_replaces_previous_records() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        SegmentLog segmentLog = open(folder, 64);
+        for (int i = 0; i < 10; i++) {
+            segmentLog.append(("record" + i).getBytes(UTF_8));
+        }
+        final SegmentLog.Snapshot snapshot = segmentLog.beginSnapshot();
+        snapshot.append("snapshot".getBytes(UTF_8));
+        segmentLog.append("during".getBytes(UTF_8));
+        snapshot.write();
+        segmentLog.completeSnapshot(snapshot);
+        segmentLog.append("after".getBytes(UTF_8));
+        segmentLog.close();
+
+        assertEquals(1, segmentCount(folder));
+        assertEquals(1, snapshotCount(folder));
+        segmentLog = open(folder, 64);
+        assertEquals(List.of("snapshot", "during", "after"), records);
+        assertEquals(segmentLog.getSizeBytes(), segmentLog.getSnapshotSizeBytes());
+        segmentLog.close();
+    }
+
+    @Test
+    public void test_written_snapshot_is_recovered_without_completion() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final SegmentLog segmentLog = open(folder, 64);
+        segmentLog.append("record1".getBytes(UTF_8));
+        final SegmentLog.Snapshot snapshot = segmentLog.beginSnapshot();
+        snapshot.append("snapshot".getBytes(UTF_8));
+        snapshot.write();
+        segmentLog.append("after".getBytes(UTF_8));
+        segmentLog.force();
+
+        // crash before the replaced segments were deleted
+        open(folder, 64).close();
+
+        assertEquals(List.of("snapshot", "after"), records);
+        assertEquals(1, segmentCount(folder));
+    }
+
+    @Test
+    public void test_incomplete_snapshot_is_discarded() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        final SegmentLog segmentLog = open(folder, 64);
+        segmentLog.append("record1".getBytes(UTF_8));
+        segmentLog.append("record2".getBytes(UTF_8));
+        final SegmentLog.Snapshot snapshot = segmentLog.beginSnapshot();
+        snapshot.append("snapshot".getBytes(UTF_8));
+        segmentLog.append("record3".getBytes(UTF_8));
+        segmentLog.force();
+        final File temporaryFile = new File(folder, String.format("%020d", 1) + SegmentLog.SNAPSHOT_FILE_SUFFIX +
+                SegmentLog.TEMPORARY_FILE_SUFFIX);
+        assertTrue(temporaryFile.createNewFile());
+
+        // crash while the snapshot was written
+        open(folder, 64).close();
+
+        assertEquals(List.of("record1", "record2", "record3"), records);
+        assertFalse(temporaryFile.exists());
+    }
+
+    @Test
+    public void test_aborted_snapshot_continues_previous_records() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        SegmentLog segmentLog = open(folder, 1024);
+        segmentLog.append("record1".getBytes(UTF_8));
+        final SegmentLog.Snapshot snapshot = segmentLog.beginSnapshot();
+        snapshot.append("snapshot".getBytes(UTF_8));
+        snapshot.write();
+        segmentLog.abortSnapshot(snapshot);
+        segmentLog.append("record2".getBytes(UTF_8));
+        segmentLog.close();
+
+        assertEquals(0, snapshotCount(folder));
+        segmentLog = open(folder, 1024);
+        assertEquals(List.of("record1", "record2"), records);
+        segmentLog.close();
+    }
+
+    @Test
+    public void test_record_larger_than_segment() throws IOException {
+        final File folder = temporaryFolder.newFolder();
+        SegmentLog segmentLog = open(folder, 32);
+        final String large = "x".repeat(100);
+        segmentLog.append(large.getBytes(UTF_8));
+        segmentLog.append("small".getBytes(UTF_8));
+        segmentLog.close();
+
+        segmentLog = open(folder, 32);
+        assertEquals(List.of(large, "small"), records);
+        segmentLog.close();
+    }
+
+    private SegmentLog open(final File folder, final int segmentSizeBytes) throws IOException {
+        return SegmentLog.open(folder, segmentSizeBytes, this::read);
+    }
+
+    private void read(final ByteBuffer record) {
+        final byte[] bytes = new byte[record.remaining()];
+        record.get(bytes);
+        records.add(new String(bytes, UTF_8));
+    }
+
+    private static File[] segments(final File folder) {
+        final File[] segments = folder.listFiles((dir, name) -> name.endsWith(SegmentLog.SEGMENT_FILE_SUFFIX));
+        assertNotNull(segments);
+        return segments;
+    }
+
+    private static int segmentCount(final File folder) {
+        return segments(folder).length;
+    }
+
+    private static int snapshotCount(final File folder) {
+        final File[] snapshots = folder.listFiles((dir, name) -> name.endsWith(SegmentLog.SNAPSHOT_FILE_SUFFIX));
+        assertNotNull(snapshots);
+        return snapshots.length;
+    }
+}
@@ -828,7 +828,7 @@ public class ClientQueueMemoryLocalPersistenceTest {
         persistence.add("client1", false, publish2, 100L, DISCARD, false, 0);
         persistence.add("client1", false, publish3, 100L, DISCARD, false, 0);
 
-        final int size = new PublishWithRetained(publish1, false).getEstimatedSize() + MemoryEstimator.LINKED_LIST_NODE_OVERHEAD +
+        final int size = new PublishWithRetained(publish1, false).getEstimatedSize() + IndexedMessageQueue.SLOT_OVERHEAD +
                 new PublishWithRetained(publish2, false).getEstimatedSize() + MemoryEstimator.LINKED_LIST_NODE_OVERHEAD +
                 new PublishWithRetained(publish3, false).getEstimatedSize() + MemoryEstimator.LINKED_LIST_NODE_OVERHEAD;
 
@@ -843,7 +843,7 @@ public class ClientQueueMemoryLocalPersistenceTest {
         verify(payloadPersistence, times(2)).decrementReferenceCounter(anyLong());
 
         assertTrue(gauge.getValue() > 0);
-        assertEquals(new PublishWithRetained(messages.get(0), false).getEstimatedSize() + MemoryEstimator.LINKED_LIST_NODE_OVERHEAD, gauge.getValue().longValue());
+        assertEquals(new PublishWithRetained(messages.get(0), false).getEstimatedSize() + IndexedMessageQueue.SLOT_OVERHEAD, gauge.getValue().longValue());
     }
 
     @Test
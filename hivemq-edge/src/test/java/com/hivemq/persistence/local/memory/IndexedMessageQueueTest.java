@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static com.hivemq.persistence.local.memory.IndexedMessageQueue.NO_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class IndexedMessageQueueTest {
+
+    private final @NotNull IndexedMessageQueue queue = new IndexedMessageQueue(true);
+
+    @Test
+    public void test_empty_queue() {
+        assertEquals(0, queue.size());
+        assertEquals(NO_POSITION, queue.first());
+        assertEquals(NO_POSITION, queue.firstUnsent());
+        assertEquals(NO_POSITION, queue.positionOf(1));
+        assertNull(queue.get(0));
+    }
+
+    @Test
+    public void test_add_last_keeps_order_across_chunks() {
+        final List<MessageWithID> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final MessageWithID message = new PUBREL(0);
+            added.add(message);
+            queue.addLast(message);
+        }
+
+        assertEquals(1000, queue.size());
+        assertEquals(added, messages());
+    }
+
+    @Test
+    public void test_cursor_skips_sent_messages() {
+        final List<MessageWithID> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final MessageWithID message = new PUBREL(0);
+            added.add(message);
+            queue.addLast(message);
+        }
+
+        queue.setPacketIdentifier(queue.firstUnsent(), 1);
+        queue.setPacketIdentifier(queue.firstUnsent(), 2);
+        assertSame(added.get(2), queue.get(queue.firstUnsent()));
+        assertSame(added.get(3), queue.get(queue.nextUnsent(queue.firstUnsent())));
+
+        // a message that is not in-flight anymore moves the cursor back
+        queue.setPacketIdentifier(queue.positionOf(1), 0);
+        assertSame(added.get(0), queue.get(queue.firstUnsent()));
+        assertSame(added.get(2), queue.get(queue.nextUnsent(queue.firstUnsent())));
+    }
+
+    @Test
+    public void test_packet_id_index() {
+        for (int i = 0; i < 100; i++) {
+            queue.addLast(new PUBREL(0));
+        }
+        for (int packetId = 1; packetId <= 50; packetId++) {
+            queue.setPacketIdentifier(queue.firstUnsent(), packetId);
+        }
+
+        final long position = queue.positionOf(20);
+        assertEquals(20, queue.get(position).getPacketIdentifier());
+
+        final PUBREL pubrel = new PUBREL(20);
+        queue.set(position, pubrel);
+        assertSame(pubrel, queue.get(queue.positionOf(20)));
+
+        queue.remove(position);
+        assertEquals(NO_POSITION, queue.positionOf(20));
+        assertEquals(21, queue.get(queue.positionOf(21)).getPacketIdentifier());
+        assertEquals(99, queue.size());
+    }
+
+    @Test
+    public void test_add_first() {
+        final MessageWithID last = new PUBREL(0);
+        queue.addLast(last);
+        final MessageWithID first = new PUBREL(7);
+        queue.addFirst(first);
+
+        assertSame(first, queue.get(queue.first()));
+        assertSame(first, queue.get(queue.positionOf(7)));
+        assertSame(last, queue.get(queue.firstUnsent()));
+        assertEquals(List.of(first, last), messages());
+    }
+
+    @Test
+    public void test_remove_releases_head_and_tail() {
+        final List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            queue.addLast(new PUBREL(0));
+        }
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            positions.add(position);
+        }
+        final MessageWithID middle = queue.get(positions.get(300));
+        for (int i = 0; i < 600; i++) {
+            if (i != 300) {
+                queue.remove(positions.get(i));
+            }
+        }
+
+        assertEquals(1, queue.size());
+        assertSame(middle, queue.get(queue.first()));
+        assertEquals(NO_POSITION, queue.next(queue.first()));
+    }
+
+    @Test
+    public void test_compaction_keeps_order_cursor_and_index() {
+        final List<MessageWithID> expected = new ArrayList<>();
+        // an in-flight message at the head keeps the gaps behind it from being released
+        final MessageWithID inflight = new PUBREL(0);
+        queue.addLast(inflight);
+        queue.setPacketIdentifier(queue.firstUnsent(), 1);
+        expected.add(inflight);
+        MessageWithID last = null;
+        for (int i = 0; i < 10_000; i++) {
+            last = new PUBREL(0);
+            queue.addLast(last);
+            if (queue.size() > 2) {
+                // removes the message before the last one, which leaves a gap
+                queue.remove(queue.firstUnsent());
+            }
+        }
+        expected.add(last);
+        for (int i = 0; i < 10; i++) {
+            final MessageWithID message = new PUBREL(0);
+            queue.addLast(message);
+            expected.add(message);
+        }
+
+        assertEquals(expected, messages());
+        assertSame(inflight, queue.get(queue.positionOf(1)));
+        assertSame(expected.get(1), queue.get(queue.firstUnsent()));
+    }
+
+    @Test
+    public void test_random_operations_match_linked_list() {
+        final Random random = new Random(42);
+        final LinkedList<MessageWithID> expected = new LinkedList<>();
+        int nextPacketId = 1;
+        for (int i = 0; i < 100_000; i++) {
+            final int operation = random.nextInt(10);
+            if (operation < 4) {
+                final MessageWithID message = new PUBREL(0);
+                queue.addLast(message);
+                expected.addLast(message);
+            } else if (operation < 7) {
+                final long position = queue.firstUnsent();
+                if (position != NO_POSITION) {
+                    queue.setPacketIdentifier(position, nextPacketId);
+                    nextPacketId = (nextPacketId % 65535) + 1;
+                }
+            } else if (operation < 9) {
+                final long position = queue.first();
+                if (position != NO_POSITION) {
+                    final MessageWithID message = queue.get(position);
+                    if (message.getPacketIdentifier() != 0) {
+                        queue.remove(queue.positionOf(message.getPacketIdentifier()));
+                        expected.remove(message);
+                    }
+                }
+            } else if (!expected.isEmpty()) {
+                final MessageWithID message = expected.get(random.nextInt(expected.size()));
+                long position = queue.first();
+                while (queue.get(position) != message) {
+                    position = queue.next(position);
+                }
+                queue.remove(position);
+                expected.remove(message);
+            }
+        }
+
+        assertEquals(expected.size(), queue.size());
+        assertEquals(expected, messages());
+    }
+
+    private @NotNull List<MessageWithID> messages() {
+        final List<MessageWithID> messages = new ArrayList<>();
+        for (long position = queue.first(); position != NO_POSITION; position = queue.next(position)) {
+            messages.add(queue.get(position));
+        }
+        return messages;
+    }
+}
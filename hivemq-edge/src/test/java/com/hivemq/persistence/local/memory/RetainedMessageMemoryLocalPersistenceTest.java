@@ -16,6 +16,8 @@
 package com.hivemq.persistence.local.memory;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
 import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
 import com.hivemq.configuration.service.InternalConfigurations;
@@ -29,6 +31,9 @@ import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -108,6 +113,65 @@ public class RetainedMessageMemoryLocalPersistenceTest {
         assertTrue(allTopics1.contains("topic"));
     }
 
+    @Test
+    public void test_getMatchingTopics() {
+
+        persistence.put(
+                new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, 0L, MqttConfigurationDefaults.TTL_DISABLED),
+                "topic/0",
+                0);
+        persistence.put(
+                new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_LEAST_ONCE, 1L, MqttConfigurationDefaults.TTL_DISABLED),
+                "topic/1",
+                0);
+        persistence.put(new RetainedMessage(new byte[]{1, 2, 3},
+                QoS.AT_MOST_ONCE,
+                2L,
+                1,
+                Mqtt5UserProperties.NO_USER_PROPERTIES,
+                null,
+                null,
+                null,
+                null,
+                System.currentTimeMillis() - 2000), "topic/2", 0);
+        persistence.put(
+                new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, 3L, MqttConfigurationDefaults.TTL_DISABLED),
+                "other/0",
+                0);
+
+        final List<String> matchingTopics = ImmutableList.copyOf(persistence.getMatchingTopics("topic/+", 0));
+
+        assertEquals(2, matchingTopics.size());
+        assertTrue(matchingTopics.contains("topic/0"));
+        assertTrue(matchingTopics.contains("topic/1"));
+        assertFalse(persistence.getMatchingTopics("topic/+", 1).hasNext());
+
+        persistence.remove("topic/0", 0);
+        assertEquals(List.of("topic/1"), ImmutableList.copyOf(persistence.getMatchingTopics("topic/#", 0)));
+    }
+
+    @Test
+    public void test_getMatchingTopics_modified_while_iterating() {
+        for (int i = 0; i < 4; i++) {
+            persistence.put(new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, (long) i,
+                    MqttConfigurationDefaults.TTL_DISABLED), "topic/" + i, 0);
+        }
+
+        final Iterator<String> matchingTopics = persistence.getMatchingTopics("topic/#", 0);
+        final Set<String> topics = new HashSet<>();
+        topics.add(matchingTopics.next());
+        for (int i = 0; i < 4; i++) {
+            persistence.remove("topic/" + i, 0);
+        }
+        persistence.put(new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, 4L,
+                MqttConfigurationDefaults.TTL_DISABLED), "topic/4", 0);
+        matchingTopics.forEachRemaining(topics::add);
+
+        // at most the topic looked ahead before the modification may still be returned
+        assertTrue(topics.size() <= 2);
+        assertFalse(topics.contains("topic/4"));
+    }
+
     @Test
     public void decrement_payload_reference_count_remove() {
         persistence.put(
@@ -127,7 +191,7 @@ public class RetainedMessageMemoryLocalPersistenceTest {
         assertEquals(0, persistence.currentMemorySize.get());
 
 
-        final Set<String> topics = persistence.topicTrees[0].get("#");
+        final Set<String> topics = ImmutableSet.copyOf(persistence.topicIndices[0].matchingTopics("#"));
         assertTrue(topics.isEmpty());
     }
 
@@ -151,7 +215,7 @@ public class RetainedMessageMemoryLocalPersistenceTest {
                 "topic/1",
                 0);
 
-        final Set<String> topics = persistence.topicTrees[0].get("#");
+        final Set<String> topics = ImmutableSet.copyOf(persistence.topicIndices[0].matchingTopics("#"));
         assertEquals(2, topics.size());
         assertTrue(topics.contains("topic/0"));
         assertTrue(topics.contains("topic/1"));
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.persistence.RetainedMessage;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RetainedMessageTopicIndexTest {
+
+    private final @NotNull RetainedMessageTopicIndex index = new RetainedMessageTopicIndex();
+
+    @Test
+    public void test_empty_index() {
+        assertTrue(match("#").isEmpty());
+        assertTrue(match("topic/+").isEmpty());
+        assertTrue(match("topic").isEmpty());
+        assertNull(index.get("topic"));
+    }
+
+    @Test
+    public void test_put_and_get() {
+        final RetainedMessage message = message(1L);
+        index.put("plant/line-1/temperature", message);
+
+        assertSame(message, index.get("plant/line-1/temperature"));
+        assertNull(index.get("plant/line-1"));
+        assertNull(index.get("plant/line-1/temperature/x"));
+
+        final RetainedMessage replacement = message(2L);
+        index.put("plant/line-1/temperature", replacement);
+        assertSame(replacement, index.get("plant/line-1/temperature"));
+        assertEquals(ImmutableSet.of("plant/line-1/temperature"), match("#"));
+    }
+
+    @Test
+    public void test_wildcard_matches() {
+        index.put("plant", message(1L));
+        index.put("plant/line-1/temperature", message(2L));
+        index.put("plant/line-1/pressure", message(3L));
+        index.put("plant/line-2/temperature", message(4L));
+        index.put("office/line-1/temperature", message(5L));
+        index.put("/leading", message(6L));
+        index.put("trailing/", message(7L));
+
+        assertEquals(ImmutableSet.of("plant", "plant/line-1/temperature", "plant/line-1/pressure",
+                "plant/line-2/temperature"), match("plant/#"));
+        assertEquals(ImmutableSet.of("plant/line-1/temperature", "plant/line-2/temperature"),
+                match("plant/+/temperature"));
+        assertEquals(ImmutableSet.of("plant/line-1/temperature", "office/line-1/temperature"),
+                match("+/line-1/temperature"));
+        assertEquals(ImmutableSet.of("plant/line-1/temperature", "plant/line-1/pressure"), match("plant/line-1/+"));
+        assertEquals(ImmutableSet.of("plant"), match("+"));
+        assertEquals(ImmutableSet.of("trailing/"), match("trailing/+"));
+        assertEquals(ImmutableSet.of("/leading"), match("/#"));
+        assertEquals(ImmutableSet.of("plant/line-1/temperature"), match("plant/line-1/temperature"));
+        assertEquals(7, match("#").size());
+        assertTrue(match("plant/+").isEmpty());
+        assertTrue(match("plant/line-1/temperature/+").isEmpty());
+    }
+
+    @Test
+    public void test_remove_prunes_nodes() {
+        index.put("a/b/c", message(1L));
+        index.put("a/b", message(2L));
+        index.put("a/d", message(3L));
+
+        index.remove("a/b/c");
+        assertNull(index.get("a/b/c"));
+        assertEquals(ImmutableSet.of("a/b", "a/d"), match("a/#"));
+
+        index.remove("a/b");
+        index.remove("a/x");
+        assertEquals(ImmutableSet.of("a/d"), match("#"));
+
+        index.remove("a/d");
+        assertTrue(match("#").isEmpty());
+
+        index.put("a/b/c", message(4L));
+        assertEquals(ImmutableSet.of("a/b/c"), match("+/+/+"));
+    }
+
+    @Test
+    public void test_clear() {
+        index.put("a/b", message(1L));
+        index.put("c", message(2L));
+
+        index.clear();
+
+        assertTrue(match("#").isEmpty());
+        assertNull(index.get("a/b"));
+    }
+
+    @Test
+    public void test_expired_messages_are_not_matched() {
+        index.put("topic/expired", new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, 1L, 1,
+                Mqtt5UserProperties.NO_USER_PROPERTIES, null, null, null, null, System.currentTimeMillis() - 2000));
+        index.put("topic/valid", message(2L));
+
+        assertEquals(ImmutableSet.of("topic/valid"), match("topic/+"));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void test_iterator_exhausted() {
+        index.put("topic", message(1L));
+
+        final Iterator<String> iterator = index.matchingTopics("#");
+        assertEquals("topic", iterator.next());
+        assertFalse(iterator.hasNext());
+        iterator.next();
+    }
+
+    private @NotNull Set<String> match(final @NotNull String subscription) {
+        return ImmutableSet.copyOf(index.matchingTopics(subscription));
+    }
+
+    private static @NotNull RetainedMessage message(final long publishId) {
+        return new RetainedMessage(new byte[]{1, 2, 3}, QoS.AT_MOST_ONCE, publishId,
+                MqttConfigurationDefaults.TTL_DISABLED);
+    }
+}
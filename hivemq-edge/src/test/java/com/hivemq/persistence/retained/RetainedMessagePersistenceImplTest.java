@@ -15,7 +15,9 @@
  */
 package com.hivemq.persistence.retained;
 
-import com.google.common.collect.Sets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extensions.iteration.Chunker;
 import com.hivemq.persistence.RetainedMessage;
 import com.hivemq.persistence.SingleWriterService;
@@ -29,6 +31,10 @@ import org.mockito.MockitoAnnotations;
 import util.TestMessageUtil;
 import util.TestSingleWriterFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
@@ -133,8 +139,8 @@ public class RetainedMessagePersistenceImplTest {
 
     @Test
     public void test_get_with_wildcards_success() throws ExecutionException, InterruptedException {
-        when(localPersistence.getAllTopics(anyString(), anyInt())).thenReturn(
-                Sets.newHashSet("topic/1", "topic/2", "topic/3"));
+        when(localPersistence.getMatchingTopics(anyString(), anyInt())).thenAnswer(
+                invocation -> List.of("topic/1", "topic/2", "topic/3").iterator());
         final Set<String> topics = retainedMessagePersistence.getWithWildcards("topic/#").get();
 
         assertTrue(topics.contains("topic/1"));
@@ -142,6 +148,71 @@ public class RetainedMessagePersistenceImplTest {
         assertTrue(topics.contains("topic/3"));
     }
 
+    @Test
+    public void test_get_with_wildcards_multiple_pages() throws ExecutionException, InterruptedException {
+        final int topicCount = InternalConfigurations.RETAINED_MESSAGES_WILDCARD_MATCHES_PAGE_SIZE * 2 + 1;
+        final List<String> matchingTopics = new ArrayList<>(topicCount);
+        for (int i = 0; i < topicCount; i++) {
+            matchingTopics.add("topic/" + i);
+        }
+        when(localPersistence.getMatchingTopics(anyString(), anyInt())).thenAnswer(
+                invocation -> Collections.emptyIterator());
+        when(localPersistence.getMatchingTopics("topic/#", 0)).thenAnswer(invocation -> matchingTopics.iterator());
+
+        final Set<String> topics = retainedMessagePersistence.getWithWildcards("topic/#").get();
+
+        assertEquals(new HashSet<>(matchingTopics), topics);
+    }
+
+    @Test
+    public void test_get_with_wildcards_per_bucket_success() throws ExecutionException, InterruptedException {
+        when(localPersistence.getMatchingTopics(anyString(), anyInt())).thenAnswer(
+                invocation -> Collections.emptyIterator());
+        when(localPersistence.getMatchingTopics("topic/#", 0)).thenAnswer(
+                invocation -> List.of("topic/1", "topic/2").iterator());
+        when(localPersistence.getMatchingTopics("topic/#", 1)).thenAnswer(
+                invocation -> List.of("topic/3").iterator());
+        final List<ListenableFuture<RetainedMessageTopicsPage>> futures =
+                retainedMessagePersistence.getWithWildcardsPerBucket("topic/#");
+
+        assertEquals(singleWriterService.getPersistenceBucketCount(), futures.size());
+        assertEquals(ImmutableList.of("topic/1", "topic/2"), futures.get(0).get().getTopics());
+        assertFalse(futures.get(0).get().hasNextPage());
+        assertEquals(ImmutableList.of("topic/3"), futures.get(1).get().getTopics());
+        verify(localPersistence, never()).getAllTopics(anyString(), anyInt());
+    }
+
+    @Test
+    public void test_get_with_wildcards_per_bucket_pages() throws ExecutionException, InterruptedException {
+        final int pageSize = InternalConfigurations.RETAINED_MESSAGES_WILDCARD_MATCHES_PAGE_SIZE;
+        final List<String> matchingTopics = new ArrayList<>(pageSize + 1);
+        for (int i = 0; i < pageSize + 1; i++) {
+            matchingTopics.add("topic/" + i);
+        }
+        when(localPersistence.getMatchingTopics(anyString(), anyInt())).thenAnswer(
+                invocation -> Collections.emptyIterator());
+        when(localPersistence.getMatchingTopics("topic/#", 0)).thenAnswer(invocation -> matchingTopics.iterator());
+
+        final RetainedMessageTopicsPage firstPage =
+                retainedMessagePersistence.getWithWildcardsPerBucket("topic/#").get(0).get();
+        assertEquals(matchingTopics.subList(0, pageSize), firstPage.getTopics());
+        assertTrue(firstPage.hasNextPage());
+
+        final RetainedMessageTopicsPage secondPage = firstPage.nextPage().get();
+        assertEquals(List.of("topic/" + pageSize), secondPage.getTopics());
+        assertFalse(secondPage.hasNextPage());
+        verify(localPersistence, times(1)).getMatchingTopics("topic/#", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_get_with_wildcards_per_bucket_topic_without_wildcard() throws Throwable {
+        try {
+            retainedMessagePersistence.getWithWildcardsPerBucket("topic").get(0).get();
+        } catch (final InterruptedException | ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
     @Test
     public void test_size() {
         retainedMessagePersistence.size();
@@ -22,9 +22,14 @@ import io.netty.buffer.Unpooled;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class BytesTest {
 
@@ -428,4 +433,59 @@ public class BytesTest {
     public void test_copy_short_null() {
         Bytes.copyUnsignedShortToByteArray(65535, null, 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_from_buffer_reusing_unmodified_wrap() {
+        final byte[] origin = {1, 2, 3};
+        assertSame(origin, Bytes.fromBufferReusing(ByteBuffer.wrap(origin), origin));
+    }
+
+    @Test
+    public void test_from_buffer_reusing_other_buffer_is_copied() {
+        final byte[] origin = {1, 2, 3};
+        final byte[] other = {1, 2, 3};
+        final byte[] result = Bytes.fromBufferReusing(ByteBuffer.wrap(other), origin);
+        assertNotSame(other, result);
+        assertNotSame(origin, result);
+        assertArrayEquals(origin, result);
+    }
+
+    @Test
+    public void test_from_buffer_reusing_slice_is_copied() {
+        final byte[] origin = {1, 2, 3};
+        final byte[] result = Bytes.fromBufferReusing(ByteBuffer.wrap(origin, 1, 2).slice(), origin);
+        assertArrayEquals(new byte[]{2, 3}, result);
+    }
+
+    @Test
+    public void test_from_buffer_reusing_null() {
+        assertNull(Bytes.fromBufferReusing(null, new byte[]{1}));
+    }
+
+    @Test
+    public void test_from_owned_buffer_heap_buffer_is_not_copied() {
+        final ByteBuffer buffer = ByteBuffer.allocate(3);
+        buffer.put(new byte[]{1, 2, 3}).position(0);
+        assertSame(buffer.array(), Bytes.fromOwnedBuffer(buffer));
+    }
+
+    @Test
+    public void test_from_owned_buffer_direct_buffer_is_copied() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+        buffer.put(new byte[]{1, 2, 3}).position(0);
+        assertArrayEquals(new byte[]{1, 2, 3}, Bytes.fromOwnedBuffer(buffer));
+    }
+
+    @Test
+    public void test_from_owned_buffer_slice_is_copied() {
+        final byte[] origin = {1, 2, 3};
+        final byte[] result = Bytes.fromOwnedBuffer(ByteBuffer.wrap(origin, 1, 2).slice());
+        assertNotSame(origin, result);
+        assertArrayEquals(new byte[]{2, 3}, result);
+    }
+
+    @Test
+    public void test_from_owned_buffer_null() {
+        assertNull(Bytes.fromOwnedBuffer(null));
+    }
+}
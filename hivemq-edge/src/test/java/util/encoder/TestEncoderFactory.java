@@ -18,6 +18,7 @@ package util.encoder;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.codec.encoder.EncoderFactory;
 import com.hivemq.codec.encoder.MqttEncoder;
+import com.hivemq.codec.encoder.PublishEncodingCache;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
@@ -43,12 +44,13 @@ public class TestEncoderFactory extends EncoderFactory {
             final @NotNull MessageDroppedService messageDroppedService,
             final @NotNull SecurityConfigurationService securityConfigurationService,
             final @NotNull MqttServerDisconnector mqttServerDisconnector,
+            final @NotNull PublishEncodingCache publishEncodingCache,
             final @NotNull Mqtt3ConnectEncoder connectEncoder,
             final @NotNull Mqtt3SubscribeEncoder subscribeEncoder,
             final @NotNull Mqtt3UnsubscribeEncoder unsubscribeEncoder,
             final @NotNull PingreqEncoder pingreqEncoder) {
 
-        super(messageDroppedService, securityConfigurationService, mqttServerDisconnector);
+        super(messageDroppedService, securityConfigurationService, mqttServerDisconnector, publishEncodingCache);
 
         this.connectEncoder = connectEncoder;
         this.subscribeEncoder = subscribeEncoder;
@@ -17,6 +17,7 @@ package util.encoder;
 
 import com.codahale.metrics.MetricRegistry;
 import com.hivemq.codec.encoder.MQTTMessageEncoder;
+import com.hivemq.codec.encoder.PublishEncodingCache;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.configuration.service.impl.SecurityConfigurationServiceImpl;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -47,8 +48,9 @@ public class TestMessageEncoder extends MQTTMessageEncoder {
             final SecurityConfigurationService securityConfigurationService) {
 
         super(new TestEncoderFactory(messageDroppedService, securityConfigurationService,
-                        new MqttServerDisconnectorImpl(new EventLog()), new Mqtt3ConnectEncoder(), new Mqtt3SubscribeEncoder(),
-                        new Mqtt3UnsubscribeEncoder(), new PingreqEncoder()),
+                        new MqttServerDisconnectorImpl(new EventLog()), new PublishEncodingCache(new MetricRegistry()),
+                        new Mqtt3ConnectEncoder(), new Mqtt3SubscribeEncoder(), new Mqtt3UnsubscribeEncoder(),
+                        new PingreqEncoder()),
                 new GlobalMQTTMessageCounter(new MetricsHolder(new MetricRegistry())));
 
         this.securityConfigurationService = securityConfigurationService;
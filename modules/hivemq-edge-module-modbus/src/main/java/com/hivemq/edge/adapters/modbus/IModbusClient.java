@@ -16,6 +16,10 @@
 package com.hivemq.edge.adapters.modbus;
 
 import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Simon L Johnson
@@ -26,11 +30,26 @@ public interface IModbusClient {
 
     void connect() throws ProtocolAdapterException;
 
-    Boolean[] readCoils(int startIdx, int count) throws ProtocolAdapterException ;
+    boolean[] readCoils(int startIdx, int count) throws ProtocolAdapterException ;
+
+    short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException;
+
+    short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException;
+
+    /**
+     * The asynchronous read methods never block the calling thread. Requests are pipelined on the connection up to
+     * the configured max. amount of outstanding requests, any further request is queued until a response arrives.
+     * <p>
+     * The values are written into the given target starting at the offset, so callers can reuse their buffers. The
+     * target must not be modified until the returned future is complete.
+     */
+    @NotNull CompletableFuture<Void> readCoilsAsync(int startIdx, int count, @NotNull BitSet target, int offset);
 
-    Short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException;
+    @NotNull CompletableFuture<Void> readHoldingRegistersAsync(
+            int startIdx, int count, short @NotNull [] target, int offset);
 
-    Short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException;
+    @NotNull CompletableFuture<Void> readInputRegistersAsync(
+            int startIdx, int count, short @NotNull [] target, int offset);
 
     boolean disconnect() throws ProtocolAdapterException ;
 }
@@ -28,6 +28,8 @@ import java.util.Map;
 
 public class ModbusAdapterConfig extends AbstractProtocolAdapterConfig {
 
+    public static final int DEFAULT_MAX_OUTSTANDING_REQUESTS = 8;
+
     @JsonProperty("port")
     @ModuleConfigField(title = "Port",
             description = "The port number on the device you wish to connect to",
@@ -64,6 +66,14 @@ public class ModbusAdapterConfig extends AbstractProtocolAdapterConfig {
             format = ModuleConfigField.FieldType.BOOLEAN)
     private boolean publishChangedDataOnly = true;
 
+    @JsonProperty("maxOutstandingRequests")
+    @ModuleConfigField(title = "Max. outstanding requests",
+            description = "Max. amount of read requests that are sent to the device without waiting for a response",
+            numberMin = 1,
+            numberMax = 64,
+            defaultValue = "8")
+    private int maxOutstandingRequests = DEFAULT_MAX_OUTSTANDING_REQUESTS;
+
     @JsonProperty("subscriptions")
     @ModuleConfigField(title = "Subscriptions",
             description = "Map your sensor data to MQTT Topics")
@@ -92,6 +102,10 @@ public class ModbusAdapterConfig extends AbstractProtocolAdapterConfig {
         return publishingInterval;
     }
 
+    public int getMaxOutstandingRequests() {
+        return maxOutstandingRequests;
+    }
+
     public @NotNull List<Subscription> getSubscriptions() {
         return subscriptions;
     }
@@ -110,6 +124,11 @@ public class ModbusAdapterConfig extends AbstractProtocolAdapterConfig {
         public AddressRange() {
         }
 
+        public AddressRange(final int startIdx, final int endIdx) {
+            this.startIdx = startIdx;
+            this.endIdx = endIdx;
+        }
+
         @JsonProperty("startIdx")
         @ModuleConfigField(title = "Start Index",
                 description = "The Starting Index (Incl.) of the Address Range",
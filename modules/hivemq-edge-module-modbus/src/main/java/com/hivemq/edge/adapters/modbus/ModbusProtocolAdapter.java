@@ -18,11 +18,15 @@ package com.hivemq.edge.adapters.modbus;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.hivemq.edge.adapters.modbus.impl.ModbusClient;
+import com.hivemq.edge.adapters.modbus.impl.ModbusJsonPayloadWriter;
+import com.hivemq.edge.adapters.modbus.impl.ModbusReadCoalescer;
 import com.hivemq.edge.adapters.modbus.model.ModBusData;
 import com.hivemq.edge.modules.adapters.ProtocolAdapterException;
 import com.hivemq.edge.modules.adapters.impl.AbstractProtocolAdapter;
+import com.hivemq.edge.modules.adapters.impl.ReportByExceptionFilter;
 import com.hivemq.edge.modules.adapters.params.NodeTree;
 import com.hivemq.edge.modules.adapters.params.NodeType;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterAsyncPollingInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryOutput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterPollingOutput;
@@ -30,21 +34,25 @@ import com.hivemq.edge.modules.adapters.params.ProtocolAdapterStartInput;
 import com.hivemq.edge.modules.adapters.params.ProtocolAdapterStartOutput;
 import com.hivemq.edge.modules.adapters.params.impl.ProtocolAdapterPollingInputImpl;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterInformation;
-import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
+import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBatchBuilder;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
-import com.hivemq.mqtt.message.QoS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
@@ -53,7 +61,6 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
     private final @NotNull Object lock = new Object();
     private volatile @Nullable IModbusClient modbusClient;
     private @Nullable List<ProtocolAdapterPollingOutput> active = new ArrayList<>();
-    private @Nullable Map<ModBusData.TYPE, ModBusData> lastSamples = new HashMap<>();
     private final @NotNull Counter publishSuccessCounter;
     private final @NotNull Counter publishFailedCounter;
 
@@ -84,10 +91,8 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
                 createClient();
             }
 
-            if (adapterConfig.getSubscriptions() != null) {
-                for (ModbusAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
-                    subscribeInternal(subscription);
-                }
+            if (adapterConfig.getSubscriptions() != null && !adapterConfig.getSubscriptions().isEmpty()) {
+                startPolling(new SubscriptionsPoller(adapterConfig.getSubscriptions()));
             }
             output.startedSuccessfully("Successfully connected");
             return CompletableFuture.completedFuture(null);
@@ -118,7 +123,7 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
         return CompletableFuture.completedFuture(null);
     }
 
-    private void startPolling(final @NotNull ModbusPoller poller) {
+    private void startPolling(final @NotNull SubscriptionsPoller poller) {
         protocolAdapterPollingService.schedulePolling(this, poller);
     }
 
@@ -128,15 +133,6 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
     }
 
 
-    protected void subscribeInternal(final @NotNull ModbusAdapterConfig.Subscription subscription) {
-        if (subscription != null) {
-            ModbusAdapterConfig.AddressRange registerAddressRange = subscription.getHoldingRegisters();
-            if (registerAddressRange != null) {
-                startPolling(new HoldingRegistersPoller(registerAddressRange, subscription));
-            }
-        }
-    }
-
     @Override
     public CompletableFuture<Void> discoverValues(@NotNull ProtocolAdapterDiscoveryInput input, @NotNull ProtocolAdapterDiscoveryOutput output) {
         //-- Do the discovery of registers and coils, only for root level
@@ -156,32 +152,23 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
         return modbusClient != null && modbusClient.isConnected() ? Status.CONNECTED : Status.DISCONNECTED;
     }
 
-    protected void captured(ModBusData data) throws ProtocolAdapterException {
-        boolean publishData = true;
-        if (adapterConfig.getPublishChangedDataOnly()) {
-            ModBusData previousSample = lastSamples.put(data.getType(), data);
-            if (previousSample != null) {
-                Object[][] objects = previousSample.getData();
-                publishData = !Arrays.deepEquals(objects, data.getData());
-            }
-        }
-        if (publishData) {
-
-            final ProtocolAdapterPublishBuilder publishBuilder = adapterPublishService.publish()
-                    .withTopic(data.getTopic())
-                    .withPayload(convertToJson(data.getData()))
-                    .withQoS(data.getQos().getQosNumber());
-
-            final CompletableFuture<PublishReturnCode> publishFuture = publishBuilder.send();
-
-            publishFuture.thenAccept(publishReturnCode -> {
-                publishSuccessCounter.inc();
-            }).exceptionally(throwable -> {
-                log.warn("Error Publishing ModBus Payload", throwable);
-                publishFailedCounter.inc();
-                return null;
-            });
+    protected void publish(final @NotNull ProtocolAdapterPublishBatchBuilder batch) {
+        if (batch.size() == 0) {
+            return;
         }
+        batch.send().thenAccept(publishReturnCodes -> {
+            for (final PublishReturnCode publishReturnCode : publishReturnCodes) {
+                if (publishReturnCode == PublishReturnCode.FAILED) {
+                    publishFailedCounter.inc();
+                } else {
+                    publishSuccessCounter.inc();
+                }
+            }
+        }).exceptionally(throwable -> {
+            log.warn("Error Publishing ModBus Payload", throwable);
+            publishFailedCounter.inc(batch.size());
+            return null;
+        });
     }
 
     private static void addAddresses(NodeTree tree, String parent, int startIdx, int count, int groupIdx) {
@@ -201,38 +188,196 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
         }
     }
 
-    abstract class ModbusPoller extends ProtocolAdapterPollingInputImpl {
-        private final ModbusAdapterConfig.AddressRange addressRange;
-        private final ModBusData.TYPE type;
-        private final ModbusAdapterConfig.Subscription subscription;
-
-        public ModbusPoller(ModbusAdapterConfig.AddressRange addressRange, ModBusData.TYPE type, ModbusAdapterConfig.Subscription subscription) {
+    /**
+     * Polls the address ranges of all subscriptions in one go. The ranges are merged into the fewest requests that
+     * are legal for the protocol, the requests are pipelined without blocking the polling thread and the responses
+     * are split back per subscription.
+     * <p>
+     * The poll completes once all responses arrived, so the polling service never starts a new poll while the
+     * previous one is in progress and applies its error handling and back off to a failed poll. Only connecting to the
+     * device blocks, it is done on the blocking executor of the polling service.
+     * <p>
+     * As polls never overlap, the read buffers, the previous samples and the JSON writer are allocated once and reused
+     * for every poll.
+     */
+    public class SubscriptionsPoller extends ProtocolAdapterPollingInputImpl
+            implements ProtocolAdapterAsyncPollingInput {
+
+        private final @NotNull List<SubscriptionRead> subscriptionReads = new ArrayList<>();
+        private final @NotNull List<BlockRead> blockReads = new ArrayList<>();
+        private final @NotNull ModbusJsonPayloadWriter payloadWriter = new ModbusJsonPayloadWriter();
+
+        public SubscriptionsPoller(final @NotNull List<ModbusAdapterConfig.Subscription> subscriptions) {
             super(adapterConfig.getPublishingInterval(),
                     adapterConfig.getPublishingInterval(),
                     TimeUnit.MILLISECONDS,
                     adapterConfig.getMaxPollingErrorsBeforeRemoval());
-            this.addressRange = addressRange;
-            this.type = type;
-            this.subscription = subscription;
+
+            final Map<ModBusData.TYPE, List<ModbusAdapterConfig.AddressRange>> ranges =
+                    new EnumMap<>(ModBusData.TYPE.class);
+            final List<ModbusAdapterConfig.Subscription> holdingRegisterSubscriptions = new ArrayList<>();
+            for (final ModbusAdapterConfig.Subscription subscription : subscriptions) {
+                final ModbusAdapterConfig.AddressRange holdingRegisters = subscription.getHoldingRegisters();
+                if (holdingRegisters != null && !ModbusReadCoalescer.isValid(holdingRegisters)) {
+                    log.warn("Modbus adapter {} skips the subscription for '{}', its address range {} is invalid",
+                            adapterConfig.getId(),
+                            subscription.getDestination(),
+                            holdingRegisters);
+                } else if (holdingRegisters != null) {
+                    ranges.computeIfAbsent(ModBusData.TYPE.HOLDING_REGISTERS, type -> new ArrayList<>())
+                            .add(holdingRegisters);
+                    holdingRegisterSubscriptions.add(subscription);
+                }
+            }
+            for (final Map.Entry<ModBusData.TYPE, List<ModbusAdapterConfig.AddressRange>> entry : ranges.entrySet()) {
+                for (final ModbusReadCoalescer.Block block : ModbusReadCoalescer.coalesce(entry.getKey(),
+                        entry.getValue())) {
+                    blockReads.add(new BlockRead(entry.getKey(), block));
+                }
+            }
+            for (final ModbusAdapterConfig.Subscription subscription : holdingRegisterSubscriptions) {
+                subscriptionReads.add(new SubscriptionRead(subscription,
+                        subscription.getHoldingRegisters(),
+                        findBlockRead(ModBusData.TYPE.HOLDING_REGISTERS, subscription.getHoldingRegisters())));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Modbus adapter {} reads {} subscriptions with the blocks {}",
+                        adapterConfig.getId(),
+                        subscriptionReads.size(),
+                        blockReads);
+            }
         }
 
-        public ModBusData.TYPE getType() {
-            return type;
+        private @NotNull BlockRead findBlockRead(
+                final @NotNull ModBusData.TYPE type, final @NotNull ModbusAdapterConfig.AddressRange range) {
+            for (final BlockRead blockRead : blockReads) {
+                if (blockRead.type == type && blockRead.block.contains(range)) {
+                    return blockRead;
+                }
+            }
+            throw new IllegalStateException("No block contains the address range " + range);
         }
 
         @Override
-        public void execute() throws Exception {
+        public @NotNull CompletionStage<Void> executeAsync(final @NotNull Executor blockingExecutor) {
             //-- If a previously linked job has terminally disconnected the client
             //-- we need to ensure any orphaned jobs tidy themselves up properly
-            if(modbusClient != null){
-                if (!modbusClient.isConnected()) {
-                    modbusClient.connect();
+            final IModbusClient client = modbusClient;
+            if (client == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (client.isConnected()) {
+                return poll(client);
+            }
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    client.connect();
+                } catch (final ProtocolAdapterException e) {
+                    throw new CompletionException(e);
+                }
+            }, blockingExecutor).thenCompose(connected -> poll(client));
+        }
+
+        private @NotNull CompletableFuture<Void> poll(final @NotNull IModbusClient client) {
+            final List<CompletableFuture<Void>> reads = new ArrayList<>(blockReads.size());
+            for (final BlockRead blockRead : blockReads) {
+                if (!blockRead.disabled) {
+                    reads.add(blockRead.read(client));
+                }
+            }
+
+            return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).handle((result, throwable) -> {
+                final long timestamp = System.currentTimeMillis();
+                //-- the values of all subscriptions of a poll are published together
+                final ProtocolAdapterPublishBatchBuilder batch = adapterPublishService.publishBatch();
+                for (final SubscriptionRead subscriptionRead : subscriptionReads) {
+                    if (subscriptionRead.blockRead.succeeded()) {
+                        try {
+                            captured(batch, subscriptionRead, timestamp);
+                        } catch (final RuntimeException e) {
+                            //-- the values of the other subscriptions are published anyway
+                            log.warn("Modbus adapter {} was not able to publish the values for '{}'",
+                                    adapterConfig.getId(),
+                                    subscriptionRead.topic,
+                                    e);
+                        }
+                    }
+                }
+                publish(batch);
+                if (throwable != null) {
+                    final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                            throwable.getCause() :
+                            throwable;
+                    if (countBlockErrors()) {
+                        //-- the device is reachable, only some of the blocks failed
+                        return null;
+                    }
+                    throw new CompletionException(new ProtocolAdapterException(
+                            "Error reading from modbus device: " + cause.getMessage(),
+                            cause));
+                }
+                for (final BlockRead blockRead : blockReads) {
+                    blockRead.consecutiveErrors = 0;
                 }
-                ModBusData data = readAddresses(addressRange);
-                if (data != null) {
-                    captured(data);
+                return null;
+            });
+        }
+
+        /**
+         * Counts the errors of the blocks that failed while others succeeded, a block that fails too often in a row is
+         * not read anymore. If all blocks failed the device is not reachable, which is an error of the poll instead.
+         *
+         * @return false if no block succeeded
+         */
+        private boolean countBlockErrors() {
+            boolean anySucceeded = false;
+            for (final BlockRead blockRead : blockReads) {
+                if (!blockRead.disabled && blockRead.succeeded()) {
+                    anySucceeded = true;
+                    break;
+                }
+            }
+            if (!anySucceeded) {
+                return false;
+            }
+            for (final BlockRead blockRead : blockReads) {
+                if (blockRead.disabled) {
+                    continue;
+                }
+                if (blockRead.succeeded()) {
+                    blockRead.consecutiveErrors = 0;
+                } else if (++blockRead.consecutiveErrors >= adapterConfig.getMaxPollingErrorsBeforeRemoval()) {
+                    blockRead.disabled = true;
+                    log.warn("Modbus adapter {} stops reading {} after {} errors in a row",
+                            adapterConfig.getId(),
+                            blockRead,
+                            blockRead.consecutiveErrors);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("Modbus adapter {} was not able to read {}", adapterConfig.getId(), blockRead);
+                }
+            }
+            return true;
+        }
+
+        private void captured(
+                final @NotNull ProtocolAdapterPublishBatchBuilder batch,
+                final @NotNull SubscriptionRead subscriptionRead,
+                final long timestamp) {
+            if (subscriptionRead.filter != null) {
+                if (subscriptionRead.offerToFilter(timestamp)) {
+                    batch.add(subscriptionRead.topic,
+                            subscriptionRead.writeReport(payloadWriter, timestamp),
+                            subscriptionRead.qos);
                 }
+                return;
             }
+            final boolean changed = subscriptionRead.updatePreviousSample();
+            if (!changed && adapterConfig.getPublishChangedDataOnly()) {
+                return;
+            }
+            batch.add(subscriptionRead.topic,
+                    subscriptionRead.writePayload(payloadWriter, timestamp),
+                    subscriptionRead.qos);
         }
 
         @Override
@@ -248,62 +393,182 @@ public class ModbusProtocolAdapter extends AbstractProtocolAdapter {
                 super.close();
             }
         }
+    }
 
-        protected ModBusData createData() {
-            ModBusData data = new ModBusData(type,
-                    subscription.getDestination(),
-                    QoS.valueOf(subscription.getQos()));
-            return data;
+    /**
+     * The reused read buffer of a coalesced block. Registers are read into a <code>short[]</code>, coils into a
+     * {@link BitSet}.
+     */
+    private static class BlockRead {
+
+        private final @NotNull ModBusData.TYPE type;
+        private final @NotNull ModbusReadCoalescer.Block block;
+        private final short @Nullable [] registers;
+        private final @Nullable BitSet coils;
+        private volatile @NotNull CompletableFuture<Void> currentRead = CompletableFuture.completedFuture(null);
+        //-- only accessed when a poll completes, polls never overlap
+        private int consecutiveErrors;
+        private boolean disabled;
+
+        BlockRead(final @NotNull ModBusData.TYPE type, final @NotNull ModbusReadCoalescer.Block block) {
+            this.type = type;
+            this.block = block;
+            this.registers = type == ModBusData.TYPE.COILS ? null : new short[block.getCount()];
+            this.coils = type == ModBusData.TYPE.COILS ? new BitSet(block.getCount()) : null;
         }
 
-        protected abstract ModBusData readAddresses(ModbusAdapterConfig.AddressRange addressRange) throws ProtocolAdapterException;
-    }
+        /**
+         * Starts the requests of the block. A request that can not even be sent fails the read of this block only,
+         * the other blocks of the poll are read anyway.
+         */
+        @NotNull CompletableFuture<Void> read(final @NotNull IModbusClient client) {
+            final List<ModbusReadCoalescer.Request> requests = block.getRequests();
+            final CompletableFuture<?>[] reads = new CompletableFuture[requests.size()];
+            for (int i = 0; i < reads.length; i++) {
+                final ModbusReadCoalescer.Request request = requests.get(i);
+                try {
+                    reads[i] = request(client, request);
+                } catch (final RuntimeException e) {
+                    reads[i] = CompletableFuture.failedFuture(e);
+                }
+            }
+            currentRead = CompletableFuture.allOf(reads);
+            return currentRead;
+        }
 
-    public class HoldingRegistersPoller extends ModbusPoller {
+        private @NotNull CompletableFuture<?> request(
+                final @NotNull IModbusClient client, final @NotNull ModbusReadCoalescer.Request request) {
+            switch (type) {
+                case COILS:
+                    return client.readCoilsAsync(request.getStartIdx(), request.getCount(), coils, request.getOffset());
+                case INPUT_REGISTERS:
+                    return client.readInputRegistersAsync(request.getStartIdx(),
+                            request.getCount(),
+                            registers,
+                            request.getOffset());
+                case HOLDING_REGISTERS:
+                default:
+                    return client.readHoldingRegistersAsync(request.getStartIdx(),
+                            request.getCount(),
+                            registers,
+                            request.getOffset());
+            }
+        }
 
-        public HoldingRegistersPoller(ModbusAdapterConfig.AddressRange addressRange, ModbusAdapterConfig.Subscription subscription) {
-            super(addressRange, ModBusData.TYPE.HOLDING_REGISTERS, subscription);
+        boolean succeeded() {
+            return currentRead.isDone() && !currentRead.isCompletedExceptionally();
         }
 
         @Override
-        protected ModBusData readAddresses(ModbusAdapterConfig.AddressRange addressRange) throws ProtocolAdapterException {
-            Short[] registers = modbusClient.readHoldingRegisters(addressRange.startIdx,
-                    addressRange.endIdx - addressRange.startIdx);
-            ModBusData data = createData();
-            data.setData(addressRange.startIdx, registers);
-            return data;
+        public @NotNull String toString() {
+            return type + " " + block;
         }
     }
 
-    public class InputRegistersPoller extends ModbusPoller {
+    /**
+     * The view of a subscription onto its block, including the previous sample for the change detection or the report
+     * by exception filter of the subscription, which replaces the change detection.
+     */
+    private static class SubscriptionRead {
+
+        private final @NotNull String topic;
+        private final int qos;
+        private final int startIdx;
+        private final int count;
+        private final int offset;
+        private final @NotNull BlockRead blockRead;
+        private final short @Nullable [] previousRegisters;
+        private final @Nullable BitSet previousCoils;
+        private final @Nullable ReportByExceptionFilter filter;
+        private final double @Nullable [] sample;
+        private final boolean reportsCoils;
+        private boolean hasPreviousSample;
+
+        SubscriptionRead(
+                final @NotNull ModbusAdapterConfig.Subscription subscription,
+                final @NotNull ModbusAdapterConfig.AddressRange range,
+                final @NotNull BlockRead blockRead) {
+            this.topic = subscription.getDestination();
+            this.qos = subscription.getQos();
+            this.startIdx = range.startIdx;
+            this.count = range.endIdx - range.startIdx;
+            this.offset = range.startIdx - blockRead.block.getStartIdx();
+            this.blockRead = blockRead;
+            this.previousRegisters = blockRead.registers != null ? new short[count] : null;
+            this.previousCoils = blockRead.coils != null ? new BitSet(count) : null;
+            final AbstractProtocolAdapterConfig.ReportByException reportByException =
+                    subscription.getReportByException();
+            this.filter = reportByException != null && count > 0 ?
+                    new ReportByExceptionFilter(reportByException, count) :
+                    null;
+            this.sample = filter != null ? new double[count] : null;
+            //-- the aggregates that pick one of the samples keep the coils boolean, averages and counts are numbers
+            this.reportsCoils = blockRead.coils != null && reportByException != null && picksSample(reportByException);
+        }
 
-        public InputRegistersPoller(ModbusAdapterConfig.AddressRange addressRange, ModbusAdapterConfig.Subscription subscription) {
-            super(addressRange, ModBusData.TYPE.INPUT_REGISTERS, subscription);
+        /**
+         * @return true if the filter reports the current sample of this subscription
+         */
+        boolean offerToFilter(final long timestamp) {
+            for (int i = 0; i < count; i++) {
+                if (blockRead.registers != null) {
+                    sample[i] = blockRead.registers[offset + i];
+                } else {
+                    sample[i] = blockRead.coils.get(offset + i) ? 1 : 0;
+                }
+            }
+            return filter.offer(sample, timestamp);
         }
 
-        @Override
-        protected ModBusData readAddresses(ModbusAdapterConfig.AddressRange addressRange) throws ProtocolAdapterException {
-            Short[] registers = modbusClient.readInputRegisters(addressRange.startIdx,
-                    addressRange.endIdx - addressRange.startIdx);
-            ModBusData data = createData();
-            data.setData(addressRange.startIdx, registers);
-            return data;
+        /**
+         * @return true if the current sample differs from the previous sample of this subscription
+         */
+        boolean updatePreviousSample() {
+            boolean changed = !hasPreviousSample;
+            hasPreviousSample = true;
+            if (blockRead.registers != null) {
+                if (!Arrays.equals(previousRegisters, 0, count, blockRead.registers, offset, offset + count)) {
+                    System.arraycopy(blockRead.registers, offset, previousRegisters, 0, count);
+                    changed = true;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    final boolean value = blockRead.coils.get(offset + i);
+                    if (previousCoils.get(i) != value) {
+                        previousCoils.set(i, value);
+                        changed = true;
+                    }
+                }
+            }
+            return changed;
         }
-    }
 
-    public class CoilsPoller extends ModbusPoller {
+        @NotNull byte[] writePayload(final @NotNull ModbusJsonPayloadWriter writer, final long timestamp) {
+            if (blockRead.registers != null) {
+                return writer.writeRegisters(startIdx, blockRead.registers, offset, count, timestamp);
+            }
+            return writer.writeCoils(startIdx, blockRead.coils, offset, count, timestamp);
+        }
 
-        public CoilsPoller(ModbusAdapterConfig.AddressRange addressRange, ModbusAdapterConfig.Subscription subscription) {
-            super(addressRange, ModBusData.TYPE.COILS, subscription);
+        private static boolean picksSample(final @NotNull AbstractProtocolAdapterConfig.ReportByException config) {
+            if (config.getWindowMillis() <= 0) {
+                return true;
+            }
+            switch (config.getWindowAggregate()) {
+                case LAST:
+                case MIN:
+                case MAX:
+                    return true;
+                default:
+                    return false;
+            }
         }
 
-        @Override
-        protected ModBusData readAddresses(ModbusAdapterConfig.AddressRange addressRange) throws ProtocolAdapterException {
-            Boolean[] coils = modbusClient.readCoils(addressRange.startIdx,
-                    addressRange.endIdx - addressRange.startIdx);
-            ModBusData data = createData();
-            data.setData(addressRange.startIdx, coils);
-            return data;
+        @NotNull byte[] writeReport(final @NotNull ModbusJsonPayloadWriter writer, final long timestamp) {
+            if (reportsCoils) {
+                return writer.writeBooleans(startIdx, filter.getReport(), count, timestamp);
+            }
+            return writer.writeValues(startIdx, filter.getReport(), count, timestamp);
         }
     }
 }
@@ -17,6 +17,7 @@ package com.hivemq.edge.adapters.modbus.impl;
 
 import com.digitalpetri.modbus.master.ModbusTcpMaster;
 import com.digitalpetri.modbus.master.ModbusTcpMasterConfig;
+import com.digitalpetri.modbus.requests.ModbusRequest;
 import com.digitalpetri.modbus.requests.ReadCoilsRequest;
 import com.digitalpetri.modbus.requests.ReadHoldingRegistersRequest;
 import com.digitalpetri.modbus.requests.ReadInputRegistersRequest;
@@ -31,21 +32,34 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCountUtil;
 
+import java.util.BitSet;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * @author Simon L Johnson
  */
 public class ModbusClient implements IModbusClient {
 
+    private static final int UNIT_ID = 0;
+
     private final @NotNull ModbusAdapterConfig adapterConfig;
     private final Object lock = new Object();
     private ModbusTcpMaster modbusClient;
     private AtomicBoolean connected = new AtomicBoolean(false);
 
+    private final int maxOutstandingRequests;
+    private final @NotNull AtomicInteger outstandingRequests = new AtomicInteger(0);
+    private final @NotNull Queue<QueuedRequest> queuedRequests = new ConcurrentLinkedQueue<>();
+
     public ModbusClient(final @NotNull ModbusAdapterConfig adapterConfig) {
         this.adapterConfig = adapterConfig;
+        this.maxOutstandingRequests = Math.max(1, adapterConfig.getMaxOutstandingRequests());
     }
 
     private ModbusTcpMaster getOrCreateClient() {
@@ -82,84 +96,60 @@ public class ModbusClient implements IModbusClient {
     }
 
     @Override
-    public Boolean[] readCoils(int startIdx, int count) throws ProtocolAdapterException {
-        try {
-            ModbusTcpMaster client = getOrCreateClient();
-            CompletableFuture<ModbusResponse> future =
-                    client.sendRequest(new ReadCoilsRequest(startIdx, count), 0);
-            Boolean[] val = new Boolean[count];
-            future.thenAccept(response -> {
-                try {
-                    ReadCoilsResponse coilsResponse = (ReadCoilsResponse) response;
-                    ByteBuf buf = coilsResponse.getCoilStatus();
-                    int idx = 0;
-                    while (buf.isReadable()) {
-                        val[idx++] = buf.readBoolean();
-                    }
-                } finally {
-                    ReferenceCountUtil.release(response);
-                }
-            }).get();
-            return val;
-        } catch (Exception e) {
-            throw new ProtocolAdapterException(e);
+    public boolean[] readCoils(int startIdx, int count) throws ProtocolAdapterException {
+        final BitSet coils = new BitSet(count);
+        await(readCoilsAsync(startIdx, count, coils, 0));
+        final boolean[] val = new boolean[count];
+        for (int idx = 0; idx < count; idx++) {
+            val[idx] = coils.get(idx);
         }
+        return val;
     }
 
     @Override
-    public Short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException {
-        try {
-            ModbusTcpMaster client = getOrCreateClient();
-            CompletableFuture<ReadHoldingRegistersResponse> future =
-                    client.sendRequest(new ReadHoldingRegistersRequest(startIdx, count), 0);
-            Short[] val = new Short[count];
-            future.thenAccept(response -> {
-                try {
-                    ByteBuf buf = response.getRegisters();
-                    //2 bytes per register BE
-                    int idx = 0;
-                    while (buf.isReadable()) {
-                        val[idx++] = buf.readShort();
-                    }
-                } finally {
-                    ReferenceCountUtil.release(response);
-                }
-            }).get();
-            return val;
-        } catch (Exception e) {
-            throw new ProtocolAdapterException(e);
-        }
+    public short[] readHoldingRegisters(int startIdx, int count) throws ProtocolAdapterException {
+        final short[] val = new short[count];
+        await(readHoldingRegistersAsync(startIdx, count, val, 0));
+        return val;
     }
 
     @Override
-    public Short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException {
+    public short[] readInputRegisters(int startIdx, int count) throws ProtocolAdapterException {
+        final short[] val = new short[count];
+        await(readInputRegistersAsync(startIdx, count, val, 0));
+        return val;
+    }
 
-        try {
-            ModbusTcpMaster client = getOrCreateClient();
-            CompletableFuture<ModbusResponse> future =
-                    client.sendRequest(new ReadInputRegistersRequest(startIdx, count), 0);
-            Short[] val = new Short[count];
-            future.thenAccept(response -> {
-                try {
-                    ReadInputRegistersResponse coilsResponse = (ReadInputRegistersResponse) response;
-                    ByteBuf buf = coilsResponse.getRegisters();
-                    //2 bytes per register BE
-                    int idx = 0;
-                    while (buf.isReadable()) {
-                        val[idx++] = buf.readShort();
-                    }
-                } finally {
-                    ReferenceCountUtil.release(response);
-                }
-            }).get();
-            return val;
-        } catch (Exception e) {
-            throw new ProtocolAdapterException(e);
-        }
+    @Override
+    public @NotNull CompletableFuture<Void> readCoilsAsync(
+            final int startIdx, final int count, final @NotNull BitSet target, final int offset) {
+        return send(new ReadCoilsRequest(startIdx, count),
+                response -> readCoils(((ReadCoilsResponse) response).getCoilStatus(), count, target, offset));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> readHoldingRegistersAsync(
+            final int startIdx, final int count, final short @NotNull [] target, final int offset) {
+        return send(new ReadHoldingRegistersRequest(startIdx, count),
+                response -> readRegisters(((ReadHoldingRegistersResponse) response).getRegisters(),
+                        count,
+                        target,
+                        offset));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> readInputRegistersAsync(
+            final int startIdx, final int count, final short @NotNull [] target, final int offset) {
+        return send(new ReadInputRegistersRequest(startIdx, count),
+                response -> readRegisters(((ReadInputRegistersResponse) response).getRegisters(),
+                        count,
+                        target,
+                        offset));
     }
 
     @Override
     public boolean disconnect() {
+        failQueuedRequests();
         //-- If the client is manually disconnected before connection established ensure we still call into the client
         //-- to shut it all down.
         if (modbusClient != null) {
@@ -168,4 +158,112 @@ public class ModbusClient implements IModbusClient {
         }
         return false;
     }
+
+    private @NotNull CompletableFuture<Void> send(
+            final @NotNull ModbusRequest request, final @NotNull Consumer<ModbusResponse> responseHandler) {
+        final QueuedRequest queuedRequest = new QueuedRequest(request, responseHandler);
+        queuedRequests.add(queuedRequest);
+        sendQueuedRequests();
+        return queuedRequest.result;
+    }
+
+    /**
+     * Sends queued requests as long as less than the max. amount of requests are outstanding. Any thread that
+     * enqueues a request or receives a response calls this method, so the queue is drained without a dedicated
+     * thread.
+     */
+    private void sendQueuedRequests() {
+        while (!queuedRequests.isEmpty()) {
+            final int outstanding = outstandingRequests.get();
+            if (outstanding >= maxOutstandingRequests) {
+                return;
+            }
+            if (!outstandingRequests.compareAndSet(outstanding, outstanding + 1)) {
+                continue;
+            }
+            final QueuedRequest queuedRequest = queuedRequests.poll();
+            if (queuedRequest == null) {
+                //-- another thread took the last request, release the slot and check again
+                outstandingRequests.decrementAndGet();
+                continue;
+            }
+            queuedRequest.send(getOrCreateClient());
+        }
+    }
+
+    private void failQueuedRequests() {
+        QueuedRequest queuedRequest;
+        while ((queuedRequest = queuedRequests.poll()) != null) {
+            queuedRequest.result.completeExceptionally(new ProtocolAdapterException("Modbus client was disconnected"));
+        }
+    }
+
+    private static void await(final @NotNull CompletableFuture<Void> future) throws ProtocolAdapterException {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProtocolAdapterException(e);
+        } catch (final ExecutionException e) {
+            throw new ProtocolAdapterException(e.getCause());
+        }
+    }
+
+    private static void readRegisters(
+            final @NotNull ByteBuf buf, final int count, final short @NotNull [] target, final int offset) {
+        //2 bytes per register BE
+        int idx = 0;
+        while (buf.readableBytes() >= 2 && idx < count) {
+            target[offset + idx++] = buf.readShort();
+        }
+    }
+
+    private static void readCoils(
+            final @NotNull ByteBuf buf, final int count, final @NotNull BitSet target, final int offset) {
+        //coils are packed into bytes, the first coil is the least significant bit of the first byte
+        final int readerIndex = buf.readerIndex();
+        for (int idx = 0; idx < count && (idx >> 3) < buf.readableBytes(); idx++) {
+            target.set(offset + idx, (buf.getByte(readerIndex + (idx >> 3)) & (1 << (idx & 7))) != 0);
+        }
+    }
+
+    private class QueuedRequest {
+
+        private final @NotNull ModbusRequest request;
+        private final @NotNull Consumer<ModbusResponse> responseHandler;
+        private final @NotNull CompletableFuture<Void> result = new CompletableFuture<>();
+
+        QueuedRequest(final @NotNull ModbusRequest request, final @NotNull Consumer<ModbusResponse> responseHandler) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+        }
+
+        void send(final @NotNull ModbusTcpMaster client) {
+            final CompletableFuture<ModbusResponse> responseFuture;
+            try {
+                responseFuture = client.sendRequest(request, UNIT_ID);
+            } catch (final Throwable t) {
+                complete(null, t);
+                return;
+            }
+            responseFuture.whenComplete(this::complete);
+        }
+
+        private void complete(final ModbusResponse response, final Throwable throwable) {
+            try {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    responseHandler.accept(response);
+                    result.complete(null);
+                }
+            } catch (final Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                ReferenceCountUtil.release(response);
+                outstandingRequests.decrementAndGet();
+                sendQueuedRequests();
+            }
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Writes the samples of a subscription as JSON directly into a reused byte buffer, without boxing the values.
+ * <p>
+ * The output is identical to the generic adapter payload of <code>{"value":[[address,value],...],"timestamp":...}
+ * </code>. Only the final payload array is allocated per sample. A writer is not thread safe, it is meant to be owned
+ * by a single poller whose polls never overlap.
+ */
+public class ModbusJsonPayloadWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte[] VALUE_START = "{\"value\":[".getBytes(US_ASCII);
+    private static final byte[] TIMESTAMP_START = "],\"timestamp\":".getBytes(US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(US_ASCII);
+    private static final byte[] NULL = "null".getBytes(US_ASCII);
+    private static final double MAX_EXACT_LONG = 1L << 53;
+
+    private final @NotNull byte[] digits = new byte[20];
+    private @NotNull byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int position;
+
+    public @NotNull byte[] writeRegisters(
+            final int startIdx,
+            final short @NotNull [] values,
+            final int offset,
+            final int count,
+            final long timestamp) {
+        begin();
+        for (int i = 0; i < count; i++) {
+            beginPair(i, startIdx);
+            writeLong(values[offset + i]);
+            write(']');
+        }
+        return end(timestamp);
+    }
+
+    public @NotNull byte[] writeCoils(
+            final int startIdx, final @NotNull BitSet values, final int offset, final int count, final long timestamp) {
+        begin();
+        for (int i = 0; i < count; i++) {
+            beginPair(i, startIdx);
+            write(values.get(offset + i) ? TRUE : FALSE);
+            write(']');
+        }
+        return end(timestamp);
+    }
+
+    /**
+     * Writes the values reported by a report by exception filter for coils, every value other than 0 is true.
+     */
+    public @NotNull byte[] writeBooleans(
+            final int startIdx, final @NotNull double[] values, final int count, final long timestamp) {
+        begin();
+        for (int i = 0; i < count; i++) {
+            beginPair(i, startIdx);
+            write(values[i] != 0 ? TRUE : FALSE);
+            write(']');
+        }
+        return end(timestamp);
+    }
+
+    /**
+     * Writes the values reported by a report by exception filter. Whole numbers are written like registers, so an
+     * aggregate of registers only has a fraction where it needs one.
+     */
+    public @NotNull byte[] writeValues(
+            final int startIdx, final @NotNull double[] values, final int count, final long timestamp) {
+        begin();
+        for (int i = 0; i < count; i++) {
+            beginPair(i, startIdx);
+            writeDouble(values[i]);
+            write(']');
+        }
+        return end(timestamp);
+    }
+
+    private void begin() {
+        position = 0;
+        write(VALUE_START);
+    }
+
+    private void beginPair(final int i, final int startIdx) {
+        if (i > 0) {
+            write(',');
+        }
+        write('[');
+        writeLong(startIdx + i);
+        write(',');
+    }
+
+    private @NotNull byte[] end(final long timestamp) {
+        write(TIMESTAMP_START);
+        writeLong(timestamp);
+        write('}');
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeLong(long value) {
+        //-- digits are collected on the negative side, which also covers Long.MIN_VALUE
+        if (value < 0) {
+            write('-');
+        } else {
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(length);
+        while (length > 0) {
+            buffer[position++] = digits[--length];
+        }
+    }
+
+    private void writeDouble(final double value) {
+        if (value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_LONG) {
+            writeLong((long) value);
+        } else if (Double.isFinite(value)) {
+            write(Double.toString(value).getBytes(US_ASCII));
+        } else {
+            //-- JSON has no representation for NaN and infinity
+            write(NULL);
+        }
+    }
+
+    private void write(final char c) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void write(final @NotNull byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.hivemq.edge.adapters.modbus.ModbusAdapterConfig;
+import com.hivemq.edge.adapters.modbus.model.ModBusData;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Merges the address ranges of different subscriptions into the fewest read requests that are legal for the Modbus
+ * protocol. Adjacent and overlapping ranges are merged into one block, a block that is larger than the maximum
+ * quantity of a single request is split into several requests.
+ * <p>
+ * Address ranges are interpreted like everywhere else in the adapter: the start index is inclusive, the end index is
+ * exclusive.
+ */
+public class ModbusReadCoalescer {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ModbusReadCoalescer.class);
+
+    /**
+     * Max. quantity of registers of a single read holding registers or read input registers request.
+     */
+    public static final int MAX_REGISTERS_PER_REQUEST = 125;
+
+    /**
+     * Max. quantity of coils of a single read coils request.
+     */
+    public static final int MAX_COILS_PER_REQUEST = 2000;
+
+    private ModbusReadCoalescer() {
+    }
+
+    public static int maxQuantityPerRequest(final @NotNull ModBusData.TYPE type) {
+        return type == ModBusData.TYPE.COILS ? MAX_COILS_PER_REQUEST : MAX_REGISTERS_PER_REQUEST;
+    }
+
+    public static boolean isValid(final @NotNull ModbusAdapterConfig.AddressRange range) {
+        return range.startIdx >= 0 && range.endIdx > range.startIdx;
+    }
+
+    /**
+     * @param type   the type of the addresses, which determines the max. quantity per request
+     * @param ranges the ranges that are read, invalid ranges are skipped
+     * @return the blocks of contiguous addresses that cover all valid ranges, ordered by their start index
+     */
+    public static @NotNull List<Block> coalesce(
+            final @NotNull ModBusData.TYPE type, final @NotNull List<ModbusAdapterConfig.AddressRange> ranges) {
+        final List<ModbusAdapterConfig.AddressRange> sorted = new ArrayList<>(ranges.size());
+        for (final ModbusAdapterConfig.AddressRange range : ranges) {
+            if (!isValid(range)) {
+                log.warn("Skipping invalid modbus address range {}", range);
+                continue;
+            }
+            sorted.add(range);
+        }
+        sorted.sort(Comparator.comparingInt(range -> range.startIdx));
+
+        final int maxQuantity = maxQuantityPerRequest(type);
+        final List<Block> blocks = new ArrayList<>();
+        int blockStart = -1;
+        int blockEnd = -1;
+        for (final ModbusAdapterConfig.AddressRange range : sorted) {
+            if (blockStart >= 0 && range.startIdx <= blockEnd) {
+                blockEnd = Math.max(blockEnd, range.endIdx);
+                continue;
+            }
+            if (blockStart >= 0) {
+                blocks.add(new Block(blockStart, blockEnd - blockStart, maxQuantity));
+            }
+            blockStart = range.startIdx;
+            blockEnd = range.endIdx;
+        }
+        if (blockStart >= 0) {
+            blocks.add(new Block(blockStart, blockEnd - blockStart, maxQuantity));
+        }
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * A contiguous range of addresses that is read with one or more requests.
+     */
+    public static class Block {
+
+        private final int startIdx;
+        private final int count;
+        private final @NotNull List<Request> requests;
+
+        Block(final int startIdx, final int count, final int maxQuantity) {
+            this.startIdx = startIdx;
+            this.count = count;
+            final List<Request> requests = new ArrayList<>((count + maxQuantity - 1) / maxQuantity);
+            for (int offset = 0; offset < count; offset += maxQuantity) {
+                requests.add(new Request(startIdx + offset, offset, Math.min(maxQuantity, count - offset)));
+            }
+            this.requests = Collections.unmodifiableList(requests);
+        }
+
+        public int getStartIdx() {
+            return startIdx;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public @NotNull List<Request> getRequests() {
+            return requests;
+        }
+
+        public boolean contains(final @NotNull ModbusAdapterConfig.AddressRange range) {
+            return range.startIdx >= startIdx && range.endIdx <= startIdx + count;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return "Block{" + "startIdx=" + startIdx + ", count=" + count + ", requests=" + requests.size() + '}';
+        }
+    }
+
+    /**
+     * A single protocol request of a {@link Block}.
+     */
+    public static class Request {
+
+        private final int startIdx;
+        private final int offset;
+        private final int count;
+
+        Request(final int startIdx, final int offset, final int count) {
+            this.startIdx = startIdx;
+            this.offset = offset;
+            this.count = count;
+        }
+
+        public int getStartIdx() {
+            return startIdx;
+        }
+
+        /**
+         * @return the offset of the first address of this request inside of its block
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
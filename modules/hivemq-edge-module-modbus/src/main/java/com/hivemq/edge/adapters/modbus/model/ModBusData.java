@@ -18,8 +18,6 @@ package com.hivemq.edge.adapters.modbus.model;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.message.QoS;
 
-import java.util.Arrays;
-
 /**
  * @author Simon L Johnson
  */
@@ -31,7 +29,6 @@ public class ModBusData {
         HOLDING_REGISTERS,
     }
 
-    private Object[][]  data;
     private final long systemTime;
     private final TYPE type;
     private String topic;
@@ -52,10 +49,6 @@ public class ModBusData {
         return type;
     }
 
-    public Object[][] getData() {
-        return data;
-    }
-
     public String getTopic() {
         return topic;
     }
@@ -64,21 +57,11 @@ public class ModBusData {
         return qos;
     }
 
-    public void setData(int startIdx, Object[] data) {
-        Object[][] arr = new Object[data.length][2];
-        for(int i = 0; i < data.length; i++){
-            arr[i][0] = startIdx + i;
-            arr[i][1] = data[i];
-        }
-        this.data = arr;
-    }
-
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("ModBusData{");
         sb.append("systemTime=").append(systemTime);
         sb.append(", type=").append(type);
-        sb.append(", data=").append(Arrays.deepToString(data));
         sb.append('}');
         return sb.toString();
     }
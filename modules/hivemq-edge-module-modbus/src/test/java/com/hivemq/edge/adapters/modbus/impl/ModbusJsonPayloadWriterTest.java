@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.modules.adapters.impl.ProtocolAdapterPublisherJsonPayload;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ModbusJsonPayloadWriterTest {
+
+    private final ModbusJsonPayloadWriter writer = new ModbusJsonPayloadWriter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenRegistersWritten_thenPayloadMatchesGenericAdapterPayload() throws Exception {
+        final short[] registers = {0, 7, Short.MIN_VALUE, Short.MAX_VALUE, -1, 42};
+
+        final byte[] payload = writer.writeRegisters(100, registers, 1, 4, 1690000000000L);
+
+        assertArrayEquals(expected(100, new Object[]{(short) 7, Short.MIN_VALUE, Short.MAX_VALUE, (short) -1},
+                1690000000000L), payload);
+    }
+
+    @Test
+    void whenCoilsWritten_thenPayloadMatchesGenericAdapterPayload() throws Exception {
+        final BitSet coils = new BitSet();
+        coils.set(2);
+        coils.set(4);
+
+        final byte[] payload = writer.writeCoils(0, coils, 2, 3, 5L);
+
+        assertArrayEquals(expected(0, new Object[]{true, false, true}, 5L), payload);
+    }
+
+    @Test
+    void whenReportedValuesWritten_thenWholeNumbersAreWrittenLikeRegisters() throws Exception {
+        final double[] values = {7, 2.5, -1, 1.0E20};
+
+        final byte[] payload = writer.writeValues(10, values, 4, 1690000000000L);
+
+        assertArrayEquals(expected(10, new Object[]{(short) 7, 2.5, (short) -1, 1.0E20}, 1690000000000L), payload);
+    }
+
+    @Test
+    void whenReportedCoilsWritten_thenPayloadMatchesCoilPayload() throws Exception {
+        final double[] values = {1, 0, 1};
+
+        final byte[] payload = writer.writeBooleans(0, values, 3, 5L);
+
+        assertArrayEquals(expected(0, new Object[]{true, false, true}, 5L), payload);
+    }
+
+    @Test
+    void whenPayloadExceedsInitialBuffer_thenBufferGrowsAndIsReused() throws Exception {
+        final short[] registers = new short[500];
+        final Object[] boxed = new Object[registers.length];
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (short) (i * 131);
+            boxed[i] = registers[i];
+        }
+
+        assertArrayEquals(expected(1000, boxed, 1L), writer.writeRegisters(1000, registers, 0, 500, 1L));
+        assertArrayEquals(expected(0, new Object[]{(short) 0}, 2L), writer.writeRegisters(0, registers, 0, 1, 2L));
+    }
+
+    @Test
+    void whenNoValues_thenEmptyArrayIsWritten() throws Exception {
+        assertArrayEquals(expected(0, new Object[0], 3L), writer.writeRegisters(0, new short[0], 0, 0, 3L));
+    }
+
+    private byte[] expected(final int startIdx, final Object[] values, final long timestamp) throws Exception {
+        //-- the generic adapter payload of the values: pairs of the address and its value
+        final Object[][] data = new Object[values.length][2];
+        for (int i = 0; i < values.length; i++) {
+            data[i][0] = startIdx + i;
+            data[i][1] = values[i];
+        }
+        final ProtocolAdapterPublisherJsonPayload payload = new ProtocolAdapterPublisherJsonPayload();
+        payload.setValue(data);
+        payload.setTimestamp(timestamp);
+        return objectMapper.writeValueAsBytes(payload);
+    }
+}
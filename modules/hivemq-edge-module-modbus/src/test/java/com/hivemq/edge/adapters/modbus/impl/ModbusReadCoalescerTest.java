@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.modbus.impl;
+
+import com.hivemq.edge.adapters.modbus.ModbusAdapterConfig.AddressRange;
+import com.hivemq.edge.adapters.modbus.model.ModBusData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModbusReadCoalescerTest {
+
+    @Test
+    void whenRangesOverlapOrAreAdjacent_thenTheyAreMergedIntoOneBlock() {
+        final List<ModbusReadCoalescer.Block> blocks = ModbusReadCoalescer.coalesce(ModBusData.TYPE.HOLDING_REGISTERS,
+                List.of(new AddressRange(20, 30), new AddressRange(0, 10), new AddressRange(10, 15),
+                        new AddressRange(5, 12)));
+
+        assertEquals(2, blocks.size());
+        assertEquals(0, blocks.get(0).getStartIdx());
+        assertEquals(15, blocks.get(0).getCount());
+        assertEquals(1, blocks.get(0).getRequests().size());
+        assertEquals(20, blocks.get(1).getStartIdx());
+        assertEquals(10, blocks.get(1).getCount());
+    }
+
+    @Test
+    void whenBlockExceedsMaxRegisters_thenItIsSplitIntoLegalRequests() {
+        final List<ModbusReadCoalescer.Block> blocks = ModbusReadCoalescer.coalesce(ModBusData.TYPE.INPUT_REGISTERS,
+                List.of(new AddressRange(100, 200), new AddressRange(200, 400)));
+
+        assertEquals(1, blocks.size());
+        final List<ModbusReadCoalescer.Request> requests = blocks.get(0).getRequests();
+        assertEquals(3, requests.size());
+        assertEquals(100, requests.get(0).getStartIdx());
+        assertEquals(0, requests.get(0).getOffset());
+        assertEquals(ModbusReadCoalescer.MAX_REGISTERS_PER_REQUEST, requests.get(0).getCount());
+        assertEquals(225, requests.get(1).getStartIdx());
+        assertEquals(125, requests.get(1).getOffset());
+        assertEquals(ModbusReadCoalescer.MAX_REGISTERS_PER_REQUEST, requests.get(1).getCount());
+        assertEquals(350, requests.get(2).getStartIdx());
+        assertEquals(50, requests.get(2).getCount());
+    }
+
+    @Test
+    void whenCoils_thenTheCoilLimitApplies() {
+        final List<ModbusReadCoalescer.Block> blocks =
+                ModbusReadCoalescer.coalesce(ModBusData.TYPE.COILS, List.of(new AddressRange(0, 2500)));
+
+        assertEquals(2, blocks.get(0).getRequests().size());
+        assertEquals(ModbusReadCoalescer.MAX_COILS_PER_REQUEST, blocks.get(0).getRequests().get(0).getCount());
+        assertEquals(500, blocks.get(0).getRequests().get(1).getCount());
+    }
+
+    @Test
+    void whenBlockIsCreated_thenItContainsAllMergedRanges() {
+        final AddressRange first = new AddressRange(0, 10);
+        final AddressRange second = new AddressRange(8, 20);
+        final ModbusReadCoalescer.Block block =
+                ModbusReadCoalescer.coalesce(ModBusData.TYPE.HOLDING_REGISTERS, List.of(first, second)).get(0);
+
+        assertTrue(block.contains(first));
+        assertTrue(block.contains(second));
+        assertFalse(block.contains(new AddressRange(15, 21)));
+    }
+
+    @Test
+    void whenRangeIsInvalid_thenItIsSkipped() {
+        final List<ModbusReadCoalescer.Block> blocks = ModbusReadCoalescer.coalesce(ModBusData.TYPE.HOLDING_REGISTERS,
+                List.of(new AddressRange(5, 5), new AddressRange(-1, 3), new AddressRange(10, 12)));
+
+        assertEquals(1, blocks.size());
+        assertEquals(10, blocks.get(0).getStartIdx());
+        assertEquals(2, blocks.get(0).getCount());
+        assertFalse(ModbusReadCoalescer.isValid(new AddressRange(5, 5)));
+    }
+}
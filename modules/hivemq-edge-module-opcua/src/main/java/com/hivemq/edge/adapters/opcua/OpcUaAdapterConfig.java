@@ -155,6 +155,11 @@ public class OpcUaAdapterConfig extends AbstractProtocolAdapterConfig {
                            numberMax = 4294967295L)
         private @Nullable Integer messageExpiryInterval;
 
+        @JsonProperty("report-by-exception")
+        @ModuleConfigField(title = "Report by exception",
+                           description = "Publishes only the numeric values that changed by more than a deadband, optionally aggregated over a window")
+        private @Nullable AbstractProtocolAdapterConfig.ReportByException reportByException;
+
         public Subscription() {
         }
 
@@ -188,6 +193,10 @@ public class OpcUaAdapterConfig extends AbstractProtocolAdapterConfig {
             return messageExpiryInterval;
         }
 
+        public @Nullable AbstractProtocolAdapterConfig.ReportByException getReportByException() {
+            return reportByException;
+        }
+
         @Override
         public @NotNull String toString() {
             return "Subscription{" + "node=" + node + ", mqttTopic='" + mqttTopic + '\'' + '}';
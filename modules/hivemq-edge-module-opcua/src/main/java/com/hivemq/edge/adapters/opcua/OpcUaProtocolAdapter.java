@@ -19,7 +19,9 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.edge.adapters.opcua.client.OpcUaClientConfigurator;
 import com.hivemq.edge.adapters.opcua.client.OpcUaEndpointFilter;
+import com.hivemq.edge.adapters.opcua.client.OpcUaNodeBrowser;
 import com.hivemq.edge.adapters.opcua.client.OpcUaSubscriptionConsumer;
+import com.hivemq.edge.adapters.opcua.client.OpcUaSubscriptionGroups;
 import com.hivemq.edge.adapters.opcua.client.OpcUaSubscriptionListener;
 import com.hivemq.edge.modules.adapters.impl.AbstractProtocolAdapter;
 import com.hivemq.edge.modules.adapters.params.*;
@@ -30,40 +32,42 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import org.eclipse.milo.opcua.binaryschema.GenericBsdParser;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
+import org.eclipse.milo.opcua.sdk.client.api.UaSession;
 import org.eclipse.milo.opcua.sdk.client.dtd.DataTypeDictionarySessionInitializer;
-import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.UaException;
-import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
-import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
-import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseDirection;
-import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseResultMask;
-import org.eclipse.milo.opcua.stack.core.types.structured.BrowseDescription;
-import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResult;
-import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReferenceDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.function.BiConsumer;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNullElse;
-import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 
 public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements ProtocolAdapter {
     private static final Logger log = LoggerFactory.getLogger(OpcUaProtocolAdapter.class);
     private final @NotNull OpcUaAdapterConfig adapterConfig;
+    private static final long BROWSE_CACHE_TTL_SECONDS = 60;
+    private static final int BROWSE_MAX_NODES_PER_REQUEST = 50;
+    private static final int BROWSE_MAX_CONCURRENT_REQUESTS = 4;
+
     private @Nullable OpcUaClient opcUaClient;
+    private @Nullable OpcUaNodeBrowser nodeBrowser;
     private @NotNull Status status = Status.DISCONNECTED;
-    private final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap = new ConcurrentHashMap<>();
+    private final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap =
+            new ConcurrentHashMap<>();
+    private volatile int maxMonitoredItemsPerCall = OpcUaSubscriptionGroups.DEFAULT_MAX_MONITORED_ITEMS_PER_CALL;
 
     public OpcUaProtocolAdapter(
             final @NotNull ProtocolAdapterInformation adapterInformation,
@@ -141,6 +145,7 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
         return stop().thenApply(unused -> {
             subscriptionMap.clear();
             opcUaClient = null;
+            nodeBrowser = null;
             return null;
         });
     }
@@ -164,7 +169,7 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
             browseRoot = parsedNodeId.get();
         }
 
-        return browse(0, opcUaClient, browseRoot, null, (ref, parent) -> {
+        return Objects.requireNonNull(nodeBrowser).browse(browseRoot, input.getDepth(), (ref, parent) -> {
             final String name = ref.getBrowseName() != null ? ref.getBrowseName().getName() : "";
             final String displayName = ref.getDisplayName() != null ? ref.getDisplayName().getText() : "";
             final NodeType nodeType = getNodeType(ref);
@@ -175,7 +180,7 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
                             parent != null ? parent.getNodeId().toParseableString() : null,
                             nodeType != null ? nodeType : NodeType.VALUE,
                             nodeType != null && nodeType == NodeType.VALUE);
-        }, input.getDepth());
+        });
     }
 
     @Override
@@ -191,12 +196,12 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
     @NotNull
     private OpcUaSubscriptionListener createSubscriptionListener(@NotNull ProtocolAdapterStartInput input) {
         return new OpcUaSubscriptionListener(metricRegistry, adapterConfig.getId(), (subscription) -> {
-            //re-create a subscription on failure
-            final OpcUaAdapterConfig.Subscription subscriptionConfig =
-                    subscriptionMap.get(subscription.getSubscriptionId());
-            if (subscriptionConfig != null) {
+            //re-create the subscription with all of its monitored items on failure
+            final List<OpcUaAdapterConfig.Subscription> subscriptionGroup =
+                    subscriptionMap.remove(subscription.getSubscriptionId());
+            if (subscriptionGroup != null) {
                 try {
-                    subscribeToNode(subscriptionConfig, input.moduleServices().adapterPublishService()).get();
+                    subscribeToGroup(subscriptionGroup, input.moduleServices().adapterPublishService()).get();
                 } catch (InterruptedException | ExecutionException e) {
                     log.error("Not able to recreate OPC-UA subscription after transfer failure", e);
                 }
@@ -213,13 +218,23 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
         }
 
         final CompletableFuture<Void> resultFuture = new CompletableFuture<>();
-        final ImmutableList.Builder<CompletableFuture<Void>> subscribeFutures = ImmutableList.builder();
 
-        for (OpcUaAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
-            subscribeFutures.add(subscribeToNode(subscription, adapterPublishService));
-        }
-
-        CompletableFuture.allOf(subscribeFutures.build().toArray(new CompletableFuture[]{})).thenApply(unused -> {
+        readMaxMonitoredItemsPerCall().thenCompose(unused -> {
+            final ImmutableList.Builder<CompletableFuture<Void>> subscribeFutures = ImmutableList.builder();
+            final List<List<OpcUaAdapterConfig.Subscription>> groups =
+                    OpcUaSubscriptionGroups.group(adapterConfig.getSubscriptions(),
+                            OpcUaSubscriptionGroups.MAX_MONITORED_ITEMS_PER_SUBSCRIPTION);
+            if (log.isDebugEnabled()) {
+                log.debug("Subscribing to {} OPC-UA nodes with {} subscriptions for adapter {}",
+                        adapterConfig.getSubscriptions().size(),
+                        groups.size(),
+                        adapterConfig.getId());
+            }
+            for (final List<OpcUaAdapterConfig.Subscription> group : groups) {
+                subscribeFutures.add(subscribeToGroup(group, adapterPublishService));
+            }
+            return CompletableFuture.allOf(subscribeFutures.build().toArray(new CompletableFuture[]{}));
+        }).thenApply(unused -> {
             status = Status.CONNECTED;
             resultFuture.complete(null);
             return null;
@@ -239,32 +254,66 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
                 new OpcUaClientConfigurator(adapterConfig));
         //Decoding a struct with custom DataType requires a DataTypeManager, so we register one that updates each time a session is activated.
         opcUaClient.addSessionInitializer(new DataTypeDictionarySessionInitializer(new GenericBsdParser()));
+
+        final OpcUaNodeBrowser browser = new OpcUaNodeBrowser(opcUaClient,
+                BROWSE_CACHE_TTL_SECONDS,
+                TimeUnit.SECONDS,
+                BROWSE_MAX_NODES_PER_REQUEST,
+                BROWSE_MAX_CONCURRENT_REQUESTS);
+        //the address space may have changed while the session was down
+        opcUaClient.addSessionActivityListener(new SessionActivityListener() {
+            @Override
+            public void onSessionActive(final @NotNull UaSession session) {
+                browser.invalidate();
+            }
+        });
+        nodeBrowser = browser;
     }
 
-    private @NotNull CompletableFuture<Void> subscribeToNode(
-            final @NotNull OpcUaAdapterConfig.Subscription subscription,
+    /**
+     * Reads the max. amount of monitored items the server accepts per call from its operation limits. The server
+     * reports 0 if there is no limit, in this case and if the limit can not be read the default is used.
+     */
+    private @NotNull CompletableFuture<Void> readMaxMonitoredItemsPerCall() {
+        return Objects.requireNonNull(opcUaClient)
+                .readValue(0,
+                        TimestampsToReturn.Neither,
+                        Identifiers.Server_ServerCapabilities_OperationLimits_MaxMonitoredItemsPerCall)
+                .handle((dataValue, throwable) -> {
+                    final Object value = throwable == null ? dataValue.getValue().getValue() : null;
+                    if (value instanceof UInteger && ((UInteger) value).intValue() > 0) {
+                        maxMonitoredItemsPerCall = Math.min(((UInteger) value).intValue(),
+                                OpcUaSubscriptionGroups.DEFAULT_MAX_MONITORED_ITEMS_PER_CALL);
+                    } else {
+                        maxMonitoredItemsPerCall = OpcUaSubscriptionGroups.DEFAULT_MAX_MONITORED_ITEMS_PER_CALL;
+                    }
+                    return null;
+                });
+    }
+
+    private @NotNull CompletableFuture<Void> subscribeToGroup(
+            final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions,
             final @NotNull ProtocolAdapterPublishService adapterPublishService) {
         try {
 
             final CompletableFuture<Void> resultFuture = new CompletableFuture<>();
 
-            ReadValueId readValueId = new ReadValueId(NodeId.parse(subscription.getNode()),
-                    AttributeId.Value.uid(),
-                    null,
-                    QualifiedName.NULL_VALUE);
-
+            //all subscriptions of a group share the same publishing interval
             Objects.requireNonNull(opcUaClient)
                     .getSubscriptionManager()
-                    .createSubscription(subscription.getPublishingInterval())
-                    .thenAccept(new OpcUaSubscriptionConsumer(subscription,
-                            readValueId,
+                    .createSubscription(subscriptions.get(0).getPublishingInterval())
+                    .thenAccept(new OpcUaSubscriptionConsumer(subscriptions,
+                            maxMonitoredItemsPerCall,
                             adapterPublishService,
                             resultFuture,
                             opcUaClient,
                             subscriptionMap,
                             metricRegistry,
-                            adapterConfig.getId()));
-
+                            adapterConfig.getId()))
+                    .exceptionally(throwable -> {
+                        resultFuture.completeExceptionally(throwable);
+                        return null;
+                    });
 
             return resultFuture;
         } catch (Exception e) {
@@ -290,66 +339,4 @@ public class OpcUaProtocolAdapter extends AbstractProtocolAdapter implements Pro
         }
     }
 
-    private @NotNull CompletableFuture<Void> browse(
-            int indent,
-            final @NotNull OpcUaClient client,
-            final @NotNull NodeId browseRoot,
-            final @Nullable ReferenceDescription parent,
-            final @NotNull BiConsumer<ReferenceDescription, ReferenceDescription> callback,
-            final int depth) {
-        BrowseDescription browse = new BrowseDescription(browseRoot,
-                BrowseDirection.Forward,
-                null,
-                true,
-                uint(0),
-                uint(BrowseResultMask.All.getValue()));
-
-        try {
-            BrowseResult browseResult = client.browse(browse).get();
-            return handleBrowseResult(indent, client, parent, callback, depth, browseResult);
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Browsing nodeId={} failed: {}", browseRoot, e.getMessage(), e);
-            return CompletableFuture.failedFuture(e);
-        }
-    }
-
-    @NotNull
-    private CompletableFuture<Void> handleBrowseResult(
-            int indent,
-            @NotNull OpcUaClient client,
-            @Nullable ReferenceDescription parent,
-            @NotNull BiConsumer<ReferenceDescription, ReferenceDescription> callback,
-            int depth,
-            BrowseResult browseResult) throws InterruptedException, ExecutionException {
-        ReferenceDescription[] references = browseResult.getReferences();
-
-        final ImmutableList.Builder<CompletableFuture<Void>> childFutures = ImmutableList.builder();
-
-        if (references == null) {
-            return CompletableFuture.completedFuture(null);
-        }
-        for (ReferenceDescription rd : references) {
-            callback.accept(rd, parent);
-            // recursively browse to children
-            if (depth > 1) {
-                final Optional<NodeId> childNodeId = rd.getNodeId().toNodeId(client.getNamespaceTable());
-                childNodeId.ifPresent(nodeId -> childFutures.add(browse(indent + 1,
-                        client,
-                        nodeId,
-                        rd,
-                        callback,
-                        depth - 1)));
-            }
-        }
-
-        final ByteString continuationPoint = browseResult.getContinuationPoint();
-        if (continuationPoint != null && !continuationPoint.isNull()) {
-            final BrowseResult nextBrowseResult =
-                    Objects.requireNonNull(opcUaClient).browseNext(false, continuationPoint).get();
-            handleBrowseResult(indent, opcUaClient, parent, callback, depth, nextBrowseResult);
-        }
-
-        return CompletableFuture.allOf(childFutures.build().toArray(new CompletableFuture[]{}));
-    }
-
 }
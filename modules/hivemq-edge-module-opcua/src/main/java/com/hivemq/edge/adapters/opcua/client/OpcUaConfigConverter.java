@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.type.LogicalType;
 import com.google.common.collect.ObjectArrays;
 import com.hivemq.edge.adapters.opcua.OpcUaAdapterConfig;
 import com.hivemq.edge.modules.config.CustomConfig;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 
 import java.util.Map;
@@ -29,7 +30,35 @@ import java.util.Map;
 public class OpcUaConfigConverter {
 
     public static @NotNull OpcUaAdapterConfig convertConfig(@NotNull ObjectMapper objectMapper, final @NotNull Map<String, Object> config) {
-        return objectMapper.convertValue(config, OpcUaAdapterConfig.class);
+        final OpcUaAdapterConfig adapterConfig = objectMapper.convertValue(config, OpcUaAdapterConfig.class);
+        for (final OpcUaAdapterConfig.Subscription subscription : adapterConfig.getSubscriptions()) {
+            validateReportByException(subscription);
+        }
+        return adapterConfig;
+    }
+
+    /**
+     * The report by exception filter evaluates heartbeats and the end of tumbling windows when a value arrives, but a
+     * monitored item only delivers values when they change. These options would publish late or never, so they are
+     * rejected instead.
+     */
+    private static void validateReportByException(final @NotNull OpcUaAdapterConfig.Subscription subscription) {
+        final AbstractProtocolAdapterConfig.ReportByException reportByException = subscription.getReportByException();
+        if (reportByException == null) {
+            return;
+        }
+        if (reportByException.getMaxPublishIntervalMillis() > 0) {
+            throw new IllegalArgumentException("The maximum publish interval of subscription '" +
+                    subscription.getMqttTopic() +
+                    "' is not supported by OPC UA subscriptions, which only report changed values");
+        }
+        if (reportByException.getWindowMillis() > 0 &&
+                reportByException.getWindowType() == AbstractProtocolAdapterConfig.WindowType.TUMBLING) {
+            throw new IllegalArgumentException("The tumbling window of subscription '" +
+                    subscription.getMqttTopic() +
+                    "' is not supported by OPC UA subscriptions, which only report changed values. Use a sliding " +
+                    "window instead");
+        }
     }
 
     public static @NotNull Map<String, Object> unconvertConfig(final @NotNull ObjectMapper objectMapper, final @NotNull CustomConfig config) {
@@ -20,15 +20,19 @@ import com.codahale.metrics.MetricRegistry;
 import com.hivemq.edge.adapters.opcua.OpcUaAdapterConfig;
 import com.hivemq.edge.adapters.opcua.payload.OpcUaJsonPayloadConverter;
 import com.hivemq.edge.adapters.opcua.payload.OpcUaStringPayloadConverter;
+import com.hivemq.edge.modules.adapters.impl.ReportByExceptionFilter;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishBuilder;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishService;
+import com.hivemq.edge.modules.config.impl.AbstractProtocolAdapterConfig;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.mqtt.handler.publish.PublishReturnCode;
 import com.hivemq.util.Bytes;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +52,9 @@ public class OpcUaDataValueConsumer implements Consumer<DataValue> {
     private final @NotNull Counter publishSuccessCounter;
     private final @NotNull Counter publishFailedCounter;
     private final @NotNull String adapterId;
+    //-- the client delivers the values of a monitored item one after another, the filter needs no synchronization
+    private final @Nullable ReportByExceptionFilter filter;
+    private final @NotNull double[] sample = new double[1];
 
     public OpcUaDataValueConsumer(
             final @NotNull OpcUaAdapterConfig.Subscription subscription,
@@ -61,6 +68,9 @@ public class OpcUaDataValueConsumer implements Consumer<DataValue> {
         this.opcUaClient = opcUaClient;
         this.nodeId = nodeId;
         this.adapterId = adapterId;
+        this.filter = subscription.getReportByException() != null ?
+                new ReportByExceptionFilter(subscription.getReportByException(), 1) :
+                null;
 
         final String adapterPrefix =
                 HiveMQMetrics.PROTOCOL_ADAPTER_PREFIX + "opcua.client." + this.adapterId + ".read.publish.";
@@ -69,8 +79,12 @@ public class OpcUaDataValueConsumer implements Consumer<DataValue> {
     }
 
     @Override
-    public void accept(final @NotNull DataValue dataValue) {
+    public void accept(final @NotNull DataValue value) {
         try {
+            final DataValue dataValue = report(value);
+            if (dataValue == null) {
+                return;
+            }
 
             final ProtocolAdapterPublishBuilder publishBuilder = adapterPublishService.publish()
                     .withTopic(subscription.getMqttTopic())
@@ -109,6 +123,35 @@ public class OpcUaDataValueConsumer implements Consumer<DataValue> {
         }
     }
 
+    /**
+     * Numeric values are passed through the report by exception filter of the subscription, all other values are
+     * published as they are.
+     *
+     * @return the value to publish or null if the filter does not report the value
+     */
+    private @Nullable DataValue report(final @NotNull DataValue dataValue) {
+        final Object value = dataValue.getValue().getValue();
+        if (filter == null || !(value instanceof Number)) {
+            return dataValue;
+        }
+        sample[0] = ((Number) value).doubleValue();
+        final long timestamp = dataValue.getSourceTime() != null ?
+                dataValue.getSourceTime().getJavaTime() :
+                System.currentTimeMillis();
+        if (!filter.offer(sample, timestamp)) {
+            return null;
+        }
+        final AbstractProtocolAdapterConfig.ReportByException reportByException = subscription.getReportByException();
+        if (reportByException.getWindowMillis() <= 0) {
+            return dataValue;
+        }
+        //-- the aggregate of a window replaces the value
+        return new DataValue(new Variant(filter.getReport()[0]),
+                dataValue.getStatusCode(),
+                dataValue.getSourceTime(),
+                dataValue.getServerTime());
+    }
+
     private @NotNull byte[] convertPayload(
             DataValue dataValue, final @NotNull OpcUaAdapterConfig.PayloadMode payloadMode) {
         //null value, emtpy buffer
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua.client;
+
+import com.google.common.collect.Lists;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseDirection;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseResultMask;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseDescription;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReferenceDescription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * Browses the address space of an OPC UA server without blocking the calling thread.
+ * <p>
+ * The address space is browsed level by level. The nodes of a level are browsed with multi-node browse requests, at
+ * most the given amount of requests are in flight at the same time. Every reference is handed to the callback as soon
+ * as the request it belongs to completes, a parent is always handed over before its children.
+ * <p>
+ * The references of a node are cached for the given time to live, the cache must be invalidated when the session to
+ * the server is re-established.
+ */
+public class OpcUaNodeBrowser {
+
+    private final @NotNull OpcUaClient client;
+    private final long cacheTtlNanos;
+    private final int maxNodesPerRequest;
+    private final int maxConcurrentRequests;
+    private final @NotNull Map<NodeId, CachedReferences> cache = new ConcurrentHashMap<>();
+
+    public OpcUaNodeBrowser(
+            final @NotNull OpcUaClient client,
+            final long cacheTtl,
+            final @NotNull TimeUnit cacheTtlUnit,
+            final int maxNodesPerRequest,
+            final int maxConcurrentRequests) {
+        this.client = client;
+        this.cacheTtlNanos = cacheTtlUnit.toNanos(cacheTtl);
+        this.maxNodesPerRequest = maxNodesPerRequest;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @param callback called with each reference and the reference of its parent, the parent is <code>null</code> for
+     *                 the references of the root node. The callback may be called from different threads.
+     */
+    public @NotNull CompletableFuture<Void> browse(
+            final @NotNull NodeId root,
+            final int depth,
+            final @NotNull BiConsumer<ReferenceDescription, ReferenceDescription> callback) {
+        return browseLevel(List.of(new Node(root, null)), depth, callback);
+    }
+
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private @NotNull CompletableFuture<Void> browseLevel(
+            final @NotNull List<Node> level,
+            final int depth,
+            final @NotNull BiConsumer<ReferenceDescription, ReferenceDescription> callback) {
+        final List<Node> nextLevel = Collections.synchronizedList(new ArrayList<>());
+        final List<Node> uncached = new ArrayList<>();
+        for (final Node node : level) {
+            final List<ReferenceDescription> references = cachedReferences(node.nodeId);
+            if (references != null) {
+                handleReferences(node, references, depth, callback, nextLevel);
+            } else {
+                uncached.add(node);
+            }
+        }
+
+        //-- the requests are spread over lanes, each lane sends its requests one after the other
+        final List<List<Node>> requests = Lists.partition(uncached, maxNodesPerRequest);
+        final CompletableFuture<?>[] lanes = new CompletableFuture[Math.min(maxConcurrentRequests, requests.size())];
+        Arrays.fill(lanes, CompletableFuture.completedFuture(null));
+        for (int i = 0; i < requests.size(); i++) {
+            final List<Node> request = requests.get(i);
+            lanes[i % lanes.length] = lanes[i % lanes.length].thenCompose(unused -> browseNodes(request))
+                    .thenAccept(results -> {
+                        for (int j = 0; j < request.size(); j++) {
+                            handleReferences(request.get(j), results.get(j), depth, callback, nextLevel);
+                        }
+                    });
+        }
+
+        return CompletableFuture.allOf(lanes).thenCompose(unused -> {
+            if (nextLevel.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return browseLevel(List.copyOf(nextLevel), depth - 1, callback);
+        });
+    }
+
+    private void handleReferences(
+            final @NotNull Node node,
+            final @NotNull List<ReferenceDescription> references,
+            final int depth,
+            final @NotNull BiConsumer<ReferenceDescription, ReferenceDescription> callback,
+            final @NotNull List<Node> nextLevel) {
+        for (final ReferenceDescription reference : references) {
+            callback.accept(reference, node.reference);
+            // browse the children with the next level
+            if (depth > 1) {
+                final Optional<NodeId> childNodeId = reference.getNodeId().toNodeId(client.getNamespaceTable());
+                childNodeId.ifPresent(nodeId -> nextLevel.add(new Node(nodeId, reference)));
+            }
+        }
+    }
+
+    private @Nullable List<ReferenceDescription> cachedReferences(final @NotNull NodeId nodeId) {
+        final CachedReferences cached = cache.get(nodeId);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.createdNanos > cacheTtlNanos) {
+            cache.remove(nodeId, cached);
+            return null;
+        }
+        return cached.references;
+    }
+
+    private @NotNull CompletableFuture<List<List<ReferenceDescription>>> browseNodes(final @NotNull List<Node> nodes) {
+        final List<BrowseDescription> browseDescriptions = new ArrayList<>(nodes.size());
+        for (final Node node : nodes) {
+            browseDescriptions.add(new BrowseDescription(node.nodeId,
+                    BrowseDirection.Forward,
+                    null,
+                    true,
+                    uint(0),
+                    uint(BrowseResultMask.All.getValue())));
+        }
+        return client.browse(browseDescriptions).thenCompose(browseResults -> {
+            final List<CompletableFuture<List<ReferenceDescription>>> referenceFutures =
+                    new ArrayList<>(browseResults.size());
+            for (int i = 0; i < browseResults.size(); i++) {
+                final NodeId nodeId = nodes.get(i).nodeId;
+                final BrowseResult browseResult = browseResults.get(i);
+                referenceFutures.add(collectReferences(browseResult, new ArrayList<>()).thenApply(references -> {
+                    //-- failed browse results are not cached, so they are retried with the next discovery
+                    if (browseResult.getStatusCode() == null || browseResult.getStatusCode().isGood()) {
+                        cache.put(nodeId, new CachedReferences(references, System.nanoTime()));
+                    }
+                    return references;
+                }));
+            }
+            return CompletableFuture.allOf(referenceFutures.toArray(new CompletableFuture[0])).thenApply(unused -> {
+                final List<List<ReferenceDescription>> references = new ArrayList<>(referenceFutures.size());
+                for (final CompletableFuture<List<ReferenceDescription>> referenceFuture : referenceFutures) {
+                    references.add(referenceFuture.join());
+                }
+                return references;
+            });
+        });
+    }
+
+    /**
+     * Follows the continuation points of the result until all references of the node are read.
+     */
+    private @NotNull CompletableFuture<List<ReferenceDescription>> collectReferences(
+            final @NotNull BrowseResult browseResult, final @NotNull List<ReferenceDescription> collected) {
+        final ReferenceDescription[] references = browseResult.getReferences();
+        if (references != null) {
+            collected.addAll(Arrays.asList(references));
+        }
+        final ByteString continuationPoint = browseResult.getContinuationPoint();
+        if (continuationPoint == null || continuationPoint.isNull()) {
+            return CompletableFuture.completedFuture(collected);
+        }
+        return client.browseNext(false, continuationPoint)
+                .thenCompose(nextBrowseResult -> collectReferences(nextBrowseResult, collected));
+    }
+
+    private static class Node {
+
+        private final @NotNull NodeId nodeId;
+        private final @Nullable ReferenceDescription reference;
+
+        Node(final @NotNull NodeId nodeId, final @Nullable ReferenceDescription reference) {
+            this.nodeId = nodeId;
+            this.reference = reference;
+        }
+    }
+
+    private static class CachedReferences {
+
+        private final @NotNull List<ReferenceDescription> references;
+        private final long createdNanos;
+
+        CachedReferences(final @NotNull List<ReferenceDescription> references, final long createdNanos) {
+            this.references = references;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.hivemq.edge.adapters.opcua.client;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
 import com.hivemq.edge.adapters.opcua.OpcUaAdapterConfig;
 import com.hivemq.edge.adapters.opcua.OpcUaException;
 import com.hivemq.edge.modules.api.adapters.ProtocolAdapterPublishService;
@@ -23,6 +24,9 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
@@ -32,6 +36,7 @@ import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -39,29 +44,33 @@ import java.util.function.Consumer;
 
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 
+/**
+ * Creates the monitored items of a group of node subscriptions on one shared OPC UA subscription. The items are created
+ * in batches of at most the max. monitored items per call the server supports, one batch after the other.
+ */
 public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
     private static final Logger log = LoggerFactory.getLogger(OpcUaSubscriptionConsumer.class);
 
-    private final @NotNull OpcUaAdapterConfig.@NotNull Subscription subscription;
-    private final @NotNull ReadValueId readValueId;
+    private final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions;
+    private final int maxMonitoredItemsPerCall;
     private final @NotNull ProtocolAdapterPublishService adapterPublishService;
     private final @NotNull CompletableFuture<Void> resultFuture;
     private final @NotNull OpcUaClient opcUaClient;
-    private final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap;
+    private final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap;
     private final @NotNull MetricRegistry metricRegistry;
     private final @NotNull String adapterId;
 
     public OpcUaSubscriptionConsumer(
-            final @NotNull OpcUaAdapterConfig.Subscription subscription,
-            final @NotNull ReadValueId readValueId,
+            final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions,
+            final int maxMonitoredItemsPerCall,
             final @NotNull ProtocolAdapterPublishService adapterPublishService,
             final @NotNull CompletableFuture<Void> resultFuture,
             final @NotNull OpcUaClient opcUaClient,
-            final @NotNull Map<UInteger, OpcUaAdapterConfig.Subscription> subscriptionMap,
+            final @NotNull Map<UInteger, List<OpcUaAdapterConfig.Subscription>> subscriptionMap,
             final @NotNull MetricRegistry metricRegistry,
             final @NotNull String adapterId) {
-        this.subscription = subscription;
-        this.readValueId = readValueId;
+        this.subscriptions = subscriptions;
+        this.maxMonitoredItemsPerCall = maxMonitoredItemsPerCall;
         this.adapterPublishService = adapterPublishService;
         this.resultFuture = resultFuture;
         this.opcUaClient = opcUaClient;
@@ -73,28 +82,52 @@ public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
     @Override
     public void accept(final UaSubscription uaSubscription) {
 
-        subscriptionMap.put(uaSubscription.getSubscriptionId(), subscription);
-        // create a new client handle, these have to be unique for each handle.
-        UInteger clientHandle = uaSubscription.nextClientHandle();
+        subscriptionMap.put(uaSubscription.getSubscriptionId(), subscriptions);
+
+        CompletableFuture<Void> batchesFuture = CompletableFuture.completedFuture(null);
+        for (final List<OpcUaAdapterConfig.Subscription> batch : Lists.partition(subscriptions,
+                maxMonitoredItemsPerCall)) {
+            batchesFuture = batchesFuture.thenCompose(unused -> createMonitoredItems(uaSubscription, batch));
+        }
+        batchesFuture.thenAccept(unused -> resultFuture.complete(null)).exceptionally(monitorThrowable -> {
+            resultFuture.completeExceptionally(monitorThrowable);
+            return null;
+        });
+    }
+
+    private @NotNull CompletableFuture<Void> createMonitoredItems(
+            final @NotNull UaSubscription uaSubscription, final @NotNull List<OpcUaAdapterConfig.Subscription> batch) {
+        final List<MonitoredItemCreateRequest> requests = new ArrayList<>(batch.size());
+        final List<NodeId> nodeIds = new ArrayList<>(batch.size());
+        for (final OpcUaAdapterConfig.Subscription subscription : batch) {
+            final ReadValueId readValueId = new ReadValueId(NodeId.parse(subscription.getNode()),
+                    AttributeId.Value.uid(),
+                    null,
+                    QualifiedName.NULL_VALUE);
+
+            // create a new client handle, these have to be unique for each handle.
+            final UInteger clientHandle = uaSubscription.nextClientHandle();
 
-        MonitoringParameters parameters = new MonitoringParameters(clientHandle,
-                (double) subscription.getPublishingInterval(),
-                null,
-                uint(subscription.getServerQueueSize()),
-                true);
+            final MonitoringParameters parameters = new MonitoringParameters(clientHandle,
+                    (double) subscription.getPublishingInterval(),
+                    null,
+                    uint(subscription.getServerQueueSize()),
+                    true);
 
-        MonitoredItemCreateRequest request =
-                new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+            requests.add(new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters));
+            nodeIds.add(readValueId.getNodeId());
+        }
 
-        UaSubscription.ItemCreationCallback onItemCreated =
-                (item, id) -> item.setValueConsumer(new OpcUaDataValueConsumer(subscription,
+        //the index is the position of the item in the requests of this batch
+        final UaSubscription.ItemCreationCallback onItemCreated =
+                (item, index) -> item.setValueConsumer(new OpcUaDataValueConsumer(batch.get(index),
                         adapterPublishService,
                         opcUaClient,
-                        readValueId.getNodeId(),
+                        nodeIds.get(index),
                         metricRegistry,
                         adapterId));
 
-        uaSubscription.createMonitoredItems(TimestampsToReturn.Both, List.of(request), onItemCreated)
+        return uaSubscription.createMonitoredItems(TimestampsToReturn.Both, requests, onItemCreated)
                 .thenAccept(items -> {
                     for (UaMonitoredItem item : items) {
                         if (item.getStatusCode().isGood()) {
@@ -113,11 +146,6 @@ public class OpcUaSubscriptionConsumer implements Consumer<UaSubscription> {
                                     "')");
                         }
                     }
-                    resultFuture.complete(null);
-                })
-                .exceptionally(monitorThrowable -> {
-                    resultFuture.completeExceptionally(monitorThrowable);
-                    return null;
                 });
     }
 }
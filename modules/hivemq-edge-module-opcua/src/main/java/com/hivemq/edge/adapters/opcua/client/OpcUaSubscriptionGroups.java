@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua.client;
+
+import com.google.common.collect.Lists;
+import com.hivemq.edge.adapters.opcua.OpcUaAdapterConfig;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the configured node subscriptions into shared OPC UA subscriptions. The publishing interval is a property of
+ * the OPC UA subscription, so only nodes with the same publishing interval can share one. Large groups are split so a
+ * single OPC UA subscription never exceeds the given amount of monitored items.
+ */
+public class OpcUaSubscriptionGroups {
+
+    public static final int MAX_MONITORED_ITEMS_PER_SUBSCRIPTION = 1000;
+    public static final int DEFAULT_MAX_MONITORED_ITEMS_PER_CALL = 500;
+
+    private OpcUaSubscriptionGroups() {
+    }
+
+    /**
+     * @return the groups in the order of the first occurrence of their publishing interval, every group holds the
+     *         subscriptions in configuration order
+     */
+    public static @NotNull List<List<OpcUaAdapterConfig.Subscription>> group(
+            final @NotNull List<OpcUaAdapterConfig.Subscription> subscriptions, final int maxItemsPerSubscription) {
+        if (maxItemsPerSubscription < 1) {
+            throw new IllegalArgumentException("The max. amount of monitored items per subscription must be positive");
+        }
+        final Map<Integer, List<OpcUaAdapterConfig.Subscription>> byInterval = new LinkedHashMap<>();
+        for (final OpcUaAdapterConfig.Subscription subscription : subscriptions) {
+            byInterval.computeIfAbsent(subscription.getPublishingInterval(), interval -> new ArrayList<>())
+                    .add(subscription);
+        }
+        final List<List<OpcUaAdapterConfig.Subscription>> groups = new ArrayList<>();
+        for (final List<OpcUaAdapterConfig.Subscription> sameInterval : byInterval.values()) {
+            groups.addAll(Lists.partition(sameInterval, maxItemsPerSubscription));
+        }
+        return groups;
+    }
+}
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.Files;
 import com.hivemq.configuration.entity.HiveMQConfigEntity;
 import com.hivemq.configuration.reader.*;
+import com.hivemq.edge.adapters.opcua.client.OpcUaConfigConverter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -30,6 +31,7 @@ import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 class OpcUaConfigConverterTest {
@@ -110,4 +112,27 @@ class OpcUaConfigConverterTest {
 
     }
 
+    @Test
+    public void whenHeartbeatOrTumblingWindow_thenReportByExceptionIsRejected() {
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> OpcUaConfigConverter.convertConfig(objectMapper,
+                        config(Map.of("maxPublishIntervalMillis", 1000))));
+        assertThrows(IllegalArgumentException.class,
+                () -> OpcUaConfigConverter.convertConfig(objectMapper, config(Map.of("windowMillis", 1000))));
+
+        final OpcUaAdapterConfig adapterConfig = OpcUaConfigConverter.convertConfig(objectMapper,
+                config(Map.of("windowMillis", 1000, "windowType", "SLIDING", "absoluteDeadband", 1)));
+        assertNotNull(adapterConfig.getSubscriptions().get(0).getReportByException());
+    }
+
+    private static Map<String, Object> config(final Map<String, Object> reportByException) {
+        return Map.of("id",
+                "adapter",
+                "uri",
+                "opc.tcp://localhost:53530",
+                "subscriptions",
+                List.of(Map.of("node", "ns=1;i=1004", "mqtt-topic", "test", "report-by-exception", reportByException)));
+    }
 }
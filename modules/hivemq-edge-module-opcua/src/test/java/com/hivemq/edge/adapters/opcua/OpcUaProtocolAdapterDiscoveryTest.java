@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.edge.modules.adapters.impl.ProtocolAdapterDiscoveryOutputImpl;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterDiscoveryInput;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterStartInput;
+import com.hivemq.edge.modules.adapters.params.ProtocolAdapterStartOutput;
+import com.hivemq.edge.modules.api.adapters.ModuleServices;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.protocols.params.NodeTreeImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import util.EmbeddedOpcUaServerExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings("NullabilityAnnotations")
+class OpcUaProtocolAdapterDiscoveryTest {
+
+    private static final String SERVER_NODE_ID = "i=2253";
+
+    @RegisterExtension
+    public final @NotNull EmbeddedOpcUaServerExtension opcUaServerExtension = new EmbeddedOpcUaServerExtension();
+
+    @Test
+    @Timeout(10)
+    public void whenDepthTwo_thenChildrenAreAddedBelowTheirParents() throws Exception {
+        final OpcUaProtocolAdapter protocolAdapter = startAdapter();
+
+        final ProtocolAdapterDiscoveryOutputImpl output = new ProtocolAdapterDiscoveryOutputImpl();
+        protocolAdapter.discoverValues(new TestDiscoveryInput(null, 2), output).get();
+
+        final Optional<NodeTreeImpl.ObjectNode> serverNode =
+                findServerNode(output.getNodeTree().getRootNode().getChildren());
+        assertTrue(serverNode.isPresent());
+        assertFalse(serverNode.get().getChildren().isEmpty());
+    }
+
+    @Test
+    @Timeout(10)
+    public void whenDiscoveredTwice_thenSameTreeIsReturned() throws Exception {
+        final OpcUaProtocolAdapter protocolAdapter = startAdapter();
+
+        final ProtocolAdapterDiscoveryOutputImpl first = new ProtocolAdapterDiscoveryOutputImpl();
+        protocolAdapter.discoverValues(new TestDiscoveryInput(SERVER_NODE_ID, 1), first).get();
+        final ProtocolAdapterDiscoveryOutputImpl second = new ProtocolAdapterDiscoveryOutputImpl();
+        protocolAdapter.discoverValues(new TestDiscoveryInput(SERVER_NODE_ID, 1), second).get();
+
+        assertFalse(first.getNodeTree().getRootNode().getChildren().isEmpty());
+        assertEquals(first.getNodeTree().toString(), second.getNodeTree().toString());
+    }
+
+    private @NotNull OpcUaProtocolAdapter startAdapter() throws Exception {
+        final OpcUaAdapterConfig config = new OpcUaAdapterConfig("test", opcUaServerExtension.getServerUri());
+        final OpcUaProtocolAdapter protocolAdapter =
+                new OpcUaProtocolAdapter(OpcUaProtocolAdapterInformation.INSTANCE, config, new MetricRegistry());
+        protocolAdapter.start(new TestProtocolAdapterStartInput(), mock(ProtocolAdapterStartOutput.class)).get();
+        return protocolAdapter;
+    }
+
+    private static @NotNull Optional<NodeTreeImpl.ObjectNode> findServerNode(
+            final @NotNull List<NodeTreeImpl.ObjectNode> nodes) {
+        return nodes.stream().filter(node -> SERVER_NODE_ID.equals(node.getId())).findFirst();
+    }
+
+    private static class TestDiscoveryInput implements ProtocolAdapterDiscoveryInput {
+
+        private final @Nullable String rootNode;
+        private final int depth;
+
+        TestDiscoveryInput(final @Nullable String rootNode, final int depth) {
+            this.rootNode = rootNode;
+            this.depth = depth;
+        }
+
+        @Override
+        public @Nullable String getRootNode() {
+            return rootNode;
+        }
+
+        @Override
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    private static class TestProtocolAdapterStartInput implements ProtocolAdapterStartInput {
+
+        @Override
+        public @NotNull ModuleServices moduleServices() {
+            return mock(ModuleServices.class);
+        }
+    }
+}
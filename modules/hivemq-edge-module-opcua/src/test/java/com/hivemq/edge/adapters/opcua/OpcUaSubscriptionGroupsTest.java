@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.edge.adapters.opcua;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.edge.adapters.opcua.client.OpcUaSubscriptionGroups;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OpcUaSubscriptionGroupsTest {
+
+    private final @NotNull ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenSamePublishingInterval_thenNodesShareOneGroup() {
+        final List<OpcUaAdapterConfig.Subscription> subscriptions = List.of(subscription("ns=1;i=1", 1000),
+                subscription("ns=1;i=2", 100),
+                subscription("ns=1;i=3", 1000),
+                subscription("ns=1;i=4", 100));
+
+        final List<List<OpcUaAdapterConfig.Subscription>> groups = OpcUaSubscriptionGroups.group(subscriptions, 10);
+
+        assertEquals(2, groups.size());
+        assertEquals(List.of(subscriptions.get(0), subscriptions.get(2)), groups.get(0));
+        assertEquals(List.of(subscriptions.get(1), subscriptions.get(3)), groups.get(1));
+    }
+
+    @Test
+    void whenGroupExceedsMaxItems_thenGroupIsSplit() {
+        final List<OpcUaAdapterConfig.Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            subscriptions.add(subscription("ns=1;i=" + i, 500));
+        }
+
+        final List<List<OpcUaAdapterConfig.Subscription>> groups = OpcUaSubscriptionGroups.group(subscriptions, 10);
+
+        assertEquals(3, groups.size());
+        assertEquals(10, groups.get(0).size());
+        assertEquals(10, groups.get(1).size());
+        assertEquals(5, groups.get(2).size());
+        assertEquals(subscriptions.get(20), groups.get(2).get(0));
+    }
+
+    @Test
+    void whenNoSubscriptions_thenNoGroups() {
+        assertEquals(List.of(), OpcUaSubscriptionGroups.group(List.of(), 10));
+    }
+
+    @Test
+    void whenMaxItemsNotPositive_thenIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> OpcUaSubscriptionGroups.group(List.of(subscription("ns=1;i=1", 1000)), 0));
+    }
+
+    private @NotNull OpcUaAdapterConfig.Subscription subscription(
+            final @NotNull String node, final int publishingInterval) {
+        return objectMapper.convertValue(Map.of("node",
+                node,
+                "mqtt-topic",
+                "topic/" + node,
+                "publishing-interval",
+                publishingInterval), OpcUaAdapterConfig.Subscription.class);
+    }
+}
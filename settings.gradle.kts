@@ -7,6 +7,8 @@ includeBuild("./hivemq-edge")
 includeBuild("./modules/hivemq-edge-module-modbus")
 includeBuild("./modules/hivemq-edge-module-opcua")
 
+includeBuild("./hivemq-edge-benchmarks")
+
 
 
 